@@ -1,1911 +1,4250 @@
 package com.officedrop.redis.failover;
 
 import com.officedrop.redis.failover.jedis.ClientFunction;
+import com.officedrop.redis.failover.jedis.ClientRouter;
 import com.officedrop.redis.failover.jedis.JedisClient;
 import com.officedrop.redis.failover.jedis.JedisClientFactory;
-import com.officedrop.redis.failover.utils.CircularList;
+import com.officedrop.redis.failover.jedis.PipelineActions;
+import com.officedrop.redis.failover.jedis.RoutedPipeline;
+import com.officedrop.redis.failover.strategy.ReplicaSelector;
+import com.officedrop.redis.failover.strategy.RoundRobinReplicaSelector;
+import com.officedrop.redis.failover.utils.DaemonThreadPoolFactory;
+import com.officedrop.redis.failover.utils.Function;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import redis.clients.jedis.BinaryClient;
 import redis.clients.jedis.SortingParams;
 import redis.clients.jedis.Tuple;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.util.SafeEncoder;
 
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /**
  * User: Maurício Linhares
  * Date: 12/17/12
  * Time: 7:04 PM
  */
-public class Client implements JedisClient, NodeManagerListener {
+public class Client implements JedisClient, NodeManagerListener, ClientRouter {
 
     private static final Logger log = LoggerFactory.getLogger(Client.class);
 
-    private ClusterChangeEventSource nodeManager;
-    private JedisClientFactory factory;
-    private JedisClient master;
-    private CircularList<JedisClient> slaves;
-
+    public static final int DEFAULT_MULTI_KEY_CHUNK_SIZE = 500;
+
+    private static final ExecutorService DEFAULT_MULTI_KEY_EXECUTOR =
+            DaemonThreadPoolFactory.newFixedPool(Runtime.getRuntime().availableProcessors() * 2);
+
+    private final ClusterChangeEventSource nodeManager;
+    private final HostConnectionPools pools;
+    private final ReplicaSelector replicaSelector;
+    private final ClusterRouting routing;
+    private final boolean ownsPools;
+    private volatile ReadableSlaves readableSlaves;
+    private volatile long maxReplicationLag = Long.MAX_VALUE;
+    private volatile RecentWrites recentWrites;
+    private volatile NearCache nearCache;
+    private volatile SingleFlight singleFlight;
+    private volatile long failoverRetryTimeout;
+    private volatile RetryBudget retryBudget = new RetryBudget();
+    private volatile int multiKeyChunkSize = DEFAULT_MULTI_KEY_CHUNK_SIZE;
+    private volatile ExecutorService multiKeyExecutor = DEFAULT_MULTI_KEY_EXECUTOR;
+    private volatile boolean closed;
+
+    /**
+     * Creates a client that acquires the pools shared for the factory and releases them on {@link #quit()}.
+     */
     public Client(ClusterChangeEventSource nodeManager, JedisClientFactory factory) {
-        this.factory = factory;
-        this.nodeManager = nodeManager;
+        this(new ClusterRouting(nodeManager, HostConnectionPools.acquire(factory), new RoundRobinReplicaSelector()), true);
+    }
 
-        this.nodeManager.addListeners(this);
+    public Client(ClusterChangeEventSource nodeManager, HostConnectionPools pools) {
+        this(nodeManager, pools, new RoundRobinReplicaSelector());
+    }
+
+    public Client(ClusterChangeEventSource nodeManager, HostConnectionPools pools, ReplicaSelector replicaSelector) {
+        this(new ClusterRouting(nodeManager, pools, replicaSelector));
+    }
+
+    /**
+     * Creates a client that routes through a {@link ClusterRouting} shared with other clients of the same
+     * cluster instead of keeping its own view of the master and slaves.
+     */
+    public Client(ClusterRouting routing) {
+        this(routing, false);
+    }
 
-        this.updateMaster();
-        this.updateSlaves();
+    private Client(ClusterRouting routing, boolean ownsPools) {
+        this.routing = routing;
+        this.ownsPools = ownsPools;
+        this.pools = routing.getPools();
+        this.replicaSelector = routing.getReplicaSelector();
+        this.nodeManager = routing.getSource();
+
+        this.nodeManager.addListeners(this);
     }
 
     @Override
     public void masterChanged(final NodeManager manager, final ClusterStatus status) {
         log.info("Master has changed -> {}", status.getMaster());
-        this.updateMaster();
+        this.routing.update(true);
+
+        NearCache cache = this.nearCache;
+
+        if ( cache != null ) {
+            cache.clear();
+        }
     }
 
     @Override
     public void slavesChanged(final NodeManager manager, final ClusterStatus status) {
         log.info("Slaves have changed -> {}", status.getSlaves());
-        this.updateSlaves();
+        this.routing.update(false);
+    }
+
+    /**
+     * Slaves more than maxReplicationLag milliseconds behind the master stop receiving reads, slaves that
+     * are loading or syncing never receive reads. Defaults to no limit.
+     */
+    public void setMaxReplicationLag(long maxReplicationLag) {
+        if ( maxReplicationLag < 0 ) {
+            throw new IllegalArgumentException("Max replication lag can't be negative - " + maxReplicationLag);
+        }
+
+        this.maxReplicationLag = maxReplicationLag;
+        this.readableSlaves = null;
     }
 
-    private void updateMaster() {
-        this.quitMaster();
-        this.master = this.factory.create(this.nodeManager.getLastClusterStatus().getMaster());
+    public long getMaxReplicationLag() {
+        return this.maxReplicationLag;
     }
 
-    private void updateSlaves() {
-        this.quitSlaves();
+    /**
+     * Turns on read-your-writes. Keys written through this client are read from the master while the
+     * recent writes still consider them recent, the same RecentWrites can be shared by many clients.
+     * Setting it to null goes back to reading everything from the slaves.
+     */
+    public void setRecentWrites(RecentWrites recentWrites) {
+        this.recentWrites = recentWrites;
+    }
 
-        List<JedisClient> slaveClients = new ArrayList<JedisClient>();
+    public RecentWrites getRecentWrites() {
+        return this.recentWrites;
+    }
 
-        for ( HostConfiguration configuration : this.nodeManager.getLastClusterStatus().getSlaves() ) {
-            slaveClients.add(this.factory.create(configuration));
+    /**
+     * Caches get, hget and smembers results in process. Writes made through this client invalidate the
+     * written keys and a master change clears the whole cache. Setting it to null turns caching off.
+     */
+    public void setNearCache(NearCache nearCache) {
+        this.nearCache = nearCache;
+    }
+
+    public NearCache getNearCache() {
+        return this.nearCache;
+    }
+
+    /**
+     * Coalesces concurrent get, hget, hgetAll and smembers calls for the same key, see {@link SingleFlight}.
+     * Setting it to null turns coalescing off.
+     */
+    public void setSingleFlight(SingleFlight singleFlight) {
+        this.singleFlight = singleFlight;
+    }
+
+    public SingleFlight getSingleFlight() {
+        return this.singleFlight;
+    }
+
+    /**
+     * Reads of keys this client just wrote don't join a flight, it could have been started at a slave
+     * before the write and would return the old value.
+     */
+    private SingleFlight readCoalescing( String key ) {
+        SingleFlight flight = this.singleFlight;
+
+        if ( flight == null || ReadPreference.currentMaxStaleness() != null ) {
+            return null;
         }
 
-        this.slaves = new CircularList<JedisClient>(slaveClients);
+        RecentWrites writes = this.recentWrites;
+
+        return writes != null && writes.isRecent(key) ? null : flight;
     }
 
-    private void quitMaster() {
-        if (this.master != null) {
-            try {
-                this.master.quit();
-            } catch (Exception e) {
-                log.error("Failed while closing the connection to master", e);
-            }
+    private NearCache readCache() {
+        NearCache cache = this.nearCache;
+        return cache == null || ReadPreference.currentMaxStaleness() != null ? null : cache;
+    }
+
+    /**
+     * How long a command that failed on the master because of a failover waits for the new master to be
+     * announced before being retried on it. Reads are always retried, writes only inside
+     * {@link RetryableWrites#with(com.officedrop.redis.failover.utils.Function)}. Zero, the default, turns
+     * retries off.
+     */
+    public void setFailoverRetryTimeout(long failoverRetryTimeout) {
+        if ( failoverRetryTimeout < 0 ) {
+            throw new IllegalArgumentException("Failover retry timeout can't be negative - " + failoverRetryTimeout);
         }
+
+        this.failoverRetryTimeout = failoverRetryTimeout;
+    }
+
+    public long getFailoverRetryTimeout() {
+        return this.failoverRetryTimeout;
+    }
+
+    public void setRetryBudget(RetryBudget retryBudget) {
+        if ( retryBudget == null ) {
+            throw new NullPointerException("The retry budget can't be null");
+        }
+
+        this.retryBudget = retryBudget;
+    }
+
+    public RetryBudget getRetryBudget() {
+        return this.retryBudget;
+    }
+
+    /**
+     * How many keys a single mget, mset or del sends to redis, larger lists are split in chunks.
+     */
+    public void setMultiKeyChunkSize(int multiKeyChunkSize) {
+        if ( multiKeyChunkSize < 1 ) {
+            throw new IllegalArgumentException("Chunk size must be positive - " + multiKeyChunkSize);
+        }
+
+        this.multiKeyChunkSize = multiKeyChunkSize;
+    }
+
+    public int getMultiKeyChunkSize() {
+        return this.multiKeyChunkSize;
+    }
+
+    /**
+     * Where the chunks of a large mget are read in parallel. Defaults to a pool shared by all clients.
+     */
+    public void setMultiKeyExecutor(ExecutorService multiKeyExecutor) {
+        if ( multiKeyExecutor == null ) {
+            throw new NullPointerException("The multi key executor can't be null");
+        }
+
+        this.multiKeyExecutor = multiKeyExecutor;
     }
 
     @Override
     public Long del(final String... keys) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.del(keys);
+        int chunkSize = this.multiKeyChunkSize;
+
+        if ( keys.length > chunkSize ) {
+            long deleted = 0;
+
+            for ( int start = 0; start < keys.length; start += chunkSize ) {
+                deleted += this.del(Arrays.copyOfRange(keys, start, Math.min(keys.length, start + chunkSize)));
             }
-        });
+
+            return deleted;
+        }
+
+        HostConnection connection = this.acquire(ClientType.MASTER, keys);
+        Long result;
+
+        try {
+            result = connection.getClient().del(keys);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.del(keys);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
-    private void quitSlaves() {
-        if (this.slaves != null) {
-            for (JedisClient slave : this.slaves) {
-                try {
-                    slave.quit();
-                } catch (Exception e) {
-                    log.error("Failed while closing the connection to the slave", e);
+    /**
+     * Reads many keys at once. Lists larger than the multi key chunk size are split in chunks that are
+     * read from the slaves in parallel, the values are returned in the same order as the keys.
+     */
+    @Override
+    public List<String> mget(final String... keys) {
+        int chunkSize = this.multiKeyChunkSize;
+
+        if ( keys.length > chunkSize ) {
+            return this.chunkedMget(keys, chunkSize);
+        }
+
+        HostConnection connection = this.acquire(ClientType.SLAVE, keys);
+        List<String> result;
+
+        try {
+            result = connection.getClient().mget(keys);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<List<String>>() {
+                @Override
+                public List<String> apply(JedisClient client) {
+                    return client.mget(keys);
                 }
+            });
+        }
+
+        return this.succeeded(connection, result);
+    }
+
+    /**
+     * Writes many keys at once. Lists with more keys than the multi key chunk size are written one chunk
+     * at a time so a single huge command doesn't block the master, which also means they are not atomic.
+     */
+    @Override
+    public String mset(final String... keysvalues) {
+        int chunkSize = this.multiKeyChunkSize;
+
+        if ( keysvalues.length > chunkSize * 2 ) {
+            String result = null;
+
+            for ( int start = 0; start < keysvalues.length; start += chunkSize * 2 ) {
+                result = this.mset(Arrays.copyOfRange(keysvalues, start, Math.min(keysvalues.length, start + chunkSize * 2)));
             }
+
+            return result;
         }
+
+        NearCache cache = this.nearCache;
+
+        if ( cache != null ) {
+            cache.invalidatePairs(keysvalues);
+        }
+
+        RecentWrites writes = this.recentWrites;
+
+        if ( writes != null ) {
+            writes.writtenPairs(keysvalues);
+        }
+
+        HostConnection connection = this.acquire(ClientType.MASTER);
+        String result;
+
+        try {
+            result = connection.getClient().mset(keysvalues);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<String>() {
+                @Override
+                public String apply(JedisClient client) {
+                    return client.mset(keysvalues);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
+    }
+
+    private List<String> chunkedMget(String[] keys, int chunkSize) {
+        List<Future<List<String>>> chunks = new ArrayList<Future<List<String>>>();
+
+        for ( int start = chunkSize; start < keys.length; start += chunkSize ) {
+            final String[] chunk = Arrays.copyOfRange(keys, start, Math.min(keys.length, start + chunkSize));
+
+            final Function<List<String>> read = ReadPreference.bind(new Function<List<String>>() {
+                @Override
+                public List<String> apply() {
+                    return mget(chunk);
+                }
+            });
+
+            chunks.add(this.multiKeyExecutor.submit(new Callable<List<String>>() {
+                @Override
+                public List<String> call() {
+                    return read.apply();
+                }
+            }));
+        }
+
+        List<String> result = new ArrayList<String>(keys.length);
+
+        try {
+            result.addAll(this.mget(Arrays.copyOfRange(keys, 0, chunkSize)));
+
+            for ( Future<List<String>> chunk : chunks ) {
+                result.addAll(chunk.get());
+            }
+        } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new JedisConnectionException(e);
+        } catch ( ExecutionException e ) {
+            if ( e.getCause() instanceof RuntimeException ) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new JedisConnectionException(e.getCause());
+        } finally {
+            for ( Future<List<String>> chunk : chunks ) {
+                chunk.cancel(false);
+            }
+        }
+
+        return result;
     }
 
+    /**
+     * Stops following the cluster changes. Connections are shared with the other clients at the
+     * {@link HostConnectionPools} so they are only closed here if this client acquired the pools itself
+     * and was the last one using them.
+     */
     public String quit() {
-        this.quitMaster();
-        this.quitSlaves();
+        synchronized ( this ) {
+            if ( this.closed ) {
+                return "OK";
+            }
+
+            this.closed = true;
+        }
 
         this.nodeManager.removeListeners( this );
 
+        if ( this.ownsPools ) {
+            this.routing.close();
+            this.pools.release();
+        }
+
         return "OK";
     }
 
     @Override
     public String ping() {
-        return this.doAction(ClientType.MASTER, new ClientFunction<String>() {
+        HostConnection connection = this.acquire(ClientType.MASTER);
+        String result;
+
+        try {
+            result = connection.getClient().ping();
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<String>() {
+                @Override
+                public String apply(JedisClient client) {
+                    return client.ping();
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
+    }
+
+    /**
+     * Creates a pipeline that sends queued writes to the current master and queued reads to a single
+     * slave. The pipeline fails instead of flushing if the cluster changes before it is synced.
+     */
+    @Override
+    public PipelineActions pipeline() {
+        final long version = this.routing.get().getVersion();
+
+        return new RoutedPipeline(this, new Function<Boolean>() {
             @Override
-            public String apply(final JedisClient client) {
-                return client.ping();
+            public Boolean apply() {
+                return !closed && routing.get().getVersion() == version;
             }
         });
     }
 
     @Override
     public String slaveof(final String host, final int port) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<String>() {
-            @Override
-            public String apply(final JedisClient client) {
-                return client.slaveof(host, port);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.MASTER);
+        String result;
+
+        try {
+            result = connection.getClient().slaveof(host, port);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<String>() {
+                @Override
+                public String apply(JedisClient client) {
+                    return client.slaveof(host, port);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public String slaveofNoOne() {
-        return this.doAction(ClientType.MASTER, new ClientFunction<String>() {
-            @Override
-            public String apply(final JedisClient client) {
-                return client.slaveofNoOne();
+        HostConnection connection = this.acquire(ClientType.MASTER);
+        String result;
+
+        try {
+            result = connection.getClient().slaveofNoOne();
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<String>() {
+                @Override
+                public String apply(JedisClient client) {
+                    return client.slaveofNoOne();
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
+    }
+
+    /**
+     * Selects a slave that is not currently suspect, skipping the excluded one. Returns null when there is
+     * no usable slave and the read should go to the master.
+     */
+    HostConnectionPool selectSlave(List<HostConnectionPool> candidates, HostConnectionPool excluded) {
+        return this.replicaSelector.select(candidates, excluded);
+    }
+
+    /**
+     * The slaves that can be read from given the current thread's {@link ReadPreference} or the client's
+     * max replication lag. The filtered list for the client's own limit is only rebuilt when the routing
+     * or the node states published by the node manager change.
+     */
+    List<HostConnectionPool> readableSlaves( RoutingTable table ) {
+        Long maxStaleness = ReadPreference.currentMaxStaleness();
+        Map<HostConfiguration, NodeState> states = this.nodeManager.getCurrentNodesState();
+
+        if ( maxStaleness != null ) {
+            return ReadPreference.isMasterOnly(maxStaleness)
+                    ? Collections.<HostConnectionPool>emptyList()
+                    : withinLag(table.getSlaves(), states, maxStaleness);
+        }
+
+        ReadableSlaves readable = this.readableSlaves;
+
+        if ( readable == null || readable.slaves != table.getSlaves() || readable.states != states ) {
+            readable = new ReadableSlaves(table.getSlaves(), states, withinLag(table.getSlaves(), states, this.maxReplicationLag));
+            this.readableSlaves = readable;
+        }
+
+        return readable.readable;
+    }
+
+    private static List<HostConnectionPool> withinLag(
+            List<HostConnectionPool> slaves,
+            Map<HostConfiguration, NodeState> states,
+            long maxLag) {
+
+        if ( states == null ) {
+            return slaves;
+        }
+
+        List<HostConnectionPool> result = new ArrayList<HostConnectionPool>(slaves.size());
+
+        for ( HostConnectionPool slave : slaves ) {
+            NodeState state = states.get(slave.getHostConfiguration());
+
+            if ( state == null || state.isWithinLag(maxLag) ) {
+                result.add(slave);
             }
-        });
+        }
+
+        return Collections.unmodifiableList(result);
+    }
+
+    @Override
+    public <R> R doAction( ClientType type, ClientFunction<R> function ) {
+        return this.run(this.acquire(type), function);
+    }
+
+    public <R> R doAction( ClientType type, String key, ClientFunction<R> function ) {
+        return this.run(this.acquire(type, key), function);
+    }
+
+    public <R> R doAction( ClientType type, byte[] key, ClientFunction<R> function ) {
+        return this.run(this.acquire(type, key), function);
+    }
+
+    public <R> R doAction( ClientType type, String[] keys, ClientFunction<R> function ) {
+        return this.run(this.acquire(type, keys), function);
+    }
+
+    private <R> R run( HostConnection connection, ClientFunction<R> function ) {
+        R result;
+
+        try {
+            result = function.apply(connection.getClient());
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, function);
+        }
+
+        return this.succeeded(connection, result);
+    }
+
+    /*
+     * Commands are dispatched in three steps so the common path allocates nothing: acquire picks the node
+     * and borrows a connection to it, the command calls the connection's client directly and then hands it
+     * back with succeeded. Only a failed command creates a ClientFunction, which failed uses to retry it.
+     */
+
+    private HostConnection acquire( ClientType type ) {
+        RoutingTable table = this.routing.get();
+
+        if ( type == ClientType.MASTER ) {
+            return this.borrow(table.getMaster(), ClientType.MASTER, false, table.getMasterVersion());
+        }
+
+        HostConnectionPool slave = this.selectSlave(this.readableSlaves(table), null);
+
+        if ( slave == null ) {
+            return this.borrow(table.getMaster(), ClientType.SLAVE, false, table.getMasterVersion());
+        }
+
+        return this.borrow(slave, ClientType.SLAVE, true, table.getMasterVersion());
     }
 
-    JedisClient getSlave() {
-        if ( this.slaves.isEmpty() ) {
-            return this.master;
+    private HostConnection acquire( ClientType type, String key ) {
+        NearCache cache = this.nearCache;
+
+        if ( cache != null && type == ClientType.MASTER ) {
+            cache.invalidate(key);
+        }
+
+        RecentWrites writes = this.recentWrites;
+
+        if ( writes != null ) {
+            if ( type == ClientType.MASTER ) {
+                writes.written(key);
+            } else if ( writes.isRecent(key) ) {
+                RoutingTable table = this.routing.get();
+                return this.borrow(table.getMaster(), ClientType.SLAVE, false, table.getMasterVersion());
+            }
+        }
+
+        return this.acquire(type);
+    }
+
+    private HostConnection acquire( ClientType type, byte[] key ) {
+        NearCache cache = this.nearCache;
+
+        if ( cache != null && type == ClientType.MASTER ) {
+            cache.invalidate(SafeEncoder.encode(key));
+        }
+
+        RecentWrites writes = this.recentWrites;
+
+        if ( writes != null ) {
+            if ( type == ClientType.MASTER ) {
+                writes.written(key);
+            } else if ( writes.isRecent(key) ) {
+                RoutingTable table = this.routing.get();
+                return this.borrow(table.getMaster(), ClientType.SLAVE, false, table.getMasterVersion());
+            }
+        }
+
+        return this.acquire(type);
+    }
+
+    private HostConnection acquire( ClientType type, String[] keys ) {
+        NearCache cache = this.nearCache;
+
+        if ( cache != null && type == ClientType.MASTER ) {
+            cache.invalidate(keys);
+        }
+
+        RecentWrites writes = this.recentWrites;
+
+        if ( writes != null ) {
+            if ( type == ClientType.MASTER ) {
+                writes.written(keys);
+            } else if ( writes.isRecent(keys) ) {
+                RoutingTable table = this.routing.get();
+                return this.borrow(table.getMaster(), ClientType.SLAVE, false, table.getMasterVersion());
+            }
+        }
+
+        return this.acquire(type);
+    }
+
+    private HostConnection borrow( HostConnectionPool pool, ClientType requested, boolean slaveRead, long version ) {
+        if ( pool == null ) {
+            throw new NoMasterException();
+        }
+
+        HostConnection connection = pool.borrow( this.routing.getConnectThrottles() );
+        connection.begin(requested, slaveRead, version);
+        return connection;
+    }
+
+    private <R> R succeeded( HostConnection connection, R result ) {
+        HostConnectionPool pool = connection.getPool();
+        pool.recordLatency((System.nanoTime() - connection.getStarted()) / 1000d);
+        pool.release(connection);
+        return result;
+    }
+
+    /**
+     * Gives back the connection of a failed command and decides if it can be retried. Reads that failed
+     * with a connection error at a slave mark it as suspect and go to another slave or to the master,
+     * commands that failed at the master wait for a failover if they can be retried.
+     */
+    private <R> R failed( HostConnection connection, RuntimeException e, ClientFunction<R> function ) {
+        HostConnectionPool pool = connection.getPool();
+        ClientType requested = connection.getRequested();
+        boolean slaveRead = connection.isSlaveRead();
+        long version = connection.getMasterVersion();
+
+        if ( e instanceof JedisConnectionException ) {
+            pool.invalidate(connection);
         } else {
-            return this.slaves.next();
+            pool.release(connection);
+        }
+
+        if ( !slaveRead ) {
+            boolean retryable = requested == ClientType.SLAVE || RetryableWrites.isRetryable();
+            return this.retryOnMaster(function, retryable, pool, version, e);
+        }
+
+        if ( !(e instanceof JedisConnectionException) ) {
+            throw e;
+        }
+
+        log.warn(String.format("Read failed on slave %s, marking it as suspect and retrying", pool.getHostConfiguration()), e);
+        this.pools.markSuspect(pool);
+
+        RoutingTable table = this.routing.get();
+        HostConnectionPool retry = this.selectSlave(this.readableSlaves(table), pool);
+
+        if ( retry != null ) {
+            return this.execute(retry, function);
+        }
+
+        HostConnectionPool current = table.getMaster();
+
+        try {
+            return this.execute(current, function);
+        } catch ( RuntimeException masterError ) {
+            return this.retryOnMaster(function, true, current != null ? current : pool, table.getMasterVersion(), masterError);
         }
     }
 
-    <R> R doAction( ClientType type, ClientFunction<R> function ) {
-        JedisClient client;
+    /**
+     * Retries a command that failed at the master. If the error came from the master going away and the
+     * command can be retried, waits until the node manager announces a new master and runs it again there,
+     * as long as the failover retry timeout has not passed and the retry budget allows it.
+     */
+    private <R> R retryOnMaster(
+            ClientFunction<R> function,
+            boolean retryable,
+            HostConnectionPool failed,
+            long version,
+            RuntimeException error) {
+
+        long timeout = this.failoverRetryTimeout;
 
-        switch( type ) {
-            case SLAVE:
-                client = this.getSlave();
-                break;
-            default:
-                client = master;
-                break;
+        if ( !retryable || timeout == 0 || !isFailoverError(error) ) {
+            throw error;
         }
 
-        return function.apply(client);
+        long deadline = System.currentTimeMillis() + timeout;
+
+        while ( true ) {
+            if ( !this.awaitMasterChange(version, deadline) ) {
+                log.warn(String.format("Master %s failed and no new master was announced in %d ms", failed.getHostConfiguration(), timeout));
+                throw error;
+            }
+
+            if ( !this.retryBudget.tryAcquire() ) {
+                log.warn(String.format("Retry budget exhausted, not retrying command that failed at %s", failed.getHostConfiguration()));
+                throw error;
+            }
+
+            RoutingTable table = this.routing.get();
+            version = table.getMasterVersion();
+            HostConnectionPool current = table.getMaster();
+
+            if ( current == null ) {
+                error = new NoMasterException();
+                continue;
+            }
+
+            failed = current;
+
+            log.warn(String.format("Command failed at old master, retrying at %s", failed.getHostConfiguration()), error);
+
+            try {
+                return this.execute(failed, function);
+            } catch ( RuntimeException e ) {
+                if ( !isFailoverError(e) ) {
+                    throw e;
+                }
+
+                error = e;
+            }
+        }
+    }
+
+    private boolean awaitMasterChange( long version, long deadline ) {
+        RoutingTable table = this.routing.get();
+        long remaining = deadline - System.currentTimeMillis();
+
+        while ( table.getMasterVersion() == version && remaining > 0 && !this.closed ) {
+            try {
+                this.routing.awaitChange(table, remaining);
+            } catch ( InterruptedException e ) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+
+            table = this.routing.get();
+            remaining = deadline - System.currentTimeMillis();
+        }
+
+        return table.getMasterVersion() != version;
+    }
+
+    /**
+     * Errors that happen when the node is gone or was turned into a slave by a failover, only these are
+     * worth waiting for a new master. Other errors are sent back as they are.
+     */
+    static boolean isFailoverError( RuntimeException e ) {
+        if ( e instanceof JedisConnectionException ) {
+            return true;
+        }
+
+        if ( e instanceof JedisDataException && e.getMessage() != null ) {
+            return e.getMessage().startsWith("READONLY") || e.getMessage().startsWith("LOADING");
+        }
+
+        return false;
+    }
+
+    private <R> R execute( HostConnectionPool pool, ClientFunction<R> function ) {
+        if ( pool == null ) {
+            throw new NoMasterException();
+        }
+
+        HostConnection connection = pool.borrow( this.routing.getConnectThrottles() );
+        long start = System.nanoTime();
+        R result;
+
+        try {
+            result = function.apply(connection.getClient());
+        } catch ( JedisConnectionException e ) {
+            pool.invalidate(connection);
+            throw e;
+        } catch ( RuntimeException e ) {
+            pool.release(connection);
+            throw e;
+        }
+
+        pool.recordLatency((System.nanoTime() - start) / 1000d);
+        pool.release(connection);
+
+        return result;
     }
 
     @Override
     public String set(final String key, final String value) {
-        return this.doAction( ClientType.MASTER, new ClientFunction<String>() {
-            @Override
-            public String apply(JedisClient client) {
-                return client.set(key, value);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        String result;
+
+        try {
+            result = connection.getClient().set(key, value);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<String>() {
+                @Override
+                public String apply(JedisClient client) {
+                    return client.set(key, value);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
+    /**
+     * Reads through the near cache when there is one and the thread has no {@link ReadPreference} set.
+     */
     @Override
     public String get(final String key) {
+        NearCache cache = this.readCache();
+
+        if ( cache == null ) {
+            return this.load(key);
+        }
+
+        Object cached = cache.get(key);
 
-        return this.doAction(ClientType.SLAVE, new ClientFunction<String>() {
+        if ( cached != NearCache.MISS ) {
+            return (String) cached;
+        }
+
+        long token = cache.token(key);
+        String value = this.load(key);
+        cache.put(key, value, token);
+
+        return value;
+    }
+
+    private String load(final String key) {
+        SingleFlight flight = this.readCoalescing(key);
+
+        if ( flight == null ) {
+            return this.fetch(key);
+        }
+
+        return flight.execute("get", key, null, new Function<String>() {
             @Override
-            public String apply(JedisClient client) {
-                client.ping();
-                return client.get(key);
+            public String apply() {
+                return fetch(key);
             }
         });
+    }
 
+    private String fetch(final String key) {
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        String result;
+
+        try {
+            result = connection.getClient().get(key);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<String>() {
+                @Override
+                public String apply(JedisClient client) {
+                    return client.get(key);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Boolean exists(final String key) {
-        return this.doAction( ClientType.SLAVE, new ClientFunction<Boolean>() {
-            @Override
-            public Boolean apply(JedisClient client) {
-                return client.exists(key);
-            }
-        } );
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Boolean result;
+
+        try {
+            result = connection.getClient().exists(key);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Boolean>() {
+                @Override
+                public Boolean apply(JedisClient client) {
+                    return client.exists(key);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public String type(final String key) {
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        String result;
+
+        try {
+            result = connection.getClient().type(key);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<String>() {
+                @Override
+                public String apply(JedisClient client) {
+                    return client.type(key);
+                }
+            });
+        }
 
-        return this.doAction( ClientType.SLAVE, new ClientFunction<String>() {
-            @Override
-            public String apply(JedisClient client) {
-                return client.type(key);
-            }
-        }  );
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Long expire(final String key, final int seconds) {
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        Long result;
+
+        try {
+            result = connection.getClient().expire(key, seconds);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.expire(key, seconds);
+                }
+            });
+        }
 
-        return this.doAction(ClientType.MASTER, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.expire(key, seconds);
-            }
-        });
-
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Long expireAt(final String key, final long unixTime) {
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        Long result;
+
+        try {
+            result = connection.getClient().expireAt(key, unixTime);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.expireAt(key, unixTime);
+                }
+            });
+        }
 
-        return this.doAction(ClientType.MASTER, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.expireAt(key, unixTime);
-            }
-        });
-
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Long ttl(final String key) {
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Long result;
+
+        try {
+            result = connection.getClient().ttl(key);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.ttl(key);
+                }
+            });
+        }
 
-        return this.doAction( ClientType.SLAVE, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.ttl(key);
-            }
-        } );
-
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Boolean setbit(final String key, final long offset, final boolean value) {
-        return this.doAction( ClientType.MASTER, new ClientFunction<Boolean>() {
-            @Override
-            public Boolean apply(JedisClient client) {
-                return client.setbit(key, offset, value);
-            }
-        } );
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        Boolean result;
+
+        try {
+            result = connection.getClient().setbit(key, offset, value);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Boolean>() {
+                @Override
+                public Boolean apply(JedisClient client) {
+                    return client.setbit(key, offset, value);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
-    public Boolean getbit( final String key, final long offset) {
+    public Boolean getbit(final String key, final long offset) {
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Boolean result;
 
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Boolean>() {
-            @Override
-            public Boolean apply(JedisClient client) {
-                return client.getbit(key, offset);
-            }
-        });
+        try {
+            result = connection.getClient().getbit(key, offset);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Boolean>() {
+                @Override
+                public Boolean apply(JedisClient client) {
+                    return client.getbit(key, offset);
+                }
+            });
+        }
 
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Long setrange(final String key, final long offset, final String value) {
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        Long result;
+
+        try {
+            result = connection.getClient().setrange(key, offset, value);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.setrange(key, offset, value);
+                }
+            });
+        }
 
-        return this.doAction( ClientType.MASTER, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.setrange(key, offset, value);
-            }
-        } );
-
+        return this.succeeded(connection, result);
     }
 
     @Override
     public String getrange(final String key, final long startOffset, final long endOffset) {
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        String result;
+
+        try {
+            result = connection.getClient().getrange(key, startOffset, endOffset);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<String>() {
+                @Override
+                public String apply(JedisClient client) {
+                    return client.getrange(key, startOffset, endOffset);
+                }
+            });
+        }
 
-        return this.doAction(ClientType.SLAVE, new ClientFunction<String>() {
-            @Override
-            public String apply(JedisClient client) {
-                return client.getrange(key, startOffset, endOffset);
-            }
-        });
-
+        return this.succeeded(connection, result);
     }
 
     @Override
     public String getSet(final String key, final String value) {
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        String result;
+
+        try {
+            result = connection.getClient().getSet(key, value);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<String>() {
+                @Override
+                public String apply(JedisClient client) {
+                    return client.getSet(key, value);
+                }
+            });
+        }
 
-        return this.doAction(ClientType.MASTER, new ClientFunction<String>() {
-            @Override
-            public String apply(JedisClient client) {
-                return client.getSet(key, value);
-            }
-        });
-
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Long setnx(final String key, final String value) {
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        Long result;
+
+        try {
+            result = connection.getClient().setnx(key, value);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.setnx(key, value);
+                }
+            });
+        }
 
-        return this.doAction( ClientType.MASTER, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.setnx(key, value);
-            }
-        } );
-
+        return this.succeeded(connection, result);
     }
 
     @Override
     public String setex(final String key, final int seconds, final String value) {
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        String result;
+
+        try {
+            result = connection.getClient().setex(key, seconds, value);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<String>() {
+                @Override
+                public String apply(JedisClient client) {
+                    return client.setex(key, seconds, value);
+                }
+            });
+        }
 
-        return this.doAction( ClientType.MASTER, new ClientFunction<String>() {
-            @Override
-            public String apply(JedisClient client) {
-                return client.setex(key, seconds, value);
-            }
-        } );
-
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Long decrBy(final String key, final long integer) {
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        Long result;
+
+        try {
+            result = connection.getClient().decrBy(key, integer);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.decrBy(key, integer);
+                }
+            });
+        }
 
-        return this.doAction( ClientType.MASTER, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.decrBy(key, integer);
-            }
-        } );
-
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Long decr(final String key) {
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        Long result;
+
+        try {
+            result = connection.getClient().decr(key);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.decr(key);
+                }
+            });
+        }
 
-        return this.doAction( ClientType.MASTER, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.decr(key);
-            }
-        } );
-
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Long incrBy(final String key, final long integer) {
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        Long result;
+
+        try {
+            result = connection.getClient().incrBy(key, integer);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.incrBy(key, integer);
+                }
+            });
+        }
 
-        return this.doAction(ClientType.MASTER, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.incrBy(key, integer);
-            }
-        });
-
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Long incr(final String key) {
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        Long result;
+
+        try {
+            result = connection.getClient().incr(key);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.incr(key);
+                }
+            });
+        }
 
-        return this.doAction(ClientType.MASTER, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.incr(key);
-            }
-        });
-
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Long append(final String key, final String value) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.append(key, value);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        Long result;
+
+        try {
+            result = connection.getClient().append(key, value);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.append(key, value);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public String substr(final String key, final int start, final int end) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<String>() {
-            @Override
-            public String apply(JedisClient client) {
-                return client.substr(key, start, end);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        String result;
+
+        try {
+            result = connection.getClient().substr(key, start, end);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<String>() {
+                @Override
+                public String apply(JedisClient client) {
+                    return client.substr(key, start, end);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Long hset(final String key, final String field, final String value) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.hset(key, field, value);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        Long result;
+
+        try {
+            result = connection.getClient().hset(key, field, value);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.hset(key, field, value);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
-    public String hget( final String key, final String field) {
-        return this.doAction( ClientType.SLAVE, new ClientFunction<String>() {
-            @Override
-            public String apply(JedisClient client) {
-                return client.hget(key, field);
-            }
-        } );
+    public String hget(final String key, final String field) {
+        NearCache cache = this.readCache();
+
+        if ( cache == null ) {
+            return this.loadField(key, field);
+        }
+
+        Object cached = cache.getField(key, field);
+
+        if ( cached != NearCache.MISS ) {
+            return (String) cached;
+        }
+
+        long token = cache.token(key);
+        String value = this.loadField(key, field);
+        cache.putField(key, field, value, token);
+
+        return value;
     }
 
-    @Override
-    public Long hsetnx( final String key, final String field, final String value) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<Long>() {
+    private String loadField(final String key, final String field) {
+        SingleFlight flight = this.readCoalescing(key);
+
+        if ( flight == null ) {
+            return this.fetchField(key, field);
+        }
+
+        return flight.execute("hget", key, field, new Function<String>() {
             @Override
-            public Long apply(JedisClient client) {
-                return client.hsetnx(key, field, value);
+            public String apply() {
+                return fetchField(key, field);
             }
         });
     }
 
+    private String fetchField(final String key, final String field) {
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        String result;
+
+        try {
+            result = connection.getClient().hget(key, field);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<String>() {
+                @Override
+                public String apply(JedisClient client) {
+                    return client.hget(key, field);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
+    }
+
+    @Override
+    public Long hsetnx(final String key, final String field, final String value) {
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        Long result;
+
+        try {
+            result = connection.getClient().hsetnx(key, field, value);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.hsetnx(key, field, value);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
+    }
+
     @Override
     public String hmset(final String key, final Map<String, String> hash) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<String>() {
-            @Override
-            public String apply(JedisClient client) {
-                return client.hmset(key, hash);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        String result;
+
+        try {
+            result = connection.getClient().hmset(key, hash);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<String>() {
+                @Override
+                public String apply(JedisClient client) {
+                    return client.hmset(key, hash);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public List<String> hmget(final String key, final String... fields) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<List<String>>() {
-            @Override
-            public List<String> apply(JedisClient client) {
-                return client.hmget(key, fields);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        List<String> result;
+
+        try {
+            result = connection.getClient().hmget(key, fields);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<List<String>>() {
+                @Override
+                public List<String> apply(JedisClient client) {
+                    return client.hmget(key, fields);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Long hincrBy(final String key, final String field, final long value) {
-        return this.doAction( ClientType.MASTER, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.hincrBy(key, field, value);
-            }
-        } );
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        Long result;
+
+        try {
+            result = connection.getClient().hincrBy(key, field, value);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.hincrBy(key, field, value);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Boolean hexists(final String key, final String field) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Boolean>() {
-            @Override
-            public Boolean apply(JedisClient client) {
-                return client.hexists(key, field);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Boolean result;
+
+        try {
+            result = connection.getClient().hexists(key, field);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Boolean>() {
+                @Override
+                public Boolean apply(JedisClient client) {
+                    return client.hexists(key, field);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Long hdel(final String key, final String... field) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.hdel(key, field);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        Long result;
+
+        try {
+            result = connection.getClient().hdel(key, field);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.hdel(key, field);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Long hlen(final String key) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.hlen(key);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Long result;
+
+        try {
+            result = connection.getClient().hlen(key);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.hlen(key);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Set<String> hkeys(final String key) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Set<String>>() {
-            @Override
-            public Set<String> apply(JedisClient client) {
-                return client.hkeys(key);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Set<String> result;
+
+        try {
+            result = connection.getClient().hkeys(key);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Set<String>>() {
+                @Override
+                public Set<String> apply(JedisClient client) {
+                    return client.hkeys(key);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public List<String> hvals(final String key) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<List<String>>() {
-            @Override
-            public List<String> apply(JedisClient client) {
-                return client.hvals(key);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        List<String> result;
+
+        try {
+            result = connection.getClient().hvals(key);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<List<String>>() {
+                @Override
+                public List<String> apply(JedisClient client) {
+                    return client.hvals(key);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Map<String, String> hgetAll(final String key) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Map<String, String>>() {
+        SingleFlight flight = this.readCoalescing(key);
+
+        if ( flight == null ) {
+            return this.fetchHash(key);
+        }
+
+        Map<String, String> hash = flight.execute("hgetAll", key, null, new Function<Map<String, String>>() {
             @Override
-            public Map<String, String> apply(JedisClient client) {
-                return client.hgetAll(key);
+            public Map<String, String> apply() {
+                return fetchHash(key);
             }
         });
+
+        return hash == null ? null : new HashMap<String, String>(hash);
+    }
+
+    private Map<String, String> fetchHash(final String key) {
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Map<String, String> result;
+
+        try {
+            result = connection.getClient().hgetAll(key);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Map<String, String>>() {
+                @Override
+                public Map<String, String> apply(JedisClient client) {
+                    return client.hgetAll(key);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Long rpush(final String key, final String... string) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.rpush(key, string);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        Long result;
+
+        try {
+            result = connection.getClient().rpush(key, string);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.rpush(key, string);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Long lpush(final String key, final String... string) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.lpush(key, string);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        Long result;
+
+        try {
+            result = connection.getClient().lpush(key, string);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.lpush(key, string);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Long llen(final String key) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.llen(key);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Long result;
+
+        try {
+            result = connection.getClient().llen(key);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.llen(key);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public List<String> lrange(final String key, final long start, final long end) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<List<String>>() {
-            @Override
-            public List<String> apply(JedisClient client) {
-                return client.lrange(key, start, end);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        List<String> result;
+
+        try {
+            result = connection.getClient().lrange(key, start, end);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<List<String>>() {
+                @Override
+                public List<String> apply(JedisClient client) {
+                    return client.lrange(key, start, end);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
-    public String ltrim( final String key, final long start, final long end) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<String>() {
-            @Override
-            public String apply(JedisClient client) {
-                return client.ltrim(key, start, end);
-            }
-        });
+    public String ltrim(final String key, final long start, final long end) {
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        String result;
+
+        try {
+            result = connection.getClient().ltrim(key, start, end);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<String>() {
+                @Override
+                public String apply(JedisClient client) {
+                    return client.ltrim(key, start, end);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public String lindex(final String key, final long index) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<String>() {
-            @Override
-            public String apply(JedisClient client) {
-                return client.lindex(key, index);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        String result;
+
+        try {
+            result = connection.getClient().lindex(key, index);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<String>() {
+                @Override
+                public String apply(JedisClient client) {
+                    return client.lindex(key, index);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
-    public String lset( final String key, final long index, final String value) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<String>() {
-            @Override
-            public String apply(JedisClient client) {
-                return client.lset(key, index, value);
-            }
-        });
+    public String lset(final String key, final long index, final String value) {
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        String result;
+
+        try {
+            result = connection.getClient().lset(key, index, value);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<String>() {
+                @Override
+                public String apply(JedisClient client) {
+                    return client.lset(key, index, value);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Long lrem(final String key, final long count, final String value) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.lrem(key, count, value);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        Long result;
+
+        try {
+            result = connection.getClient().lrem(key, count, value);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.lrem(key, count, value);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public String lpop(final String key) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<String>() {
-            @Override
-            public String apply(JedisClient client) {
-                return client.lpop(key);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        String result;
+
+        try {
+            result = connection.getClient().lpop(key);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<String>() {
+                @Override
+                public String apply(JedisClient client) {
+                    return client.lpop(key);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public String rpop(final String key) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<String>() {
-            @Override
-            public String apply(JedisClient client) {
-                return client.rpop(key);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        String result;
+
+        try {
+            result = connection.getClient().rpop(key);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<String>() {
+                @Override
+                public String apply(JedisClient client) {
+                    return client.rpop(key);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Long sadd(final String key, final String... member) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.sadd(key, member);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        Long result;
+
+        try {
+            result = connection.getClient().sadd(key, member);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.sadd(key, member);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public Set<String> smembers(final String key) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Set<String>>() {
+        NearCache cache = this.readCache();
+
+        if ( cache == null ) {
+            return this.loadMembers(key);
+        }
+
+        Object cached = cache.getMembers(key);
+
+        if ( cached != NearCache.MISS ) {
+            return cached == null ? null : new HashSet<String>((Set<String>) cached);
+        }
+
+        long token = cache.token(key);
+        Set<String> members = this.loadMembers(key);
+        cache.putMembers(key, members == null ? null : new HashSet<String>(members), token);
+
+        return members;
+    }
+
+    private Set<String> loadMembers(final String key) {
+        SingleFlight flight = this.readCoalescing(key);
+
+        if ( flight == null ) {
+            return this.fetchMembers(key);
+        }
+
+        Set<String> members = flight.execute("smembers", key, null, new Function<Set<String>>() {
             @Override
-            public Set<String> apply(JedisClient client) {
-                return client.smembers(key);
+            public Set<String> apply() {
+                return fetchMembers(key);
             }
         });
+
+        return members == null ? null : new HashSet<String>(members);
+    }
+
+    private Set<String> fetchMembers(final String key) {
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Set<String> result;
+
+        try {
+            result = connection.getClient().smembers(key);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Set<String>>() {
+                @Override
+                public Set<String> apply(JedisClient client) {
+                    return client.smembers(key);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Long srem(final String key, final String... member) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.srem(key, member);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        Long result;
+
+        try {
+            result = connection.getClient().srem(key, member);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.srem(key, member);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public String spop(final String key) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<String>() {
-            @Override
-            public String apply(JedisClient client) {
-                return client.spop(key);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        String result;
+
+        try {
+            result = connection.getClient().spop(key);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<String>() {
+                @Override
+                public String apply(JedisClient client) {
+                    return client.spop(key);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
-    @Override
-    public Long scard(final String key) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.scard(key);
-            }
-        });
+    @Override
+    public Long scard(final String key) {
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Long result;
+
+        try {
+            result = connection.getClient().scard(key);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.scard(key);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Boolean sismember(final String key, final String member) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Boolean>() {
-            @Override
-            public Boolean apply(JedisClient client) {
-                return client.sismember(key, member);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Boolean result;
+
+        try {
+            result = connection.getClient().sismember(key, member);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Boolean>() {
+                @Override
+                public Boolean apply(JedisClient client) {
+                    return client.sismember(key, member);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public String srandmember(final String key) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<String>() {
-            @Override
-            public String apply(JedisClient client) {
-                return client.srandmember(key);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        String result;
+
+        try {
+            result = connection.getClient().srandmember(key);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<String>() {
+                @Override
+                public String apply(JedisClient client) {
+                    return client.srandmember(key);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Long zadd(final String key, final double score, final String member) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.zadd(key, score, member);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        Long result;
+
+        try {
+            result = connection.getClient().zadd(key, score, member);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.zadd(key, score, member);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Long zadd(final String key, final Map<Double, String> scoreMembers) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.zadd(key, scoreMembers);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        Long result;
+
+        try {
+            result = connection.getClient().zadd(key, scoreMembers);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.zadd(key, scoreMembers);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Set<String> zrange(final String key, final long start, final long end) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Set<String>>() {
-            @Override
-            public Set<String> apply(JedisClient client) {
-                return client.zrange(key, start, end);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Set<String> result;
+
+        try {
+            result = connection.getClient().zrange(key, start, end);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Set<String>>() {
+                @Override
+                public Set<String> apply(JedisClient client) {
+                    return client.zrange(key, start, end);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Long zrem(final String key, final String... member) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.zrem(key, member);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        Long result;
+
+        try {
+            result = connection.getClient().zrem(key, member);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.zrem(key, member);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Double zincrby(final String key, final double score, final String member) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<Double>() {
-            @Override
-            public Double apply(JedisClient client) {
-                return client.zincrby(key, score, member);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        Double result;
+
+        try {
+            result = connection.getClient().zincrby(key, score, member);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Double>() {
+                @Override
+                public Double apply(JedisClient client) {
+                    return client.zincrby(key, score, member);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Long zrank(final String key, final String member) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.zrank(key, member);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Long result;
+
+        try {
+            result = connection.getClient().zrank(key, member);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.zrank(key, member);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Long zrevrank(final String key, final String member) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.zrevrank(key, member);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Long result;
+
+        try {
+            result = connection.getClient().zrevrank(key, member);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.zrevrank(key, member);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Set<String> zrevrange(final String key, final long start, final long end) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Set<String>>() {
-            @Override
-            public Set<String> apply(JedisClient client) {
-                return client.zrevrange(key, start, end);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Set<String> result;
+
+        try {
+            result = connection.getClient().zrevrange(key, start, end);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Set<String>>() {
+                @Override
+                public Set<String> apply(JedisClient client) {
+                    return client.zrevrange(key, start, end);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Set<Tuple> zrangeWithScores(final String key, final long start, final long end) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Set<Tuple>>() {
-            @Override
-            public Set<Tuple> apply(JedisClient client) {
-                return client.zrangeWithScores(key, start, end);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Set<Tuple> result;
+
+        try {
+            result = connection.getClient().zrangeWithScores(key, start, end);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Set<Tuple>>() {
+                @Override
+                public Set<Tuple> apply(JedisClient client) {
+                    return client.zrangeWithScores(key, start, end);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Set<Tuple> zrevrangeWithScores(final String key, final long start, final long end) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Set<Tuple>>() {
-            @Override
-            public Set<Tuple> apply(JedisClient client) {
-                return client.zrevrangeWithScores(key, start, end);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Set<Tuple> result;
+
+        try {
+            result = connection.getClient().zrevrangeWithScores(key, start, end);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Set<Tuple>>() {
+                @Override
+                public Set<Tuple> apply(JedisClient client) {
+                    return client.zrevrangeWithScores(key, start, end);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Long zcard(final String key) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.zcard(key);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Long result;
+
+        try {
+            result = connection.getClient().zcard(key);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.zcard(key);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Double zscore(final String key, final String member) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Double>() {
-            @Override
-            public Double apply(JedisClient client) {
-                return client.zscore(key, member);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Double result;
+
+        try {
+            result = connection.getClient().zscore(key, member);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Double>() {
+                @Override
+                public Double apply(JedisClient client) {
+                    return client.zscore(key, member);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public List<String> sort(final String key) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<List<String>>() {
-            @Override
-            public List<String> apply(JedisClient client) {
-                return client.sort(key);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        List<String> result;
+
+        try {
+            result = connection.getClient().sort(key);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<List<String>>() {
+                @Override
+                public List<String> apply(JedisClient client) {
+                    return client.sort(key);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public List<String> sort(final String key, final SortingParams sortingParameters) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<List<String>>() {
-            @Override
-            public List<String> apply(JedisClient client) {
-                return client.sort(key, sortingParameters);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        List<String> result;
+
+        try {
+            result = connection.getClient().sort(key, sortingParameters);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<List<String>>() {
+                @Override
+                public List<String> apply(JedisClient client) {
+                    return client.sort(key, sortingParameters);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Long zcount(final String key, final double min, final double max) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.zcount(key, min, max);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Long result;
+
+        try {
+            result = connection.getClient().zcount(key, min, max);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.zcount(key, min, max);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Long zcount(final String key, final String min, final String max) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.zcount(key, min, max);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Long result;
+
+        try {
+            result = connection.getClient().zcount(key, min, max);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.zcount(key, min, max);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Set<String> zrangeByScore(final String key, final double min, final double max) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Set<String>>() {
-            @Override
-            public Set<String> apply(JedisClient client) {
-                return client.zrangeByScore(key, min, max);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Set<String> result;
+
+        try {
+            result = connection.getClient().zrangeByScore(key, min, max);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Set<String>>() {
+                @Override
+                public Set<String> apply(JedisClient client) {
+                    return client.zrangeByScore(key, min, max);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Set<String> zrangeByScore(final String key, final String min, final String max) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Set<String>>() {
-            @Override
-            public Set<String> apply(JedisClient client) {
-                return client.zrangeByScore(key, min, max);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Set<String> result;
+
+        try {
+            result = connection.getClient().zrangeByScore(key, min, max);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Set<String>>() {
+                @Override
+                public Set<String> apply(JedisClient client) {
+                    return client.zrangeByScore(key, min, max);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Set<String> zrevrangeByScore(final String key, final double max, final double min) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Set<String>>() {
-            @Override
-            public Set<String> apply(JedisClient client) {
-                return client.zrevrangeByScore(key, max, min);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Set<String> result;
+
+        try {
+            result = connection.getClient().zrevrangeByScore(key, max, min);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Set<String>>() {
+                @Override
+                public Set<String> apply(JedisClient client) {
+                    return client.zrevrangeByScore(key, max, min);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Set<String> zrangeByScore(final String key, final double min, final double max, final int offset, final int count) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Set<String>>() {
-            @Override
-            public Set<String> apply(JedisClient client) {
-                return client.zrangeByScore(key, min, max, offset, count);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Set<String> result;
+
+        try {
+            result = connection.getClient().zrangeByScore(key, min, max, offset, count);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Set<String>>() {
+                @Override
+                public Set<String> apply(JedisClient client) {
+                    return client.zrangeByScore(key, min, max, offset, count);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Set<String> zrevrangeByScore(final String key, final String max, final String min) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Set<String>>() {
-            @Override
-            public Set<String> apply(JedisClient client) {
-                return client.zrevrangeByScore(key, max, min);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Set<String> result;
+
+        try {
+            result = connection.getClient().zrevrangeByScore(key, max, min);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Set<String>>() {
+                @Override
+                public Set<String> apply(JedisClient client) {
+                    return client.zrevrangeByScore(key, max, min);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Set<String> zrangeByScore(final String key, final String min, final String max, final int offset, final int count) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Set<String>>() {
-            @Override
-            public Set<String> apply(JedisClient client) {
-                return client.zrangeByScore(key, min, max, offset, count);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Set<String> result;
+
+        try {
+            result = connection.getClient().zrangeByScore(key, min, max, offset, count);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Set<String>>() {
+                @Override
+                public Set<String> apply(JedisClient client) {
+                    return client.zrangeByScore(key, min, max, offset, count);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Set<String> zrevrangeByScore(final String key, final double max, final double min, final int offset, final int count) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Set<String>>() {
-            @Override
-            public Set<String> apply(JedisClient client) {
-                return client.zrevrangeByScore(key, max, min, offset, count);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Set<String> result;
+
+        try {
+            result = connection.getClient().zrevrangeByScore(key, max, min, offset, count);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Set<String>>() {
+                @Override
+                public Set<String> apply(JedisClient client) {
+                    return client.zrevrangeByScore(key, max, min, offset, count);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Set<Tuple> zrangeByScoreWithScores(final String key, final double min, final double max) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Set<Tuple>>() {
-            @Override
-            public Set<Tuple> apply(JedisClient client) {
-                return client.zrangeByScoreWithScores(key, min, max);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Set<Tuple> result;
+
+        try {
+            result = connection.getClient().zrangeByScoreWithScores(key, min, max);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Set<Tuple>>() {
+                @Override
+                public Set<Tuple> apply(JedisClient client) {
+                    return client.zrangeByScoreWithScores(key, min, max);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Set<Tuple> zrevrangeByScoreWithScores(final String key, final double max, final double min) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Set<Tuple>>() {
-            @Override
-            public Set<Tuple> apply(JedisClient client) {
-                return client.zrevrangeByScoreWithScores(key, max, min);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Set<Tuple> result;
+
+        try {
+            result = connection.getClient().zrevrangeByScoreWithScores(key, max, min);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Set<Tuple>>() {
+                @Override
+                public Set<Tuple> apply(JedisClient client) {
+                    return client.zrevrangeByScoreWithScores(key, max, min);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Set<Tuple> zrangeByScoreWithScores(final String key, final double min, final double max, final int offset, final int count) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Set<Tuple>>() {
-            @Override
-            public Set<Tuple> apply(JedisClient client) {
-                return client.zrangeByScoreWithScores(key, min, max, offset, count);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Set<Tuple> result;
+
+        try {
+            result = connection.getClient().zrangeByScoreWithScores(key, min, max, offset, count);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Set<Tuple>>() {
+                @Override
+                public Set<Tuple> apply(JedisClient client) {
+                    return client.zrangeByScoreWithScores(key, min, max, offset, count);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Set<String> zrevrangeByScore(final String key, final String max, final String min, final int offset, final int count) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Set<String>>() {
-            @Override
-            public Set<String> apply(JedisClient client) {
-                return client.zrevrangeByScore(key, max, min, offset, count);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Set<String> result;
+
+        try {
+            result = connection.getClient().zrevrangeByScore(key, max, min, offset, count);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Set<String>>() {
+                @Override
+                public Set<String> apply(JedisClient client) {
+                    return client.zrevrangeByScore(key, max, min, offset, count);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Set<Tuple> zrangeByScoreWithScores(final String key, final String min, final String max) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Set<Tuple>>() {
-            @Override
-            public Set<Tuple> apply(JedisClient client) {
-                return client.zrangeByScoreWithScores(key, min, max);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Set<Tuple> result;
+
+        try {
+            result = connection.getClient().zrangeByScoreWithScores(key, min, max);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Set<Tuple>>() {
+                @Override
+                public Set<Tuple> apply(JedisClient client) {
+                    return client.zrangeByScoreWithScores(key, min, max);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Set<Tuple> zrevrangeByScoreWithScores(final String key, final String max, final String min) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Set<Tuple>>() {
-            @Override
-            public Set<Tuple> apply(JedisClient client) {
-                return client.zrevrangeByScoreWithScores(key, max, min);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Set<Tuple> result;
+
+        try {
+            result = connection.getClient().zrevrangeByScoreWithScores(key, max, min);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Set<Tuple>>() {
+                @Override
+                public Set<Tuple> apply(JedisClient client) {
+                    return client.zrevrangeByScoreWithScores(key, max, min);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Set<Tuple> zrangeByScoreWithScores(final String key, final String min, final String max, final int offset, final int count) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Set<Tuple>>() {
-            @Override
-            public Set<Tuple> apply(JedisClient client) {
-                return client.zrangeByScoreWithScores(key, min, max, offset, count);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Set<Tuple> result;
+
+        try {
+            result = connection.getClient().zrangeByScoreWithScores(key, min, max, offset, count);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Set<Tuple>>() {
+                @Override
+                public Set<Tuple> apply(JedisClient client) {
+                    return client.zrangeByScoreWithScores(key, min, max, offset, count);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Set<Tuple> zrevrangeByScoreWithScores(final String key, final double max, final double min, final int offset, final int count) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Set<Tuple>>() {
-            @Override
-            public Set<Tuple> apply(JedisClient client) {
-                return client.zrevrangeByScoreWithScores(key, max, min, offset, count);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Set<Tuple> result;
+
+        try {
+            result = connection.getClient().zrevrangeByScoreWithScores(key, max, min, offset, count);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Set<Tuple>>() {
+                @Override
+                public Set<Tuple> apply(JedisClient client) {
+                    return client.zrevrangeByScoreWithScores(key, max, min, offset, count);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Set<Tuple> zrevrangeByScoreWithScores(final String key, final String max, final String min, final int offset, final int count) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Set<Tuple>>() {
-            @Override
-            public Set<Tuple> apply(JedisClient client) {
-                return client.zrevrangeByScoreWithScores(key, max, min, offset, count);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Set<Tuple> result;
+
+        try {
+            result = connection.getClient().zrevrangeByScoreWithScores(key, max, min, offset, count);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Set<Tuple>>() {
+                @Override
+                public Set<Tuple> apply(JedisClient client) {
+                    return client.zrevrangeByScoreWithScores(key, max, min, offset, count);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Long zremrangeByRank(final String key, final long start, final long end) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.zremrangeByRank(key, start, end);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        Long result;
+
+        try {
+            result = connection.getClient().zremrangeByRank(key, start, end);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.zremrangeByRank(key, start, end);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Long zremrangeByScore(final String key, final double start, final double end) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.zremrangeByScore(key, start, end);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        Long result;
+
+        try {
+            result = connection.getClient().zremrangeByScore(key, start, end);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.zremrangeByScore(key, start, end);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Long zremrangeByScore(final String key, final String start, final String end) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.zremrangeByScore(key, start, end);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        Long result;
+
+        try {
+            result = connection.getClient().zremrangeByScore(key, start, end);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.zremrangeByScore(key, start, end);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Long linsert(final String key, final BinaryClient.LIST_POSITION where, final String pivot, final String value) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.linsert(key, where, pivot, value);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        Long result;
+
+        try {
+            result = connection.getClient().linsert(key, where, pivot, value);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.linsert(key, where, pivot, value);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public String info() {
-        return this.doAction(ClientType.MASTER, new ClientFunction<String>() {
-            @Override
-            public String apply(final JedisClient client) {
-                return client.info();
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.MASTER);
+        String result;
+
+        try {
+            result = connection.getClient().info();
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<String>() {
+                @Override
+                public String apply(JedisClient client) {
+                    return client.info();
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Long lpushx(final String key, final String string) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.lpushx(key, string);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        Long result;
+
+        try {
+            result = connection.getClient().lpushx(key, string);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.lpushx(key, string);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Long rpushx(final String key, final String string) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.rpushx(key, string);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        Long result;
+
+        try {
+            result = connection.getClient().rpushx(key, string);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.rpushx(key, string);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
-    @Override
-    public String set(final byte[] key, final byte[] value) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<String>() {
-            @Override
-            public String apply(JedisClient client) {
-                return client.set(key, value);
-            }
-        });
+    @Override
+    public String set(final byte[] key, final byte[] value) {
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        String result;
+
+        try {
+            result = connection.getClient().set(key, value);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<String>() {
+                @Override
+                public String apply(JedisClient client) {
+                    return client.set(key, value);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public byte[] get(final byte[] key) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<byte[]>() {
-            @Override
-            public byte[] apply(JedisClient client) {
-                return client.get(key);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        byte[] result;
+
+        try {
+            result = connection.getClient().get(key);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<byte[]>() {
+                @Override
+                public byte[] apply(JedisClient client) {
+                    return client.get(key);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Boolean exists(final byte[] key) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Boolean>() {
-            @Override
-            public Boolean apply(JedisClient client) {
-                return client.exists(key);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Boolean result;
+
+        try {
+            result = connection.getClient().exists(key);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Boolean>() {
+                @Override
+                public Boolean apply(JedisClient client) {
+                    return client.exists(key);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public String type(final byte[] key) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<String>() {
-            @Override
-            public String apply(JedisClient client) {
-                return client.type(key);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        String result;
+
+        try {
+            result = connection.getClient().type(key);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<String>() {
+                @Override
+                public String apply(JedisClient client) {
+                    return client.type(key);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Long expire(final byte[] key, final int seconds) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.expire(key, seconds);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        Long result;
+
+        try {
+            result = connection.getClient().expire(key, seconds);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.expire(key, seconds);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Long expireAt(final byte[] key, final long unixTime) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.expireAt(key, unixTime);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        Long result;
+
+        try {
+            result = connection.getClient().expireAt(key, unixTime);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.expireAt(key, unixTime);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Long ttl(final byte[] key) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.ttl(key);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Long result;
+
+        try {
+            result = connection.getClient().ttl(key);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.ttl(key);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public byte[] getSet(final byte[] key, final byte[] value) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<byte[]>() {
-            @Override
-            public byte[] apply(JedisClient client) {
-                return client.getSet(key, value);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        byte[] result;
+
+        try {
+            result = connection.getClient().getSet(key, value);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<byte[]>() {
+                @Override
+                public byte[] apply(JedisClient client) {
+                    return client.getSet(key, value);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Long setnx(final byte[] key, final byte[] value) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.setnx(key, value);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        Long result;
+
+        try {
+            result = connection.getClient().setnx(key, value);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.setnx(key, value);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public String setex(final byte[] key, final int seconds, final byte[] value) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<String>() {
-            @Override
-            public String apply(JedisClient client) {
-                return client.setex(key, seconds, value);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        String result;
+
+        try {
+            result = connection.getClient().setex(key, seconds, value);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<String>() {
+                @Override
+                public String apply(JedisClient client) {
+                    return client.setex(key, seconds, value);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
-    public Long decrBy( final byte[] key, final long integer) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.decrBy(key, integer);
-            }
-        });
+    public Long decrBy(final byte[] key, final long integer) {
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        Long result;
+
+        try {
+            result = connection.getClient().decrBy(key, integer);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.decrBy(key, integer);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
-    public Long decr( final byte[] key) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.decr(key);
-            }
-        });
+    public Long decr(final byte[] key) {
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        Long result;
+
+        try {
+            result = connection.getClient().decr(key);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.decr(key);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
-    public Long incrBy( final byte[] key, final long integer) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.incrBy(key, integer);
-            }
-        });
+    public Long incrBy(final byte[] key, final long integer) {
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        Long result;
+
+        try {
+            result = connection.getClient().incrBy(key, integer);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.incrBy(key, integer);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Long incr(final byte[] key) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.incr(key);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        Long result;
+
+        try {
+            result = connection.getClient().incr(key);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.incr(key);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Long append(final byte[] key, final byte[] value) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.append(key, value);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        Long result;
+
+        try {
+            result = connection.getClient().append(key, value);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.append(key, value);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public byte[] substr(final byte[] key, final int start, final int end) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<byte[]>() {
-            @Override
-            public byte[] apply(JedisClient client) {
-                return client.substr(key, start, end);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        byte[] result;
+
+        try {
+            result = connection.getClient().substr(key, start, end);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<byte[]>() {
+                @Override
+                public byte[] apply(JedisClient client) {
+                    return client.substr(key, start, end);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Long hset(final byte[] key, final byte[] field, final byte[] value) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.hset(key, field, value);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        Long result;
+
+        try {
+            result = connection.getClient().hset(key, field, value);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.hset(key, field, value);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public byte[] hget(final byte[] key, final byte[] field) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<byte[]>() {
-            @Override
-            public byte[] apply(JedisClient client) {
-                return client.hget(key, field);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        byte[] result;
+
+        try {
+            result = connection.getClient().hget(key, field);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<byte[]>() {
+                @Override
+                public byte[] apply(JedisClient client) {
+                    return client.hget(key, field);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Long hsetnx(final byte[] key, final byte[] field, final byte[] value) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.hsetnx(key, field, value);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        Long result;
+
+        try {
+            result = connection.getClient().hsetnx(key, field, value);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.hsetnx(key, field, value);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public String hmset(final byte[] key, final Map<byte[], byte[]> hash) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<String>() {
-            @Override
-            public String apply(JedisClient client) {
-                return client.hmset(key, hash);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        String result;
+
+        try {
+            result = connection.getClient().hmset(key, hash);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<String>() {
+                @Override
+                public String apply(JedisClient client) {
+                    return client.hmset(key, hash);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public List<byte[]> hmget(final byte[] key, final byte[]... fields) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<List<byte[]>>() {
-            @Override
-            public List<byte[]> apply(JedisClient client) {
-                return client.hmget(key, fields);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        List<byte[]> result;
+
+        try {
+            result = connection.getClient().hmget(key, fields);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<List<byte[]>>() {
+                @Override
+                public List<byte[]> apply(JedisClient client) {
+                    return client.hmget(key, fields);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Long hincrBy(final byte[] key, final byte[] field, final long value) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.hincrBy(key, field, value);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        Long result;
+
+        try {
+            result = connection.getClient().hincrBy(key, field, value);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.hincrBy(key, field, value);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Boolean hexists(final byte[] key, final byte[] field) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Boolean>() {
-            @Override
-            public Boolean apply(JedisClient client) {
-                return client.hexists(key, field);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Boolean result;
+
+        try {
+            result = connection.getClient().hexists(key, field);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Boolean>() {
+                @Override
+                public Boolean apply(JedisClient client) {
+                    return client.hexists(key, field);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Long hdel(final byte[] key, final byte[]... field) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.hdel(key, field);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        Long result;
+
+        try {
+            result = connection.getClient().hdel(key, field);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.hdel(key, field);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Long hlen(final byte[] key) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.hlen(key);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Long result;
+
+        try {
+            result = connection.getClient().hlen(key);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.hlen(key);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Set<byte[]> hkeys(final byte[] key) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Set<byte[]>>() {
-            @Override
-            public Set<byte[]> apply(JedisClient client) {
-                return client.hkeys(key);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Set<byte[]> result;
+
+        try {
+            result = connection.getClient().hkeys(key);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Set<byte[]>>() {
+                @Override
+                public Set<byte[]> apply(JedisClient client) {
+                    return client.hkeys(key);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Collection<byte[]> hvals(final byte[] key) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Collection<byte[]>>() {
-            @Override
-            public Collection<byte[]> apply(JedisClient client) {
-                return client.hvals(key);
-            }
-        }) ;
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Collection<byte[]> result;
+
+        try {
+            result = connection.getClient().hvals(key);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Collection<byte[]>>() {
+                @Override
+                public Collection<byte[]> apply(JedisClient client) {
+                    return client.hvals(key);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
-    public Map<byte[], byte[]> hgetAll( final byte[] key) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Map<byte[], byte[]>>() {
-            @Override
-            public Map<byte[], byte[]> apply(JedisClient client) {
-                return client.hgetAll(key);
-            }
-        });
+    public Map<byte[], byte[]> hgetAll(final byte[] key) {
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Map<byte[], byte[]> result;
+
+        try {
+            result = connection.getClient().hgetAll(key);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Map<byte[], byte[]>>() {
+                @Override
+                public Map<byte[], byte[]> apply(JedisClient client) {
+                    return client.hgetAll(key);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
-    public Long rpush( final byte[] key, final byte[]... string) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.rpush(key, string);
-            }
-        });
+    public Long rpush(final byte[] key, final byte[]... string) {
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        Long result;
+
+        try {
+            result = connection.getClient().rpush(key, string);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.rpush(key, string);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Long lpush(final byte[] key, final byte[]... string) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.lpush(key, string);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        Long result;
+
+        try {
+            result = connection.getClient().lpush(key, string);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.lpush(key, string);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Long llen(final byte[] key) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.llen(key);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Long result;
+
+        try {
+            result = connection.getClient().llen(key);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.llen(key);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public List<byte[]> lrange(final byte[] key, final int start, final int end) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<List<byte[]>>() {
-            @Override
-            public List<byte[]> apply(JedisClient client) {
-                return client.lrange(key, start, end);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        List<byte[]> result;
+
+        try {
+            result = connection.getClient().lrange(key, start, end);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<List<byte[]>>() {
+                @Override
+                public List<byte[]> apply(JedisClient client) {
+                    return client.lrange(key, start, end);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public String ltrim(final byte[] key, final int start, final int end) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<String>() {
-            @Override
-            public String apply(JedisClient client) {
-                return client.ltrim(key, start, end);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        String result;
+
+        try {
+            result = connection.getClient().ltrim(key, start, end);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<String>() {
+                @Override
+                public String apply(JedisClient client) {
+                    return client.ltrim(key, start, end);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public byte[] lindex(final byte[] key, final int index) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<byte[]>() {
-            @Override
-            public byte[] apply(JedisClient client) {
-                return client.lindex(key, index);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        byte[] result;
+
+        try {
+            result = connection.getClient().lindex(key, index);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<byte[]>() {
+                @Override
+                public byte[] apply(JedisClient client) {
+                    return client.lindex(key, index);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public String lset(final byte[] key, final int index, final byte[] value) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<String>() {
-            @Override
-            public String apply(JedisClient client) {
-                return client.lset(key, index, value);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        String result;
+
+        try {
+            result = connection.getClient().lset(key, index, value);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<String>() {
+                @Override
+                public String apply(JedisClient client) {
+                    return client.lset(key, index, value);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Long lrem(final byte[] key, final int count, final byte[] value) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.lrem(key, count, value);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        Long result;
+
+        try {
+            result = connection.getClient().lrem(key, count, value);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.lrem(key, count, value);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public byte[] lpop(final byte[] key) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<byte[]>() {
-            @Override
-            public byte[] apply(JedisClient client) {
-                return client.lpop(key);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        byte[] result;
+
+        try {
+            result = connection.getClient().lpop(key);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<byte[]>() {
+                @Override
+                public byte[] apply(JedisClient client) {
+                    return client.lpop(key);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public byte[] rpop(final byte[] key) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<byte[]>() {
-            @Override
-            public byte[] apply(JedisClient client) {
-                return client.rpop(key);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        byte[] result;
+
+        try {
+            result = connection.getClient().rpop(key);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<byte[]>() {
+                @Override
+                public byte[] apply(JedisClient client) {
+                    return client.rpop(key);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Long sadd(final byte[] key, final byte[]... member) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.sadd(key, member);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        Long result;
+
+        try {
+            result = connection.getClient().sadd(key, member);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.sadd(key, member);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Set<byte[]> smembers(final byte[] key) {
-        return this.doAction( ClientType.SLAVE, new ClientFunction<Set<byte[]>>() {
-            @Override
-            public Set<byte[]> apply(JedisClient client) {
-                return client.smembers(key);
-            }
-        } );
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Set<byte[]> result;
+
+        try {
+            result = connection.getClient().smembers(key);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Set<byte[]>>() {
+                @Override
+                public Set<byte[]> apply(JedisClient client) {
+                    return client.smembers(key);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Long srem(final byte[] key, final byte[]... member) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.srem(key, member);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        Long result;
+
+        try {
+            result = connection.getClient().srem(key, member);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.srem(key, member);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public byte[] spop(final byte[] key) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<byte[]>() {
-            @Override
-            public byte[] apply(JedisClient client) {
-                return client.spop(key);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        byte[] result;
+
+        try {
+            result = connection.getClient().spop(key);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<byte[]>() {
+                @Override
+                public byte[] apply(JedisClient client) {
+                    return client.spop(key);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Long scard(final byte[] key) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.scard(key);
-            }
-        } );
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Long result;
+
+        try {
+            result = connection.getClient().scard(key);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.scard(key);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Boolean sismember(final byte[] key, final byte[] member) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Boolean>() {
-            @Override
-            public Boolean apply(JedisClient client) {
-                return client.sismember(key, member);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Boolean result;
+
+        try {
+            result = connection.getClient().sismember(key, member);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Boolean>() {
+                @Override
+                public Boolean apply(JedisClient client) {
+                    return client.sismember(key, member);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public byte[] srandmember(final byte[] key) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<byte[]>() {
-            @Override
-            public byte[] apply(JedisClient client) {
-                return client.srandmember(key);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        byte[] result;
+
+        try {
+            result = connection.getClient().srandmember(key);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<byte[]>() {
+                @Override
+                public byte[] apply(JedisClient client) {
+                    return client.srandmember(key);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Long zadd(final byte[] key, final double score, final byte[] member) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.zadd(key, score, member);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        Long result;
+
+        try {
+            result = connection.getClient().zadd(key, score, member);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.zadd(key, score, member);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Long zadd(final byte[] key, final Map<Double, byte[]> scoreMembers) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.zadd(key, scoreMembers);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        Long result;
+
+        try {
+            result = connection.getClient().zadd(key, scoreMembers);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.zadd(key, scoreMembers);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Set<byte[]> zrange(final byte[] key, final int start, final int end) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Set<byte[]>>() {
-            @Override
-            public Set<byte[]> apply(JedisClient client) {
-                return client.zrange(key, start, end);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Set<byte[]> result;
+
+        try {
+            result = connection.getClient().zrange(key, start, end);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Set<byte[]>>() {
+                @Override
+                public Set<byte[]> apply(JedisClient client) {
+                    return client.zrange(key, start, end);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
-    public Long zrem( final byte[] key, final byte[]... member) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.zrem(key, member);
-            }
-        });
+    public Long zrem(final byte[] key, final byte[]... member) {
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        Long result;
+
+        try {
+            result = connection.getClient().zrem(key, member);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.zrem(key, member);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Double zincrby(final byte[] key, final double score, final byte[] member) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<Double>() {
-            @Override
-            public Double apply(JedisClient client) {
-                return client.zincrby(key, score, member);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        Double result;
+
+        try {
+            result = connection.getClient().zincrby(key, score, member);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Double>() {
+                @Override
+                public Double apply(JedisClient client) {
+                    return client.zincrby(key, score, member);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Long zrank(final byte[] key, final byte[] member) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.zrank(key, member);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Long result;
+
+        try {
+            result = connection.getClient().zrank(key, member);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.zrank(key, member);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Long zrevrank(final byte[] key, final byte[] member) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.zrevrank(key, member);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Long result;
+
+        try {
+            result = connection.getClient().zrevrank(key, member);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.zrevrank(key, member);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Set<byte[]> zrevrange(final byte[] key, final int start, final int end) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Set<byte[]>>() {
-            @Override
-            public Set<byte[]> apply(JedisClient client) {
-                return client.zrevrange(key, start, end);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Set<byte[]> result;
+
+        try {
+            result = connection.getClient().zrevrange(key, start, end);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Set<byte[]>>() {
+                @Override
+                public Set<byte[]> apply(JedisClient client) {
+                    return client.zrevrange(key, start, end);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Set<Tuple> zrangeWithScores(final byte[] key, final int start, final int end) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Set<Tuple>>() {
-            @Override
-            public Set<Tuple> apply(JedisClient client) {
-                return client.zrangeWithScores(key, start, end);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Set<Tuple> result;
+
+        try {
+            result = connection.getClient().zrangeWithScores(key, start, end);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Set<Tuple>>() {
+                @Override
+                public Set<Tuple> apply(JedisClient client) {
+                    return client.zrangeWithScores(key, start, end);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Set<Tuple> zrevrangeWithScores(final byte[] key, final int start, final int end) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Set<Tuple>>() {
-            @Override
-            public Set<Tuple> apply(JedisClient client) {
-                return client.zrevrangeWithScores(key, start, end);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Set<Tuple> result;
+
+        try {
+            result = connection.getClient().zrevrangeWithScores(key, start, end);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Set<Tuple>>() {
+                @Override
+                public Set<Tuple> apply(JedisClient client) {
+                    return client.zrevrangeWithScores(key, start, end);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Long zcard(final byte[] key) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.zcard(key);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Long result;
+
+        try {
+            result = connection.getClient().zcard(key);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.zcard(key);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Double zscore(final byte[] key, final byte[] member) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Double>() {
-            @Override
-            public Double apply(JedisClient client) {
-                return client.zscore(key, member);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Double result;
+
+        try {
+            result = connection.getClient().zscore(key, member);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Double>() {
+                @Override
+                public Double apply(JedisClient client) {
+                    return client.zscore(key, member);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public List<byte[]> sort(final byte[] key) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<List<byte[]>>() {
-            @Override
-            public List<byte[]> apply(JedisClient client) {
-                return client.sort(key);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        List<byte[]> result;
+
+        try {
+            result = connection.getClient().sort(key);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<List<byte[]>>() {
+                @Override
+                public List<byte[]> apply(JedisClient client) {
+                    return client.sort(key);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public List<byte[]> sort(final byte[] key, final SortingParams sortingParameters) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<List<byte[]>>() {
-            @Override
-            public List<byte[]> apply(JedisClient client) {
-                return client.sort(key, sortingParameters);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        List<byte[]> result;
+
+        try {
+            result = connection.getClient().sort(key, sortingParameters);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<List<byte[]>>() {
+                @Override
+                public List<byte[]> apply(JedisClient client) {
+                    return client.sort(key, sortingParameters);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Long zcount(final byte[] key, final double min, final double max) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.zcount(key, min, max);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Long result;
+
+        try {
+            result = connection.getClient().zcount(key, min, max);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.zcount(key, min, max);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Long zcount(final byte[] key, final byte[] min, final byte[] max) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.zcount(key, min, max);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Long result;
+
+        try {
+            result = connection.getClient().zcount(key, min, max);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.zcount(key, min, max);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Set<byte[]> zrangeByScore(final byte[] key, final double min, final double max) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<Set<byte[]>>() {
-            @Override
-            public Set<byte[]> apply(JedisClient client) {
-                return client.zrangeByScore(key, min, max);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        Set<byte[]> result;
+
+        try {
+            result = connection.getClient().zrangeByScore(key, min, max);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Set<byte[]>>() {
+                @Override
+                public Set<byte[]> apply(JedisClient client) {
+                    return client.zrangeByScore(key, min, max);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Set<byte[]> zrangeByScore(final byte[] key, final double min, final double max, final int offset, final int count) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Set<byte[]>>() {
-            @Override
-            public Set<byte[]> apply(JedisClient client) {
-                return client.zrangeByScore(key, min, max, offset, count);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Set<byte[]> result;
+
+        try {
+            result = connection.getClient().zrangeByScore(key, min, max, offset, count);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Set<byte[]>>() {
+                @Override
+                public Set<byte[]> apply(JedisClient client) {
+                    return client.zrangeByScore(key, min, max, offset, count);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Set<Tuple> zrangeByScoreWithScores(final byte[] key, final double min, final double max) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Set<Tuple>>() {
-            @Override
-            public Set<Tuple> apply(JedisClient client) {
-                return client.zrangeByScoreWithScores(key, min, max);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Set<Tuple> result;
+
+        try {
+            result = connection.getClient().zrangeByScoreWithScores(key, min, max);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Set<Tuple>>() {
+                @Override
+                public Set<Tuple> apply(JedisClient client) {
+                    return client.zrangeByScoreWithScores(key, min, max);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Set<Tuple> zrangeByScoreWithScores(final byte[] key, final double min, final double max, final int offset, final int count) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Set<Tuple>>() {
-            @Override
-            public Set<Tuple> apply(JedisClient client) {
-                return client.zrangeByScoreWithScores(key, min, max, offset, count);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Set<Tuple> result;
+
+        try {
+            result = connection.getClient().zrangeByScoreWithScores(key, min, max, offset, count);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Set<Tuple>>() {
+                @Override
+                public Set<Tuple> apply(JedisClient client) {
+                    return client.zrangeByScoreWithScores(key, min, max, offset, count);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Set<Tuple> zrangeByScoreWithScores(final byte[] key, final byte[] min, final byte[] max) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Set<Tuple>>() {
-            @Override
-            public Set<Tuple> apply(JedisClient client) {
-                return client.zrangeByScoreWithScores(key, min, max);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Set<Tuple> result;
+
+        try {
+            result = connection.getClient().zrangeByScoreWithScores(key, min, max);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Set<Tuple>>() {
+                @Override
+                public Set<Tuple> apply(JedisClient client) {
+                    return client.zrangeByScoreWithScores(key, min, max);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Set<Tuple> zrangeByScoreWithScores(final byte[] key, final byte[] min, final byte[] max, final int offset, final int count) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Set<Tuple>>() {
-            @Override
-            public Set<Tuple> apply(JedisClient client) {
-                return client.zrangeByScoreWithScores(key, min, max, offset, count);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Set<Tuple> result;
+
+        try {
+            result = connection.getClient().zrangeByScoreWithScores(key, min, max, offset, count);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Set<Tuple>>() {
+                @Override
+                public Set<Tuple> apply(JedisClient client) {
+                    return client.zrangeByScoreWithScores(key, min, max, offset, count);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Set<byte[]> zrevrangeByScore(final byte[] key, final double max, final double min) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Set<byte[]>>() {
-            @Override
-            public Set<byte[]> apply(JedisClient client) {
-                return client.zrevrangeByScore(key, max, min);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Set<byte[]> result;
+
+        try {
+            result = connection.getClient().zrevrangeByScore(key, max, min);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Set<byte[]>>() {
+                @Override
+                public Set<byte[]> apply(JedisClient client) {
+                    return client.zrevrangeByScore(key, max, min);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Set<byte[]> zrevrangeByScore(final byte[] key, final double max, final double min, final int offset, final int count) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Set<byte[]>>() {
-            @Override
-            public Set<byte[]> apply(JedisClient client) {
-                return client.zrevrangeByScore(key, max, min, offset, count);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Set<byte[]> result;
+
+        try {
+            result = connection.getClient().zrevrangeByScore(key, max, min, offset, count);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Set<byte[]>>() {
+                @Override
+                public Set<byte[]> apply(JedisClient client) {
+                    return client.zrevrangeByScore(key, max, min, offset, count);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Set<byte[]> zrevrangeByScore(final byte[] key, final byte[] max, final byte[] min) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Set<byte[]>>() {
-            @Override
-            public Set<byte[]> apply(JedisClient client) {
-                return client.zrevrangeByScore(key, max, min);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Set<byte[]> result;
+
+        try {
+            result = connection.getClient().zrevrangeByScore(key, max, min);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Set<byte[]>>() {
+                @Override
+                public Set<byte[]> apply(JedisClient client) {
+                    return client.zrevrangeByScore(key, max, min);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Set<byte[]> zrevrangeByScore(final byte[] key, final byte[] max, final byte[] min, final int offset, final int count) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Set<byte[]>>() {
-            @Override
-            public Set<byte[]> apply(JedisClient client) {
-                return client.zrevrangeByScore(key, max, min, offset, count);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Set<byte[]> result;
+
+        try {
+            result = connection.getClient().zrevrangeByScore(key, max, min, offset, count);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Set<byte[]>>() {
+                @Override
+                public Set<byte[]> apply(JedisClient client) {
+                    return client.zrevrangeByScore(key, max, min, offset, count);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Set<Tuple> zrevrangeByScoreWithScores(final byte[] key, final double max, final double min) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Set<Tuple>>() {
-            @Override
-            public Set<Tuple> apply(JedisClient client) {
-                return client.zrevrangeByScoreWithScores(key, max, min);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Set<Tuple> result;
+
+        try {
+            result = connection.getClient().zrevrangeByScoreWithScores(key, max, min);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Set<Tuple>>() {
+                @Override
+                public Set<Tuple> apply(JedisClient client) {
+                    return client.zrevrangeByScoreWithScores(key, max, min);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Set<Tuple> zrevrangeByScoreWithScores(final byte[] key, final double max, final double min, final int offset, final int count) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Set<Tuple>>() {
-            @Override
-            public Set<Tuple> apply(JedisClient client) {
-                return client.zrevrangeByScoreWithScores(key, max, min, offset, count);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Set<Tuple> result;
+
+        try {
+            result = connection.getClient().zrevrangeByScoreWithScores(key, max, min, offset, count);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Set<Tuple>>() {
+                @Override
+                public Set<Tuple> apply(JedisClient client) {
+                    return client.zrevrangeByScoreWithScores(key, max, min, offset, count);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Set<Tuple> zrevrangeByScoreWithScores(final byte[] key, final byte[] max, final byte[] min) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Set<Tuple>>() {
-            @Override
-            public Set<Tuple> apply(JedisClient client) {
-                return client.zrevrangeByScoreWithScores(key, max, min);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Set<Tuple> result;
+
+        try {
+            result = connection.getClient().zrevrangeByScoreWithScores(key, max, min);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Set<Tuple>>() {
+                @Override
+                public Set<Tuple> apply(JedisClient client) {
+                    return client.zrevrangeByScoreWithScores(key, max, min);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Set<Tuple> zrevrangeByScoreWithScores(final byte[] key, final byte[] max, final byte[] min, final int offset, final int count) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<Set<Tuple>>() {
-            @Override
-            public Set<Tuple> apply(JedisClient client) {
-                return client.zrevrangeByScoreWithScores(key, max, min, offset, count);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        Set<Tuple> result;
+
+        try {
+            result = connection.getClient().zrevrangeByScoreWithScores(key, max, min, offset, count);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Set<Tuple>>() {
+                @Override
+                public Set<Tuple> apply(JedisClient client) {
+                    return client.zrevrangeByScoreWithScores(key, max, min, offset, count);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Long zremrangeByRank(final byte[] key, final int start, final int end) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.zremrangeByRank(key, start, end);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        Long result;
+
+        try {
+            result = connection.getClient().zremrangeByRank(key, start, end);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.zremrangeByRank(key, start, end);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Long zremrangeByScore(final byte[] key, final double start, final double end) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.zremrangeByScore(key, start, end);
-            }
-        } );
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        Long result;
+
+        try {
+            result = connection.getClient().zremrangeByScore(key, start, end);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.zremrangeByScore(key, start, end);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Long zremrangeByScore(final byte[] key, final byte[] start, final byte[] end) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.zremrangeByScore(key, start, end);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        Long result;
+
+        try {
+            result = connection.getClient().zremrangeByScore(key, start, end);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.zremrangeByScore(key, start, end);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Long linsert(final byte[] key, final BinaryClient.LIST_POSITION where, final byte[] pivot, final byte[] value) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.linsert(key, where, pivot, value);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        Long result;
+
+        try {
+            result = connection.getClient().linsert(key, where, pivot, value);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.linsert(key, where, pivot, value);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Long objectRefcount(final byte[] key) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.objectRefcount(key);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Long result;
+
+        try {
+            result = connection.getClient().objectRefcount(key);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.objectRefcount(key);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Long objectIdletime(final byte[] key) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.objectIdletime(key);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        Long result;
+
+        try {
+            result = connection.getClient().objectIdletime(key);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.objectIdletime(key);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public byte[] objectEncoding(final byte[] key) {
-        return this.doAction(ClientType.SLAVE, new ClientFunction<byte[]>() {
-            @Override
-            public byte[] apply(JedisClient client) {
-                return client.objectEncoding(key);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.SLAVE, key);
+        byte[] result;
+
+        try {
+            result = connection.getClient().objectEncoding(key);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<byte[]>() {
+                @Override
+                public byte[] apply(JedisClient client) {
+                    return client.objectEncoding(key);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Long lpushx(final byte[] key, final byte[] string) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.lpushx(key, string);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        Long result;
+
+        try {
+            result = connection.getClient().lpushx(key, string);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.lpushx(key, string);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
     }
 
     @Override
     public Long rpushx(final byte[] key, final byte[] string) {
-        return this.doAction(ClientType.MASTER, new ClientFunction<Long>() {
-            @Override
-            public Long apply(JedisClient client) {
-                return client.rpushx(key, string);
-            }
-        });
+        HostConnection connection = this.acquire(ClientType.MASTER, key);
+        Long result;
+
+        try {
+            result = connection.getClient().rpushx(key, string);
+        } catch ( RuntimeException e ) {
+            return this.failed(connection, e, new ClientFunction<Long>() {
+                @Override
+                public Long apply(JedisClient client) {
+                    return client.rpushx(key, string);
+                }
+            });
+        }
+
+        return this.succeeded(connection, result);
+    }
+
+    private static final class ReadableSlaves {
+
+        private final List<HostConnectionPool> slaves;
+        private final Map<HostConfiguration, NodeState> states;
+        private final List<HostConnectionPool> readable;
+
+        private ReadableSlaves(
+                List<HostConnectionPool> slaves,
+                Map<HostConfiguration, NodeState> states,
+                List<HostConnectionPool> readable) {
+            this.slaves = slaves;
+            this.states = states;
+            this.readable = readable;
+        }
+
     }
+
 }
@@ -1,5 +1,7 @@
 package com.officedrop.redis.failover;
 
+import java.util.Map;
+
 /**
  * User: Maurício Linhares
  * Date: 1/8/13
@@ -13,4 +15,6 @@ public interface ClusterChangeEventSource {
 
     public ClusterStatus getLastClusterStatus();
 
+    public Map<HostConfiguration, NodeState> getCurrentNodesState();
+
 }
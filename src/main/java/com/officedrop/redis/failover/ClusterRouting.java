@@ -0,0 +1,231 @@
+package com.officedrop.redis.failover;
+
+import com.officedrop.redis.failover.strategy.ReplicaSelector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Publishes the {@link RoutingTable} for a cluster through a single atomic reference. Every {@link Client}
+ * created by the same failover pool shares one of these: the first client told about a cluster change
+ * builds the new table and the others find it already published, so commands only pay for one volatile
+ * read to find out where to go.
+ *
+ * Tables are built as a diff against the previous one. Pools are shared per host, so unchanged hosts keep
+ * their connections and a promoted slave's connections become the master's. Hosts that left the cluster
+ * are released after the new table is published and drained once no other routing sharing the pools
+ * uses them, commands already running on them finish before their connections are closed.
+ */
+public class ClusterRouting {
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterRouting.class);
+
+    private final ClusterChangeEventSource source;
+    private final HostConnectionPools pools;
+    private final ReplicaSelector replicaSelector;
+    private final ConnectThrottles connectThrottles;
+    private final AtomicReference<RoutingTable> current = new AtomicReference<RoutingTable>();
+    private final AtomicInteger failovers = new AtomicInteger();
+    private volatile int failoverBaseline;
+    private boolean closed;
+
+    public ClusterRouting(ClusterChangeEventSource source, HostConnectionPools pools, ReplicaSelector replicaSelector) {
+        this(source, pools, replicaSelector, null);
+    }
+
+    /**
+     * Routes with the given throttles for new connections, they belong to whoever built this routing while
+     * the pools are shared with everyone using the same client factory. Null leaves new connections unlimited.
+     */
+    public ClusterRouting(ClusterChangeEventSource source, HostConnectionPools pools, ReplicaSelector replicaSelector,
+                          ConnectThrottles connectThrottles) {
+        this.source = source;
+        this.pools = pools;
+        this.replicaSelector = replicaSelector;
+        this.connectThrottles = connectThrottles;
+
+        this.update(false);
+    }
+
+    public ClusterChangeEventSource getSource() {
+        return this.source;
+    }
+
+    public HostConnectionPools getPools() {
+        return this.pools;
+    }
+
+    public ReplicaSelector getReplicaSelector() {
+        return this.replicaSelector;
+    }
+
+    public ConnectThrottles getConnectThrottles() {
+        return this.connectThrottles;
+    }
+
+    public RoutingTable get() {
+        return this.current.get();
+    }
+
+    /**
+     * Publishes a table for the source's last cluster status unless one was already published for it.
+     * The master version also changes when the caller was told the master changed, so commands waiting
+     * for a failover wake up even if the same host is announced again.
+     */
+    public synchronized RoutingTable update(boolean masterChanged) {
+        ClusterStatus status = this.source.getLastClusterStatus();
+        RoutingTable previous = this.current.get();
+
+        if (previous != null && (this.closed || previous.getStatus() == status)) {
+            return previous;
+        }
+
+        Set<HostConfiguration> hosts = new HashSet<HostConfiguration>(status.getSlaves());
+
+        if (status.hasMaster()) {
+            hosts.add(status.getMaster());
+        }
+
+        for (HostConfiguration host : hosts) {
+            if (previous == null || !previous.getHosts().contains(host)) {
+                this.pools.retainHost(host);
+            }
+        }
+
+        HostConnectionPool master = this.master(previous, status);
+        List<HostConnectionPool> slaves = this.slaves(previous, status);
+
+        long version = 0;
+        long masterVersion = 0;
+
+        if (previous != null) {
+            version = previous.getVersion() + 1;
+            masterVersion = masterChanged || master != previous.getMaster()
+                    ? previous.getMasterVersion() + 1
+                    : previous.getMasterVersion();
+        }
+
+        RoutingTable table = new RoutingTable(
+                status, master, slaves, Collections.unmodifiableSet(hosts), version, masterVersion);
+
+        if (previous != null && masterVersion != previous.getMasterVersion()) {
+            this.failovers.incrementAndGet();
+            this.failoverBaseline = master != null ? master.getCreatedCount() : 0;
+        }
+
+        this.current.set(table);
+        this.notifyAll();
+
+        if (previous != null) {
+            for (HostConfiguration host : previous.getHosts()) {
+                if (!hosts.contains(host)) {
+                    log.info("Host {} left the cluster, draining its connections", host);
+                    this.pools.releaseHost(host);
+                }
+            }
+        }
+
+        return table;
+    }
+
+    /**
+     * Stops using the hosts of the current table, their pools are drained unless another routing sharing
+     * them still uses them. Updates after this keep the last table.
+     */
+    public synchronized void close() {
+        if (this.closed) {
+            return;
+        }
+
+        this.closed = true;
+
+        RoutingTable table = this.current.get();
+
+        if (table != null) {
+            for (HostConfiguration host : table.getHosts()) {
+                this.pools.releaseHost(host);
+            }
+        }
+    }
+
+    /**
+     * How many times the master changed since this routing was created.
+     */
+    public int getFailoverCount() {
+        return this.failovers.get();
+    }
+
+    /**
+     * How many connections were opened to the current master since the last failover, that is how many
+     * callers had to reconnect. See {@link HostConnectionPool#getConnectLatency()} for how long it took.
+     */
+    public int getReconnectionsSinceFailover() {
+        HostConnectionPool master = this.current.get().getMaster();
+        return master != null ? master.getCreatedCount() - this.failoverBaseline : 0;
+    }
+
+    /**
+     * Waits until a table other than the given one is published or the timeout passes.
+     */
+    public synchronized boolean awaitChange(RoutingTable seen, long timeout) throws InterruptedException {
+        if (this.current.get() == seen && timeout > 0) {
+            this.wait(timeout);
+        }
+
+        return this.current.get() != seen;
+    }
+
+    private HostConnectionPool master(RoutingTable previous, ClusterStatus status) {
+        if (!status.hasMaster()) {
+            return null;
+        }
+
+        HostConnectionPool master = previous != null ? previous.getMaster() : null;
+
+        if (master == null || master.isClosed() || !master.getHostConfiguration().equals(status.getMaster())) {
+            master = this.pools.get(status.getMaster());
+        }
+
+        return master;
+    }
+
+    private List<HostConnectionPool> slaves(RoutingTable previous, ClusterStatus status) {
+        if (previous != null && hasHosts(previous.getSlaves(), status.getSlaves())) {
+            return previous.getSlaves();
+        }
+
+        List<HostConnectionPool> slaves = new ArrayList<HostConnectionPool>();
+
+        for (HostConfiguration configuration : status.getSlaves()) {
+            slaves.add(this.pools.get(configuration));
+        }
+
+        List<HostConnectionPool> result = Collections.unmodifiableList(slaves);
+
+        this.replicaSelector.replicasChanged(result, this.source.getCurrentNodesState());
+
+        return result;
+    }
+
+    private static boolean hasHosts(List<HostConnectionPool> pools, Set<HostConfiguration> hosts) {
+        if (pools.size() != hosts.size()) {
+            return false;
+        }
+
+        for (HostConnectionPool pool : pools) {
+            if (pool.isClosed() || !hosts.contains(pool.getHostConfiguration())) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+}
@@ -0,0 +1,78 @@
+package com.officedrop.redis.failover;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits how fast new connections are opened to a single host. Up to burst connections can be opened at
+ * once and after that one more every 1/rate of a second. After a failover every client finds the new
+ * master without idle connections at the same time, this turns that into a steady trickle the new master
+ * can take while the callers that got a connection release it for the ones still waiting.
+ *
+ * Callers that are turned away sleep for a random part of two intervals so they don't all come back at the
+ * same time, and they stop waiting after maxWait and connect anyway.
+ */
+public class ConnectThrottle {
+
+    private static final ThreadLocal<Random> random = new ThreadLocal<Random>() {
+        @Override
+        protected Random initialValue() {
+            return new Random();
+        }
+    };
+
+    private final long interval;
+    private final long tolerance;
+    private final long maxWait;
+    private final AtomicLong next = new AtomicLong(System.nanoTime());
+
+    public ConnectThrottle(double rate, int burst, long maxWait, TimeUnit unit) {
+        if (rate <= 0) {
+            throw new IllegalArgumentException("The connect rate has to be positive - " + rate);
+        }
+
+        if (burst < 1) {
+            throw new IllegalArgumentException("The burst has to be at least 1 - " + burst);
+        }
+
+        this.interval = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        this.tolerance = this.interval * (burst - 1);
+        this.maxWait = unit.toNanos(maxWait);
+    }
+
+    /**
+     * Takes a permit to open a connection if one is available right now.
+     */
+    public boolean tryAcquire() {
+        long now = System.nanoTime();
+
+        while (true) {
+            long current = this.next.get();
+            long start = Math.max(current, now);
+
+            if (start - now > this.tolerance) {
+                return false;
+            }
+
+            if (this.next.compareAndSet(current, start + this.interval)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * How long, in nanoseconds, a caller that was turned away should sleep before trying again.
+     */
+    public long nextDelay() {
+        return 1 + (long) (random.get().nextDouble() * 2 * this.interval);
+    }
+
+    /**
+     * How long, in nanoseconds, a caller waits for a permit before connecting anyway.
+     */
+    public long getMaxWait() {
+        return this.maxWait;
+    }
+
+}
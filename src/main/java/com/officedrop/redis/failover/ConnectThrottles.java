@@ -0,0 +1,54 @@
+package com.officedrop.redis.failover;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One {@link ConnectThrottle} per host for a single owner. {@link HostConnectionPools} are shared between
+ * every pool built with the same client factory, so the throttle settings live here, with the pool that
+ * configured them, and are handed to {@link HostConnectionPool#borrow(ConnectThrottles)} when a connection
+ * has to be opened.
+ */
+public class ConnectThrottles {
+
+    private final double rate;
+    private final int burst;
+    private final long maxWait;
+    private final ConcurrentMap<HostConfiguration, ConnectThrottle> throttles =
+            new ConcurrentHashMap<HostConfiguration, ConnectThrottle>();
+
+    /**
+     * Limits every host to opening rate new connections a second after an initial burst, callers wait up
+     * to maxWait for their turn.
+     */
+    public ConnectThrottles(double rate, int burst, long maxWait, TimeUnit unit) {
+        if (rate <= 0) {
+            throw new IllegalArgumentException("The connect rate has to be positive - " + rate);
+        }
+
+        if (burst < 1) {
+            throw new IllegalArgumentException("The burst has to be at least 1 - " + burst);
+        }
+
+        this.rate = rate;
+        this.burst = burst;
+        this.maxWait = unit.toMillis(maxWait);
+    }
+
+    public ConnectThrottle get(HostConfiguration configuration) {
+        ConnectThrottle throttle = this.throttles.get(configuration);
+
+        if (throttle == null) {
+            ConnectThrottle created = new ConnectThrottle(this.rate, this.burst, this.maxWait, TimeUnit.MILLISECONDS);
+            throttle = this.throttles.putIfAbsent(configuration, created);
+
+            if (throttle == null) {
+                throttle = created;
+            }
+        }
+
+        return throttle;
+    }
+
+}
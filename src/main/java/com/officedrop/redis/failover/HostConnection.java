@@ -0,0 +1,66 @@
+package com.officedrop.redis.failover;
+
+import com.officedrop.redis.failover.jedis.JedisClient;
+
+/**
+ * A connection owned by a {@link HostConnectionPool}. It's handed to a single caller at a time and must be
+ * returned to the pool it came from.
+ */
+public class HostConnection {
+
+    private final HostConnectionPool pool;
+    private final JedisClient client;
+    private volatile long lastUsed;
+
+    // state of the command currently running on this connection, only touched by the thread holding it
+    private long started;
+    private ClientType requested;
+    private boolean slaveRead;
+    private long masterVersion;
+
+    HostConnection(HostConnectionPool pool, JedisClient client) {
+        this.pool = pool;
+        this.client = client;
+        this.lastUsed = System.currentTimeMillis();
+    }
+
+    public HostConnectionPool getPool() {
+        return this.pool;
+    }
+
+    public JedisClient getClient() {
+        return this.client;
+    }
+
+    public long getLastUsed() {
+        return this.lastUsed;
+    }
+
+    void touch() {
+        this.lastUsed = System.currentTimeMillis();
+    }
+
+    void begin(ClientType requested, boolean slaveRead, long masterVersion) {
+        this.requested = requested;
+        this.slaveRead = slaveRead;
+        this.masterVersion = masterVersion;
+        this.started = System.nanoTime();
+    }
+
+    long getStarted() {
+        return this.started;
+    }
+
+    ClientType getRequested() {
+        return this.requested;
+    }
+
+    boolean isSlaveRead() {
+        return this.slaveRead;
+    }
+
+    long getMasterVersion() {
+        return this.masterVersion;
+    }
+
+}
@@ -0,0 +1,493 @@
+package com.officedrop.redis.failover;
+
+import com.officedrop.redis.failover.jedis.JedisClient;
+import com.officedrop.redis.failover.jedis.JedisClientFactory;
+import com.officedrop.redis.failover.utils.ConcurrentSlots;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Connections to a single redis server shared by all {@link Client} objects using the same
+ * {@link HostConnectionPools}. Connections are only created when there is no idle one available, so the
+ * number of open sockets follows the number of callers talking to this host at the same time, and idle
+ * connections are closed by {@link #evictIdle(long)} once a burst is over.
+ *
+ * It also keeps an exponentially weighted moving average of the latency callers observed on this host,
+ * which together with the number of connections currently in use is what latency aware slave selection
+ * looks at.
+ *
+ * The pool also holds the passive health state of the host. It's marked as suspect when a real command
+ * fails with a connection error and it's only cleared by {@link #check()}, never by probing on the
+ * read path.
+ *
+ * New connections can be limited by the caller's {@link ConnectThrottles} so a host that just became the master isn't
+ * hit by every client reconnecting at once. Callers waiting for the throttle take a connection released
+ * by someone else instead of opening a new one.
+ */
+public class HostConnectionPool {
+
+    private static final Logger log = LoggerFactory.getLogger(HostConnectionPool.class);
+
+    public static final double LATENCY_DECAY = 0.2;
+    public static final long LATENCY_HALF_LIFE = 5000;
+    private static final long UNKNOWN_LATENCY = Double.doubleToLongBits(-1);
+
+    private final HostConfiguration configuration;
+    private final JedisClientFactory factory;
+    private final ConcurrentSlots<HostConnection> idle = new ConcurrentSlots<HostConnection>();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger peakActive = new AtomicInteger();
+    private final AtomicInteger created = new AtomicInteger();
+    private final AtomicInteger throttled = new AtomicInteger();
+    private final AtomicLong latency = new AtomicLong(UNKNOWN_LATENCY);
+    private final AtomicLong connectLatency = new AtomicLong(UNKNOWN_LATENCY);
+    private volatile long lastLatencySample = System.nanoTime();
+    private volatile long latencyHalfLife = TimeUnit.MILLISECONDS.toNanos(LATENCY_HALF_LIFE);
+    private volatile int minIdle;
+    private volatile long validationIdleTime;
+    private volatile boolean suspect;
+    private volatile boolean closed;
+
+    public HostConnectionPool(HostConfiguration configuration, JedisClientFactory factory) {
+        this.configuration = configuration;
+        this.factory = factory;
+    }
+
+    public HostConfiguration getHostConfiguration() {
+        return this.configuration;
+    }
+
+    public HostConnection borrow() {
+        return this.borrow(null);
+    }
+
+    /**
+     * Takes an idle connection or opens a new one, waiting for the caller's throttle for this host first if
+     * throttles are given.
+     */
+    public HostConnection borrow(ConnectThrottles throttles) {
+        HostConnection connection = this.takeIdle();
+
+        if (connection == null) {
+            connection = this.connect(throttles == null ? null : throttles.get(this.configuration));
+        }
+
+        int current = this.active.incrementAndGet();
+        int peak;
+
+        while (current > (peak = this.peakActive.get()) && !this.peakActive.compareAndSet(peak, current)) {
+            // retry until we either set the new peak or someone else sets a higher one
+        }
+
+        return connection;
+    }
+
+    /**
+     * Opens a new connection once the throttle allows it. While waiting, a connection released by another
+     * caller is used instead.
+     */
+    private HostConnection connect(ConnectThrottle throttle) {
+        long start = System.nanoTime();
+
+        if (throttle != null && !throttle.tryAcquire()) {
+            this.throttled.incrementAndGet();
+            long deadline = start + throttle.getMaxWait();
+
+            do {
+                long remaining = deadline - System.nanoTime();
+
+                if (remaining <= 0) {
+                    break;
+                }
+
+                try {
+                    TimeUnit.NANOSECONDS.sleep(Math.min(throttle.nextDelay(), remaining));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+
+                HostConnection released = this.takeIdle();
+
+                if (released != null) {
+                    return released;
+                }
+            } while (!throttle.tryAcquire());
+        }
+
+        HostConnection connection = new HostConnection(this, this.factory.create(this.configuration));
+        this.created.incrementAndGet();
+        average(this.connectLatency, (System.nanoTime() - start) / 1000d);
+
+        return connection;
+    }
+
+    /**
+     * Takes an idle connection, pinging it first if it wasn't used for the validation idle time. Connections
+     * that fail the PING are closed and the next one is tried.
+     */
+    private HostConnection takeIdle() {
+        long idleTime = this.validationIdleTime;
+        HostConnection connection;
+
+        while ((connection = this.idle.poll()) != null) {
+            if (idleTime <= 0 || System.currentTimeMillis() - connection.getLastUsed() < idleTime || this.validate(connection)) {
+                return connection;
+            }
+        }
+
+        return null;
+    }
+
+    private boolean validate(HostConnection connection) {
+        try {
+            connection.getClient().ping();
+            connection.touch();
+            return true;
+        } catch (Exception e) {
+            log.warn(String.format("Idle connection to %s failed to answer a PING, closing it", this.configuration), e);
+            quit(connection.getClient());
+            return false;
+        }
+    }
+
+    public void release(HostConnection connection) {
+        this.active.decrementAndGet();
+
+        if (this.closed || this.suspect) {
+            quit(connection.getClient());
+        } else {
+            connection.touch();
+            this.idle.add(connection);
+        }
+    }
+
+    /**
+     * Closes a connection that failed with a connection error instead of returning it to the pool.
+     */
+    public void invalidate(HostConnection connection) {
+        this.active.decrementAndGet();
+        quit(connection.getClient());
+    }
+
+    /**
+     * Closes idle connections that were not used for the given amount of time, keeping the most recently used
+     * ones up to the min idle count, and then opens new ones if there are fewer idle connections than that.
+     * The ones kept are pinged if they weren't used for the validation idle time and closed if they fail, so
+     * this is also the heartbeat of the idle connections. Returns how many connections were closed.
+     */
+    public int evictIdle(long idleMillis) {
+        long now = System.currentTimeMillis();
+        long limit = now - idleMillis;
+        long idleTime = this.validationIdleTime;
+        int floor = this.minIdle;
+        List<HostConnection> connections = this.idle.drain();
+        List<HostConnection> kept = new ArrayList<HostConnection>();
+        int evicted = 0;
+
+        for (HostConnection connection : connections) {
+            if (connection.getLastUsed() < limit && kept.size() >= floor) {
+                quit(connection.getClient());
+                evicted++;
+            } else if (idleTime > 0 && now - connection.getLastUsed() >= idleTime && !this.validate(connection)) {
+                evicted++;
+            } else {
+                kept.add(connection);
+            }
+        }
+
+        for (int x = kept.size() - 1; x >= 0; x--) {
+            this.idle.add(kept.get(x));
+        }
+
+        if (evicted > 0) {
+            log.debug("Evicted {} idle connections to {}", evicted, this.configuration);
+        }
+
+        if (kept.size() < floor) {
+            this.warmUp(floor);
+        }
+
+        return evicted;
+    }
+
+    /**
+     * Idle connections not used for this many milliseconds are pinged before being handed out and at every
+     * {@link #evictIdle(long)}, zero or less turns validation off.
+     */
+    public void setValidationIdleTime(long validationIdleTime) {
+        this.validationIdleTime = validationIdleTime;
+    }
+
+    public long getValidationIdleTime() {
+        return this.validationIdleTime;
+    }
+
+    /**
+     * How many idle connections {@link #evictIdle(long)} keeps open, opening new ones to get back to it.
+     */
+    public void setMinIdle(int minIdle) {
+        this.minIdle = Math.max(0, minIdle);
+    }
+
+    public int getMinIdle() {
+        return this.minIdle;
+    }
+
+    /**
+     * Makes sure there are at least count idle connections that just answered a PING, opening new ones if
+     * needed. Connections that fail the PING are closed. Returns how many connections were opened, stopping
+     * at the first new connection that fails.
+     */
+    public int warmUp(int count) {
+        if (this.closed || this.suspect) {
+            return 0;
+        }
+
+        List<HostConnection> ready = new ArrayList<HostConnection>(count);
+        int opened = 0;
+
+        try {
+            while (ready.size() < count) {
+                HostConnection connection = this.idle.poll();
+                boolean fresh = connection == null;
+
+                try {
+                    if (fresh) {
+                        connection = new HostConnection(this, this.factory.create(this.configuration));
+                        this.created.incrementAndGet();
+                        opened++;
+                    }
+
+                    connection.getClient().ping();
+                    connection.touch();
+                    ready.add(connection);
+                } catch (Exception e) {
+                    if (connection != null) {
+                        quit(connection.getClient());
+                    }
+
+                    if (fresh) {
+                        log.warn(String.format("Failed to open a connection to %s", this.configuration), e);
+                        break;
+                    }
+                }
+            }
+        } finally {
+            for (HostConnection connection : ready) {
+                this.idle.add(connection);
+            }
+        }
+
+        return opened;
+    }
+
+    /**
+     * Adds a latency sample, in microseconds, to the moving average for this host. The sample is averaged with
+     * the {@link #getLatencyEstimate() estimate}, so a host that wasn't sampled for a while doesn't start over
+     * from its last, possibly much slower, samples.
+     */
+    public void recordLatency(double micros) {
+        long now = System.nanoTime();
+        long current;
+        long updated;
+
+        do {
+            current = this.latency.get();
+            double average = this.decay(Double.longBitsToDouble(current), now);
+            updated = Double.doubleToLongBits(average < 0 ? micros : average + LATENCY_DECAY * (micros - average));
+        } while (!this.latency.compareAndSet(current, updated));
+
+        this.lastLatencySample = now;
+    }
+
+    private static void average(AtomicLong target, double micros) {
+        long current;
+        long updated;
+
+        do {
+            current = target.get();
+            double average = Double.longBitsToDouble(current);
+            updated = Double.doubleToLongBits(average < 0 ? micros : average + LATENCY_DECAY * (micros - average));
+        } while (!target.compareAndSet(current, updated));
+    }
+
+    /**
+     * Sets the latency average from an external measurement if nothing was observed for this host yet.
+     */
+    public void seedLatency(double micros) {
+        this.latency.compareAndSet(UNKNOWN_LATENCY, Double.doubleToLongBits(micros));
+    }
+
+    /**
+     * The moving average of the latency in microseconds or a negative number if it's unknown.
+     */
+    public double getLatency() {
+        return Double.longBitsToDouble(this.latency.get());
+    }
+
+    /**
+     * The moving average of the latency in microseconds halved for every half life since the last sample, or
+     * a negative number if it's unknown. A host that stopped being selected after a few slow samples looks
+     * cheaper the longer it goes without one, so it's eventually selected and measured again instead of
+     * being starved by hosts that keep getting samples.
+     */
+    public double getLatencyEstimate() {
+        return this.decay(this.getLatency(), System.nanoTime());
+    }
+
+    private double decay(double average, long now) {
+        long elapsed = now - this.lastLatencySample;
+
+        if (average < 0 || elapsed <= 0) {
+            return average;
+        }
+
+        return average * Math.pow(0.5, elapsed / (double) this.latencyHalfLife);
+    }
+
+    /**
+     * How long it takes for the latency estimate to halve without samples, {@link #LATENCY_HALF_LIFE} ms by default.
+     */
+    public void setLatencyHalfLife(long halfLife, TimeUnit unit) {
+        if (halfLife <= 0) {
+            throw new IllegalArgumentException("The latency half life has to be positive - " + halfLife);
+        }
+
+        this.latencyHalfLife = unit.toNanos(halfLife);
+    }
+
+    /**
+     * The moving average, in microseconds, of how long callers took to get a new connection including the
+     * time spent waiting for the connect throttle, or a negative number if no connection was opened yet.
+     */
+    public double getConnectLatency() {
+        return Double.longBitsToDouble(this.connectLatency.get());
+    }
+
+    public boolean isSuspect() {
+        return this.suspect;
+    }
+
+    /**
+     * Marks this host as suspect and closes its idle connections, they most likely failed as well. Returns
+     * true only for the caller that changed the state so a single background check gets scheduled.
+     */
+    public boolean markSuspect() {
+        synchronized (this) {
+            if (this.suspect) {
+                return false;
+            }
+            this.suspect = true;
+        }
+
+        this.closeIdle();
+
+        return true;
+    }
+
+    /**
+     * Checks a suspect host by opening a new connection and pinging it. Returns true if the host was cleared.
+     * A pool closed or drained while the check was running stays as it is and the new connection is closed.
+     */
+    public boolean check() {
+        try {
+            JedisClient fresh = this.factory.create(this.configuration);
+            fresh.ping();
+
+            if (this.closed) {
+                quit(fresh);
+                return false;
+            }
+
+            this.suspect = false;
+            this.idle.add(new HostConnection(this, fresh));
+
+            // close() could have drained the idle connections right before the push
+            if (this.closed) {
+                this.closeIdle();
+                return false;
+            }
+        } catch (Exception e) {
+            log.warn(String.format("Host %s is still failing", this.configuration), e);
+            return false;
+        }
+
+        log.info("Host {} is healthy again", this.configuration);
+
+        return true;
+    }
+
+    public boolean isClosed() {
+        return this.closed;
+    }
+
+    public void close() {
+        this.closed = true;
+        this.closeIdle();
+    }
+
+    /**
+     * Closes the pool without interrupting commands in flight: idle connections are closed now and the ones
+     * in use are closed as they are released instead of going back to the pool.
+     */
+    public void drain() {
+        this.close();
+        log.info("Draining connections to {}, {} still in use", this.configuration, this.active.get());
+    }
+
+    public int getActiveCount() {
+        return this.active.get();
+    }
+
+    public int getIdleCount() {
+        return this.idle.size();
+    }
+
+    public int getPeakActiveCount() {
+        return this.peakActive.get();
+    }
+
+    public int getCreatedCount() {
+        return this.created.get();
+    }
+
+    /**
+     * How many new connections had to wait for the connect throttle.
+     */
+    public int getThrottledCount() {
+        return this.throttled.get();
+    }
+
+    private void closeIdle() {
+        for (HostConnection connection : this.idle.drain()) {
+            quit(connection.getClient());
+        }
+    }
+
+    private static void quit(JedisClient client) {
+        try {
+            client.quit();
+        } catch (Exception e) {
+            log.error("Failed while closing the connection", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "HostConnectionPool{" +
+                "configuration=" + configuration +
+                ", active=" + active +
+                ", idle=" + idle.size() +
+                ", latency=" + getLatency() +
+                ", suspect=" + suspect +
+                '}';
+    }
+
+}
@@ -0,0 +1,265 @@
+package com.officedrop.redis.failover;
+
+import com.officedrop.redis.failover.jedis.JedisClientFactory;
+import com.officedrop.redis.failover.utils.DaemonThreadPoolFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One {@link HostConnectionPool} per {@link HostConfiguration}, shared by every {@link Client} created with the
+ * same {@link JedisClientFactory}. Use {@link #acquire(JedisClientFactory)} to get the instance that is
+ * shared JVM wide for a factory and {@link #release()} once it's not needed anymore, the last owner to
+ * release it closes every connection it holds.
+ */
+public class HostConnectionPools {
+
+    private static final Logger log = LoggerFactory.getLogger(HostConnectionPools.class);
+
+    public static final long SUSPECT_CHECK_INTERVAL = 1000;
+    public static final long IDLE_TIMEOUT = 60000;
+    public static final long EVICTION_INTERVAL = 30000;
+
+    private static final ScheduledExecutorService scheduler = DaemonThreadPoolFactory.newScheduledPool(1);
+    private static final Map<JedisClientFactory, HostConnectionPools> shared =
+            new HashMap<JedisClientFactory, HostConnectionPools>();
+
+    /**
+     * The pools shared JVM wide for the factory. Every call has to be matched by a call to {@link #release()}.
+     */
+    public static HostConnectionPools acquire(JedisClientFactory factory) {
+        synchronized (shared) {
+            HostConnectionPools pools = shared.get(factory);
+
+            if (pools == null) {
+                pools = new HostConnectionPools(factory);
+                shared.put(factory, pools);
+            }
+
+            pools.owners++;
+
+            return pools;
+        }
+    }
+
+    private final JedisClientFactory factory;
+    private final ConcurrentMap<HostConfiguration, HostConnectionPool> pools =
+            new ConcurrentHashMap<HostConfiguration, HostConnectionPool>();
+    private final Map<HostConfiguration, Integer> retained = new HashMap<HostConfiguration, Integer>();
+    private final Map<Object, Integer> idleFloors = new HashMap<Object, Integer>();
+    private volatile int idleFloor;
+    private final Map<Object, Long> validationIdleTimes = new HashMap<Object, Long>();
+    private volatile long validationIdleTime;
+    private final ScheduledFuture<?> eviction;
+    private int owners;
+
+    public HostConnectionPools(JedisClientFactory factory) {
+        this.factory = factory;
+        this.eviction = scheduler.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                evictIdle();
+            }
+        }, EVICTION_INTERVAL, EVICTION_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    public JedisClientFactory getClientFactory() {
+        return this.factory;
+    }
+
+    /**
+     * Gives back pools taken with {@link #acquire(JedisClientFactory)}. Once every owner released them they
+     * are closed and the next acquire for the factory creates new ones. Pools created directly are closed
+     * right away.
+     */
+    public void release() {
+        synchronized (shared) {
+            if (--this.owners > 0) {
+                return;
+            }
+
+            if (shared.get(this.factory) == this) {
+                shared.remove(this.factory);
+            }
+        }
+
+        this.close();
+    }
+
+    public HostConnectionPool get(HostConfiguration configuration) {
+        HostConnectionPool pool = this.pools.get(configuration);
+
+        if (pool == null) {
+            HostConnectionPool created = new HostConnectionPool(configuration, this.factory);
+            created.setMinIdle(this.idleFloor);
+            created.setValidationIdleTime(this.validationIdleTime);
+            pool = this.pools.putIfAbsent(configuration, created);
+
+            if (pool == null) {
+                pool = created;
+            }
+        }
+
+        return pool;
+    }
+
+    /**
+     * Marks the host as used by one more {@link ClusterRouting} and returns its pool. Every call has to be
+     * matched by a call to {@link #releaseHost(HostConfiguration)} once the host leaves that routing's cluster.
+     */
+    public HostConnectionPool retainHost(HostConfiguration configuration) {
+        synchronized (this.retained) {
+            Integer count = this.retained.get(configuration);
+            this.retained.put(configuration, count == null ? 1 : count + 1);
+
+            return this.get(configuration);
+        }
+    }
+
+    /**
+     * Forgets a host once no routing uses it anymore and drains its pool. Clients that still route to it
+     * finish their commands, a host that comes back later gets a new pool. Routings sharing these pools
+     * that still see the host keep using it.
+     */
+    public void releaseHost(HostConfiguration configuration) {
+        synchronized (this.retained) {
+            Integer count = this.retained.get(configuration);
+
+            if (count == null) {
+                return;
+            }
+
+            if (count > 1) {
+                this.retained.put(configuration, count - 1);
+                return;
+            }
+
+            this.retained.remove(configuration);
+
+            HostConnectionPool pool = this.pools.remove(configuration);
+
+            if (pool != null) {
+                pool.drain();
+            }
+        }
+    }
+
+    /**
+     * Sets how many idle connections to each host the owner wants kept open, zero removes the owner's floor.
+     * Every owner has callers of its own, so the floors of all owners add up to the min idle of each host.
+     */
+    public void setIdleFloor(Object owner, int connections) {
+        synchronized (this.idleFloors) {
+            if (connections > 0) {
+                this.idleFloors.put(owner, connections);
+            } else {
+                this.idleFloors.remove(owner);
+            }
+
+            int total = 0;
+
+            for (Integer floor : this.idleFloors.values()) {
+                total += floor;
+            }
+
+            this.idleFloor = total;
+
+            for (HostConnectionPool pool : this.pools.values()) {
+                pool.setMinIdle(total);
+            }
+        }
+    }
+
+    public int getIdleFloor() {
+        return this.idleFloor;
+    }
+
+    /**
+     * Sets after how many milliseconds idle connections are pinged for the owner, zero removes the owner's
+     * setting. Hosts use the shortest time any owner asked for. See
+     * {@link HostConnectionPool#setValidationIdleTime(long)}.
+     */
+    public void setValidationIdleTime(Object owner, long validationIdleTime) {
+        synchronized (this.validationIdleTimes) {
+            if (validationIdleTime > 0) {
+                this.validationIdleTimes.put(owner, validationIdleTime);
+            } else {
+                this.validationIdleTimes.remove(owner);
+            }
+
+            long shortest = 0;
+
+            for (Long idleTime : this.validationIdleTimes.values()) {
+                if (shortest == 0 || idleTime < shortest) {
+                    shortest = idleTime;
+                }
+            }
+
+            this.validationIdleTime = shortest;
+
+            for (HostConnectionPool pool : this.pools.values()) {
+                pool.setValidationIdleTime(shortest);
+            }
+        }
+    }
+
+    public long getValidationIdleTime() {
+        return this.validationIdleTime;
+    }
+
+    public Collection<HostConnectionPool> getPools() {
+        return this.pools.values();
+    }
+
+    /**
+     * Marks the host as suspect and keeps checking it in the background until it's healthy again.
+     */
+    public void markSuspect(HostConnectionPool pool) {
+        if (pool.markSuspect()) {
+            log.warn("Host {} is now suspect", pool.getHostConfiguration());
+            this.scheduleCheck(pool);
+        }
+    }
+
+    private void scheduleCheck(final HostConnectionPool pool) {
+        scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                if (pool.isClosed()) {
+                    return;
+                }
+
+                if (!pool.check()) {
+                    scheduleCheck(pool);
+                }
+            }
+        }, SUSPECT_CHECK_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    public void evictIdle() {
+        for (HostConnectionPool pool : this.pools.values()) {
+            try {
+                pool.evictIdle(IDLE_TIMEOUT);
+            } catch (Exception e) {
+                log.error(String.format("Failed to evict idle connections from %s", pool), e);
+            }
+        }
+    }
+
+    public void close() {
+        this.eviction.cancel(false);
+
+        for (HostConnectionPool pool : this.pools.values()) {
+            pool.close();
+        }
+    }
+
+}
@@ -9,7 +9,13 @@ public interface InfoKeys {
 
     public static final String ROLE = "role";
     public static final String MASTER = "master";
+    public static final String SLAVE = "slave";
     public static final String MASTER_HOST = "master_host";
     public static final String MASTER_PORT = "master_port";
+    public static final String MASTER_LINK_STATUS = "master_link_status";
+    public static final String MASTER_LINK_UP = "up";
+    public static final String MASTER_SYNC_IN_PROGRESS = "master_sync_in_progress";
+    public static final String MASTER_LAST_IO_SECONDS_AGO = "master_last_io_seconds_ago";
+    public static final String LOADING = "loading";
 
 }
@@ -0,0 +1,58 @@
+package com.officedrop.redis.failover;
+
+import com.officedrop.redis.failover.strategy.LeastOutstandingReplicaSelector;
+import com.officedrop.redis.failover.strategy.PowerOfTwoChoicesReplicaSelector;
+import com.officedrop.redis.failover.strategy.RandomReplicaSelector;
+import com.officedrop.redis.failover.strategy.ReplicaSelector;
+import com.officedrop.redis.failover.strategy.RoundRobinReplicaSelector;
+
+/**
+ * How a {@link Client} spreads reads between the available slaves, a shortcut for the built in
+ * {@link ReplicaSelector} implementations.
+ */
+public enum LoadBalancingMode {
+
+    /**
+     * Every slave gets the same share of reads.
+     */
+    ROUND_ROBIN {
+        @Override
+        public ReplicaSelector createSelector() {
+            return new RoundRobinReplicaSelector();
+        }
+    },
+
+    /**
+     * Each read samples two random slaves and goes to the one with the lowest observed latency weighted by
+     * the number of commands it's currently running (power of two choices).
+     */
+    LATENCY_AWARE {
+        @Override
+        public ReplicaSelector createSelector() {
+            return new PowerOfTwoChoicesReplicaSelector();
+        }
+    },
+
+    /**
+     * Each read goes to a random slave.
+     */
+    RANDOM {
+        @Override
+        public ReplicaSelector createSelector() {
+            return new RandomReplicaSelector();
+        }
+    },
+
+    /**
+     * Each read goes to the slave with the fewest commands in flight.
+     */
+    LEAST_OUTSTANDING {
+        @Override
+        public ReplicaSelector createSelector() {
+            return new LeastOutstandingReplicaSelector();
+        }
+    };
+
+    public abstract ReplicaSelector createSelector();
+
+}
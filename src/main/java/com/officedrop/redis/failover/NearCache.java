@@ -0,0 +1,315 @@
+package com.officedrop.redis.failover;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An in-process cache for values read by {@link Client}, so keys that are read very often and change
+ * rarely don't need a trip to a slave every time. Values are cached per redis key and expire after a TTL,
+ * the default one or the one of the first key prefix set with {@link #setTtl(String, long, TimeUnit)} that
+ * matches the key. The cache holds at most maxEntries keys, evicting the least recently used ones, and is
+ * split in segments so readers of different keys don't wait on each other.
+ *
+ * Writes made by clients using the cache invalidate the key before they are sent and, for the write
+ * settle time, values read for that key are not cached since a slave could still return the old one.
+ * Writes made by other processes are only seen once the TTL expires.
+ */
+public class NearCache {
+
+    /**
+     * Returned by the lookups when there is no cached value. Null is a valid cached value.
+     */
+    public static final Object MISS = new Object();
+
+    private static final Object NULL = new Object();
+    private static final int SEGMENTS = 16;
+
+    public static final long DEFAULT_WRITE_SETTLE_TIME = 1000;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final long defaultTtl;
+    private final List<PrefixTtl> ttls = new CopyOnWriteArrayList<PrefixTtl>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private volatile long writeSettleTime = DEFAULT_WRITE_SETTLE_TIME;
+
+    public NearCache(int maxEntries, long ttl, TimeUnit unit) {
+        if ( maxEntries < SEGMENTS ) {
+            throw new IllegalArgumentException(String.format("The cache must hold at least %d entries - %d", SEGMENTS, maxEntries));
+        }
+
+        if ( ttl <= 0 ) {
+            throw new IllegalArgumentException("The TTL must be positive - " + ttl);
+        }
+
+        for ( int x = 0; x < SEGMENTS; x++ ) {
+            this.segments[x] = new Segment(maxEntries / SEGMENTS);
+        }
+
+        this.defaultTtl = unit.toMillis(ttl);
+    }
+
+    /**
+     * Keys starting with the prefix expire after the given TTL instead of the default one.
+     */
+    public void setTtl(String prefix, long ttl, TimeUnit unit) {
+        this.ttls.add(new PrefixTtl(prefix, unit.toMillis(ttl)));
+    }
+
+    public void setWriteSettleTime(long writeSettleTime, TimeUnit unit) {
+        this.writeSettleTime = unit.toMillis(writeSettleTime);
+    }
+
+    public Object get(String key) {
+        CachedValue entry = this.entry(key);
+        return this.count(entry == null ? MISS : unmask(entry.value));
+    }
+
+    public Object getField(String key, String field) {
+        CachedValue entry = this.entry(key);
+        return this.count(entry == null ? MISS : unmask(entry.fields.get(field)));
+    }
+
+    public Object getMembers(String key) {
+        CachedValue entry = this.entry(key);
+        return this.count(entry == null ? MISS : unmask(entry.members));
+    }
+
+    /**
+     * Taken before reading a value from redis and given back when caching it, so values read while the
+     * key was being invalidated are not cached.
+     */
+    public long token(String key) {
+        Segment segment = this.segment(key);
+
+        synchronized ( segment ) {
+            return segment.generation;
+        }
+    }
+
+    public void put(String key, Object value, long token) {
+        CachedValue entry = this.entryToFill(key, token);
+
+        if ( entry != null ) {
+            entry.value = mask(value);
+        }
+    }
+
+    public void putField(String key, String field, Object value, long token) {
+        CachedValue entry = this.entryToFill(key, token);
+
+        if ( entry != null ) {
+            entry.fields.put(field, mask(value));
+        }
+    }
+
+    public void putMembers(String key, Object members, long token) {
+        CachedValue entry = this.entryToFill(key, token);
+
+        if ( entry != null ) {
+            entry.members = mask(members);
+        }
+    }
+
+    public void invalidate(String key) {
+        Segment segment = this.segment(key);
+
+        synchronized ( segment ) {
+            segment.put(key, new CachedValue(System.currentTimeMillis() + this.writeSettleTime, true));
+            segment.generation++;
+        }
+
+        this.invalidations.incrementAndGet();
+    }
+
+    public void invalidate(String... keys) {
+        for ( String key : keys ) {
+            this.invalidate(key);
+        }
+    }
+
+    public void invalidatePairs(String... keysValues) {
+        for ( int x = 0; x < keysValues.length; x += 2 ) {
+            this.invalidate(keysValues[x]);
+        }
+    }
+
+    /**
+     * Drops everything, used when the master changes since the new one might not have all writes.
+     */
+    public void clear() {
+        for ( Segment segment : this.segments ) {
+            synchronized ( segment ) {
+                segment.clear();
+                segment.generation++;
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+
+        for ( Segment segment : this.segments ) {
+            synchronized ( segment ) {
+                size += segment.size();
+            }
+        }
+
+        return size;
+    }
+
+    public long getHitCount() {
+        return this.hits.get();
+    }
+
+    public long getMissCount() {
+        return this.misses.get();
+    }
+
+    public long getEvictionCount() {
+        return this.evictions.get();
+    }
+
+    public long getInvalidationCount() {
+        return this.invalidations.get();
+    }
+
+    public double getHitRatio() {
+        long hits = this.hits.get();
+        long total = hits + this.misses.get();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    private Object count(Object value) {
+        if ( value == MISS ) {
+            this.misses.incrementAndGet();
+        } else {
+            this.hits.incrementAndGet();
+        }
+
+        return value;
+    }
+
+    private CachedValue entry(String key) {
+        Segment segment = this.segment(key);
+        CachedValue entry;
+
+        synchronized ( segment ) {
+            entry = segment.get(key);
+        }
+
+        if ( entry == null || entry.tombstone || entry.expiresAt <= System.currentTimeMillis() ) {
+            return null;
+        }
+
+        return entry;
+    }
+
+    private CachedValue entryToFill(String key, long token) {
+        Segment segment = this.segment(key);
+        long now = System.currentTimeMillis();
+
+        synchronized ( segment ) {
+            if ( segment.generation != token ) {
+                return null;
+            }
+
+            CachedValue entry = segment.get(key);
+
+            if ( entry != null && entry.expiresAt > now ) {
+                return entry.tombstone ? null : entry;
+            }
+
+            entry = new CachedValue(now + this.ttl(key), false);
+            segment.put(key, entry);
+
+            return entry;
+        }
+    }
+
+    private long ttl(String key) {
+        for ( PrefixTtl ttl : this.ttls ) {
+            if ( key.startsWith(ttl.prefix) ) {
+                return ttl.ttl;
+            }
+        }
+
+        return this.defaultTtl;
+    }
+
+    private Segment segment(String key) {
+        int hash = key.hashCode();
+        return this.segments[(hash ^ (hash >>> 16)) & (SEGMENTS - 1)];
+    }
+
+    private static Object mask(Object value) {
+        return value == null ? NULL : value;
+    }
+
+    private static Object unmask(Object value) {
+        if ( value == null ) {
+            return MISS;
+        }
+
+        return value == NULL ? null : value;
+    }
+
+    private static final class CachedValue {
+
+        final long expiresAt;
+        final boolean tombstone;
+        final Map<String, Object> fields = new ConcurrentHashMap<String, Object>();
+        volatile Object value;
+        volatile Object members;
+
+        CachedValue(long expiresAt, boolean tombstone) {
+            this.expiresAt = expiresAt;
+            this.tombstone = tombstone;
+        }
+
+    }
+
+    private final class Segment extends LinkedHashMap<String, CachedValue> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int maxEntries;
+        long generation;
+
+        Segment(int maxEntries) {
+            super(16, 0.75f, true);
+            this.maxEntries = maxEntries;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedValue> eldest) {
+            if ( this.size() > this.maxEntries ) {
+                evictions.incrementAndGet();
+                return true;
+            }
+
+            return false;
+        }
+
+    }
+
+    private static final class PrefixTtl {
+
+        final String prefix;
+        final long ttl;
+
+        PrefixTtl(String prefix, long ttl) {
+            this.prefix = prefix;
+            this.ttl = ttl;
+        }
+
+    }
+
+}
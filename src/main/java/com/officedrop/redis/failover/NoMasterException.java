@@ -0,0 +1,22 @@
+package com.officedrop.redis.failover;
+
+import redis.clients.jedis.exceptions.JedisConnectionException;
+
+/**
+ * Thrown right away by a {@link Client} for commands that need the master while the cluster has none, as
+ * during a failover, instead of letting the caller block on a connection to a node that is gone. Reads
+ * keep going to the slaves and only fail with it if there is no slave they could use.
+ *
+ * It's a {@link JedisConnectionException}, so code that already handles connection failures handles it
+ * and commands retried across a failover keep waiting for the new master. Pools throw it from withJedis as
+ * it is, without wrapping it.
+ */
+public class NoMasterException extends JedisConnectionException {
+
+    private static final long serialVersionUID = 1L;
+
+    public NoMasterException() {
+        super("There is no master available, the cluster is failing over");
+    }
+
+}
@@ -77,12 +77,14 @@ public class Node {
                     }
                 });
 
+                long replicationLag = replicationLag(this.info());
+
                 this.currentErrorCount = 0;
 
-                NodeState newState = new NodeState(latency);
+                NodeState newState = new NodeState(latency, replicationLag);
 
                 if ( !newState.equals(this.currentState) ) {
-                    this.currentState = new NodeState(latency);
+                    this.currentState = newState;
 
                     for (NodeListener listener : this.listeners) {
                         try {
@@ -194,6 +196,37 @@ public class Node {
         });
     }
 
+    /**
+     * Calculates how far behind its master a node is from its INFO output. Masters have an unknown lag,
+     * slaves that are loading a dataset, syncing or without a link to the master are unsynced and all
+     * other slaves are as late as the last time they heard from their master.
+     */
+    static long replicationLag(Map<String, String> info) {
+
+        if ( !InfoKeys.SLAVE.equals(info.get(InfoKeys.ROLE)) ) {
+            return NodeState.UNKNOWN_LAG;
+        }
+
+        if ( "1".equals(info.get(InfoKeys.LOADING))
+                || "1".equals(info.get(InfoKeys.MASTER_SYNC_IN_PROGRESS))
+                || !InfoKeys.MASTER_LINK_UP.equals(info.get(InfoKeys.MASTER_LINK_STATUS)) ) {
+            return NodeState.UNSYNCED_LAG;
+        }
+
+        String lastIo = info.get(InfoKeys.MASTER_LAST_IO_SECONDS_AGO);
+
+        if ( lastIo == null ) {
+            return NodeState.UNKNOWN_LAG;
+        }
+
+        try {
+            long seconds = Long.parseLong(lastIo.trim());
+            return seconds < 0 ? NodeState.UNSYNCED_LAG : TimeUnit.SECONDS.toMillis(seconds);
+        } catch ( NumberFormatException e ) {
+            return NodeState.UNKNOWN_LAG;
+        }
+    }
+
     Map<String, String> parseInfo(String data) {
 
         Map<String, String> parameters = new HashMap<String, String>();
@@ -116,6 +116,46 @@ public class NodeManager implements NodeListener, ClusterChangeEventSource {
         return this.lastClusterStatus;
     }
 
+    public Map<HostConfiguration, NodeState> getCurrentNodesState() {
+        return this.currentNodesState;
+    }
+
+    /**
+     * The slave the failover strategy would promote if the master failed now, judged with the last reports
+     * from every node manager that this manager has seen, leader or not. Until the first reports arrive only
+     * this manager's own view is used. Returns null if there are no slaves or no reports yet.
+     */
+    public HostConfiguration getLikelyNextMaster() {
+        ClusterStatus status = this.lastClusterStatus;
+        Map<String, Map<HostConfiguration, NodeState>> nodesData = this.lastNodesData;
+        Map<HostConfiguration, NodeState> states = this.currentNodesState;
+
+        if (nodesData == null && states != null) {
+            nodesData = Collections.singletonMap(this.nodeName, states);
+        }
+
+        if (status == null || nodesData == null) {
+            return null;
+        }
+
+        Set<HostConfiguration> candidates = new HashSet<HostConfiguration>(status.getSlaves());
+
+        for (Map<HostConfiguration, NodeState> report : nodesData.values()) {
+            candidates.retainAll(report.keySet());
+        }
+
+        if (candidates.isEmpty()) {
+            return null;
+        }
+
+        try {
+            return this.failoverStrategy.selectMaster(candidates, nodesData);
+        } catch (Exception e) {
+            log.warn("Failed to select the likely next master", e);
+            return null;
+        }
+    }
+
     public void addListeners(NodeManagerListener... listeners) {
         this.listeners.addAll(Arrays.asList(listeners));
     }
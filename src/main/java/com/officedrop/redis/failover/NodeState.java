@@ -7,28 +7,59 @@ package com.officedrop.redis.failover;
  */
 public class NodeState {
 
-    public static final NodeState OFFLINE_STATE = new NodeState(-1, true);
+    /**
+     * The replication lag of masters and of nodes whose replication state was not sampled.
+     */
+    public static final long UNKNOWN_LAG = -1;
+
+    /**
+     * The replication lag of slaves that are loading, syncing or have lost the link to their master.
+     */
+    public static final long UNSYNCED_LAG = Long.MAX_VALUE;
+
+    public static final NodeState OFFLINE_STATE = new NodeState(-1, UNKNOWN_LAG, true);
 
     private final long latency;
+    private final long replicationLag;
     private final boolean offline;
 
-    private NodeState( long latency, boolean offline ) {
+    private NodeState( long latency, long replicationLag, boolean offline ) {
         this.latency = latency;
+        this.replicationLag = replicationLag;
         this.offline = offline;
     }
 
     public NodeState( long latency ) {
-        this(latency, false);
+        this(latency, UNKNOWN_LAG);
+    }
+
+    public NodeState( long latency, long replicationLag ) {
+        this(latency, replicationLag, false);
     }
 
     public long getLatency() {
         return latency;
     }
 
+    /**
+     * How far behind its master this node is, in milliseconds.
+     */
+    public long getReplicationLag() {
+        return replicationLag;
+    }
+
     public boolean isOffline() {
         return offline;
     }
 
+    /**
+     * Returns true if the node is online, synced and no more than maxLag milliseconds behind its master.
+     * Nodes with an unknown lag are considered fresh.
+     */
+    public boolean isWithinLag( long maxLag ) {
+        return !this.offline && this.replicationLag != UNSYNCED_LAG && this.replicationLag <= maxLag;
+    }
+
     @Override
     public boolean equals(final Object o) {
         if (this == o) return true;
@@ -37,6 +68,7 @@ public class NodeState {
         NodeState nodeState = (NodeState) o;
 
         if (latency != nodeState.latency) return false;
+        if (replicationLag != nodeState.replicationLag) return false;
         if (offline != nodeState.offline) return false;
 
         return true;
@@ -45,6 +77,7 @@ public class NodeState {
     @Override
     public int hashCode() {
         int result = (int) (latency ^ (latency >>> 32));
+        result = 31 * result + (int) (replicationLag ^ (replicationLag >>> 32));
         result = 31 * result + (offline ? 1 : 0);
         return result;
     }
@@ -53,6 +86,7 @@ public class NodeState {
     public String toString() {
         return "NodeState{" +
                 "latency=" + latency +
+                ", replicationLag=" + replicationLag +
                 ", offline=" + offline +
                 '}';
     }
@@ -0,0 +1,78 @@
+package com.officedrop.redis.failover;
+
+import com.officedrop.redis.failover.utils.Function;
+
+/**
+ * Overrides how stale the slave reads made by the current thread may be. Reads made inside
+ * {@link #withMaxStaleness(long, Function)} only go to slaves that are at most the given number of
+ * milliseconds behind the master and reads made inside {@link #fromMaster(Function)} always go to the master.
+ *
+ * The preference applies to every failover {@link Client} used by the thread, including clients wrapped
+ * by a namespace, so it can be used inside a pool's withJedis call.
+ */
+public final class ReadPreference {
+
+    private static final long MASTER_ONLY = Long.MIN_VALUE;
+    private static final ThreadLocal<Long> MAX_STALENESS = new ThreadLocal<Long>();
+
+    private ReadPreference() {
+    }
+
+    public static <T> T withMaxStaleness( long maxStalenessMillis, Function<T> action ) {
+        if ( maxStalenessMillis < 0 ) {
+            throw new IllegalArgumentException("Max staleness can't be negative - " + maxStalenessMillis);
+        }
+
+        return with(maxStalenessMillis, action);
+    }
+
+    public static <T> T fromMaster( Function<T> action ) {
+        return with(MASTER_ONLY, action);
+    }
+
+    /**
+     * Wraps the action so it runs with the read preference of the calling thread, wherever it ends up
+     * being executed. Used to carry the preference over to the threads of an {@link com.officedrop.redis.failover.jedis.AsyncJedisPool}.
+     */
+    public static <T> Function<T> bind( final Function<T> action ) {
+        final Long current = MAX_STALENESS.get();
+
+        if ( current == null ) {
+            return action;
+        }
+
+        return new Function<T>() {
+            @Override
+            public T apply() {
+                return with(current, action);
+            }
+        };
+    }
+
+    private static <T> T with( long maxStaleness, Function<T> action ) {
+        Long previous = MAX_STALENESS.get();
+        MAX_STALENESS.set(maxStaleness);
+
+        try {
+            return action.apply();
+        } finally {
+            if ( previous == null ) {
+                MAX_STALENESS.remove();
+            } else {
+                MAX_STALENESS.set(previous);
+            }
+        }
+    }
+
+    /**
+     * The max staleness set for the current thread or null if there is none.
+     */
+    static Long currentMaxStaleness() {
+        return MAX_STALENESS.get();
+    }
+
+    static boolean isMasterOnly( long maxStaleness ) {
+        return maxStaleness == MASTER_ONLY;
+    }
+
+}
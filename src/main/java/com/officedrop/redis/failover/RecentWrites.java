@@ -0,0 +1,138 @@
+package com.officedrop.redis.failover;
+
+import redis.clients.util.SafeEncoder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Remembers which keys were written recently so their reads can be sent to the master until the slaves
+ * have caught up. Keys are hashed into a fixed number of slots that hold the time the last write to any
+ * key in that slot stops being recent, so memory use does not grow with the number of keys.
+ *
+ * Keys that share a slot are reported as recent together. That only sends a few more reads to the master,
+ * a written key is never reported as not recent inside the window. A single slot makes any write send
+ * all reads to the master during the window.
+ */
+public class RecentWrites {
+
+    public static final int DEFAULT_SLOTS = 1024;
+
+    private final AtomicLongArray slots;
+    private final int mask;
+    private final long windowMillis;
+
+    public RecentWrites(long window, TimeUnit unit) {
+        this(DEFAULT_SLOTS, window, unit);
+    }
+
+    /**
+     * @param slots how many slots to hash keys into, rounded up to a power of two
+     */
+    public RecentWrites(int slots, long window, TimeUnit unit) {
+        if ( slots < 1 ) {
+            throw new IllegalArgumentException("There must be at least one slot - " + slots);
+        }
+
+        if ( window <= 0 ) {
+            throw new IllegalArgumentException("The window must be positive - " + window);
+        }
+
+        int size = Integer.highestOneBit(slots);
+
+        if ( size < slots ) {
+            size <<= 1;
+        }
+
+        this.slots = new AtomicLongArray(size);
+        this.mask = size - 1;
+        this.windowMillis = unit.toMillis(window);
+    }
+
+    public void written(String key) {
+        this.slots.set(this.slot(key), System.currentTimeMillis() + this.windowMillis);
+    }
+
+    public void written(byte[] key) {
+        this.slots.set(this.slot(key), System.currentTimeMillis() + this.windowMillis);
+    }
+
+    public void written(String... keys) {
+        for ( String key : keys ) {
+            this.written(key);
+        }
+    }
+
+    /**
+     * Marks the keys of a key, value, key, value... list as written.
+     */
+    public void writtenPairs(String... keysValues) {
+        for ( int x = 0; x < keysValues.length; x += 2 ) {
+            this.written(keysValues[x]);
+        }
+    }
+
+    public boolean isRecent(String key) {
+        return this.slots.get(this.slot(key)) > System.currentTimeMillis();
+    }
+
+    public boolean isRecent(byte[] key) {
+        return this.slots.get(this.slot(key)) > System.currentTimeMillis();
+    }
+
+    public boolean isRecent(String... keys) {
+        for ( String key : keys ) {
+            if ( this.isRecent(key) ) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    public int getSlots() {
+        return this.mask + 1;
+    }
+
+    public long getWindowMillis() {
+        return this.windowMillis;
+    }
+
+    /*
+     * String and binary versions of the same key must land on the same slot, ASCII keys are hashed as they
+     * are and anything else is encoded the same way Jedis encodes it.
+     */
+    private int slot(String key) {
+        int hash = FNV_OFFSET;
+
+        for ( int x = 0; x < key.length(); x++ ) {
+            char c = key.charAt(x);
+
+            if ( c >= 0x80 ) {
+                return this.slot(SafeEncoder.encode(key));
+            }
+
+            hash = (hash ^ c) * FNV_PRIME;
+        }
+
+        return this.index(hash);
+    }
+
+    private int slot(byte[] key) {
+        int hash = FNV_OFFSET;
+
+        for ( byte b : key ) {
+            hash = (hash ^ (b & 0xff)) * FNV_PRIME;
+        }
+
+        return this.index(hash);
+    }
+
+    private int index(int hash) {
+        return (hash ^ (hash >>> 16)) & this.mask;
+    }
+
+    private static final int FNV_OFFSET = 0x811c9dc5;
+    private static final int FNV_PRIME = 0x01000193;
+
+}
@@ -0,0 +1,64 @@
+package com.officedrop.redis.failover;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A token bucket that limits how many commands can be retried while the cluster fails over. Every retry
+ * takes a token and tokens come back at a fixed rate up to the bucket size, so a burst of failures can
+ * only cause a bounded burst of retries. A single budget is usually shared by all clients of a pool.
+ */
+public class RetryBudget {
+
+    public static final int DEFAULT_MAX_TOKENS = 100;
+    public static final double DEFAULT_TOKENS_PER_SECOND = 10;
+
+    private final double maxTokens;
+    private final double tokensPerNano;
+    private double tokens;
+    private long lastRefill;
+
+    public RetryBudget() {
+        this(DEFAULT_MAX_TOKENS, DEFAULT_TOKENS_PER_SECOND);
+    }
+
+    public RetryBudget(int maxTokens, double tokensPerSecond) {
+        if ( maxTokens < 1 ) {
+            throw new IllegalArgumentException("The budget must hold at least one token - " + maxTokens);
+        }
+
+        if ( tokensPerSecond < 0 ) {
+            throw new IllegalArgumentException("Tokens per second can't be negative - " + tokensPerSecond);
+        }
+
+        this.maxTokens = maxTokens;
+        this.tokensPerNano = tokensPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.tokens = maxTokens;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * Takes a token if there is one available, returns false if the retry should not happen.
+     */
+    public synchronized boolean tryAcquire() {
+        this.refill();
+
+        if ( this.tokens >= 1 ) {
+            this.tokens -= 1;
+            return true;
+        }
+
+        return false;
+    }
+
+    public synchronized int getAvailableTokens() {
+        this.refill();
+        return (int) this.tokens;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        this.tokens = Math.min(this.maxTokens, this.tokens + (now - this.lastRefill) * this.tokensPerNano);
+        this.lastRefill = now;
+    }
+
+}
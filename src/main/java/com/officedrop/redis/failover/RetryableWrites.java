@@ -0,0 +1,53 @@
+package com.officedrop.redis.failover;
+
+import com.officedrop.redis.failover.utils.Function;
+
+/**
+ * Marks the writes made by the current thread as safe to send twice. Reads are always retried when the
+ * master fails over, writes are only retried inside {@link #with(Function)} since a write that failed
+ * with a connection error could have been applied before the connection was lost.
+ */
+public final class RetryableWrites {
+
+    private static final ThreadLocal<Boolean> RETRYABLE = new ThreadLocal<Boolean>();
+
+    private RetryableWrites() {
+    }
+
+    public static <T> T with( Function<T> action ) {
+        Boolean previous = RETRYABLE.get();
+        RETRYABLE.set(Boolean.TRUE);
+
+        try {
+            return action.apply();
+        } finally {
+            if ( previous == null ) {
+                RETRYABLE.remove();
+            } else {
+                RETRYABLE.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Wraps the action so its writes are retryable if the calling thread's are, wherever it ends up being
+     * executed. The counterpart of {@link ReadPreference#bind(Function)}.
+     */
+    public static <T> Function<T> bind( final Function<T> action ) {
+        if ( !isRetryable() ) {
+            return action;
+        }
+
+        return new Function<T>() {
+            @Override
+            public T apply() {
+                return with(action);
+            }
+        };
+    }
+
+    static boolean isRetryable() {
+        return RETRYABLE.get() != null;
+    }
+
+}
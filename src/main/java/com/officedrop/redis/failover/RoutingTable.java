@@ -0,0 +1,82 @@
+package com.officedrop.redis.failover;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * An immutable view of where commands go: the pool for the master, the pools for the slaves and the
+ * versions clients use to notice the cluster changed. {@link ClusterRouting} publishes a new table for
+ * every cluster status, so a command reads the routing once and always sees a master and slaves that
+ * belong together.
+ */
+public class RoutingTable {
+
+    private final ClusterStatus status;
+    private final HostConnectionPool master;
+    private final List<HostConnectionPool> slaves;
+    private final Set<HostConfiguration> hosts;
+    private final long version;
+    private final long masterVersion;
+
+    public RoutingTable(
+            ClusterStatus status,
+            HostConnectionPool master,
+            List<HostConnectionPool> slaves,
+            Set<HostConfiguration> hosts,
+            long version,
+            long masterVersion) {
+        this.status = status;
+        this.master = master;
+        this.slaves = slaves;
+        this.hosts = hosts;
+        this.version = version;
+        this.masterVersion = masterVersion;
+    }
+
+    public ClusterStatus getStatus() {
+        return this.status;
+    }
+
+    /**
+     * The pool for the current master or null if the cluster has no master right now.
+     */
+    public HostConnectionPool getMaster() {
+        return this.master;
+    }
+
+    public List<HostConnectionPool> getSlaves() {
+        return this.slaves;
+    }
+
+    /**
+     * The master and slaves this table routes to.
+     */
+    public Set<HostConfiguration> getHosts() {
+        return this.hosts;
+    }
+
+    /**
+     * Changes every time a new table is published.
+     */
+    public long getVersion() {
+        return this.version;
+    }
+
+    /**
+     * Changes only when the master changed.
+     */
+    public long getMasterVersion() {
+        return this.masterVersion;
+    }
+
+    @Override
+    public String toString() {
+        return "RoutingTable{" +
+                "master=" + master +
+                ", slaves=" + slaves +
+                ", version=" + version +
+                ", masterVersion=" + masterVersion +
+                '}';
+    }
+
+}
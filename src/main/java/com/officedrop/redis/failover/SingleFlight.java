@@ -0,0 +1,140 @@
+package com.officedrop.redis.failover;
+
+import com.officedrop.redis.failover.utils.Function;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces identical reads that happen at the same time. The first caller for a command and key sends
+ * it to redis and everyone else asking for the same thing while it's in flight waits for that result
+ * instead of sending their own, which keeps a popular key that just expired from being read by hundreds
+ * of threads at once. Shared by all clients of a pool so it works across pooled connections.
+ */
+public class SingleFlight {
+
+    private final ConcurrentMap<Key, Call> calls = new ConcurrentHashMap<Key, Call>();
+    private final AtomicLong executed = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String command, String key, String argument, Function<T> loader) {
+        Key callKey = new Key(command, key, argument);
+        Call call = new Call();
+        Call current = this.calls.putIfAbsent(callKey, call);
+
+        if ( current != null ) {
+            this.coalesced.incrementAndGet();
+            return (T) current.await();
+        }
+
+        this.executed.incrementAndGet();
+
+        try {
+            T result = loader.apply();
+            call.result = result;
+            return result;
+        } catch ( RuntimeException e ) {
+            call.error = e;
+            throw e;
+        } catch ( Error e ) {
+            call.error = e;
+            throw e;
+        } finally {
+            this.calls.remove(callKey, call);
+            call.done.countDown();
+        }
+    }
+
+    /**
+     * How many reads were actually sent to redis.
+     */
+    public long getExecutedCount() {
+        return this.executed.get();
+    }
+
+    /**
+     * How many reads waited for a read that was already in flight instead of being sent.
+     */
+    public long getCoalescedCount() {
+        return this.coalesced.get();
+    }
+
+    public int getInFlightCount() {
+        return this.calls.size();
+    }
+
+    private static final class Call {
+
+        final CountDownLatch done = new CountDownLatch(1);
+        volatile Object result;
+        volatile Throwable error;
+
+        Object await() {
+            boolean interrupted = false;
+
+            while ( true ) {
+                try {
+                    this.done.await();
+                    break;
+                } catch ( InterruptedException e ) {
+                    interrupted = true;
+                }
+            }
+
+            if ( interrupted ) {
+                Thread.currentThread().interrupt();
+            }
+
+            if ( this.error instanceof RuntimeException ) {
+                throw (RuntimeException) this.error;
+            }
+
+            if ( this.error instanceof Error ) {
+                throw (Error) this.error;
+            }
+
+            return this.result;
+        }
+
+    }
+
+    private static final class Key {
+
+        private final String command;
+        private final String key;
+        private final String argument;
+
+        Key(String command, String key, String argument) {
+            this.command = command;
+            this.key = key;
+            this.argument = argument;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+
+            Key other = (Key) o;
+
+            if (!command.equals(other.command)) return false;
+            if (!key.equals(other.key)) return false;
+            if (argument != null ? !argument.equals(other.argument) : other.argument != null) return false;
+
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = command.hashCode();
+            result = 31 * result + key.hashCode();
+            result = 31 * result + (argument != null ? argument.hashCode() : 0);
+            return result;
+        }
+
+    }
+
+}
@@ -0,0 +1,135 @@
+package com.officedrop.redis.failover;
+
+import com.officedrop.redis.failover.strategy.FailoverSelectionStrategy;
+import com.officedrop.redis.failover.utils.DaemonThreadPoolFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps open and recently pinged connections to the slave the node manager's
+ * {@link FailoverSelectionStrategy} would promote if the master failed right now. They are idle connections
+ * in that host's {@link HostConnectionPool}, so once it is promoted the clients find them ready and writes
+ * switch over without connecting or selecting the database first.
+ *
+ * The candidate is checked again every interval and whenever the cluster changes. Checking also pings the
+ * standby connections so broken ones are replaced before they are needed, and marks them as used so
+ * {@link HostConnectionPools} doesn't evict them. The interval must be shorter than
+ * {@link HostConnectionPools#IDLE_TIMEOUT} for that to work.
+ */
+public class StandbyConnections implements NodeManagerListener {
+
+    private static final Logger log = LoggerFactory.getLogger(StandbyConnections.class);
+
+    private static final ScheduledExecutorService scheduler = DaemonThreadPoolFactory.newScheduledPool(1);
+
+    private final NodeManager nodeManager;
+    private final HostConnectionPools pools;
+    private final int connections;
+    private final long interval;
+    private volatile HostConfiguration candidate;
+    private ScheduledFuture<?> refresher;
+
+    public StandbyConnections(NodeManager nodeManager, HostConnectionPools pools, int connections, long interval, TimeUnit unit) {
+        if (connections < 1) {
+            throw new IllegalArgumentException("There has to be at least one standby connection - " + connections);
+        }
+
+        checkInterval(unit.toMillis(interval));
+
+        this.nodeManager = nodeManager;
+        this.pools = pools;
+        this.connections = connections;
+        this.interval = unit.toMillis(interval);
+    }
+
+    /**
+     * Fails if standby connections checked this often would be evicted as idle between checks.
+     */
+    public static void checkInterval(long intervalMillis) {
+        if (intervalMillis <= 0 || intervalMillis >= HostConnectionPools.IDLE_TIMEOUT) {
+            throw new IllegalArgumentException(String.format(
+                    "The standby interval must be positive and shorter than the %d ms idle timeout - %d",
+                    HostConnectionPools.IDLE_TIMEOUT, intervalMillis));
+        }
+    }
+
+    public synchronized void start() {
+        if (this.refresher != null) {
+            return;
+        }
+
+        this.nodeManager.addListeners(this);
+        this.refresher = scheduler.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                refresh();
+            }
+        }, 0, this.interval, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (this.refresher == null) {
+            return;
+        }
+
+        this.nodeManager.removeListeners(this);
+        this.refresher.cancel(false);
+        this.refresher = null;
+    }
+
+    /**
+     * The host the standby connections currently go to or null if there is no candidate.
+     */
+    public HostConfiguration getCandidate() {
+        return this.candidate;
+    }
+
+    /**
+     * Finds the likely next master and makes sure it has the standby connections ready.
+     */
+    public void refresh() {
+        try {
+            HostConfiguration next = this.nodeManager.getLikelyNextMaster();
+
+            if (next == null ? this.candidate != null : !next.equals(this.candidate)) {
+                log.info("Keeping standby connections to {}", next);
+            }
+
+            this.candidate = next;
+
+            if (next != null) {
+                int opened = this.pools.get(next).warmUp(this.connections);
+
+                if (opened > 0) {
+                    log.debug("Opened {} standby connections to {}", opened, next);
+                }
+            }
+        } catch (Exception e) {
+            log.error("Failed to refresh the standby connections", e);
+        }
+    }
+
+    @Override
+    public void masterChanged(NodeManager manager, ClusterStatus status) {
+        this.refreshLater();
+    }
+
+    @Override
+    public void slavesChanged(NodeManager manager, ClusterStatus status) {
+        this.refreshLater();
+    }
+
+    private void refreshLater() {
+        scheduler.execute(new Runnable() {
+            @Override
+            public void run() {
+                refresh();
+            }
+        });
+    }
+
+}
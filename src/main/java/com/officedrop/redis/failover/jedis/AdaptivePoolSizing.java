@@ -0,0 +1,131 @@
+package com.officedrop.redis.failover.jedis;
+
+import com.officedrop.redis.failover.utils.DaemonThreadPoolFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Sizes the idle objects of a {@link ResizableJedisPool} from the concurrency it actually sees. Pools record
+ * how many objects are in use every time one is borrowed and at every interval the pool min idle is set to
+ * the configured percentile of those samples and max idle to the highest one, never going below the floor.
+ *
+ * A pool that regularly sees bursts of 20 concurrent calls keeps about that many objects around between
+ * bursts instead of closing them and opening them again on the next one, while a pool whose traffic goes
+ * down shrinks over the next intervals.
+ *
+ * For failover pools the pooled clients only route commands and own no sockets, so the min idle is also
+ * applied to the idle floor of every {@link FailoverJedisFactory} given, which keeps that many connections
+ * open to the master and to each slave.
+ */
+public class AdaptivePoolSizing {
+
+    private static final Logger log = LoggerFactory.getLogger(AdaptivePoolSizing.class);
+    private static final ScheduledExecutorService scheduler = DaemonThreadPoolFactory.newScheduledPool(1);
+
+    public static final int MAX_TRACKED_CONCURRENCY = 1024;
+
+    private final double percentile;
+    private final int floor;
+    private final long interval;
+    private final AtomicIntegerArray samples = new AtomicIntegerArray(MAX_TRACKED_CONCURRENCY + 1);
+    private volatile List<FailoverJedisFactory> failoverFactories = Collections.emptyList();
+    private volatile ScheduledFuture<?> task;
+
+    public AdaptivePoolSizing( double percentile, int floor, long interval, TimeUnit unit ) {
+        if ( percentile <= 0 || percentile > 1 ) {
+            throw new IllegalArgumentException("The percentile must be between 0 and 1 - " + percentile);
+        }
+
+        this.percentile = percentile;
+        this.floor = floor;
+        this.interval = unit.toMillis(interval);
+    }
+
+    /**
+     * The failover factories whose host connections are sized together with the pool.
+     */
+    public void setFailoverFactories( List<FailoverJedisFactory> failoverFactories ) {
+        this.failoverFactories = failoverFactories;
+    }
+
+    public void record( int concurrency ) {
+        this.samples.incrementAndGet(Math.max(0, Math.min(concurrency, MAX_TRACKED_CONCURRENCY)));
+    }
+
+    /**
+     * Starts resizing the pool at every interval.
+     */
+    public void start( final ResizableJedisPool pool ) {
+        pool.setAdaptiveSizing(this);
+
+        this.task = scheduler.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                resize(pool);
+            }
+        }, this.interval, this.interval, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        ScheduledFuture<?> current = this.task;
+
+        if ( current != null ) {
+            current.cancel(false);
+        }
+    }
+
+    /**
+     * Applies the samples taken since the last call to the pool, nothing changes if there were none.
+     */
+    void resize( ResizableJedisPool pool ) {
+        int[] counts = new int[this.samples.length()];
+        long total = 0;
+
+        for ( int x = 0; x < counts.length; x++ ) {
+            counts[x] = this.samples.getAndSet(x, 0);
+            total += counts[x];
+        }
+
+        if ( total == 0 ) {
+            return;
+        }
+
+        long rank = (long) Math.ceil(total * this.percentile);
+        long seen = 0;
+        int target = -1;
+        int peak = 0;
+
+        for ( int x = 0; x < counts.length; x++ ) {
+            if ( counts[x] == 0 ) {
+                continue;
+            }
+
+            seen += counts[x];
+            peak = x;
+
+            if ( target < 0 && seen >= rank ) {
+                target = x;
+            }
+        }
+
+        int minIdle = Math.max(this.floor, target);
+        int maxIdle = Math.max(minIdle, peak);
+
+        log.debug("Resizing pool to min idle {} and max idle {}", minIdle, maxIdle);
+
+        pool.setMaxIdle(maxIdle);
+        pool.setMinIdle(minIdle);
+
+        for ( FailoverJedisFactory factory : this.failoverFactories ) {
+            factory.setIdleFloor(minIdle);
+        }
+    }
+
+}
@@ -0,0 +1,132 @@
+package com.officedrop.redis.failover.jedis;
+
+import com.officedrop.redis.failover.ReadPreference;
+import com.officedrop.redis.failover.utils.DaemonThreadPoolFactory;
+import com.officedrop.redis.failover.utils.Function;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the calls of a {@link JedisPool} at a bounded executor and returns futures for them, so a caller
+ * can have many independent commands in flight without dedicating a thread to each.
+ *
+ * Commands go through the wrapped pool, so they are routed exactly as they would be by a blocking call,
+ * and the {@link ReadPreference} of the submitting thread is carried over to the thread that runs them.
+ * When the executor queue is full the returned future fails with a {@link RejectedExecutionException}
+ * instead of blocking the caller.
+ */
+public class AsyncJedisPool {
+
+    private final JedisPool pool;
+    private final ExecutorService executor;
+
+    public AsyncJedisPool( JedisPool pool, int threads, int queueSize ) {
+        this(pool, newExecutor(threads, queueSize));
+    }
+
+    public AsyncJedisPool( JedisPool pool, ExecutorService executor ) {
+        this.pool = pool;
+        this.executor = executor;
+    }
+
+    public static ExecutorService newExecutor( int threads, int queueSize ) {
+        if ( threads < 1 ) {
+            throw new IllegalArgumentException("There must be at least one thread - " + threads);
+        }
+
+        if ( queueSize < 1 ) {
+            throw new IllegalArgumentException("The queue size must be at least 1 - " + queueSize);
+        }
+
+        return new ThreadPoolExecutor(
+                threads,
+                threads,
+                60,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(queueSize),
+                DaemonThreadPoolFactory.INSTANCE);
+    }
+
+    public <T> JedisFuture<T> submit( final JedisResultFunction<T> action ) {
+        return this.run(new Function<T>() {
+            @Override
+            public T apply() {
+                return pool.withJedis(action);
+            }
+        });
+    }
+
+    public JedisFuture<Void> submit( final JedisFunction action ) {
+        return this.submit(new JedisResultFunction<Void>() {
+            @Override
+            public Void execute( JedisActions jedis ) throws Exception {
+                action.execute(jedis);
+                return null;
+            }
+        });
+    }
+
+    public JedisFuture<Void> submit( final PipelineFunction action ) {
+        return this.submit(new JedisFunction() {
+            @Override
+            public void execute( JedisActions jedis ) throws Exception {
+                PipelineActions pipeline = jedis.pipeline();
+                action.execute(pipeline);
+                pipeline.sync();
+            }
+        });
+    }
+
+    public JedisFuture<String> getOrCompute( final String key, final int ttlSeconds, final ValueLoader loader ) {
+        return this.run(new Function<String>() {
+            @Override
+            public String apply() {
+                return pool.getOrCompute(key, ttlSeconds, loader);
+            }
+        });
+    }
+
+    private <T> JedisFuture<T> run( Function<T> action ) {
+        final Function<T> call = ReadPreference.bind(action);
+
+        JedisFuture<T> future = new JedisFuture<T>(new Callable<T>() {
+            @Override
+            public T call() {
+                return call.apply();
+            }
+        });
+
+        try {
+            this.executor.execute(future);
+        } catch ( RejectedExecutionException e ) {
+            future.fail(e);
+        }
+
+        return future;
+    }
+
+    public JedisPool getPool() {
+        return this.pool;
+    }
+
+    /**
+     * Stops accepting commands, lets the ones already submitted finish and then closes the wrapped pool.
+     */
+    public void close() {
+        this.executor.shutdown();
+
+        try {
+            this.executor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+        } finally {
+            this.pool.close();
+        }
+    }
+
+}
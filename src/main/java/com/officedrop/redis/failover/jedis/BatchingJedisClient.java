@@ -0,0 +1,27 @@
+package com.officedrop.redis.failover.jedis;
+
+/**
+ * A {@link QueuedJedisClient} whose commands are batched with the commands of every other client for the
+ * same host by a {@link CommandBatcher}.
+ */
+public class BatchingJedisClient extends QueuedJedisClient {
+
+    private final CommandBatcher batcher;
+    private final BatchingJedisClientFactory factory;
+
+    public BatchingJedisClient(CommandBatcher batcher, BatchingJedisClientFactory factory) {
+        super(batcher);
+        this.batcher = batcher;
+        this.factory = factory;
+    }
+
+    public CommandBatcher getBatcher() {
+        return this.batcher;
+    }
+
+    @Override
+    protected void release() {
+        this.factory.release(this.batcher);
+    }
+
+}
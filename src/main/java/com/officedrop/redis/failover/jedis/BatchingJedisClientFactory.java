@@ -0,0 +1,86 @@
+package com.officedrop.redis.failover.jedis;
+
+import com.officedrop.redis.failover.HostConfiguration;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates {@link BatchingJedisClient}s that queue their commands at a {@link CommandBatcher} per host, so
+ * commands issued by many threads at the same time are sent together as a pipeline over a single blocking
+ * connection. Callers still block until their own reply arrives.
+ */
+public class BatchingJedisClientFactory implements JedisClientFactory {
+
+    public static final int DEFAULT_MAX_BATCH_SIZE = 100;
+    public static final long DEFAULT_MAX_DELAY_MICROS = 200;
+
+    private final int maxBatchSize;
+    private final long maxDelay;
+    private final TimeUnit unit;
+    private final Map<HostConfiguration, CommandBatcher> batchers = new HashMap<HostConfiguration, CommandBatcher>();
+
+    public BatchingJedisClientFactory() {
+        this(DEFAULT_MAX_BATCH_SIZE, DEFAULT_MAX_DELAY_MICROS, TimeUnit.MICROSECONDS);
+    }
+
+    public BatchingJedisClientFactory(int maxBatchSize, long maxDelay, TimeUnit unit) {
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelay = maxDelay;
+        this.unit = unit;
+    }
+
+    @Override
+    public JedisClient create(HostConfiguration configuration) {
+        CommandBatcher batcher;
+
+        synchronized (this.batchers) {
+            batcher = this.batchers.get(configuration);
+
+            if (batcher == null) {
+                batcher = new CommandBatcher(configuration, this.maxBatchSize, this.maxDelay, this.unit);
+                this.batchers.put(configuration, batcher);
+            }
+
+            batcher.acquire();
+        }
+
+        return new BatchingJedisClient(batcher, this);
+    }
+
+    void release(CommandBatcher batcher) {
+        synchronized (this.batchers) {
+            if (batcher.release() == 0) {
+                this.batchers.remove(batcher.getConfiguration());
+                batcher.close();
+            }
+        }
+    }
+
+    /**
+     * The batcher for the host, to look at its metrics, or null if no client for the host is open.
+     */
+    public CommandBatcher getBatcher(HostConfiguration configuration) {
+        synchronized (this.batchers) {
+            return this.batchers.get(configuration);
+        }
+    }
+
+    public Map<HostConfiguration, CommandBatcher> getBatchers() {
+        synchronized (this.batchers) {
+            return new HashMap<HostConfiguration, CommandBatcher>(this.batchers);
+        }
+    }
+
+    public void close() {
+        synchronized (this.batchers) {
+            for (CommandBatcher batcher : this.batchers.values()) {
+                batcher.close();
+            }
+
+            this.batchers.clear();
+        }
+    }
+
+}
@@ -0,0 +1,18 @@
+package com.officedrop.redis.failover.jedis;
+
+import com.officedrop.redis.failover.ClientType;
+
+/**
+ * Runs a function against the connection that should handle the given type of command.
+ */
+public interface ClientRouter {
+
+    public <R> R doAction( ClientType type, ClientFunction<R> function );
+
+    /**
+     * Same as {@link #doAction(ClientType, ClientFunction)} for a function that touches the given keys, so
+     * the router can track written keys and route reads of recently written ones.
+     */
+    public <R> R doAction( ClientType type, String[] keys, ClientFunction<R> function );
+
+}
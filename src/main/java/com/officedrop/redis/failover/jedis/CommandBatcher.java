@@ -0,0 +1,274 @@
+package com.officedrop.redis.failover.jedis;
+
+import com.officedrop.redis.failover.HostConfiguration;
+import com.officedrop.redis.failover.utils.DaemonThreadPoolFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Client;
+import redis.clients.jedis.Protocol;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Queues the commands of every {@link BatchingJedisClient} talking to a host and sends them with a
+ * single blocking jedis connection. A writer thread takes whatever is queued, waits up to the max delay for
+ * more commands until the batch is full, sends the batch as a pipeline and completes each caller with its
+ * reply, so commands from many threads share round trips without the callers noticing.
+ *
+ * The queue depth and the size of the batches sent are kept as metrics, an average batch size close to one
+ * means the host is not busy enough for batching to help and the max delay is only adding latency.
+ */
+public class CommandBatcher implements CommandQueue, Runnable {
+
+    private static final Logger log = LoggerFactory.getLogger(CommandBatcher.class);
+
+    private final HostConfiguration configuration;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final long timeout;
+    private final BlockingQueue<Request> queue = new LinkedBlockingQueue<Request>();
+    private final AtomicLong commandCount = new AtomicLong();
+    private final AtomicLong batchCount = new AtomicLong();
+    private volatile int largestBatch;
+    private volatile boolean running = true;
+    private volatile Connection connection;
+    private int clients;
+
+    public CommandBatcher(HostConfiguration configuration, int maxBatchSize, long maxDelay, TimeUnit unit) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("The max batch size must be at least 1 - " + maxBatchSize);
+        }
+
+        this.configuration = configuration;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = unit.toNanos(maxDelay);
+        this.timeout = (configuration.getTimeout() > 0 ? configuration.getTimeout() : Protocol.DEFAULT_TIMEOUT)
+                + unit.toMillis(maxDelay);
+
+        Thread writer = DaemonThreadPoolFactory.INSTANCE.newThread(this);
+        writer.setName("redis-batcher-" + configuration.getHost() + ":" + configuration.getPort());
+        writer.start();
+    }
+
+    @Override
+    public HostConfiguration getConfiguration() {
+        return this.configuration;
+    }
+
+    @Override
+    public PendingReply send(Protocol.Command command, byte[]... arguments) {
+        if (!this.running) {
+            throw new JedisConnectionException("The command batcher for " + this.configuration + " was closed");
+        }
+
+        PendingReply reply = new PendingReply();
+        this.queue.add(new Request(command, arguments, reply));
+
+        return reply;
+    }
+
+    @Override
+    public Object await(PendingReply reply) {
+        if (!reply.await(this.timeout)) {
+            throw new JedisConnectionException("Timed out waiting for a reply from " + this.configuration);
+        }
+
+        return reply.get();
+    }
+
+    @Override
+    public boolean isConnected() {
+        Connection current = this.connection;
+        return this.running && (current == null || current.isConnected());
+    }
+
+    /**
+     * Commands waiting to be sent.
+     */
+    public int getQueueDepth() {
+        return this.queue.size();
+    }
+
+    public long getCommandCount() {
+        return this.commandCount.get();
+    }
+
+    public long getBatchCount() {
+        return this.batchCount.get();
+    }
+
+    public int getLargestBatch() {
+        return this.largestBatch;
+    }
+
+    public double getAverageBatchSize() {
+        long batches = this.batchCount.get();
+        return batches == 0 ? 0 : (double) this.commandCount.get() / batches;
+    }
+
+    int acquire() {
+        return ++this.clients;
+    }
+
+    int release() {
+        return --this.clients;
+    }
+
+    @Override
+    public void run() {
+        List<Request> batch = new ArrayList<Request>(this.maxBatchSize);
+
+        while (this.running) {
+            try {
+                Request first = this.queue.poll(1, TimeUnit.SECONDS);
+
+                if (first == null) {
+                    continue;
+                }
+
+                batch.add(first);
+                this.fill(batch);
+                this.execute(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+
+        this.queue.drainTo(batch);
+        this.fail(batch, new JedisConnectionException("The command batcher for " + this.configuration + " was closed"));
+        this.disconnect();
+    }
+
+    private void fill(List<Request> batch) throws InterruptedException {
+        this.queue.drainTo(batch, this.maxBatchSize - batch.size());
+
+        long deadline = System.nanoTime() + this.maxDelayNanos;
+        long remaining;
+
+        while (batch.size() < this.maxBatchSize && (remaining = deadline - System.nanoTime()) > 0) {
+            Request next = this.queue.poll(remaining, TimeUnit.NANOSECONDS);
+
+            if (next == null) {
+                break;
+            }
+
+            batch.add(next);
+            this.queue.drainTo(batch, this.maxBatchSize - batch.size());
+        }
+    }
+
+    private void execute(List<Request> batch) {
+        List<Object> replies;
+
+        try {
+            Connection current = this.connect();
+
+            for (Request request : batch) {
+                current.send(request.command, request.arguments);
+            }
+
+            replies = current.getAll();
+        } catch (RuntimeException e) {
+            log.warn(String.format("Failed to send a batch of %d commands to %s", batch.size(), this.configuration), e);
+            this.disconnect();
+            this.fail(batch, e instanceof JedisConnectionException ? (JedisConnectionException) e : new JedisConnectionException(e));
+            return;
+        }
+
+        this.commandCount.addAndGet(batch.size());
+        this.batchCount.incrementAndGet();
+
+        if (batch.size() > this.largestBatch) {
+            this.largestBatch = batch.size();
+        }
+
+        for (int x = 0; x < batch.size(); x++) {
+            batch.get(x).reply.complete(replies.get(x));
+        }
+    }
+
+    private Connection connect() {
+        Connection current = this.connection;
+
+        if (current == null) {
+            current = new Connection(this.configuration);
+            this.connection = current;
+        }
+
+        return current;
+    }
+
+    /**
+     * A connection that failed in the middle of a batch can't be reused, jedis would still be waiting for the
+     * replies of the failed batch, so it's dropped and the next batch opens a new one.
+     */
+    private void disconnect() {
+        Connection current = this.connection;
+        this.connection = null;
+
+        if (current != null) {
+            try {
+                current.disconnect();
+            } catch (RuntimeException e) {
+                log.error("Failed to close connection to " + this.configuration, e);
+            }
+        }
+    }
+
+    private void fail(List<Request> batch, JedisConnectionException error) {
+        for (Request request : batch) {
+            request.reply.fail(error);
+        }
+    }
+
+    public void close() {
+        this.running = false;
+    }
+
+    private static class Request {
+
+        private final Protocol.Command command;
+        private final byte[][] arguments;
+        private final PendingReply reply;
+
+        private Request(Protocol.Command command, byte[][] arguments, PendingReply reply) {
+            this.command = command;
+            this.arguments = arguments;
+            this.reply = reply;
+        }
+
+    }
+
+    private static class Connection extends Client {
+
+        private Connection(HostConfiguration configuration) {
+            super(configuration.getHost(), configuration.getPort());
+
+            if (configuration.getTimeout() > 0) {
+                this.setTimeout(configuration.getTimeout());
+            }
+
+            this.connect();
+
+            if (configuration.getDatabase() != Protocol.DEFAULT_DATABASE) {
+                this.select(configuration.getDatabase());
+                this.getStatusCodeReply();
+            }
+        }
+
+        private void send(Protocol.Command command, byte[]... arguments) {
+            this.sendCommand(command, arguments);
+        }
+
+    }
+
+}
@@ -0,0 +1,24 @@
+package com.officedrop.redis.failover.jedis;
+
+import com.officedrop.redis.failover.HostConfiguration;
+import redis.clients.jedis.Protocol;
+
+/**
+ * A connection to a redis server shared by many {@link QueuedJedisClient}s. Commands are queued by the
+ * callers and sent by a separate thread, replies come back in the order the commands were queued.
+ */
+interface CommandQueue {
+
+    HostConfiguration getConfiguration();
+
+    PendingReply send(Protocol.Command command, byte[]... arguments);
+
+    /**
+     * Waits for the reply, error replies are returned as {@link redis.clients.jedis.exceptions.JedisDataException}
+     * objects and connection failures are thrown.
+     */
+    Object await(PendingReply reply);
+
+    boolean isConnected();
+
+}
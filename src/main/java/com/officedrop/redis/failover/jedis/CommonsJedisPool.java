@@ -6,22 +6,29 @@ import org.apache.commons.pool.impl.GenericObjectPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.exceptions.JedisException;
 
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * User: Maurício Linhares
  * Date: 1/8/13
  * Time: 4:37 PM
  */
-public class CommonsJedisPool implements PoolableObjectFactory, JedisPool {
+public class CommonsJedisPool implements PoolableObjectFactory, ResizableJedisPool {
 
     private static final Logger log = LoggerFactory.getLogger(CommonsJedisPool.class);
 
+    public static final long DEFAULT_VALIDATION_IDLE_TIME = 1000;
+
     private final JedisFactory factory;
     private final GenericObjectPool pool;
+    private volatile long validationIdleTime = DEFAULT_VALIDATION_IDLE_TIME;
+    private volatile AdaptivePoolSizing sizing;
+    private final AtomicInteger active = new AtomicInteger();
     private final List<Action1<CommonsJedisPool>> listeners = new CopyOnWriteArrayList<Action1<CommonsJedisPool>>();
 
     public CommonsJedisPool(JedisFactory factory, JedisPoolConfig config) {
@@ -29,6 +36,53 @@ public class CommonsJedisPool implements PoolableObjectFactory, JedisPool {
         this.pool = new GenericObjectPool(this, config);
     }
 
+    /**
+     * Objects that completed a call successfully less than this many milliseconds ago are considered valid
+     * without pinging, validation only probes objects that were idle for longer or whose last call failed.
+     */
+    public void setValidationIdleTime( long validationIdleTime ) {
+        this.validationIdleTime = validationIdleTime;
+    }
+
+    @Override
+    public void warmUp( int count ) {
+        PoolWarmUp.run(count, new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    pool.addObject();
+                } catch ( Exception e ) {
+                    throw new ConnectionException(e);
+                }
+            }
+        });
+    }
+
+    @Override
+    public void setMinIdle( int minIdle ) {
+        this.pool.setMinIdle(minIdle);
+    }
+
+    @Override
+    public void setMaxIdle( int maxIdle ) {
+        this.pool.setMaxIdle(maxIdle);
+    }
+
+    @Override
+    public void setAdaptiveSizing( AdaptivePoolSizing sizing ) {
+        this.sizing = sizing;
+    }
+
+    @Override
+    public int getActiveCount() {
+        return this.active.get();
+    }
+
+    @Override
+    public int getIdleCount() {
+        return this.pool.getNumIdle();
+    }
+
     public void addListeners( Action1<CommonsJedisPool> ... listeners ) {
         this.listeners.addAll(Arrays.asList(listeners));
     }
@@ -52,15 +106,33 @@ public class CommonsJedisPool implements PoolableObjectFactory, JedisPool {
     @Override
     public <T> T withJedis(JedisResultFunction<T> action) {
 
-        JedisActions jedis = null;
+        PooledJedis jedis = null;
 
         try {
-            jedis = (JedisActions) this.pool.borrowObject();
-            return action.execute( jedis );
+            jedis = (PooledJedis) this.pool.borrowObject();
+
+            int current = this.active.incrementAndGet();
+            AdaptivePoolSizing adaptive = this.sizing;
+
+            if ( adaptive != null ) {
+                adaptive.record(current);
+            }
+
+            T result = action.execute( jedis.actions );
+            jedis.lastSuccess = System.currentTimeMillis();
+            return result;
         } catch ( Exception e ) {
+            if ( jedis != null ) {
+                jedis.lastSuccess = 0;
+            }
+            if ( e instanceof JedisException ) {
+                throw (JedisException) e;
+            }
             throw new RuntimeException(e);
         } finally {
             if ( jedis != null ) {
+                this.active.decrementAndGet();
+
                 try {
                     this.pool.returnObject(jedis);
                 } catch ( Exception e ) {
@@ -70,18 +142,34 @@ public class CommonsJedisPool implements PoolableObjectFactory, JedisPool {
         }
     }
 
+    @Override
+    public void withPipeline(final PipelineFunction action) {
+        this.withJedis(new JedisFunction() {
+            @Override
+            public void execute(final JedisActions jedis) throws Exception {
+                PipelineActions pipeline = jedis.pipeline();
+                action.execute(pipeline);
+                pipeline.sync();
+            }
+        });
+    }
+
+    @Override
+    public String getOrCompute(final String key, final int ttlSeconds, final ValueLoader loader) {
+        return GetOrCompute.DEFAULT.execute(this, key, ttlSeconds, loader);
+    }
+
     @Override
     public Object makeObject() throws Exception {
-        return this.factory.create();
+        return new PooledJedis(this.factory.create());
     }
 
     @Override
     public void destroyObject(final Object obj) throws Exception {
         try {
 
-            if ( obj instanceof JedisActions ) {
-                JedisActions actions = (JedisActions) obj;
-                actions.quit();
+            if ( obj instanceof PooledJedis ) {
+                ((PooledJedis) obj).actions.quit();
             }
 
         } catch ( Exception e ) {
@@ -92,9 +180,15 @@ public class CommonsJedisPool implements PoolableObjectFactory, JedisPool {
 
     @Override
     public boolean validateObject(final Object obj) {
+        PooledJedis jedis = (PooledJedis) obj;
+
+        if ( System.currentTimeMillis() - jedis.lastSuccess < this.validationIdleTime ) {
+            return true;
+        }
+
         try {
-            JedisActions actions = (JedisActions) obj;
-            actions.ping();
+            jedis.actions.ping();
+            jedis.lastSuccess = System.currentTimeMillis();
             return true;
         } catch ( Exception e ) {
             log.error("Failed to create validate pooled object", e);
@@ -112,6 +206,10 @@ public class CommonsJedisPool implements PoolableObjectFactory, JedisPool {
 
     public void close() {
         try {
+            if ( this.sizing != null ) {
+                this.sizing.stop();
+            }
+
             this.pool.close();
         } catch ( Exception e ) {
             throw new ConnectionException(e);
@@ -125,4 +223,16 @@ public class CommonsJedisPool implements PoolableObjectFactory, JedisPool {
             }
         }
     }
+
+    private static class PooledJedis {
+
+        private final JedisActions actions;
+        private volatile long lastSuccess = System.currentTimeMillis();
+
+        private PooledJedis( JedisActions actions ) {
+            this.actions = actions;
+        }
+
+    }
+
 }
@@ -1,7 +1,26 @@
 package com.officedrop.redis.failover.jedis;
 
 import com.officedrop.redis.failover.Client;
+import com.officedrop.redis.failover.ClusterRouting;
+import com.officedrop.redis.failover.ConnectThrottles;
+import com.officedrop.redis.failover.HostConnectionPool;
+import com.officedrop.redis.failover.HostConnectionPools;
+import com.officedrop.redis.failover.NearCache;
 import com.officedrop.redis.failover.NodeManager;
+import com.officedrop.redis.failover.RecentWrites;
+import com.officedrop.redis.failover.RetryBudget;
+import com.officedrop.redis.failover.RoutingTable;
+import com.officedrop.redis.failover.SingleFlight;
+import com.officedrop.redis.failover.StandbyConnections;
+import com.officedrop.redis.failover.strategy.ReplicaSelector;
+import com.officedrop.redis.failover.strategy.RoundRobinReplicaSelector;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * User: Maurício Linhares
@@ -11,13 +30,221 @@ import com.officedrop.redis.failover.NodeManager;
 public class FailoverJedisFactory implements JedisFactory {
 
     private final NodeManager nodeManager;
+    private volatile JedisClientFactory clientFactory = GenericJedisClientFactory.INSTANCE;
+    private volatile ReplicaSelector replicaSelector = new RoundRobinReplicaSelector();
+    private volatile long maxReplicationLag = Long.MAX_VALUE;
+    private volatile RecentWrites recentWrites;
+    private volatile NearCache nearCache;
+    private volatile SingleFlight singleFlight;
+    private volatile long failoverRetryTimeout;
+    private volatile RetryBudget retryBudget = new RetryBudget();
+    private volatile int multiKeyChunkSize = Client.DEFAULT_MULTI_KEY_CHUNK_SIZE;
+    private volatile ConnectThrottles connectThrottles;
+    private volatile int standbyConnections;
+    private volatile long standbyInterval;
+    private int idleFloor;
+    private long validationIdleTime;
+    private final Map<JedisClientFactory, HostConnectionPools> pools = new HashMap<JedisClientFactory, HostConnectionPools>();
+    private final List<ClusterRouting> routings = new ArrayList<ClusterRouting>();
+    private ClusterRouting routing;
+    private StandbyConnections standby;
 
     public FailoverJedisFactory( NodeManager manager ) {
         this.nodeManager = manager;
     }
 
+    public void setClientFactory( JedisClientFactory clientFactory ) {
+        this.clientFactory = clientFactory;
+    }
+
+    public void setReplicaSelector( ReplicaSelector replicaSelector ) {
+        this.replicaSelector = replicaSelector;
+    }
+
+    public void setMaxReplicationLag( long maxReplicationLag ) {
+        this.maxReplicationLag = maxReplicationLag;
+    }
+
+    public void setRecentWrites( RecentWrites recentWrites ) {
+        this.recentWrites = recentWrites;
+    }
+
+    public void setNearCache( NearCache nearCache ) {
+        this.nearCache = nearCache;
+    }
+
+    public void setSingleFlight( SingleFlight singleFlight ) {
+        this.singleFlight = singleFlight;
+    }
+
+    public void setFailoverRetryTimeout( long failoverRetryTimeout ) {
+        this.failoverRetryTimeout = failoverRetryTimeout;
+    }
+
+    public void setRetryBudget( RetryBudget retryBudget ) {
+        this.retryBudget = retryBudget;
+    }
+
+    public void setMultiKeyChunkSize( int multiKeyChunkSize ) {
+        this.multiKeyChunkSize = multiKeyChunkSize;
+    }
+
+    /**
+     * Limits how fast the clients created here open new connections to each redis server, see
+     * {@link ConnectThrottles}. A rate of zero removes the limit. The limit only applies to this factory's
+     * clients even though the connections are shared with other pools using the same client factory.
+     */
+    public void setConnectRate( double rate, int burst, long maxWait, TimeUnit unit ) {
+        this.connectThrottles = rate > 0 ? new ConnectThrottles( rate, burst, maxWait, unit ) : null;
+    }
+
+    /**
+     * Keeps this many connections open and validated every interval to the slave that would be promoted
+     * next, see {@link StandbyConnections}. Zero, the default, keeps none. The interval has to be shorter
+     * than the idle timeout of the host pools or the connections would be evicted between checks.
+     */
+    public void setStandbyConnections( int connections, long interval, TimeUnit unit ) {
+        if ( connections > 0 ) {
+            StandbyConnections.checkInterval( unit.toMillis(interval) );
+        }
+
+        this.standbyConnections = connections;
+        this.standbyInterval = unit.toMillis(interval);
+    }
+
+    /**
+     * Keeps at least this many idle connections open to the master and to every slave, on top of the ones
+     * other pools sharing the same client factory ask for. See {@link HostConnectionPool#evictIdle(long)}.
+     */
+    public synchronized void setIdleFloor( int connections ) {
+        this.idleFloor = connections;
+
+        for ( HostConnectionPools acquired : this.pools.values() ) {
+            acquired.setIdleFloor( this, connections );
+        }
+    }
+
+    /**
+     * Pings idle connections to the redis servers that weren't used for this many milliseconds before handing
+     * them out and when idle connections are evicted, zero turns it off. See
+     * {@link HostConnectionPool#setValidationIdleTime(long)}.
+     */
+    public synchronized void setValidationIdleTime( long validationIdleTime ) {
+        this.validationIdleTime = validationIdleTime;
+
+        for ( HostConnectionPools acquired : this.pools.values() ) {
+            acquired.setValidationIdleTime( this, validationIdleTime );
+        }
+    }
+
+    /**
+     * Opens count connections to the master and to every slave, one thread per host, and waits for them.
+     */
+    public void warmUp( int count ) {
+        if ( count <= 0 ) {
+            return;
+        }
+
+        RoutingTable table = this.routing().get();
+        final List<HostConnectionPool> hosts = new ArrayList<HostConnectionPool>(table.getSlaves());
+
+        if ( table.getMaster() != null ) {
+            hosts.add(0, table.getMaster());
+        }
+
+        final AtomicInteger next = new AtomicInteger();
+        final int connections = count;
+
+        PoolWarmUp.run(hosts.size(), new Runnable() {
+            @Override
+            public void run() {
+                hosts.get(next.getAndIncrement()).warmUp(connections);
+            }
+        });
+    }
+
+    /**
+     * The routing shared by the clients created so far, its metrics show how the last failover went.
+     */
+    public synchronized ClusterRouting getRouting() {
+        return this.routing;
+    }
+
+    /**
+     * Stops the background work started for the clients and releases the {@link HostConnectionPools} they
+     * used, closing their connections unless another pool still shares them. The clients themselves are
+     * closed by the pool.
+     */
+    public synchronized void close() {
+        try {
+            if ( this.standby != null ) {
+                this.standby.stop();
+                this.standby = null;
+            }
+        } finally {
+            for ( ClusterRouting created : this.routings ) {
+                created.close();
+            }
+
+            for ( HostConnectionPools acquired : this.pools.values() ) {
+                acquired.setIdleFloor( this, 0 );
+                acquired.setValidationIdleTime( this, 0 );
+                acquired.release();
+            }
+
+            this.routings.clear();
+            this.pools.clear();
+            this.routing = null;
+        }
+    }
+
     @Override
     public JedisActions create() {
-        return new Client( this.nodeManager, GenericJedisClientFactory.INSTANCE );
+        Client client = new Client( this.routing() );
+        client.setMaxReplicationLag(this.maxReplicationLag);
+        client.setRecentWrites(this.recentWrites);
+        client.setNearCache(this.nearCache);
+        client.setSingleFlight(this.singleFlight);
+        client.setFailoverRetryTimeout(this.failoverRetryTimeout);
+        client.setRetryBudget(this.retryBudget);
+        client.setMultiKeyChunkSize(this.multiKeyChunkSize);
+        return client;
+    }
+
+    /**
+     * The routing shared by every client this factory creates, so a cluster change is applied once
+     * instead of once per pooled client.
+     */
+    private synchronized ClusterRouting routing() {
+        HostConnectionPools pools = this.pools.get(this.clientFactory);
+
+        if ( pools == null ) {
+            pools = HostConnectionPools.acquire(this.clientFactory);
+            pools.setIdleFloor( this, this.idleFloor );
+            pools.setValidationIdleTime( this, this.validationIdleTime );
+            this.pools.put(this.clientFactory, pools);
+        }
+
+        if ( this.routing == null
+                || this.routing.getPools() != pools
+                || this.routing.getReplicaSelector() != this.replicaSelector
+                || this.routing.getConnectThrottles() != this.connectThrottles ) {
+            this.routing = new ClusterRouting( this.nodeManager, pools, this.replicaSelector, this.connectThrottles );
+            this.routings.add(this.routing);
+
+            if ( this.standby != null ) {
+                this.standby.stop();
+                this.standby = null;
+            }
+
+            if ( this.standbyConnections > 0 ) {
+                this.standby = new StandbyConnections(
+                        this.nodeManager, pools, this.standbyConnections, this.standbyInterval, TimeUnit.MILLISECONDS );
+                this.standby.start();
+            }
+        }
+
+        return this.routing;
     }
+
 }
@@ -0,0 +1,13 @@
+package com.officedrop.redis.failover.jedis;
+
+/**
+ * Receives the outcome of a {@link JedisFuture}. Callbacks run at the thread that completed the future or,
+ * if it was already done when the callback was added, at the thread adding it, so they should not block.
+ */
+public interface FutureCallback<T> {
+
+    public void onSuccess( T result );
+
+    public void onFailure( Throwable error );
+
+}
@@ -17,4 +17,9 @@ public class GenericJedisClient extends Jedis implements JedisClient {
         }
     }
 
-}
\ No newline at end of file
+    @Override
+    public PipelineActions pipeline() {
+        return new RoutedPipeline(this);
+    }
+
+}
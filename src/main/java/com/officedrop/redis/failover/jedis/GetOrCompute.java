@@ -0,0 +1,227 @@
+package com.officedrop.redis.failover.jedis;
+
+import com.officedrop.redis.failover.ReadPreference;
+import com.officedrop.redis.failover.utils.Function;
+import com.officedrop.redis.failover.utils.SleepUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads a key and computes it when it's missing without letting every caller run the loader at the same
+ * time. Only the caller that takes a short lock at the master (SETNX plus EXPIRE on key:lock) runs the
+ * loader, the others wait for the value to show up at the master. A loader that returns null (or fails)
+ * stores nothing, callers waiting for it get null as soon as its lock is released instead of running the
+ * loader themselves.
+ *
+ * To keep hot keys from expiring at all, values are refreshed early with probabilistic early expiration
+ * (XFetch): the time the loader took and when the value expires are stored at key:xfetch and every read
+ * decides to recompute with a probability that grows as the expiration gets closer and the loader gets
+ * slower. Beta above 1 favors earlier refreshes, below 1 later ones.
+ */
+public class GetOrCompute {
+
+    private static final Logger log = LoggerFactory.getLogger(GetOrCompute.class);
+
+    public static final GetOrCompute DEFAULT = new GetOrCompute(1.0, 10, 50);
+
+    private static final String LOCK_SUFFIX = ":lock";
+    private static final String META_SUFFIX = ":xfetch";
+
+    private final double beta;
+    private final int lockSeconds;
+    private final long waitMillis;
+
+    /**
+     * @param beta        how eagerly values are refreshed before they expire
+     * @param lockSeconds how long the loader lock lives, also how long callers wait for someone else's loader
+     * @param waitMillis  how often waiting callers check if the value was loaded
+     */
+    public GetOrCompute(double beta, int lockSeconds, long waitMillis) {
+        if ( beta < 0 ) {
+            throw new IllegalArgumentException("Beta can't be negative - " + beta);
+        }
+
+        if ( lockSeconds < 1 ) {
+            throw new IllegalArgumentException("The lock must last at least one second - " + lockSeconds);
+        }
+
+        this.beta = beta;
+        this.lockSeconds = lockSeconds;
+        this.waitMillis = waitMillis;
+    }
+
+    public String execute(JedisPool pool, final String key, int ttlSeconds, ValueLoader loader) {
+        List<String> current = pool.withJedis(new JedisResultFunction<List<String>>() {
+            @Override
+            public List<String> execute(JedisActions jedis) {
+                return jedis.mget(key, key + META_SUFFIX);
+            }
+        });
+
+        String value = current.get(0);
+
+        if ( value != null ) {
+            if ( this.shouldRefresh(current.get(1), System.currentTimeMillis(), Math.random()) ) {
+                String token = this.tryLock(pool, key);
+
+                if ( token != null ) {
+                    log.debug("Refreshing {} before it expires", key);
+                    return this.compute(pool, key, ttlSeconds, loader, token);
+                }
+            }
+
+            return value;
+        }
+
+        String token = this.tryLock(pool, key);
+
+        if ( token != null ) {
+            return this.compute(pool, key, ttlSeconds, loader, token);
+        }
+
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(this.lockSeconds);
+
+        while ( System.currentTimeMillis() < deadline ) {
+            SleepUtils.safeSleep(this.waitMillis, TimeUnit.MILLISECONDS);
+
+            List<String> loaded = this.getFromMaster(pool, key);
+
+            if ( loaded.get(0) != null ) {
+                return loaded.get(0);
+            }
+
+            if ( loaded.get(1) == null ) {
+                log.debug("The loader of {} finished without a value", key);
+                return null;
+            }
+        }
+
+        log.warn("Gave up waiting for the loader of {} to finish, loading it again", key);
+
+        return this.compute(pool, key, ttlSeconds, loader, null);
+    }
+
+    /**
+     * XFetch: recompute if now - delta * beta * log(random) >= expiry, where delta is how long the last
+     * computation took. Values without metadata are never refreshed early.
+     */
+    boolean shouldRefresh(String metadata, long now, double random) {
+        if ( metadata == null ) {
+            return false;
+        }
+
+        String[] parts = metadata.split(":");
+
+        if ( parts.length != 2 ) {
+            return false;
+        }
+
+        try {
+            long delta = Long.parseLong(parts[0]);
+            long expiresAt = Long.parseLong(parts[1]);
+
+            return now - delta * this.beta * Math.log(random) >= expiresAt;
+        } catch ( NumberFormatException e ) {
+            return false;
+        }
+    }
+
+    private String compute(JedisPool pool, final String key, final int ttlSeconds, ValueLoader loader, final String token) {
+        try {
+            long start = System.currentTimeMillis();
+            final String value = loader.load(key);
+            final long delta = System.currentTimeMillis() - start;
+
+            if ( value != null ) {
+                pool.withJedis(new JedisFunction() {
+                    @Override
+                    public void execute(JedisActions jedis) {
+                        long expiresAt = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(ttlSeconds);
+                        jedis.setex(key, ttlSeconds, value);
+                        jedis.setex(key + META_SUFFIX, ttlSeconds, delta + ":" + expiresAt);
+                    }
+                });
+            }
+
+            return value;
+        } catch ( RuntimeException e ) {
+            throw e;
+        } catch ( Exception e ) {
+            throw new RuntimeException(e);
+        } finally {
+            if ( token != null ) {
+                this.unlock(pool, key, token);
+            }
+        }
+    }
+
+    private String tryLock(JedisPool pool, final String key) {
+        final String token = UUID.randomUUID().toString();
+
+        boolean locked = pool.withJedis(new JedisResultFunction<Boolean>() {
+            @Override
+            public Boolean execute(JedisActions jedis) {
+                String lock = key + LOCK_SUFFIX;
+
+                if ( jedis.setnx(lock, token) == 1 ) {
+                    jedis.expire(lock, lockSeconds);
+                    return true;
+                }
+
+                // the holder could have died between SETNX and EXPIRE, the lock must not live forever
+                if ( jedis.ttl(lock) == -1 ) {
+                    jedis.expire(lock, lockSeconds);
+                }
+
+                return false;
+            }
+        });
+
+        return locked ? token : null;
+    }
+
+    private void unlock(JedisPool pool, final String key, final String token) {
+        try {
+            pool.withJedis(new JedisFunction() {
+                @Override
+                public void execute(final JedisActions jedis) {
+                    final String lock = key + LOCK_SUFFIX;
+                    String holder = ReadPreference.fromMaster(new Function<String>() {
+                        @Override
+                        public String apply() {
+                            return jedis.get(lock);
+                        }
+                    });
+
+                    if ( token.equals(holder) ) {
+                        jedis.del(lock);
+                    }
+                }
+            });
+        } catch ( Exception e ) {
+            log.error(String.format("Failed to release the loader lock of %s, it will expire", key), e);
+        }
+    }
+
+    /**
+     * The value and the loader lock of the key, as seen by the master.
+     */
+    private List<String> getFromMaster(JedisPool pool, final String key) {
+        return pool.withJedis(new JedisResultFunction<List<String>>() {
+            @Override
+            public List<String> execute(final JedisActions jedis) {
+                return ReadPreference.fromMaster(new Function<List<String>>() {
+                    @Override
+                    public List<String> apply() {
+                        return jedis.mget(key, key + LOCK_SUFFIX);
+                    }
+                });
+            }
+        });
+    }
+
+}
@@ -2,6 +2,8 @@ package com.officedrop.redis.failover.jedis;
 
 import redis.clients.jedis.JedisCommands;
 
+import java.util.List;
+
 /**
  * User: Maurício Linhares
  * Date: 12/20/12
@@ -11,6 +13,10 @@ public interface JedisActions extends JedisCommands {
 
     public Long del(final String... keys);
 
+    public List<String> mget(final String... keys);
+
+    public String mset(final String... keysvalues);
+
     public String quit();
 
     public String ping();
@@ -21,4 +27,6 @@ public interface JedisActions extends JedisCommands {
 
     public String info();
 
+    public PipelineActions pipeline();
+
 }
\ No newline at end of file
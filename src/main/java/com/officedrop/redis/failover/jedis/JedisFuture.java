@@ -0,0 +1,91 @@
+package com.officedrop.redis.failover.jedis;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * The pending result of a command submitted to an {@link AsyncJedisPool}. Besides the usual blocking
+ * {@link #get()} it accepts callbacks that are called once the command completes.
+ */
+public class JedisFuture<T> extends FutureTask<T> {
+
+    private static final Logger log = LoggerFactory.getLogger(JedisFuture.class);
+
+    private List<FutureCallback<? super T>> callbacks = new ArrayList<FutureCallback<? super T>>(1);
+
+    public JedisFuture( Callable<T> callable ) {
+        super(callable);
+    }
+
+    public JedisFuture<T> addCallback( FutureCallback<? super T> callback ) {
+        synchronized ( this ) {
+            if ( this.callbacks != null && !this.isDone() ) {
+                this.callbacks.add(callback);
+                return this;
+            }
+        }
+
+        this.deliver(callback);
+
+        return this;
+    }
+
+    void fail( Throwable error ) {
+        this.setException(error);
+    }
+
+    @Override
+    protected void done() {
+        List<FutureCallback<? super T>> pending;
+
+        synchronized ( this ) {
+            pending = this.callbacks;
+            this.callbacks = null;
+        }
+
+        for ( FutureCallback<? super T> callback : pending ) {
+            this.deliver(callback);
+        }
+    }
+
+    private void deliver( FutureCallback<? super T> callback ) {
+        T result;
+
+        try {
+            result = this.get();
+        } catch ( ExecutionException e ) {
+            this.callFailure(callback, e.getCause());
+            return;
+        } catch ( CancellationException e ) {
+            this.callFailure(callback, e);
+            return;
+        } catch ( InterruptedException e ) {
+            // can't happen, the future is done at this point
+            Thread.currentThread().interrupt();
+            this.callFailure(callback, e);
+            return;
+        }
+
+        try {
+            callback.onSuccess(result);
+        } catch ( RuntimeException e ) {
+            log.error("Future callback failed", e);
+        }
+    }
+
+    private void callFailure( FutureCallback<? super T> callback, Throwable error ) {
+        try {
+            callback.onFailure(error);
+        } catch ( RuntimeException e ) {
+            log.error("Future callback failed", e);
+        }
+    }
+
+}
@@ -9,8 +9,22 @@ public interface JedisPool {
 
     public void withJedis(JedisFunction action);
 
+    /**
+     * Runs the action with a pooled connection. Redis failures reach the caller as the {@link
+     * redis.clients.jedis.exceptions.JedisException}s they are, so a {@link com.officedrop.redis.failover.NoMasterException}
+     * can be told apart from other errors, anything else the action throws is wrapped in a RuntimeException.
+     */
     public <T> T withJedis(JedisResultFunction<T> action);
 
+    public void withPipeline(PipelineFunction action);
+
+    /**
+     * Returns the value of the key, running the loader and storing its result with the given TTL when the
+     * key is missing or about to expire. Only one loader runs at a time for a key across all processes,
+     * see {@link GetOrCompute}.
+     */
+    public String getOrCompute(String key, int ttlSeconds, ValueLoader loader);
+
     public void close();
 
 }
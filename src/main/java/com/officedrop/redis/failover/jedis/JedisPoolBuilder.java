@@ -1,12 +1,25 @@
 package com.officedrop.redis.failover.jedis;
 
+import com.officedrop.redis.failover.ConnectThrottles;
 import com.officedrop.redis.failover.HostConfiguration;
+import com.officedrop.redis.failover.LoadBalancingMode;
+import com.officedrop.redis.failover.NearCache;
 import com.officedrop.redis.failover.NodeManager;
+import com.officedrop.redis.failover.RecentWrites;
+import com.officedrop.redis.failover.RetryBudget;
+import com.officedrop.redis.failover.SingleFlight;
+import com.officedrop.redis.failover.strategy.ReplicaSelector;
 import com.officedrop.redis.failover.utils.Action1;
+import com.officedrop.redis.failover.utils.DaemonThreadPoolFactory;
 import org.apache.commons.pool.impl.GenericObjectPool;
 import redis.clients.jedis.JedisPoolConfig;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * User: Maurício Linhares
@@ -15,13 +28,34 @@ import java.util.Collection;
  */
 public class JedisPoolBuilder {
 
+    /**
+     * How often idle pooled objects are checked in the background unless {@link #withIdleValidation} or
+     * {@link #withPoolConfiguration} says otherwise.
+     */
+    public static final long DEFAULT_HEARTBEAT_INTERVAL = 30000;
+
     private JedisFactory jedisFactory;
+    private FailoverJedisFactory failoverFactory;
     private JedisPoolConfig poolConfig = new JedisPoolConfig();
-    private Action1<CommonsJedisPool> onCloseAction;
+    private Action1<JedisPool> onCloseAction;
+    private boolean lockFree;
+    private long validationIdleTime = CommonsJedisPool.DEFAULT_VALIDATION_IDLE_TIME;
+    private int warmUp;
+    private int idleFloor;
+    private double adaptivePercentile;
+    private long adaptiveInterval;
+    private final Map<String, JedisPoolBuilder> shards = new LinkedHashMap<String, JedisPoolBuilder>();
+    private boolean hashTags;
 
+    /**
+     * Pools built with the default configuration ping objects idle for longer than the validation idle time
+     * on borrow and check the idle ones in the background every {@link #DEFAULT_HEARTBEAT_INTERVAL} ms.
+     * Failover pools do the same for the connections to each redis server, see {@link #withIdleValidation}.
+     */
     public JedisPoolBuilder() {
-        this.poolConfig.setMaxIdle(1);
+        this.poolConfig.setMaxIdle(GenericObjectPool.DEFAULT_MAX_IDLE);
         this.poolConfig.setTestWhileIdle(true);
+        this.poolConfig.setTimeBetweenEvictionRunsMillis(DEFAULT_HEARTBEAT_INTERVAL);
         this.poolConfig.setTestOnBorrow(true);
         this.poolConfig.setWhenExhaustedAction(GenericObjectPool.WHEN_EXHAUSTED_GROW);
     }
@@ -38,14 +72,21 @@ public class JedisPoolBuilder {
             throw new IllegalStateException("Node manager could not be started", e);
         }
 
-        this.onCloseAction = new Action1<CommonsJedisPool>() {
+        final FailoverJedisFactory factory = new FailoverJedisFactory(nodeManager);
+
+        this.onCloseAction = new Action1<JedisPool>() {
             @Override
-            public void apply( CommonsJedisPool pool ) {
-                nodeManager.stop();
+            public void apply( JedisPool pool ) {
+                try {
+                    factory.close();
+                } finally {
+                    nodeManager.stop();
+                }
             }
         };
 
-        this.jedisFactory = new FailoverJedisFactory(nodeManager);
+        this.failoverFactory = factory;
+        this.jedisFactory = this.failoverFactory;
 
         return this;
     }
@@ -65,12 +106,223 @@ public class JedisPoolBuilder {
         return this.withHost(new HostConfiguration(host, port, timeout, database));
     }
 
+    /**
+     * Replaces the pool configuration, including the heartbeat, which only runs if the given configuration
+     * has testWhileIdle set and a positive timeBetweenEvictionRunsMillis.
+     */
     public JedisPoolBuilder withPoolConfiguration( JedisPoolConfig config ) {
         this.poolConfig = config;
 
         return this;
     }
 
+    public JedisPoolBuilder withLoadBalancingMode( LoadBalancingMode mode ) {
+        return this.withReplicaSelector(mode.createSelector());
+    }
+
+    public JedisPoolBuilder withReplicaSelector( ReplicaSelector selector ) {
+        if ( this.failoverFactory == null ) {
+            throw new NullPointerException("You must set the failover configuration before setting the replica selector");
+        }
+
+        this.failoverFactory.setReplicaSelector(selector);
+
+        return this;
+    }
+
+    public JedisPoolBuilder withMaxReplicationLag( long maxReplicationLagMillis ) {
+        if ( this.failoverFactory == null ) {
+            throw new NullPointerException("You must set the failover configuration before setting the max replication lag");
+        }
+
+        this.failoverFactory.setMaxReplicationLag(maxReplicationLagMillis);
+
+        return this;
+    }
+
+    public JedisPoolBuilder withReadYourWrites( long window, TimeUnit unit ) {
+        return this.withReadYourWrites(new RecentWrites(window, unit));
+    }
+
+    /**
+     * Reads of keys written through the pool go to the master while the given recent writes consider them
+     * recent. A RecentWrites with a single slot sends every read to the master for a while after any write.
+     */
+    public JedisPoolBuilder withReadYourWrites( RecentWrites recentWrites ) {
+        if ( this.failoverFactory == null ) {
+            throw new NullPointerException("You must set the failover configuration before enabling read your writes");
+        }
+
+        this.failoverFactory.setRecentWrites(recentWrites);
+
+        return this;
+    }
+
+    public JedisPoolBuilder withNearCache( int maxEntries, long ttl, TimeUnit unit ) {
+        return this.withNearCache(new NearCache(maxEntries, ttl, unit));
+    }
+
+    /**
+     * Caches get, hget and smembers results in process for all connections of the pool, see {@link NearCache}.
+     */
+    public JedisPoolBuilder withNearCache( NearCache nearCache ) {
+        if ( this.failoverFactory == null ) {
+            throw new NullPointerException("You must set the failover configuration before enabling the near cache");
+        }
+
+        this.failoverFactory.setNearCache(nearCache);
+
+        return this;
+    }
+
+    public JedisPoolBuilder withReadCoalescing() {
+        return this.withReadCoalescing(new SingleFlight());
+    }
+
+    /**
+     * Concurrent get, hget, hgetAll and smembers calls for the same key made through any connection of the
+     * pool share a single request to redis.
+     */
+    public JedisPoolBuilder withReadCoalescing( SingleFlight singleFlight ) {
+        if ( this.failoverFactory == null ) {
+            throw new NullPointerException("You must set the failover configuration before enabling read coalescing");
+        }
+
+        this.failoverFactory.setSingleFlight(singleFlight);
+
+        return this;
+    }
+
+    public JedisPoolBuilder withFailoverRetry( long timeout, TimeUnit unit ) {
+        return this.withFailoverRetry(timeout, unit, new RetryBudget());
+    }
+
+    /**
+     * Commands that fail because the master went away wait up to the timeout for the new master and are
+     * retried on it, reads always and writes only inside RetryableWrites. The budget is shared by all
+     * connections of the pool and caps how many retries can happen during a failover.
+     */
+    public JedisPoolBuilder withFailoverRetry( long timeout, TimeUnit unit, RetryBudget budget ) {
+        if ( this.failoverFactory == null ) {
+            throw new NullPointerException("You must set the failover configuration before enabling failover retries");
+        }
+
+        this.failoverFactory.setFailoverRetryTimeout(unit.toMillis(timeout));
+        this.failoverFactory.setRetryBudget(budget);
+
+        return this;
+    }
+
+    /**
+     * Splits mget, mset and del calls with more keys than the chunk size in many commands.
+     */
+    public JedisPoolBuilder withMultiKeyChunkSize( int chunkSize ) {
+        if ( this.failoverFactory == null ) {
+            throw new NullPointerException("You must set the failover configuration before setting the multi key chunk size");
+        }
+
+        this.failoverFactory.setMultiKeyChunkSize(chunkSize);
+
+        return this;
+    }
+
+    /**
+     * Sets how connections to each redis server are made, the default opens a blocking jedis connection
+     * per concurrent caller.
+     */
+    public JedisPoolBuilder withClientFactory( JedisClientFactory clientFactory ) {
+        if ( this.failoverFactory == null ) {
+            throw new NullPointerException("You must set the failover configuration before setting the client factory");
+        }
+
+        this.failoverFactory.setClientFactory(clientFactory);
+
+        return this;
+    }
+
+    /**
+     * Limits every redis server to opening rate new connections a second after an initial burst, so a
+     * newly promoted master isn't hit by every client reconnecting at once. Callers wait up to maxWait,
+     * with jitter, taking connections released by others in the meantime. See {@link ConnectThrottles}.
+     */
+    public JedisPoolBuilder withConnectRate( double rate, int burst, long maxWait, TimeUnit unit ) {
+        if ( this.failoverFactory == null ) {
+            throw new NullPointerException("You must set the failover configuration before setting the connect rate");
+        }
+
+        this.failoverFactory.setConnectRate(rate, burst, maxWait, unit);
+
+        return this;
+    }
+
+    /**
+     * Keeps this many connections open to the slave the failover strategy would promote next and validates
+     * them every interval, so writes switch to it without connecting once it becomes the master. The interval
+     * must be shorter than {@link com.officedrop.redis.failover.HostConnectionPools#IDLE_TIMEOUT}.
+     */
+    public JedisPoolBuilder withStandbyConnections( int connections, long interval, TimeUnit unit ) {
+        if ( this.failoverFactory == null ) {
+            throw new NullPointerException("You must set the failover configuration before setting the standby connections");
+        }
+
+        this.failoverFactory.setStandbyConnections(connections, interval, unit);
+
+        return this;
+    }
+
+    /**
+     * Shares a single non blocking connection per redis server between all callers, commands sent at the
+     * same time are pipelined together. See {@link MultiplexedJedisClientFactory}.
+     */
+    public JedisPoolBuilder withMultiplexedConnections() {
+        final MultiplexedJedisClientFactory factory = new MultiplexedJedisClientFactory();
+        this.withClientFactory(factory);
+
+        this.onClose(new Action1<JedisPool>() {
+            @Override
+            public void apply( JedisPool pool ) {
+                factory.close();
+            }
+        });
+
+        return this;
+    }
+
+    /**
+     * Queues the commands sent to each redis server and sends them as pipelines of at most maxBatchSize
+     * commands, waiting at most maxDelay for a batch to fill. See {@link BatchingJedisClientFactory}.
+     */
+    public JedisPoolBuilder withCommandBatching( int maxBatchSize, long maxDelay, TimeUnit unit ) {
+        final BatchingJedisClientFactory factory = new BatchingJedisClientFactory(maxBatchSize, maxDelay, unit);
+        this.withClientFactory(factory);
+
+        this.onClose(new Action1<JedisPool>() {
+            @Override
+            public void apply( JedisPool pool ) {
+                factory.close();
+            }
+        });
+
+        return this;
+    }
+
+    private void onClose( final Action1<JedisPool> action ) {
+        final Action1<JedisPool> previous = this.onCloseAction;
+
+        this.onCloseAction = new Action1<JedisPool>() {
+            @Override
+            public void apply( JedisPool pool ) {
+                try {
+                    if ( previous != null ) {
+                        previous.apply(pool);
+                    }
+                } finally {
+                    action.apply(pool);
+                }
+            }
+        };
+    }
+
     public JedisPoolBuilder withNamespace( String namespace ) {
 
         if ( this.jedisFactory == null ) {
@@ -82,15 +334,233 @@ public class JedisPoolBuilder {
         return this;
     }
 
+    /**
+     * Only pings pooled objects on borrow if they weren't used successfully in the last idleTime and checks
+     * the idle ones in the background every heartbeatInterval. Failover pools ping the idle connections to
+     * each redis server instead, on borrow and every
+     * {@link com.officedrop.redis.failover.HostConnectionPools#EVICTION_INTERVAL} ms when idle connections
+     * are evicted, and ignore the heartbeat interval.
+     */
+    public JedisPoolBuilder withIdleValidation( long idleTime, long heartbeatInterval, TimeUnit unit ) {
+        this.validationIdleTime = unit.toMillis(idleTime);
+        this.poolConfig.setTestWhileIdle(true);
+        this.poolConfig.setTimeBetweenEvictionRunsMillis(unit.toMillis(heartbeatInterval));
+        return this;
+    }
+
+    /**
+     * Bounds the pool to maxActive clients, callers wait up to maxWait for one to be returned and then fail
+     * instead of the pool growing without limit while the redis servers are not answering.
+     */
+    public JedisPoolBuilder withMaxActive( int maxActive, long maxWait, TimeUnit unit ) {
+        this.poolConfig.setMaxActive(maxActive);
+        this.poolConfig.setMaxWait(unit.toMillis(maxWait));
+        this.poolConfig.setWhenExhaustedAction(GenericObjectPool.WHEN_EXHAUSTED_BLOCK);
+        return this;
+    }
+
+    /**
+     * Opens this many clients in parallel when the pool is built instead of on the first calls. Failover
+     * pools open this many connections to the master and to every slave instead.
+     */
+    public JedisPoolBuilder withWarmUp( int clients ) {
+        this.warmUp = clients;
+        return this;
+    }
+
+    /**
+     * Keeps at least this many idle clients, idle eviction doesn't go below it and clients are created in the
+     * background to get back to it. For failover pools the floor applies to the connections to the master
+     * and to every slave.
+     */
+    public JedisPoolBuilder withIdleFloor( int minIdle ) {
+        this.idleFloor = minIdle;
+        return this;
+    }
+
+    /**
+     * Sizes the idle clients from the concurrency the pool sees, see {@link AdaptivePoolSizing}. The idle
+     * floor still applies. Failover pools size the idle connections to each redis server the same way.
+     */
+    public JedisPoolBuilder withAdaptiveSizing( double percentile, long interval, TimeUnit unit ) {
+        if ( percentile <= 0 || percentile > 1 ) {
+            throw new IllegalArgumentException("The percentile must be between 0 and 1 - " + percentile);
+        }
+
+        this.adaptivePercentile = percentile;
+        this.adaptiveInterval = unit.toMillis(interval);
+        return this;
+    }
+
+    /**
+     * Builds a {@link LockFreeJedisPool} instead of the commons pool based {@link CommonsJedisPool}, the
+     * pool configuration applies to both.
+     */
+    public JedisPoolBuilder withLockFreePool() {
+        this.lockFree = true;
+        return this;
+    }
+
     public JedisPool build() {
 
-        CommonsJedisPool pool = new CommonsJedisPool(this.jedisFactory, this.poolConfig);
+        final Action1<JedisPool> closeAction = this.onCloseAction;
+
+        this.poolConfig.setMinIdle(this.idleFloor);
+        this.poolConfig.setMaxIdle(Math.max(this.poolConfig.getMaxIdle(), Math.max(this.idleFloor, this.warmUp)));
+
+        List<FailoverJedisFactory> failoverFactories = this.failoverFactories();
 
-        if ( this.onCloseAction != null ) {
-            pool.addListeners(this.onCloseAction);
+        if ( !failoverFactories.isEmpty() ) {
+            // pooled failover clients only route commands, the connections to each server are validated instead
+            long validationIdleTime = this.poolConfig.isTestOnBorrow() || this.poolConfig.isTestWhileIdle()
+                    ? this.validationIdleTime
+                    : 0;
+
+            for ( FailoverJedisFactory factory : failoverFactories ) {
+                factory.setValidationIdleTime(validationIdleTime);
+            }
+
+            this.poolConfig.setTestOnBorrow(false);
+            this.poolConfig.setTestOnReturn(false);
+            this.poolConfig.setTestWhileIdle(false);
         }
 
-        return pool;
+        ResizableJedisPool result;
+
+        if ( this.lockFree ) {
+            LockFreeJedisPool pool = new LockFreeJedisPool(this.jedisFactory, this.poolConfig);
+            pool.setValidationIdleTime(this.validationIdleTime);
+
+            if ( closeAction != null ) {
+                pool.addListeners(new Action1<LockFreeJedisPool>() {
+                    @Override
+                    public void apply( LockFreeJedisPool pool ) {
+                        closeAction.apply(pool);
+                    }
+                });
+            }
+
+            result = pool;
+        } else {
+            CommonsJedisPool pool = new CommonsJedisPool(this.jedisFactory, this.poolConfig);
+            pool.setValidationIdleTime(this.validationIdleTime);
+
+            if ( closeAction != null ) {
+                pool.addListeners(new Action1<CommonsJedisPool>() {
+                    @Override
+                    public void apply( CommonsJedisPool pool ) {
+                        closeAction.apply(pool);
+                    }
+                });
+            }
+
+            result = pool;
+        }
+
+        int warmUp = Math.max(this.warmUp, this.idleFloor);
+
+        if ( failoverFactories.isEmpty() ) {
+            result.warmUp(warmUp);
+        }
+
+        for ( FailoverJedisFactory factory : failoverFactories ) {
+            factory.setIdleFloor(this.idleFloor);
+            factory.warmUp(warmUp);
+        }
+
+        if ( this.adaptiveInterval > 0 ) {
+            AdaptivePoolSizing sizing = new AdaptivePoolSizing(
+                    this.adaptivePercentile, this.idleFloor, this.adaptiveInterval, TimeUnit.MILLISECONDS);
+            sizing.setFailoverFactories(failoverFactories);
+            sizing.start(result);
+        }
+
+        return result;
+    }
+
+    /**
+     * The factories whose clients only route to host connections, this builder's or its shards'.
+     */
+    private List<FailoverJedisFactory> failoverFactories() {
+        List<FailoverJedisFactory> factories = new ArrayList<FailoverJedisFactory>();
+
+        if ( this.failoverFactory != null ) {
+            factories.add(this.failoverFactory);
+        }
+
+        for ( JedisPoolBuilder shard : this.shards.values() ) {
+            if ( shard.failoverFactory != null ) {
+                factories.add(shard.failoverFactory);
+            }
+        }
+
+        return factories;
+    }
+
+    /**
+     * Adds a failover cluster to the ones {@link #buildSharded()} spreads keys over. The shard's builder
+     * only needs its failover configuration, with a ZooKeeper namespace of its own like
+     * "localhost:2181/shard-a", and client options such as the namespace or the load balancing. The pool
+     * options are taken from this builder.
+     */
+    public JedisPoolBuilder withShard( String name, JedisPoolBuilder shard ) {
+        if ( shard.jedisFactory == null ) {
+            throw new NullPointerException("You must set the failover configuration of the shard before adding it");
+        }
+
+        this.shards.put(name, shard);
+
+        return this;
+    }
+
+    /**
+     * Places keys at the shards using only the part between { and } when there is one, so related keys
+     * stay together and can be used by the same multi key command.
+     */
+    public JedisPoolBuilder withHashTags() {
+        this.hashTags = true;
+        return this;
+    }
+
+    /**
+     * Builds a {@link ShardedFailoverPool} over the shards added with {@link #withShard(String, JedisPoolBuilder)},
+     * closing it also stops the node managers of every shard.
+     */
+    public ShardedFailoverPool buildSharded() {
+        if ( this.shards.isEmpty() ) {
+            throw new IllegalStateException("You must add at least one shard before building a sharded pool");
+        }
+
+        Map<String, JedisFactory> factories = new LinkedHashMap<String, JedisFactory>();
+
+        for ( Map.Entry<String, JedisPoolBuilder> shard : this.shards.entrySet() ) {
+            factories.put(shard.getKey(), shard.getValue().jedisFactory);
+
+            if ( shard.getValue().onCloseAction != null ) {
+                this.onClose(shard.getValue().onCloseAction);
+            }
+        }
+
+        final ShardedJedisFactory factory = new ShardedJedisFactory(
+                factories, this.hashTags, DaemonThreadPoolFactory.newCachedPool());
+
+        this.jedisFactory = factory;
+        this.onClose(new Action1<JedisPool>() {
+            @Override
+            public void apply( JedisPool pool ) {
+                factory.close();
+            }
+        });
+
+        return new ShardedFailoverPool(this.build(), factory);
+    }
+
+    /**
+     * Builds the pool and wraps it at an {@link AsyncJedisPool} with the given number of I/O threads
+     * and at most queueSize commands waiting for one of them.
+     */
+    public AsyncJedisPool buildAsync( int threads, int queueSize ) {
+        return new AsyncJedisPool(this.build(), threads, queueSize);
     }
 
 }
@@ -0,0 +1,168 @@
+package com.officedrop.redis.failover.jedis;
+
+import redis.clients.util.SafeEncoder;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A consistent hash ring that places nodes like libketama does for nodes of the same weight, so keys land
+ * at the same node other ketama clients would pick for it. Each node gets 160 points taken from the MD5
+ * digests of "name-0" to "name-39", and a key goes to the first point at or after the first four bytes of
+ * its own digest. Adding or removing a node only moves the keys that node owned.
+ *
+ * With hash tags enabled only the part of the key between the first { and the } after it is hashed when it
+ * isn't empty, so keys like {user:1}:followers and {user:1}:following always go to the same node.
+ */
+public class KetamaHashRing<T> {
+
+    private static final int DIGESTS_PER_NODE = 40;
+    private static final int POINTS_PER_DIGEST = 4;
+
+    private static final ThreadLocal<MessageDigest> md5 = new ThreadLocal<MessageDigest>() {
+        @Override
+        protected MessageDigest initialValue() {
+            try {
+                return MessageDigest.getInstance("MD5");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("MD5 is not available", e);
+            }
+        }
+    };
+
+    private final Map<String, T> nodes;
+    private final boolean hashTags;
+    private final long[] points;
+    private final String[] owners;
+
+    public KetamaHashRing(Map<String, T> nodes, boolean hashTags) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("There has to be at least one node at the ring");
+        }
+
+        this.nodes = Collections.unmodifiableMap(new LinkedHashMap<String, T>(nodes));
+        this.hashTags = hashTags;
+
+        List<Point> ring = new ArrayList<Point>(nodes.size() * DIGESTS_PER_NODE * POINTS_PER_DIGEST);
+
+        for (String name : nodes.keySet()) {
+            for (int x = 0; x < DIGESTS_PER_NODE; x++) {
+                byte[] digest = digest(name + "-" + x);
+
+                for (int h = 0; h < POINTS_PER_DIGEST; h++) {
+                    ring.add(new Point(point(digest, h * 4), name));
+                }
+            }
+        }
+
+        Collections.sort(ring);
+
+        this.points = new long[ring.size()];
+        this.owners = new String[ring.size()];
+
+        for (int x = 0; x < ring.size(); x++) {
+            this.points[x] = ring.get(x).value;
+            this.owners[x] = ring.get(x).owner;
+        }
+    }
+
+    private KetamaHashRing(Map<String, T> nodes, boolean hashTags, long[] points, String[] owners) {
+        this.nodes = nodes;
+        this.hashTags = hashTags;
+        this.points = points;
+        this.owners = owners;
+    }
+
+    /**
+     * A ring with the same points that hands out other objects for the same node names, without hashing
+     * the node names again.
+     */
+    public <R> KetamaHashRing<R> withNodes(Map<String, R> nodes) {
+        if (!nodes.keySet().equals(this.nodes.keySet())) {
+            throw new IllegalArgumentException(
+                    String.format("The nodes %s are not the ones at the ring %s", nodes.keySet(), this.nodes.keySet()));
+        }
+
+        return new KetamaHashRing<R>(
+                Collections.unmodifiableMap(new LinkedHashMap<String, R>(nodes)), this.hashTags, this.points, this.owners);
+    }
+
+    public T get(String key) {
+        return this.nodes.get(this.getName(key));
+    }
+
+    /**
+     * The name of the node that owns the key.
+     */
+    public String getName(String key) {
+        String hashed = this.hashTags ? hashTag(key) : key;
+        long hash = point(digest(hashed), 0);
+
+        int index = Arrays.binarySearch(this.points, hash);
+
+        if (index < 0) {
+            index = -index - 1;
+        }
+
+        return this.owners[index == this.points.length ? 0 : index];
+    }
+
+    public Map<String, T> getNodes() {
+        return this.nodes;
+    }
+
+    /**
+     * The part of the key between the first { and the } after it, or the whole key if there is no such part
+     * or it's empty.
+     */
+    static String hashTag(String key) {
+        int start = key.indexOf('{');
+
+        if (start != -1) {
+            int end = key.indexOf('}', start + 1);
+
+            if (end > start + 1) {
+                return key.substring(start + 1, end);
+            }
+        }
+
+        return key;
+    }
+
+    private static byte[] digest(String value) {
+        MessageDigest digest = md5.get();
+        digest.reset();
+        return digest.digest(SafeEncoder.encode(value));
+    }
+
+    private static long point(byte[] digest, int offset) {
+        return ((long) (digest[offset + 3] & 0xFF) << 24)
+                | ((long) (digest[offset + 2] & 0xFF) << 16)
+                | ((long) (digest[offset + 1] & 0xFF) << 8)
+                | (digest[offset] & 0xFF);
+    }
+
+    private static final class Point implements Comparable<Point> {
+
+        private final long value;
+        private final String owner;
+
+        private Point(long value, String owner) {
+            this.value = value;
+            this.owner = owner;
+        }
+
+        @Override
+        public int compareTo(Point other) {
+            return this.value < other.value ? -1 : (this.value == other.value ? 0 : 1);
+        }
+
+    }
+
+}
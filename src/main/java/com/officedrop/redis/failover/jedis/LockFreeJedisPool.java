@@ -0,0 +1,473 @@
+package com.officedrop.redis.failover.jedis;
+
+import com.officedrop.redis.failover.utils.Action1;
+import com.officedrop.redis.failover.utils.ConcurrentSlots;
+import com.officedrop.redis.failover.utils.DaemonThreadPoolFactory;
+import org.apache.commons.pool.impl.GenericObjectPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.exceptions.JedisException;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link JedisPool} that doesn't take a lock to borrow or return objects, unlike the commons pool
+ * {@link GenericObjectPool} behind {@link CommonsJedisPool} where both calls are synchronized.
+ *
+ * Every pooled object has its own state that is claimed with a compare and set, so threads borrowing at the
+ * same time race on different objects instead of queueing on a monitor. The objects are kept in
+ * {@link ConcurrentSlots}, so creating and destroying them doesn't lock either. Each thread first tries the
+ * object it returned last, which is usually still idle, and only then scans the pool from the first slot, so
+ * the objects in the last slots are left alone and get evicted once load goes down. Returned objects only
+ * become idle if they reserve one of the max idle places with a compare and set on the idle count. The
+ * number of objects in use is bounded by a semaphore when the exhausted action is to block or fail.
+ *
+ * It's configured with the same {@link JedisPoolConfig} as the commons pool, honoring max active, max wait,
+ * the exhausted action, min and max idle, validation on borrow, return and while idle and idle eviction.
+ */
+public class LockFreeJedisPool implements ResizableJedisPool {
+
+    private static final Logger log = LoggerFactory.getLogger(LockFreeJedisPool.class);
+    private static final ScheduledExecutorService scheduler = DaemonThreadPoolFactory.newScheduledPool(1);
+
+    private static final int IDLE = 0;
+    private static final int IN_USE = 1;
+    private static final int REMOVED = 2;
+
+    private final JedisFactory factory;
+    private final ConcurrentSlots<Entry> entries = new ConcurrentSlots<Entry>();
+    private final ThreadLocal<Entry> lastReturned = new ThreadLocal<Entry>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+    private final List<Action1<LockFreeJedisPool>> listeners = new CopyOnWriteArrayList<Action1<LockFreeJedisPool>>();
+    private final Semaphore permits;
+    private final boolean failWhenExhausted;
+    private final long maxWait;
+    private final int maxActive;
+    private volatile int maxIdle;
+    private volatile int minIdle;
+    private final boolean testOnBorrow;
+    private final boolean testOnReturn;
+    private final boolean testWhileIdle;
+    private final long minEvictableIdleTime;
+    private final ScheduledFuture<?> eviction;
+    private volatile long validationIdleTime = CommonsJedisPool.DEFAULT_VALIDATION_IDLE_TIME;
+    private volatile AdaptivePoolSizing sizing;
+    private volatile boolean closed;
+
+    public LockFreeJedisPool(JedisFactory factory) {
+        this(factory, new JedisPoolConfig());
+    }
+
+    public LockFreeJedisPool(JedisFactory factory, JedisPoolConfig config) {
+        this.factory = factory;
+        this.maxActive = config.getMaxActive();
+        this.maxWait = config.getMaxWait();
+        this.maxIdle = config.getMaxIdle();
+        this.minIdle = config.getMinIdle();
+        this.testOnBorrow = config.isTestOnBorrow();
+        this.testOnReturn = config.isTestOnReturn();
+        this.testWhileIdle = config.isTestWhileIdle();
+        this.minEvictableIdleTime = config.getMinEvictableIdleTimeMillis();
+        this.failWhenExhausted = config.getWhenExhaustedAction() == GenericObjectPool.WHEN_EXHAUSTED_FAIL;
+
+        if (this.maxActive > 0 && config.getWhenExhaustedAction() != GenericObjectPool.WHEN_EXHAUSTED_GROW) {
+            this.permits = new Semaphore(this.maxActive);
+        } else {
+            this.permits = null;
+        }
+
+        if (config.getTimeBetweenEvictionRunsMillis() > 0) {
+            this.eviction = scheduler.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    evict();
+                }
+            }, config.getTimeBetweenEvictionRunsMillis(), config.getTimeBetweenEvictionRunsMillis(), TimeUnit.MILLISECONDS);
+        } else {
+            this.eviction = null;
+        }
+    }
+
+    /**
+     * Objects that completed a call successfully less than this many milliseconds ago are considered valid
+     * without pinging, see {@link CommonsJedisPool#setValidationIdleTime(long)}.
+     */
+    public void setValidationIdleTime(long validationIdleTime) {
+        this.validationIdleTime = validationIdleTime;
+    }
+
+    public void addListeners(Action1<LockFreeJedisPool>... listeners) {
+        this.listeners.addAll(Arrays.asList(listeners));
+    }
+
+    @Override
+    public void withJedis(final JedisFunction action) {
+        this.withJedis(new JedisResultFunction<Object>() {
+            @Override
+            public Object execute(final JedisActions jedis) throws Exception {
+                action.execute(jedis);
+                return null;
+            }
+        });
+    }
+
+    @Override
+    public <T> T withJedis(JedisResultFunction<T> action) {
+        Entry entry = null;
+
+        try {
+            entry = this.borrow();
+
+            AdaptivePoolSizing current = this.sizing;
+
+            if (current != null) {
+                current.record(this.getActiveCount());
+            }
+
+            T result = action.execute(entry.jedis);
+            entry.lastSuccess = System.currentTimeMillis();
+            return result;
+        } catch (Exception e) {
+            if (entry != null) {
+                entry.lastSuccess = 0;
+            }
+            if (e instanceof JedisException) {
+                throw (JedisException) e;
+            }
+            throw new RuntimeException(e);
+        } finally {
+            if (entry != null) {
+                this.giveBack(entry);
+            }
+        }
+    }
+
+    @Override
+    public void withPipeline(final PipelineFunction action) {
+        this.withJedis(new JedisFunction() {
+            @Override
+            public void execute(final JedisActions jedis) throws Exception {
+                PipelineActions pipeline = jedis.pipeline();
+                action.execute(pipeline);
+                pipeline.sync();
+            }
+        });
+    }
+
+    @Override
+    public String getOrCompute(final String key, final int ttlSeconds, final ValueLoader loader) {
+        return GetOrCompute.DEFAULT.execute(this, key, ttlSeconds, loader);
+    }
+
+    @Override
+    public void warmUp(int count) {
+        PoolWarmUp.run(count, new Runnable() {
+            @Override
+            public void run() {
+                addIdle();
+            }
+        });
+    }
+
+    @Override
+    public void setMinIdle(int minIdle) {
+        this.minIdle = minIdle;
+    }
+
+    @Override
+    public void setMaxIdle(int maxIdle) {
+        this.maxIdle = maxIdle;
+    }
+
+    @Override
+    public void setAdaptiveSizing(AdaptivePoolSizing sizing) {
+        this.sizing = sizing;
+    }
+
+    @Override
+    public int getActiveCount() {
+        return this.entries.size() - this.idleCount.get();
+    }
+
+    @Override
+    public int getIdleCount() {
+        return this.idleCount.get();
+    }
+
+    private Entry borrow() {
+        if (this.closed) {
+            throw new IllegalStateException("Pool is closed");
+        }
+
+        this.acquirePermit();
+
+        try {
+            Entry entry;
+
+            while ((entry = this.claimIdle()) != null) {
+                if (!this.testOnBorrow || this.validate(entry)) {
+                    return entry;
+                }
+
+                this.destroy(entry);
+            }
+
+            entry = new Entry(this.factory.create());
+            this.entries.add(entry);
+
+            return entry;
+        } catch (RuntimeException e) {
+            this.releasePermit();
+            throw e;
+        }
+    }
+
+    private Entry claimIdle() {
+        Entry entry = this.lastReturned.get();
+
+        if (entry != null) {
+            if (entry.claim()) {
+                this.idleCount.decrementAndGet();
+                return entry;
+            }
+
+            if (entry.state.get() == REMOVED) {
+                this.lastReturned.remove();
+            }
+        }
+
+        for (int x = 0; x < this.entries.capacity(); x++) {
+            Entry candidate = this.entries.get(x);
+
+            if (candidate != null && candidate.claim()) {
+                this.idleCount.decrementAndGet();
+                return candidate;
+            }
+        }
+
+        return null;
+    }
+
+    private void giveBack(Entry entry) {
+        try {
+            if (this.closed || (this.testOnReturn && !this.validate(entry)) || !this.reserveIdle()) {
+                this.destroy(entry);
+            } else {
+                entry.lastUsed = System.currentTimeMillis();
+                entry.state.set(IDLE);
+                this.lastReturned.set(entry);
+
+                // close() could have gone through the entries right before this one became idle
+                if (this.closed && entry.claim()) {
+                    this.idleCount.decrementAndGet();
+                    this.destroy(entry);
+                }
+            }
+        } finally {
+            this.releasePermit();
+        }
+    }
+
+    /**
+     * Takes one of the max idle places for an object being returned, false if they are all taken.
+     */
+    private boolean reserveIdle() {
+        while (true) {
+            int current = this.idleCount.get();
+            int max = this.maxIdle;
+
+            if (max >= 0 && current >= max) {
+                return false;
+            }
+
+            if (this.idleCount.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private void acquirePermit() {
+        if (this.permits == null) {
+            return;
+        }
+
+        boolean acquired;
+
+        if (this.failWhenExhausted) {
+            acquired = this.permits.tryAcquire();
+        } else if (this.maxWait > 0) {
+            try {
+                acquired = this.permits.tryAcquire(this.maxWait, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                acquired = false;
+            }
+        } else {
+            this.permits.acquireUninterruptibly();
+            acquired = true;
+        }
+
+        if (!acquired) {
+            throw new NoSuchElementException(String.format("Pool exhausted, all %d objects are in use", this.maxActive));
+        }
+    }
+
+    private void releasePermit() {
+        if (this.permits != null) {
+            this.permits.release();
+        }
+    }
+
+    /**
+     * Closes objects idle for longer than the min evictable idle time while there are more than min idle,
+     * validates the ones left if test while idle is set and then creates objects up to min idle.
+     */
+    void evict() {
+        long limit = System.currentTimeMillis() - this.minEvictableIdleTime;
+
+        for (int x = this.entries.capacity() - 1; x >= 0; x--) {
+            if (this.idleCount.get() <= this.minIdle) {
+                break;
+            }
+
+            Entry entry = this.entries.get(x);
+
+            if (entry != null && this.minEvictableIdleTime > 0 && entry.lastUsed < limit && entry.claim()) {
+                this.idleCount.decrementAndGet();
+                this.destroy(entry);
+            }
+        }
+
+        if (this.testWhileIdle) {
+            for (int x = 0; x < this.entries.capacity(); x++) {
+                Entry entry = this.entries.get(x);
+
+                if (entry != null && entry.claim()) {
+                    this.idleCount.decrementAndGet();
+
+                    if (this.validate(entry)) {
+                        this.idleCount.incrementAndGet();
+                        entry.state.set(IDLE);
+                    } else {
+                        this.destroy(entry);
+                    }
+                }
+            }
+        }
+
+        while (!this.closed
+                && this.idleCount.get() < this.minIdle
+                && (this.maxActive <= 0 || this.entries.size() < this.maxActive)) {
+            try {
+                this.addIdle();
+            } catch (RuntimeException e) {
+                log.error("Failed to create idle object", e);
+                break;
+            }
+        }
+    }
+
+    private void addIdle() {
+        Entry entry = new Entry(this.factory.create());
+        entry.lastUsed = System.currentTimeMillis();
+        this.entries.add(entry);
+        this.idleCount.incrementAndGet();
+        entry.state.set(IDLE);
+    }
+
+    private boolean validate(Entry entry) {
+        if (System.currentTimeMillis() - entry.lastSuccess < this.validationIdleTime) {
+            return true;
+        }
+
+        try {
+            entry.jedis.ping();
+            entry.lastSuccess = System.currentTimeMillis();
+            return true;
+        } catch (Exception e) {
+            log.error("Failed to validate pooled object", e);
+            return false;
+        }
+    }
+
+    /**
+     * Removes the entry and closes its object. Threads that returned it last still point at the entry, it's
+     * dropped from their thread local the next time they borrow and its object isn't kept reachable meanwhile.
+     */
+    private void destroy(Entry entry) {
+        entry.state.set(REMOVED);
+        this.entries.remove(entry);
+
+        if (this.lastReturned.get() == entry) {
+            this.lastReturned.remove();
+        }
+
+        JedisActions jedis = entry.jedis;
+        entry.jedis = null;
+
+        try {
+            jedis.quit();
+        } catch (Exception e) {
+            log.error("Failed to destroy jedis object", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        this.closed = true;
+
+        try {
+            if (this.sizing != null) {
+                this.sizing.stop();
+            }
+
+            if (this.eviction != null) {
+                this.eviction.cancel(false);
+            }
+
+            for (int x = 0; x < this.entries.capacity(); x++) {
+                Entry entry = this.entries.get(x);
+
+                if (entry != null && entry.claim()) {
+                    this.idleCount.decrementAndGet();
+                    this.destroy(entry);
+                }
+            }
+        } finally {
+            for (Action1<LockFreeJedisPool> listener : this.listeners) {
+                try {
+                    listener.apply(this);
+                } catch (Exception e) {
+                    log.error("Failed to send event to listener", e);
+                }
+            }
+        }
+    }
+
+    private static class Entry {
+
+        private JedisActions jedis;
+        private final AtomicInteger state = new AtomicInteger(IN_USE);
+        private volatile long lastUsed = System.currentTimeMillis();
+        private volatile long lastSuccess = System.currentTimeMillis();
+
+        private Entry(JedisActions jedis) {
+            this.jedis = jedis;
+        }
+
+        private boolean claim() {
+            return this.state.get() == IDLE && this.state.compareAndSet(IDLE, IN_USE);
+        }
+
+    }
+
+}
@@ -0,0 +1,408 @@
+package com.officedrop.redis.failover.jedis;
+
+import com.officedrop.redis.failover.HostConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Protocol;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisDataException;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A single non blocking socket to a redis server shared by every {@link MultiplexedJedisClient} created for
+ * the host. Callers queue encoded commands and the event loop writes everything that is queued at once, so
+ * commands sent at the same time by different threads go out as a single pipelined write. Redis answers in
+ * order, so replies are matched to the commands waiting for them first in first out.
+ *
+ * The socket is opened when the first command is sent and opened again by the next command after it fails.
+ * Commands waiting for a reply when the socket fails, or that don't get one in the host timeout, fail with a
+ * {@link JedisConnectionException} like they would with a blocking jedis connection.
+ */
+public class MultiplexedConnection implements CommandQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(MultiplexedConnection.class);
+
+    private final HostConfiguration configuration;
+    private final MultiplexedEventLoop loop;
+    private final long timeout;
+    private volatile Session session;
+    private volatile long commandCount;
+    private volatile long writeCount;
+    private int clients;
+
+    MultiplexedConnection(HostConfiguration configuration, MultiplexedEventLoop loop) {
+        this.configuration = configuration;
+        this.loop = loop;
+        this.timeout = configuration.getTimeout() > 0 ? configuration.getTimeout() : Protocol.DEFAULT_TIMEOUT;
+    }
+
+    @Override
+    public HostConfiguration getConfiguration() {
+        return this.configuration;
+    }
+
+    @Override
+    public boolean isConnected() {
+        Session current = this.session;
+        return current != null && !current.closed;
+    }
+
+    /**
+     * Commands sent through this connection.
+     */
+    public long getCommandCount() {
+        return this.commandCount;
+    }
+
+    /**
+     * Socket writes made to send them, the ratio between both is the average pipeline size.
+     */
+    public long getWriteCount() {
+        return this.writeCount;
+    }
+
+    @Override
+    public PendingReply send(Protocol.Command command, byte[]... arguments) {
+        Session current = this.session;
+
+        if (current == null || current.closed) {
+            current = this.connect();
+        }
+
+        PendingReply reply = new PendingReply(current);
+        current.enqueue(encode(command, arguments), reply);
+
+        return reply;
+    }
+
+    @Override
+    public Object await(PendingReply reply) {
+        if (!reply.await(this.timeout)) {
+            JedisConnectionException error =
+                    new JedisConnectionException("Timed out waiting for a reply from " + this.configuration);
+            this.closeLater(reply.getSession(), error);
+            throw error;
+        }
+
+        return reply.get();
+    }
+
+    int acquire() {
+        return ++this.clients;
+    }
+
+    int release() {
+        return --this.clients;
+    }
+
+    void close() {
+        Session current = this.session;
+
+        if (current != null) {
+            this.closeLater(current, new IOException("Connection closed"));
+        }
+    }
+
+    private void closeLater(final Session session, final Exception cause) {
+        this.loop.execute(new Runnable() {
+            @Override
+            public void run() {
+                session.close(cause);
+            }
+        });
+    }
+
+    private synchronized Session connect() {
+        Session current = this.session;
+
+        if (current != null && !current.closed) {
+            return current;
+        }
+
+        if (!this.loop.isRunning()) {
+            throw new JedisConnectionException("The connection factory for " + this.configuration + " was closed");
+        }
+
+        SocketChannel channel = null;
+
+        try {
+            channel = SocketChannel.open();
+            channel.socket().setTcpNoDelay(true);
+            channel.socket().setKeepAlive(true);
+            channel.socket().connect(
+                    new InetSocketAddress(this.configuration.getHost(), this.configuration.getPort()),
+                    (int) this.timeout);
+            channel.configureBlocking(false);
+        } catch (IOException e) {
+            closeQuietly(channel);
+            throw new JedisConnectionException(e);
+        }
+
+        final Session created = new Session(channel);
+
+        this.loop.execute(new Runnable() {
+            @Override
+            public void run() {
+                created.register();
+            }
+        });
+
+        if (this.configuration.getDatabase() != Protocol.DEFAULT_DATABASE) {
+            PendingReply reply = new PendingReply(created);
+            created.enqueue(encode(Protocol.Command.SELECT, Protocol.toByteArray(this.configuration.getDatabase())), reply);
+
+            Object result;
+
+            try {
+                result = this.await(reply);
+            } catch (JedisConnectionException e) {
+                this.closeLater(created, e);
+                throw e;
+            }
+
+            if (result instanceof JedisDataException) {
+                this.closeLater(created, (JedisDataException) result);
+                throw (JedisDataException) result;
+            }
+        }
+
+        log.info("Opened multiplexed connection to {}", this.configuration);
+
+        this.session = created;
+
+        return created;
+    }
+
+    static byte[] encode(Protocol.Command command, byte[]... arguments) {
+        int size = 1 + digits(arguments.length + 1) + 2 + bulkSize(command.raw);
+
+        for (byte[] argument : arguments) {
+            size += bulkSize(argument);
+        }
+
+        byte[] encoded = new byte[size];
+        int position = 0;
+
+        encoded[position++] = Protocol.ASTERISK_BYTE;
+        position = writeLine(encoded, position, arguments.length + 1);
+        position = writeBulk(encoded, position, command.raw);
+
+        for (byte[] argument : arguments) {
+            position = writeBulk(encoded, position, argument);
+        }
+
+        return encoded;
+    }
+
+    private static int bulkSize(byte[] value) {
+        return 1 + digits(value.length) + 2 + value.length + 2;
+    }
+
+    private static int writeBulk(byte[] target, int position, byte[] value) {
+        target[position++] = Protocol.DOLLAR_BYTE;
+        position = writeLine(target, position, value.length);
+        System.arraycopy(value, 0, target, position, value.length);
+        position += value.length;
+        target[position++] = '\r';
+        target[position++] = '\n';
+        return position;
+    }
+
+    private static int writeLine(byte[] target, int position, int value) {
+        int end = position + digits(value);
+
+        for (int x = end - 1; x >= position; x--) {
+            target[x] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+
+        target[end] = '\r';
+        target[end + 1] = '\n';
+
+        return end + 2;
+    }
+
+    private static int digits(int value) {
+        int digits = 1;
+
+        while (value >= 10) {
+            value /= 10;
+            digits++;
+        }
+
+        return digits;
+    }
+
+    private static void closeQuietly(SocketChannel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.error("Failed to close channel", e);
+            }
+        }
+    }
+
+    private static class Request {
+
+        private final byte[] command;
+        private final PendingReply reply;
+
+        private Request(byte[] command, PendingReply reply) {
+            this.command = command;
+            this.reply = reply;
+        }
+
+    }
+
+    /**
+     * The lifetime of a single socket. Everything but {@link #enqueue(byte[], PendingReply)} runs at the
+     * event loop thread.
+     */
+    class Session {
+
+        private final SocketChannel channel;
+        private final Queue<Request> outgoing = new ConcurrentLinkedQueue<Request>();
+        private final Queue<PendingReply> inflight = new ArrayDeque<PendingReply>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final ReplyParser parser = new ReplyParser();
+        private final Runnable writer = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    write();
+                } catch (Exception e) {
+                    close(e);
+                }
+            }
+        };
+        private ByteBuffer output = ByteBuffer.allocate(16 * 1024);
+        private SelectionKey key;
+        private volatile boolean closed;
+
+        Session(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        void enqueue(byte[] command, PendingReply reply) {
+            this.outgoing.add(new Request(command, reply));
+
+            if (this.closed) {
+                this.failOutgoing(new JedisConnectionException("Connection to " + configuration + " is closed"));
+            } else if (this.scheduled.compareAndSet(false, true)) {
+                loop.execute(this.writer);
+            }
+        }
+
+        void register() {
+            try {
+                this.key = this.channel.register(loop.getSelector(), SelectionKey.OP_READ, this);
+            } catch (ClosedChannelException e) {
+                this.close(e);
+            }
+        }
+
+        void write() throws IOException {
+            if (this.closed) {
+                return;
+            }
+
+            this.scheduled.set(false);
+
+            Request request;
+            int queued = 0;
+
+            while ((request = this.outgoing.poll()) != null) {
+                if (this.output.remaining() < request.command.length) {
+                    ByteBuffer grown = ByteBuffer.allocate((this.output.capacity() + request.command.length) * 2);
+                    this.output.flip();
+                    grown.put(this.output);
+                    this.output = grown;
+                }
+
+                this.output.put(request.command);
+                this.inflight.add(request.reply);
+                queued++;
+            }
+
+            this.output.flip();
+
+            if (this.output.hasRemaining()) {
+                this.channel.write(this.output);
+                commandCount += queued;
+                writeCount++;
+            }
+
+            boolean pending = this.output.hasRemaining();
+            this.output.compact();
+
+            this.key.interestOps(pending ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+        }
+
+        void read() throws IOException {
+            if (this.parser.read(this.channel) < 0) {
+                throw new EOFException("Connection closed by " + configuration);
+            }
+
+            Object reply;
+
+            while ((reply = this.parser.next()) != ReplyParser.INCOMPLETE) {
+                PendingReply pending = this.inflight.poll();
+
+                if (pending == null) {
+                    throw new IllegalStateException("Received a reply from " + configuration + " with no command waiting for it");
+                }
+
+                pending.complete(reply);
+            }
+        }
+
+        void close(Exception cause) {
+            if (this.closed) {
+                return;
+            }
+
+            this.closed = true;
+
+            log.info("Closing multiplexed connection to {} - {}", configuration, cause.getMessage());
+
+            if (this.key != null) {
+                this.key.cancel();
+            }
+
+            closeQuietly(this.channel);
+
+            JedisConnectionException error = cause instanceof JedisConnectionException ?
+                    (JedisConnectionException) cause : new JedisConnectionException(cause);
+
+            PendingReply reply;
+
+            while ((reply = this.inflight.poll()) != null) {
+                reply.fail(error);
+            }
+
+            this.failOutgoing(error);
+        }
+
+        private void failOutgoing(JedisConnectionException error) {
+            Request request;
+
+            while ((request = this.outgoing.poll()) != null) {
+                request.reply.fail(error);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,122 @@
+package com.officedrop.redis.failover.jedis;
+
+import com.officedrop.redis.failover.utils.DaemonThreadPoolFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * The single thread doing all socket IO for the {@link MultiplexedConnection}s of a
+ * {@link MultiplexedJedisClientFactory}. Other threads never touch the channels directly, they hand tasks
+ * to the loop with {@link #execute(Runnable)}.
+ */
+class MultiplexedEventLoop implements Runnable {
+
+    private static final Logger log = LoggerFactory.getLogger(MultiplexedEventLoop.class);
+
+    private final Selector selector;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<Runnable>();
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    MultiplexedEventLoop() {
+        try {
+            this.selector = Selector.open();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not open a selector", e);
+        }
+
+        this.thread = DaemonThreadPoolFactory.INSTANCE.newThread(this);
+        this.thread.setName("redis-multiplexer-" + this.thread.getId());
+        this.thread.start();
+    }
+
+    Selector getSelector() {
+        return this.selector;
+    }
+
+    boolean isRunning() {
+        return this.running;
+    }
+
+    void execute(Runnable task) {
+        this.tasks.add(task);
+        this.selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        while (this.running) {
+            try {
+                this.selector.select();
+            } catch (IOException e) {
+                log.error("Selector failed", e);
+            }
+
+            this.runTasks();
+
+            Iterator<SelectionKey> keys = this.selector.selectedKeys().iterator();
+
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+
+                MultiplexedConnection.Session session = (MultiplexedConnection.Session) key.attachment();
+
+                try {
+                    if (key.isValid() && key.isReadable()) {
+                        session.read();
+                    }
+
+                    if (key.isValid() && key.isWritable()) {
+                        session.write();
+                    }
+                } catch (Exception e) {
+                    session.close(e);
+                }
+            }
+        }
+
+        this.runTasks();
+
+        for (SelectionKey key : this.selector.keys()) {
+            ((MultiplexedConnection.Session) key.attachment()).close(new IOException("Connection closed"));
+        }
+
+        try {
+            this.selector.close();
+        } catch (IOException e) {
+            log.error("Failed to close selector", e);
+        }
+    }
+
+    private void runTasks() {
+        Runnable task;
+
+        while ((task = this.tasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (Exception e) {
+                log.error("Multiplexer task failed", e);
+            }
+        }
+    }
+
+    void close() {
+        this.running = false;
+        this.selector.wakeup();
+
+        try {
+            this.thread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
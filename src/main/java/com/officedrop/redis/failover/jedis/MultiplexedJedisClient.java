@@ -0,0 +1,27 @@
+package com.officedrop.redis.failover.jedis;
+
+/**
+ * A {@link QueuedJedisClient} that sends its commands through a {@link MultiplexedConnection}, a single
+ * non blocking socket shared with every other client for the same host.
+ */
+public class MultiplexedJedisClient extends QueuedJedisClient {
+
+    private final MultiplexedConnection connection;
+    private final MultiplexedJedisClientFactory factory;
+
+    public MultiplexedJedisClient(MultiplexedConnection connection, MultiplexedJedisClientFactory factory) {
+        super(connection);
+        this.connection = connection;
+        this.factory = factory;
+    }
+
+    public MultiplexedConnection getConnection() {
+        return this.connection;
+    }
+
+    @Override
+    protected void release() {
+        this.factory.release(this.connection);
+    }
+
+}
@@ -0,0 +1,68 @@
+package com.officedrop.redis.failover.jedis;
+
+import com.officedrop.redis.failover.HostConfiguration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Creates {@link MultiplexedJedisClient}s that share a single {@link MultiplexedConnection} per host, all
+ * of them served by one event loop thread. Used with a failover {@link com.officedrop.redis.failover.Client}
+ * it follows master and slave changes as the blocking clients do, the connection to a host is opened when
+ * the first client for it is created and closed once the last one quits.
+ */
+public class MultiplexedJedisClientFactory implements JedisClientFactory {
+
+    private final MultiplexedEventLoop loop = new MultiplexedEventLoop();
+    private final Map<HostConfiguration, MultiplexedConnection> connections =
+            new HashMap<HostConfiguration, MultiplexedConnection>();
+
+    @Override
+    public JedisClient create(HostConfiguration configuration) {
+        MultiplexedConnection connection;
+
+        synchronized (this.connections) {
+            connection = this.connections.get(configuration);
+
+            if (connection == null) {
+                connection = new MultiplexedConnection(configuration, this.loop);
+                this.connections.put(configuration, connection);
+            }
+
+            connection.acquire();
+        }
+
+        return new MultiplexedJedisClient(connection, this);
+    }
+
+    void release(MultiplexedConnection connection) {
+        synchronized (this.connections) {
+            if (connection.release() == 0) {
+                this.connections.remove(connection.getConfiguration());
+                connection.close();
+            }
+        }
+    }
+
+    public MultiplexedConnection getConnection(HostConfiguration configuration) {
+        synchronized (this.connections) {
+            return this.connections.get(configuration);
+        }
+    }
+
+    /**
+     * Closes every connection and stops the event loop.
+     */
+    public void close() {
+        synchronized (this.connections) {
+            for (MultiplexedConnection connection : this.connections.values()) {
+                connection.close();
+            }
+
+            this.connections.clear();
+        }
+
+        this.loop.close();
+    }
+
+}
@@ -31,7 +31,7 @@ public class NamespacedJedisActions implements JedisActions {
 
     }
 
-    private String namespaceKey(String key) {
+    String namespaceKey(String key) {
 
         if ( key == null ) {
             throw new NullPointerException("The parameter 'key' can not be null");
@@ -40,7 +40,7 @@ public class NamespacedJedisActions implements JedisActions {
         return String.format(this.namespaceFormat, key);
     }
 
-    private String[] arrayNamespace(String... keys) {
+    String[] arrayNamespace(String... keys) {
         String[] result = new String[keys.length];
         for (int x = 0; x < keys.length; x++) {
             result[x] = namespaceKey(keys[x]);
@@ -48,11 +48,34 @@ public class NamespacedJedisActions implements JedisActions {
         return result;
     }
 
+    String[] pairsNamespace(String... keysValues) {
+        String[] result = new String[keysValues.length];
+        for (int x = 0; x < keysValues.length; x++) {
+            result[x] = (x % 2) == 0 ? namespaceKey(keysValues[x]) : keysValues[x];
+        }
+        return result;
+    }
+
     @Override
     public Long del(final String... keys) {
         return this.actions.del( arrayNamespace(keys) );
     }
 
+    @Override
+    public List<String> mget(final String... keys) {
+        return this.actions.mget( arrayNamespace(keys) );
+    }
+
+    @Override
+    public String mset(final String... keysvalues) {
+        return this.actions.mset( pairsNamespace(keysvalues) );
+    }
+
+    @Override
+    public PipelineActions pipeline() {
+        return new NamespacedPipelineActions(this, this.actions.pipeline());
+    }
+
     @Override
     public String quit() {
         return this.actions.quit();
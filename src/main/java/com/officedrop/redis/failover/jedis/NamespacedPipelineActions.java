@@ -0,0 +1,312 @@
+package com.officedrop.redis.failover.jedis;
+
+import redis.clients.jedis.Tuple;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Prefixes all keys queued at a pipeline with the namespace of the {@link NamespacedJedisActions}
+ * that created it.
+ */
+public class NamespacedPipelineActions implements PipelineActions {
+
+    private final NamespacedJedisActions namespaces;
+    private final PipelineActions pipeline;
+
+    public NamespacedPipelineActions(NamespacedJedisActions namespaces, PipelineActions pipeline) {
+        this.namespaces = namespaces;
+        this.pipeline = pipeline;
+    }
+
+    @Override
+    public void sync() {
+        this.pipeline.sync();
+    }
+
+    @Override
+    public PipelineResponse<String> get(final String key) {
+        return this.pipeline.get(this.namespaces.namespaceKey(key));
+    }
+
+    @Override
+    public PipelineResponse<String> set(final String key, final String value) {
+        return this.pipeline.set(this.namespaces.namespaceKey(key), value);
+    }
+
+    @Override
+    public PipelineResponse<String> setex(final String key, final int seconds, final String value) {
+        return this.pipeline.setex(this.namespaces.namespaceKey(key), seconds, value);
+    }
+
+    @Override
+    public PipelineResponse<Long> setnx(final String key, final String value) {
+        return this.pipeline.setnx(this.namespaces.namespaceKey(key), value);
+    }
+
+    @Override
+    public PipelineResponse<String> getSet(final String key, final String value) {
+        return this.pipeline.getSet(this.namespaces.namespaceKey(key), value);
+    }
+
+    @Override
+    public PipelineResponse<Long> append(final String key, final String value) {
+        return this.pipeline.append(this.namespaces.namespaceKey(key), value);
+    }
+
+    @Override
+    public PipelineResponse<Long> incr(final String key) {
+        return this.pipeline.incr(this.namespaces.namespaceKey(key));
+    }
+
+    @Override
+    public PipelineResponse<Long> incrBy(final String key, final long integer) {
+        return this.pipeline.incrBy(this.namespaces.namespaceKey(key), integer);
+    }
+
+    @Override
+    public PipelineResponse<Long> decr(final String key) {
+        return this.pipeline.decr(this.namespaces.namespaceKey(key));
+    }
+
+    @Override
+    public PipelineResponse<Long> decrBy(final String key, final long integer) {
+        return this.pipeline.decrBy(this.namespaces.namespaceKey(key), integer);
+    }
+
+    @Override
+    public PipelineResponse<Boolean> exists(final String key) {
+        return this.pipeline.exists(this.namespaces.namespaceKey(key));
+    }
+
+    @Override
+    public PipelineResponse<Long> del(final String... keys) {
+        return this.pipeline.del(this.namespaces.arrayNamespace(keys));
+    }
+
+    @Override
+    public PipelineResponse<Long> expire(final String key, final int seconds) {
+        return this.pipeline.expire(this.namespaces.namespaceKey(key), seconds);
+    }
+
+    @Override
+    public PipelineResponse<Long> expireAt(final String key, final long unixTime) {
+        return this.pipeline.expireAt(this.namespaces.namespaceKey(key), unixTime);
+    }
+
+    @Override
+    public PipelineResponse<Long> ttl(final String key) {
+        return this.pipeline.ttl(this.namespaces.namespaceKey(key));
+    }
+
+    @Override
+    public PipelineResponse<String> type(final String key) {
+        return this.pipeline.type(this.namespaces.namespaceKey(key));
+    }
+
+    @Override
+    public PipelineResponse<List<String>> mget(final String... keys) {
+        return this.pipeline.mget(this.namespaces.arrayNamespace(keys));
+    }
+
+    @Override
+    public PipelineResponse<String> mset(final String... keysvalues) {
+        return this.pipeline.mset(this.namespaces.pairsNamespace(keysvalues));
+    }
+
+    @Override
+    public PipelineResponse<String> hget(final String key, final String field) {
+        return this.pipeline.hget(this.namespaces.namespaceKey(key), field);
+    }
+
+    @Override
+    public PipelineResponse<Long> hset(final String key, final String field, final String value) {
+        return this.pipeline.hset(this.namespaces.namespaceKey(key), field, value);
+    }
+
+    @Override
+    public PipelineResponse<Long> hsetnx(final String key, final String field, final String value) {
+        return this.pipeline.hsetnx(this.namespaces.namespaceKey(key), field, value);
+    }
+
+    @Override
+    public PipelineResponse<String> hmset(final String key, final Map<String, String> hash) {
+        return this.pipeline.hmset(this.namespaces.namespaceKey(key), hash);
+    }
+
+    @Override
+    public PipelineResponse<List<String>> hmget(final String key, final String... fields) {
+        return this.pipeline.hmget(this.namespaces.namespaceKey(key), fields);
+    }
+
+    @Override
+    public PipelineResponse<Map<String, String>> hgetAll(final String key) {
+        return this.pipeline.hgetAll(this.namespaces.namespaceKey(key));
+    }
+
+    @Override
+    public PipelineResponse<Long> hdel(final String key, final String field) {
+        return this.pipeline.hdel(this.namespaces.namespaceKey(key), field);
+    }
+
+    @Override
+    public PipelineResponse<Long> hincrBy(final String key, final String field, final long value) {
+        return this.pipeline.hincrBy(this.namespaces.namespaceKey(key), field, value);
+    }
+
+    @Override
+    public PipelineResponse<Boolean> hexists(final String key, final String field) {
+        return this.pipeline.hexists(this.namespaces.namespaceKey(key), field);
+    }
+
+    @Override
+    public PipelineResponse<Long> hlen(final String key) {
+        return this.pipeline.hlen(this.namespaces.namespaceKey(key));
+    }
+
+    @Override
+    public PipelineResponse<Set<String>> hkeys(final String key) {
+        return this.pipeline.hkeys(this.namespaces.namespaceKey(key));
+    }
+
+    @Override
+    public PipelineResponse<List<String>> hvals(final String key) {
+        return this.pipeline.hvals(this.namespaces.namespaceKey(key));
+    }
+
+    @Override
+    public PipelineResponse<Long> lpush(final String key, final String string) {
+        return this.pipeline.lpush(this.namespaces.namespaceKey(key), string);
+    }
+
+    @Override
+    public PipelineResponse<Long> rpush(final String key, final String string) {
+        return this.pipeline.rpush(this.namespaces.namespaceKey(key), string);
+    }
+
+    @Override
+    public PipelineResponse<String> lpop(final String key) {
+        return this.pipeline.lpop(this.namespaces.namespaceKey(key));
+    }
+
+    @Override
+    public PipelineResponse<String> rpop(final String key) {
+        return this.pipeline.rpop(this.namespaces.namespaceKey(key));
+    }
+
+    @Override
+    public PipelineResponse<Long> llen(final String key) {
+        return this.pipeline.llen(this.namespaces.namespaceKey(key));
+    }
+
+    @Override
+    public PipelineResponse<List<String>> lrange(final String key, final long start, final long end) {
+        return this.pipeline.lrange(this.namespaces.namespaceKey(key), start, end);
+    }
+
+    @Override
+    public PipelineResponse<String> lindex(final String key, final int index) {
+        return this.pipeline.lindex(this.namespaces.namespaceKey(key), index);
+    }
+
+    @Override
+    public PipelineResponse<String> ltrim(final String key, final long start, final long end) {
+        return this.pipeline.ltrim(this.namespaces.namespaceKey(key), start, end);
+    }
+
+    @Override
+    public PipelineResponse<Long> lrem(final String key, final long count, final String value) {
+        return this.pipeline.lrem(this.namespaces.namespaceKey(key), count, value);
+    }
+
+    @Override
+    public PipelineResponse<Long> sadd(final String key, final String member) {
+        return this.pipeline.sadd(this.namespaces.namespaceKey(key), member);
+    }
+
+    @Override
+    public PipelineResponse<Long> srem(final String key, final String member) {
+        return this.pipeline.srem(this.namespaces.namespaceKey(key), member);
+    }
+
+    @Override
+    public PipelineResponse<Set<String>> smembers(final String key) {
+        return this.pipeline.smembers(this.namespaces.namespaceKey(key));
+    }
+
+    @Override
+    public PipelineResponse<Boolean> sismember(final String key, final String member) {
+        return this.pipeline.sismember(this.namespaces.namespaceKey(key), member);
+    }
+
+    @Override
+    public PipelineResponse<Long> scard(final String key) {
+        return this.pipeline.scard(this.namespaces.namespaceKey(key));
+    }
+
+    @Override
+    public PipelineResponse<Long> zadd(final String key, final double score, final String member) {
+        return this.pipeline.zadd(this.namespaces.namespaceKey(key), score, member);
+    }
+
+    @Override
+    public PipelineResponse<Long> zrem(final String key, final String member) {
+        return this.pipeline.zrem(this.namespaces.namespaceKey(key), member);
+    }
+
+    @Override
+    public PipelineResponse<Double> zincrby(final String key, final double score, final String member) {
+        return this.pipeline.zincrby(this.namespaces.namespaceKey(key), score, member);
+    }
+
+    @Override
+    public PipelineResponse<Double> zscore(final String key, final String member) {
+        return this.pipeline.zscore(this.namespaces.namespaceKey(key), member);
+    }
+
+    @Override
+    public PipelineResponse<Long> zcard(final String key) {
+        return this.pipeline.zcard(this.namespaces.namespaceKey(key));
+    }
+
+    @Override
+    public PipelineResponse<Long> zrank(final String key, final String member) {
+        return this.pipeline.zrank(this.namespaces.namespaceKey(key), member);
+    }
+
+    @Override
+    public PipelineResponse<Long> zrevrank(final String key, final String member) {
+        return this.pipeline.zrevrank(this.namespaces.namespaceKey(key), member);
+    }
+
+    @Override
+    public PipelineResponse<Set<String>> zrange(final String key, final int start, final int end) {
+        return this.pipeline.zrange(this.namespaces.namespaceKey(key), start, end);
+    }
+
+    @Override
+    public PipelineResponse<Set<String>> zrevrange(final String key, final int start, final int end) {
+        return this.pipeline.zrevrange(this.namespaces.namespaceKey(key), start, end);
+    }
+
+    @Override
+    public PipelineResponse<Set<Tuple>> zrangeWithScores(final String key, final int start, final int end) {
+        return this.pipeline.zrangeWithScores(this.namespaces.namespaceKey(key), start, end);
+    }
+
+    @Override
+    public PipelineResponse<Set<String>> zrangeByScore(final String key, final double min, final double max) {
+        return this.pipeline.zrangeByScore(this.namespaces.namespaceKey(key), min, max);
+    }
+
+    @Override
+    public PipelineResponse<Long> zcount(final String key, final double min, final double max) {
+        return this.pipeline.zcount(this.namespaces.namespaceKey(key), min, max);
+    }
+
+    @Override
+    public PipelineResponse<Long> zremrangeByScore(final String key, final double start, final double end) {
+        return this.pipeline.zremrangeByScore(this.namespaces.namespaceKey(key), start, end);
+    }
+}
@@ -0,0 +1,59 @@
+package com.officedrop.redis.failover.jedis;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The reply to a single command sent through a {@link CommandQueue}. It's completed by the thread doing
+ * the IO and waited on by the caller that sent the command.
+ */
+class PendingReply {
+
+    private final MultiplexedConnection.Session session;
+    private final CountDownLatch done = new CountDownLatch(1);
+    private volatile Object value;
+    private volatile RuntimeException error;
+
+    PendingReply() {
+        this(null);
+    }
+
+    PendingReply(MultiplexedConnection.Session session) {
+        this.session = session;
+    }
+
+    MultiplexedConnection.Session getSession() {
+        return this.session;
+    }
+
+    void complete(Object value) {
+        this.value = value;
+        this.done.countDown();
+    }
+
+    void fail(RuntimeException error) {
+        this.error = error;
+        this.done.countDown();
+    }
+
+    /**
+     * Waits for the reply, returns false if it didn't arrive in time.
+     */
+    boolean await(long timeoutMillis) {
+        try {
+            return this.done.await(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    Object get() {
+        if (this.error != null) {
+            throw this.error;
+        }
+
+        return this.value;
+    }
+
+}
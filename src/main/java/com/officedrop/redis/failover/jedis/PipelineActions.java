@@ -0,0 +1,131 @@
+package com.officedrop.redis.failover.jedis;
+
+import redis.clients.jedis.Tuple;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Queues commands to be sent to Redis in a single round trip. Responses are only available once
+ * {@link #sync()} has been called, either directly or by {@link JedisPool#withPipeline(PipelineFunction)}.
+ */
+public interface PipelineActions {
+
+    public PipelineResponse<String> get(final String key);
+
+    public PipelineResponse<String> set(final String key, final String value);
+
+    public PipelineResponse<String> setex(final String key, final int seconds, final String value);
+
+    public PipelineResponse<Long> setnx(final String key, final String value);
+
+    public PipelineResponse<String> getSet(final String key, final String value);
+
+    public PipelineResponse<Long> append(final String key, final String value);
+
+    public PipelineResponse<Long> incr(final String key);
+
+    public PipelineResponse<Long> incrBy(final String key, final long integer);
+
+    public PipelineResponse<Long> decr(final String key);
+
+    public PipelineResponse<Long> decrBy(final String key, final long integer);
+
+    public PipelineResponse<Boolean> exists(final String key);
+
+    public PipelineResponse<Long> del(final String... keys);
+
+    public PipelineResponse<Long> expire(final String key, final int seconds);
+
+    public PipelineResponse<Long> expireAt(final String key, final long unixTime);
+
+    public PipelineResponse<Long> ttl(final String key);
+
+    public PipelineResponse<String> type(final String key);
+
+    public PipelineResponse<List<String>> mget(final String... keys);
+
+    public PipelineResponse<String> mset(final String... keysvalues);
+
+    public PipelineResponse<String> hget(final String key, final String field);
+
+    public PipelineResponse<Long> hset(final String key, final String field, final String value);
+
+    public PipelineResponse<Long> hsetnx(final String key, final String field, final String value);
+
+    public PipelineResponse<String> hmset(final String key, final Map<String, String> hash);
+
+    public PipelineResponse<List<String>> hmget(final String key, final String... fields);
+
+    public PipelineResponse<Map<String, String>> hgetAll(final String key);
+
+    public PipelineResponse<Long> hdel(final String key, final String field);
+
+    public PipelineResponse<Long> hincrBy(final String key, final String field, final long value);
+
+    public PipelineResponse<Boolean> hexists(final String key, final String field);
+
+    public PipelineResponse<Long> hlen(final String key);
+
+    public PipelineResponse<Set<String>> hkeys(final String key);
+
+    public PipelineResponse<List<String>> hvals(final String key);
+
+    public PipelineResponse<Long> lpush(final String key, final String string);
+
+    public PipelineResponse<Long> rpush(final String key, final String string);
+
+    public PipelineResponse<String> lpop(final String key);
+
+    public PipelineResponse<String> rpop(final String key);
+
+    public PipelineResponse<Long> llen(final String key);
+
+    public PipelineResponse<List<String>> lrange(final String key, final long start, final long end);
+
+    public PipelineResponse<String> lindex(final String key, final int index);
+
+    public PipelineResponse<String> ltrim(final String key, final long start, final long end);
+
+    public PipelineResponse<Long> lrem(final String key, final long count, final String value);
+
+    public PipelineResponse<Long> sadd(final String key, final String member);
+
+    public PipelineResponse<Long> srem(final String key, final String member);
+
+    public PipelineResponse<Set<String>> smembers(final String key);
+
+    public PipelineResponse<Boolean> sismember(final String key, final String member);
+
+    public PipelineResponse<Long> scard(final String key);
+
+    public PipelineResponse<Long> zadd(final String key, final double score, final String member);
+
+    public PipelineResponse<Long> zrem(final String key, final String member);
+
+    public PipelineResponse<Double> zincrby(final String key, final double score, final String member);
+
+    public PipelineResponse<Double> zscore(final String key, final String member);
+
+    public PipelineResponse<Long> zcard(final String key);
+
+    public PipelineResponse<Long> zrank(final String key, final String member);
+
+    public PipelineResponse<Long> zrevrank(final String key, final String member);
+
+    public PipelineResponse<Set<String>> zrange(final String key, final int start, final int end);
+
+    public PipelineResponse<Set<String>> zrevrange(final String key, final int start, final int end);
+
+    public PipelineResponse<Set<Tuple>> zrangeWithScores(final String key, final int start, final int end);
+
+    public PipelineResponse<Set<String>> zrangeByScore(final String key, final double min, final double max);
+
+    public PipelineResponse<Long> zcount(final String key, final double min, final double max);
+
+    public PipelineResponse<Long> zremrangeByScore(final String key, final double start, final double end);
+
+    public void sync();
+
+}
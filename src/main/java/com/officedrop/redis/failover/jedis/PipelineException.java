@@ -0,0 +1,19 @@
+package com.officedrop.redis.failover.jedis;
+
+/**
+ * Raised when a pipeline could not be flushed, all responses that were not filled yet are failed
+ * with this same exception.
+ */
+public class PipelineException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public PipelineException(final String message) {
+        super(message);
+    }
+
+    public PipelineException(final String message, final Throwable cause) {
+        super(message, cause);
+    }
+
+}
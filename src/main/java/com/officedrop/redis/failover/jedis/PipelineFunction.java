@@ -0,0 +1,10 @@
+package com.officedrop.redis.failover.jedis;
+
+/**
+ * Queues commands at a pipeline, see {@link JedisPool#withPipeline(PipelineFunction)}.
+ */
+public interface PipelineFunction {
+
+    public void execute( PipelineActions pipeline ) throws Exception;
+
+}
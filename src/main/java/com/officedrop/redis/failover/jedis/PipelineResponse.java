@@ -0,0 +1,43 @@
+package com.officedrop.redis.failover.jedis;
+
+/**
+ * The typed result of a command queued at a {@link PipelineActions}. It's only filled once the
+ * pipeline is synced, calling {@link #get()} before that raises an {@link IllegalStateException}.
+ */
+public class PipelineResponse<T> {
+
+    private volatile boolean done;
+    private T value;
+    private RuntimeException error;
+
+    public T get() {
+        if (!this.done) {
+            throw new IllegalStateException("The pipeline has not been synced yet");
+        }
+
+        if (this.error != null) {
+            throw this.error;
+        }
+
+        return this.value;
+    }
+
+    public boolean isDone() {
+        return this.done;
+    }
+
+    public boolean isFailed() {
+        return this.done && this.error != null;
+    }
+
+    void complete(T value) {
+        this.value = value;
+        this.done = true;
+    }
+
+    void fail(RuntimeException error) {
+        this.error = error;
+        this.done = true;
+    }
+
+}
@@ -0,0 +1,53 @@
+package com.officedrop.redis.failover.jedis;
+
+import com.officedrop.redis.failover.utils.DaemonThreadPoolFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Creates pooled objects in parallel, so warming up a pool with many objects takes about as long as
+ * opening a single connection.
+ */
+class PoolWarmUp {
+
+    private static final Logger log = LoggerFactory.getLogger(PoolWarmUp.class);
+
+    public static final int MAX_THREADS = 16;
+
+    private PoolWarmUp() {
+    }
+
+    /**
+     * Runs the task count times using up to {@link #MAX_THREADS} threads and waits for all of them to finish,
+     * failures are logged and don't stop the other tasks.
+     */
+    static void run( int count, Runnable task ) {
+        if ( count <= 0 ) {
+            return;
+        }
+
+        ExecutorService executor = DaemonThreadPoolFactory.newFixedPool(Math.min(count, MAX_THREADS));
+
+        try {
+            Future<?>[] futures = new Future<?>[count];
+
+            for ( int x = 0; x < count; x++ ) {
+                futures[x] = executor.submit(task);
+            }
+
+            for ( Future<?> future : futures ) {
+                try {
+                    future.get();
+                } catch ( Exception e ) {
+                    log.error("Failed to warm up pooled object", e);
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+}
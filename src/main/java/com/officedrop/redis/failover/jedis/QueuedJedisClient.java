@@ -0,0 +1,299 @@
+package com.officedrop.redis.failover.jedis;
+
+import redis.clients.jedis.BinaryJedisPubSub;
+import redis.clients.jedis.Client;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisMonitor;
+import redis.clients.jedis.JedisPubSub;
+import redis.clients.jedis.Protocol;
+import redis.clients.jedis.Transaction;
+import redis.clients.jedis.TransactionBlock;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.util.SafeEncoder;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * A jedis client that hands its commands to a {@link CommandQueue} shared with other clients instead of
+ * owning a socket. Creating one is cheap, so a pool can keep one per concurrent caller while all of them
+ * share a single connection to the host.
+ *
+ * Like any jedis client it must be used by one thread at a time. Commands that would hold the shared
+ * connection or change its state for everyone else, as blocking pops, transactions, pub/sub and select,
+ * are not supported.
+ */
+public abstract class QueuedJedisClient extends Jedis implements JedisClient {
+
+    private boolean closed;
+
+    QueuedJedisClient(CommandQueue queue) {
+        super(queue.getConfiguration().getHost(), queue.getConfiguration().getPort());
+        this.client = new Commands(queue);
+    }
+
+    /**
+     * Called once when the client quits, the shared connection itself should only be closed once no client
+     * is using it.
+     */
+    protected abstract void release();
+
+    @Override
+    public PipelineActions pipeline() {
+        return new RoutedPipeline(this);
+    }
+
+    @Override
+    public String quit() {
+        if (!this.closed) {
+            this.closed = true;
+            this.release();
+        }
+
+        return "OK";
+    }
+
+    @Override
+    public void disconnect() {
+        this.quit();
+    }
+
+    @Override
+    public boolean isConnected() {
+        return !this.closed && this.client.isConnected();
+    }
+
+    @Override
+    public String select(int index) {
+        throw unsupported("select, the database is set by the host configuration");
+    }
+
+    @Override
+    public Transaction multi() {
+        throw unsupported("multi");
+    }
+
+    @Override
+    public List<Object> multi(TransactionBlock jedisTransaction) {
+        throw unsupported("multi");
+    }
+
+    @Override
+    public String watch(String... keys) {
+        throw unsupported("watch");
+    }
+
+    @Override
+    public String watch(byte[]... keys) {
+        throw unsupported("watch");
+    }
+
+    @Override
+    public String unwatch() {
+        throw unsupported("unwatch");
+    }
+
+    @Override
+    public List<String> blpop(int timeout, String... keys) {
+        throw unsupported("blpop");
+    }
+
+    @Override
+    public List<byte[]> blpop(int timeout, byte[]... keys) {
+        throw unsupported("blpop");
+    }
+
+    @Override
+    public List<String> brpop(int timeout, String... keys) {
+        throw unsupported("brpop");
+    }
+
+    @Override
+    public List<byte[]> brpop(int timeout, byte[]... keys) {
+        throw unsupported("brpop");
+    }
+
+    @Override
+    public String brpoplpush(String source, String destination, int timeout) {
+        throw unsupported("brpoplpush");
+    }
+
+    @Override
+    public byte[] brpoplpush(byte[] source, byte[] destination, int timeout) {
+        throw unsupported("brpoplpush");
+    }
+
+    @Override
+    public void subscribe(JedisPubSub jedisPubSub, String... channels) {
+        throw unsupported("subscribe");
+    }
+
+    @Override
+    public void psubscribe(JedisPubSub jedisPubSub, String... patterns) {
+        throw unsupported("psubscribe");
+    }
+
+    @Override
+    public void subscribe(BinaryJedisPubSub jedisPubSub, byte[]... channels) {
+        throw unsupported("subscribe");
+    }
+
+    @Override
+    public void psubscribe(BinaryJedisPubSub jedisPubSub, byte[]... patterns) {
+        throw unsupported("psubscribe");
+    }
+
+    @Override
+    public void monitor(JedisMonitor jedisMonitor) {
+        throw unsupported("monitor");
+    }
+
+    private static UnsupportedOperationException unsupported(String command) {
+        return new UnsupportedOperationException("Shared connections can't run " + command);
+    }
+
+    /**
+     * Replaces the socket of the jedis client with the shared queue. Commands are queued as soon as they
+     * are issued and their replies are taken in order as jedis asks for them.
+     */
+    private static class Commands extends Client {
+
+        private final CommandQueue connection;
+        private final Queue<PendingReply> pending = new ArrayDeque<PendingReply>();
+
+        private Commands(CommandQueue connection) {
+            super(connection.getConfiguration().getHost(), connection.getConfiguration().getPort());
+            this.connection = connection;
+        }
+
+        @Override
+        protected Commands sendCommand(Protocol.Command cmd, byte[]... args) {
+            this.pending.add(this.connection.send(cmd, args));
+            return this;
+        }
+
+        @Override
+        protected Commands sendCommand(Protocol.Command cmd) {
+            return this.sendCommand(cmd, new byte[0][]);
+        }
+
+        @Override
+        public void connect() {
+        }
+
+        @Override
+        public void disconnect() {
+        }
+
+        @Override
+        public boolean isConnected() {
+            return this.connection.isConnected();
+        }
+
+        @Override
+        protected void flush() {
+        }
+
+        @Override
+        protected String getStatusCodeReply() {
+            byte[] reply = (byte[]) this.next();
+            return reply == null ? null : SafeEncoder.encode(reply);
+        }
+
+        @Override
+        public String getBulkReply() {
+            byte[] reply = this.getBinaryBulkReply();
+            return reply == null ? null : SafeEncoder.encode(reply);
+        }
+
+        @Override
+        public byte[] getBinaryBulkReply() {
+            return (byte[]) this.next();
+        }
+
+        @Override
+        public Long getIntegerReply() {
+            return (Long) this.next();
+        }
+
+        @Override
+        public List<String> getMultiBulkReply() {
+            List<byte[]> reply = this.getBinaryMultiBulkReply();
+
+            if (reply == null) {
+                return null;
+            }
+
+            List<String> values = new ArrayList<String>(reply.size());
+
+            for (byte[] value : reply) {
+                values.add(value == null ? null : SafeEncoder.encode(value));
+            }
+
+            return values;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public List<byte[]> getBinaryMultiBulkReply() {
+            return (List<byte[]>) this.next();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public List<Object> getObjectMultiBulkReply() {
+            return (List<Object>) this.next();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public List<Long> getIntegerMultiBulkReply() {
+            return (List<Long>) this.next();
+        }
+
+        @Override
+        public List<Object> getAll() {
+            return this.getAll(0);
+        }
+
+        @Override
+        public List<Object> getAll(int except) {
+            List<Object> all = new ArrayList<Object>();
+
+            while (this.pending.size() > except) {
+                try {
+                    all.add(this.next());
+                } catch (JedisDataException e) {
+                    all.add(e);
+                }
+            }
+
+            return all;
+        }
+
+        @Override
+        public Object getOne() {
+            return this.next();
+        }
+
+        private Object next() {
+            PendingReply reply = this.pending.poll();
+
+            if (reply == null) {
+                throw new JedisDataException("There is no command waiting for a reply");
+            }
+
+            Object value = this.connection.await(reply);
+
+            if (value instanceof JedisDataException) {
+                throw (JedisDataException) value;
+            }
+
+            return value;
+        }
+
+    }
+
+}
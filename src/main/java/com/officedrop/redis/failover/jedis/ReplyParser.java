@@ -0,0 +1,193 @@
+package com.officedrop.redis.failover.jedis;
+
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.util.SafeEncoder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Incremental parser for the replies read by a {@link MultiplexedConnection}. Bytes are appended as they
+ * arrive and {@link #next()} returns a reply once all of it is available, so a reply split across many reads
+ * is only parsed when it's complete.
+ *
+ * Replies are returned as {@link redis.clients.jedis.Protocol#read} would return them, status and bulk
+ * replies as byte arrays, integers as longs and multi bulk replies as lists. Error replies are returned,
+ * not thrown, as {@link JedisDataException} objects so they can be handed to the caller that's waiting.
+ */
+class ReplyParser {
+
+    static final Object INCOMPLETE = new Object();
+
+    private byte[] buffer;
+    private int start;
+    private int end;
+    private int position;
+
+    ReplyParser() {
+        this(16 * 1024);
+    }
+
+    ReplyParser(int initialSize) {
+        this.buffer = new byte[initialSize];
+    }
+
+    /**
+     * Reads whatever is available at the channel, returns the number of bytes read or -1 at the end of the stream.
+     */
+    int read(ReadableByteChannel channel) throws IOException {
+        this.makeRoom();
+
+        int read = channel.read(ByteBuffer.wrap(this.buffer, this.end, this.buffer.length - this.end));
+
+        if (read > 0) {
+            this.end += read;
+        }
+
+        return read;
+    }
+
+    void append(byte[] bytes) {
+        this.makeRoom();
+
+        while (this.buffer.length - this.end < bytes.length) {
+            this.grow();
+        }
+
+        System.arraycopy(bytes, 0, this.buffer, this.end, bytes.length);
+        this.end += bytes.length;
+    }
+
+    /**
+     * The next complete reply or {@link #INCOMPLETE} if more bytes are needed.
+     */
+    Object next() {
+        this.position = this.start;
+        Object reply = this.parse();
+
+        if (reply != INCOMPLETE) {
+            this.start = this.position;
+        }
+
+        return reply;
+    }
+
+    private void makeRoom() {
+        if (this.start == this.end) {
+            this.start = 0;
+            this.end = 0;
+        } else if (this.start > 0 && this.end == this.buffer.length) {
+            System.arraycopy(this.buffer, this.start, this.buffer, 0, this.end - this.start);
+            this.end -= this.start;
+            this.start = 0;
+        }
+
+        if (this.end == this.buffer.length) {
+            this.grow();
+        }
+    }
+
+    private void grow() {
+        byte[] grown = new byte[this.buffer.length * 2];
+        System.arraycopy(this.buffer, 0, grown, 0, this.end);
+        this.buffer = grown;
+    }
+
+    private Object parse() {
+        if (this.position >= this.end) {
+            return INCOMPLETE;
+        }
+
+        byte type = this.buffer[this.position++];
+        int lineEnd = this.lineEnd();
+
+        if (lineEnd < 0) {
+            return INCOMPLETE;
+        }
+
+        int lineStart = this.position;
+        this.position = lineEnd + 2;
+
+        switch (type) {
+            case '+':
+                return this.copy(lineStart, lineEnd);
+            case '-':
+                return new JedisDataException(SafeEncoder.encode(this.copy(lineStart, lineEnd)));
+            case ':':
+                return this.parseLong(lineStart, lineEnd);
+            case '$':
+                return this.parseBulk((int) this.parseLong(lineStart, lineEnd));
+            case '*':
+                return this.parseMultiBulk((int) this.parseLong(lineStart, lineEnd));
+            default:
+                throw new JedisConnectionException("Unknown reply: " + (char) type);
+        }
+    }
+
+    private Object parseBulk(int length) {
+        if (length < 0) {
+            return null;
+        }
+
+        if (this.end - this.position < length + 2) {
+            return INCOMPLETE;
+        }
+
+        byte[] value = this.copy(this.position, this.position + length);
+        this.position += length + 2;
+
+        return value;
+    }
+
+    private Object parseMultiBulk(int count) {
+        if (count < 0) {
+            return null;
+        }
+
+        List<Object> items = new ArrayList<Object>(count);
+
+        for (int x = 0; x < count; x++) {
+            Object item = this.parse();
+
+            if (item == INCOMPLETE) {
+                return INCOMPLETE;
+            }
+
+            items.add(item);
+        }
+
+        return items;
+    }
+
+    private int lineEnd() {
+        for (int x = this.position; x < this.end - 1; x++) {
+            if (this.buffer[x] == '\r' && this.buffer[x + 1] == '\n') {
+                return x;
+            }
+        }
+
+        return -1;
+    }
+
+    private long parseLong(int from, int to) {
+        boolean negative = this.buffer[from] == '-';
+        long value = 0;
+
+        for (int x = negative ? from + 1 : from; x < to; x++) {
+            value = value * 10 + (this.buffer[x] - '0');
+        }
+
+        return negative ? -value : value;
+    }
+
+    private byte[] copy(int from, int to) {
+        byte[] value = new byte[to - from];
+        System.arraycopy(this.buffer, from, value, 0, value.length);
+        return value;
+    }
+
+}
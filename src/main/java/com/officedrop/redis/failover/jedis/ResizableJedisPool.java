@@ -0,0 +1,24 @@
+package com.officedrop.redis.failover.jedis;
+
+/**
+ * A {@link JedisPool} whose idle objects can be created up front and whose idle limits can change while
+ * it's running, used by {@link JedisPoolBuilder} to warm pools up and by {@link AdaptivePoolSizing}.
+ */
+public interface ResizableJedisPool extends JedisPool {
+
+    /**
+     * Creates the given number of objects in parallel and adds them to the pool as idle.
+     */
+    public void warmUp( int count );
+
+    public void setMinIdle( int minIdle );
+
+    public void setMaxIdle( int maxIdle );
+
+    public void setAdaptiveSizing( AdaptivePoolSizing sizing );
+
+    public int getActiveCount();
+
+    public int getIdleCount();
+
+}
@@ -0,0 +1,760 @@
+package com.officedrop.redis.failover.jedis;
+
+import com.officedrop.redis.failover.ClientType;
+import com.officedrop.redis.failover.utils.Function;
+import com.officedrop.redis.failover.utils.Function1;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.Tuple;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A pipeline that splits queued commands by {@link ClientType}. On {@link #sync()} all writes are flushed
+ * to the master as a single Jedis pipeline and all reads are flushed to a single slave as another one, the
+ * {@link ClientRouter} decides which connections are used. If the topology changes before the pipeline is
+ * flushed, the remaining commands are failed with a {@link PipelineException} instead of being sent to a
+ * server that is no longer the right one.
+ */
+public class RoutedPipeline implements PipelineActions {
+
+    private static final Function<Boolean> ALWAYS_VALID = new Function<Boolean>() {
+        @Override
+        public Boolean apply() {
+            return Boolean.TRUE;
+        }
+    };
+
+    private final ClientRouter router;
+    private final Function<Boolean> topologyValid;
+    private final List<QueuedCommand<?>> masterCommands = new ArrayList<QueuedCommand<?>>();
+    private final List<QueuedCommand<?>> slaveCommands = new ArrayList<QueuedCommand<?>>();
+    private final List<String> masterKeys = new ArrayList<String>();
+    private final List<String> slaveKeys = new ArrayList<String>();
+
+    public RoutedPipeline(final JedisClient client) {
+        this(new ClientRouter() {
+            @Override
+            public <R> R doAction(final ClientType type, final ClientFunction<R> function) {
+                return function.apply(client);
+            }
+
+            @Override
+            public <R> R doAction(final ClientType type, final String[] keys, final ClientFunction<R> function) {
+                return function.apply(client);
+            }
+        }, ALWAYS_VALID);
+    }
+
+    public RoutedPipeline(ClientRouter router, Function<Boolean> topologyValid) {
+        this.router = router;
+        this.topologyValid = topologyValid;
+    }
+
+    private <T> PipelineResponse<T> queue(ClientType type, String key, Function1<Pipeline, Response<T>> command) {
+        (type == ClientType.SLAVE ? this.slaveKeys : this.masterKeys).add(key);
+        return this.queue(type, command);
+    }
+
+    private <T> PipelineResponse<T> queue(ClientType type, String[] keys, Function1<Pipeline, Response<T>> command) {
+        Collections.addAll(type == ClientType.SLAVE ? this.slaveKeys : this.masterKeys, keys);
+        return this.queue(type, command);
+    }
+
+    private <T> PipelineResponse<T> queue(ClientType type, Function1<Pipeline, Response<T>> command) {
+        QueuedCommand<T> queued = new QueuedCommand<T>(command);
+
+        if (type == ClientType.SLAVE) {
+            this.slaveCommands.add(queued);
+        } else {
+            this.masterCommands.add(queued);
+        }
+
+        return queued.response;
+    }
+
+    private static String[] keys(String[] keysValues) {
+        String[] keys = new String[(keysValues.length + 1) / 2];
+
+        for (int x = 0; x < keys.length; x++) {
+            keys[x] = keysValues[x * 2];
+        }
+
+        return keys;
+    }
+
+    @Override
+    public void sync() {
+        List<QueuedCommand<?>> writes = new ArrayList<QueuedCommand<?>>(this.masterCommands);
+        List<QueuedCommand<?>> reads = new ArrayList<QueuedCommand<?>>(this.slaveCommands);
+        String[] writtenKeys = this.masterKeys.toArray(new String[this.masterKeys.size()]);
+        String[] readKeys = this.slaveKeys.toArray(new String[this.slaveKeys.size()]);
+
+        this.masterCommands.clear();
+        this.slaveCommands.clear();
+        this.masterKeys.clear();
+        this.slaveKeys.clear();
+
+        try {
+            this.flush(ClientType.MASTER, writtenKeys, writes);
+            this.flush(ClientType.SLAVE, readKeys, reads);
+        } catch (RuntimeException e) {
+            PipelineException exception = e instanceof PipelineException ?
+                    (PipelineException) e : new PipelineException("Failed to flush pipeline", e);
+
+            failPending(writes, exception);
+            failPending(reads, exception);
+
+            throw exception;
+        }
+    }
+
+    /**
+     * The raw pipeline of the host connection the router handed out, the connections are plain Jedis
+     * clients even though the router only knows them as {@link JedisClient}s.
+     */
+    private static Pipeline pipelined(JedisClient client) {
+        if (!(client instanceof Jedis)) {
+            throw new PipelineException(String.format("%s can't be pipelined", client.getClass().getName()));
+        }
+
+        return ((Jedis) client).pipelined();
+    }
+
+    private void flush(ClientType type, String[] keys, final List<QueuedCommand<?>> commands) {
+        if (commands.isEmpty()) {
+            return;
+        }
+
+        this.router.doAction(type, keys, new ClientFunction<Object>() {
+            @Override
+            public Object apply(final JedisClient client) {
+                if (!topologyValid.apply()) {
+                    throw new PipelineException("Cluster topology changed before the pipeline could be flushed");
+                }
+
+                Pipeline pipeline = pipelined(client);
+
+                for (QueuedCommand<?> command : commands) {
+                    command.send(pipeline);
+                }
+
+                pipeline.sync();
+
+                return null;
+            }
+        });
+
+        for (QueuedCommand<?> command : commands) {
+            command.complete();
+        }
+    }
+
+    private static void failPending(List<QueuedCommand<?>> commands, PipelineException exception) {
+        for (QueuedCommand<?> command : commands) {
+            if (!command.response.isDone()) {
+                command.response.fail(exception);
+            }
+        }
+    }
+
+    @Override
+    public PipelineResponse<String> get(final String key) {
+        return this.queue(ClientType.SLAVE, key, new Function1<Pipeline, Response<String>>() {
+            @Override
+            public Response<String> apply(final Pipeline pipeline) {
+                return pipeline.get(key);
+            }
+        });
+    }
+
+    @Override
+    public PipelineResponse<String> set(final String key, final String value) {
+        return this.queue(ClientType.MASTER, key, new Function1<Pipeline, Response<String>>() {
+            @Override
+            public Response<String> apply(final Pipeline pipeline) {
+                return pipeline.set(key, value);
+            }
+        });
+    }
+
+    @Override
+    public PipelineResponse<String> setex(final String key, final int seconds, final String value) {
+        return this.queue(ClientType.MASTER, key, new Function1<Pipeline, Response<String>>() {
+            @Override
+            public Response<String> apply(final Pipeline pipeline) {
+                return pipeline.setex(key, seconds, value);
+            }
+        });
+    }
+
+    @Override
+    public PipelineResponse<Long> setnx(final String key, final String value) {
+        return this.queue(ClientType.MASTER, key, new Function1<Pipeline, Response<Long>>() {
+            @Override
+            public Response<Long> apply(final Pipeline pipeline) {
+                return pipeline.setnx(key, value);
+            }
+        });
+    }
+
+    @Override
+    public PipelineResponse<String> getSet(final String key, final String value) {
+        return this.queue(ClientType.MASTER, key, new Function1<Pipeline, Response<String>>() {
+            @Override
+            public Response<String> apply(final Pipeline pipeline) {
+                return pipeline.getSet(key, value);
+            }
+        });
+    }
+
+    @Override
+    public PipelineResponse<Long> append(final String key, final String value) {
+        return this.queue(ClientType.MASTER, key, new Function1<Pipeline, Response<Long>>() {
+            @Override
+            public Response<Long> apply(final Pipeline pipeline) {
+                return pipeline.append(key, value);
+            }
+        });
+    }
+
+    @Override
+    public PipelineResponse<Long> incr(final String key) {
+        return this.queue(ClientType.MASTER, key, new Function1<Pipeline, Response<Long>>() {
+            @Override
+            public Response<Long> apply(final Pipeline pipeline) {
+                return pipeline.incr(key);
+            }
+        });
+    }
+
+    @Override
+    public PipelineResponse<Long> incrBy(final String key, final long integer) {
+        return this.queue(ClientType.MASTER, key, new Function1<Pipeline, Response<Long>>() {
+            @Override
+            public Response<Long> apply(final Pipeline pipeline) {
+                return pipeline.incrBy(key, integer);
+            }
+        });
+    }
+
+    @Override
+    public PipelineResponse<Long> decr(final String key) {
+        return this.queue(ClientType.MASTER, key, new Function1<Pipeline, Response<Long>>() {
+            @Override
+            public Response<Long> apply(final Pipeline pipeline) {
+                return pipeline.decr(key);
+            }
+        });
+    }
+
+    @Override
+    public PipelineResponse<Long> decrBy(final String key, final long integer) {
+        return this.queue(ClientType.MASTER, key, new Function1<Pipeline, Response<Long>>() {
+            @Override
+            public Response<Long> apply(final Pipeline pipeline) {
+                return pipeline.decrBy(key, integer);
+            }
+        });
+    }
+
+    @Override
+    public PipelineResponse<Boolean> exists(final String key) {
+        return this.queue(ClientType.SLAVE, key, new Function1<Pipeline, Response<Boolean>>() {
+            @Override
+            public Response<Boolean> apply(final Pipeline pipeline) {
+                return pipeline.exists(key);
+            }
+        });
+    }
+
+    @Override
+    public PipelineResponse<Long> del(final String... keys) {
+        return this.queue(ClientType.MASTER, keys, new Function1<Pipeline, Response<Long>>() {
+            @Override
+            public Response<Long> apply(final Pipeline pipeline) {
+                return pipeline.del(keys);
+            }
+        });
+    }
+
+    @Override
+    public PipelineResponse<Long> expire(final String key, final int seconds) {
+        return this.queue(ClientType.MASTER, key, new Function1<Pipeline, Response<Long>>() {
+            @Override
+            public Response<Long> apply(final Pipeline pipeline) {
+                return pipeline.expire(key, seconds);
+            }
+        });
+    }
+
+    @Override
+    public PipelineResponse<Long> expireAt(final String key, final long unixTime) {
+        return this.queue(ClientType.MASTER, key, new Function1<Pipeline, Response<Long>>() {
+            @Override
+            public Response<Long> apply(final Pipeline pipeline) {
+                return pipeline.expireAt(key, unixTime);
+            }
+        });
+    }
+
+    @Override
+    public PipelineResponse<Long> ttl(final String key) {
+        return this.queue(ClientType.SLAVE, key, new Function1<Pipeline, Response<Long>>() {
+            @Override
+            public Response<Long> apply(final Pipeline pipeline) {
+                return pipeline.ttl(key);
+            }
+        });
+    }
+
+    @Override
+    public PipelineResponse<String> type(final String key) {
+        return this.queue(ClientType.SLAVE, key, new Function1<Pipeline, Response<String>>() {
+            @Override
+            public Response<String> apply(final Pipeline pipeline) {
+                return pipeline.type(key);
+            }
+        });
+    }
+
+    @Override
+    public PipelineResponse<List<String>> mget(final String... keys) {
+        return this.queue(ClientType.SLAVE, keys, new Function1<Pipeline, Response<List<String>>>() {
+            @Override
+            public Response<List<String>> apply(final Pipeline pipeline) {
+                return pipeline.mget(keys);
+            }
+        });
+    }
+
+    @Override
+    public PipelineResponse<String> mset(final String... keysvalues) {
+        return this.queue(ClientType.MASTER, keys(keysvalues), new Function1<Pipeline, Response<String>>() {
+            @Override
+            public Response<String> apply(final Pipeline pipeline) {
+                return pipeline.mset(keysvalues);
+            }
+        });
+    }
+
+    @Override
+    public PipelineResponse<String> hget(final String key, final String field) {
+        return this.queue(ClientType.SLAVE, key, new Function1<Pipeline, Response<String>>() {
+            @Override
+            public Response<String> apply(final Pipeline pipeline) {
+                return pipeline.hget(key, field);
+            }
+        });
+    }
+
+    @Override
+    public PipelineResponse<Long> hset(final String key, final String field, final String value) {
+        return this.queue(ClientType.MASTER, key, new Function1<Pipeline, Response<Long>>() {
+            @Override
+            public Response<Long> apply(final Pipeline pipeline) {
+                return pipeline.hset(key, field, value);
+            }
+        });
+    }
+
+    @Override
+    public PipelineResponse<Long> hsetnx(final String key, final String field, final String value) {
+        return this.queue(ClientType.MASTER, key, new Function1<Pipeline, Response<Long>>() {
+            @Override
+            public Response<Long> apply(final Pipeline pipeline) {
+                return pipeline.hsetnx(key, field, value);
+            }
+        });
+    }
+
+    @Override
+    public PipelineResponse<String> hmset(final String key, final Map<String, String> hash) {
+        return this.queue(ClientType.MASTER, key, new Function1<Pipeline, Response<String>>() {
+            @Override
+            public Response<String> apply(final Pipeline pipeline) {
+                return pipeline.hmset(key, hash);
+            }
+        });
+    }
+
+    @Override
+    public PipelineResponse<List<String>> hmget(final String key, final String... fields) {
+        return this.queue(ClientType.SLAVE, key, new Function1<Pipeline, Response<List<String>>>() {
+            @Override
+            public Response<List<String>> apply(final Pipeline pipeline) {
+                return pipeline.hmget(key, fields);
+            }
+        });
+    }
+
+    @Override
+    public PipelineResponse<Map<String, String>> hgetAll(final String key) {
+        return this.queue(ClientType.SLAVE, key, new Function1<Pipeline, Response<Map<String, String>>>() {
+            @Override
+            public Response<Map<String, String>> apply(final Pipeline pipeline) {
+                return pipeline.hgetAll(key);
+            }
+        });
+    }
+
+    @Override
+    public PipelineResponse<Long> hdel(final String key, final String field) {
+        return this.queue(ClientType.MASTER, key, new Function1<Pipeline, Response<Long>>() {
+            @Override
+            public Response<Long> apply(final Pipeline pipeline) {
+                return pipeline.hdel(key, field);
+            }
+        });
+    }
+
+    @Override
+    public PipelineResponse<Long> hincrBy(final String key, final String field, final long value) {
+        return this.queue(ClientType.MASTER, key, new Function1<Pipeline, Response<Long>>() {
+            @Override
+            public Response<Long> apply(final Pipeline pipeline) {
+                return pipeline.hincrBy(key, field, value);
+            }
+        });
+    }
+
+    @Override
+    public PipelineResponse<Boolean> hexists(final String key, final String field) {
+        return this.queue(ClientType.SLAVE, key, new Function1<Pipeline, Response<Boolean>>() {
+            @Override
+            public Response<Boolean> apply(final Pipeline pipeline) {
+                return pipeline.hexists(key, field);
+            }
+        });
+    }
+
+    @Override
+    public PipelineResponse<Long> hlen(final String key) {
+        return this.queue(ClientType.SLAVE, key, new Function1<Pipeline, Response<Long>>() {
+            @Override
+            public Response<Long> apply(final Pipeline pipeline) {
+                return pipeline.hlen(key);
+            }
+        });
+    }
+
+    @Override
+    public PipelineResponse<Set<String>> hkeys(final String key) {
+        return this.queue(ClientType.SLAVE, key, new Function1<Pipeline, Response<Set<String>>>() {
+            @Override
+            public Response<Set<String>> apply(final Pipeline pipeline) {
+                return pipeline.hkeys(key);
+            }
+        });
+    }
+
+    @Override
+    public PipelineResponse<List<String>> hvals(final String key) {
+        return this.queue(ClientType.SLAVE, key, new Function1<Pipeline, Response<List<String>>>() {
+            @Override
+            public Response<List<String>> apply(final Pipeline pipeline) {
+                return pipeline.hvals(key);
+            }
+        });
+    }
+
+    @Override
+    public PipelineResponse<Long> lpush(final String key, final String string) {
+        return this.queue(ClientType.MASTER, key, new Function1<Pipeline, Response<Long>>() {
+            @Override
+            public Response<Long> apply(final Pipeline pipeline) {
+                return pipeline.lpush(key, string);
+            }
+        });
+    }
+
+    @Override
+    public PipelineResponse<Long> rpush(final String key, final String string) {
+        return this.queue(ClientType.MASTER, key, new Function1<Pipeline, Response<Long>>() {
+            @Override
+            public Response<Long> apply(final Pipeline pipeline) {
+                return pipeline.rpush(key, string);
+            }
+        });
+    }
+
+    @Override
+    public PipelineResponse<String> lpop(final String key) {
+        return this.queue(ClientType.MASTER, key, new Function1<Pipeline, Response<String>>() {
+            @Override
+            public Response<String> apply(final Pipeline pipeline) {
+                return pipeline.lpop(key);
+            }
+        });
+    }
+
+    @Override
+    public PipelineResponse<String> rpop(final String key) {
+        return this.queue(ClientType.MASTER, key, new Function1<Pipeline, Response<String>>() {
+            @Override
+            public Response<String> apply(final Pipeline pipeline) {
+                return pipeline.rpop(key);
+            }
+        });
+    }
+
+    @Override
+    public PipelineResponse<Long> llen(final String key) {
+        return this.queue(ClientType.SLAVE, key, new Function1<Pipeline, Response<Long>>() {
+            @Override
+            public Response<Long> apply(final Pipeline pipeline) {
+                return pipeline.llen(key);
+            }
+        });
+    }
+
+    @Override
+    public PipelineResponse<List<String>> lrange(final String key, final long start, final long end) {
+        return this.queue(ClientType.SLAVE, key, new Function1<Pipeline, Response<List<String>>>() {
+            @Override
+            public Response<List<String>> apply(final Pipeline pipeline) {
+                return pipeline.lrange(key, start, end);
+            }
+        });
+    }
+
+    @Override
+    public PipelineResponse<String> lindex(final String key, final int index) {
+        return this.queue(ClientType.SLAVE, key, new Function1<Pipeline, Response<String>>() {
+            @Override
+            public Response<String> apply(final Pipeline pipeline) {
+                return pipeline.lindex(key, index);
+            }
+        });
+    }
+
+    @Override
+    public PipelineResponse<String> ltrim(final String key, final long start, final long end) {
+        return this.queue(ClientType.MASTER, key, new Function1<Pipeline, Response<String>>() {
+            @Override
+            public Response<String> apply(final Pipeline pipeline) {
+                return pipeline.ltrim(key, start, end);
+            }
+        });
+    }
+
+    @Override
+    public PipelineResponse<Long> lrem(final String key, final long count, final String value) {
+        return this.queue(ClientType.MASTER, key, new Function1<Pipeline, Response<Long>>() {
+            @Override
+            public Response<Long> apply(final Pipeline pipeline) {
+                return pipeline.lrem(key, count, value);
+            }
+        });
+    }
+
+    @Override
+    public PipelineResponse<Long> sadd(final String key, final String member) {
+        return this.queue(ClientType.MASTER, key, new Function1<Pipeline, Response<Long>>() {
+            @Override
+            public Response<Long> apply(final Pipeline pipeline) {
+                return pipeline.sadd(key, member);
+            }
+        });
+    }
+
+    @Override
+    public PipelineResponse<Long> srem(final String key, final String member) {
+        return this.queue(ClientType.MASTER, key, new Function1<Pipeline, Response<Long>>() {
+            @Override
+            public Response<Long> apply(final Pipeline pipeline) {
+                return pipeline.srem(key, member);
+            }
+        });
+    }
+
+    @Override
+    public PipelineResponse<Set<String>> smembers(final String key) {
+        return this.queue(ClientType.SLAVE, key, new Function1<Pipeline, Response<Set<String>>>() {
+            @Override
+            public Response<Set<String>> apply(final Pipeline pipeline) {
+                return pipeline.smembers(key);
+            }
+        });
+    }
+
+    @Override
+    public PipelineResponse<Boolean> sismember(final String key, final String member) {
+        return this.queue(ClientType.SLAVE, key, new Function1<Pipeline, Response<Boolean>>() {
+            @Override
+            public Response<Boolean> apply(final Pipeline pipeline) {
+                return pipeline.sismember(key, member);
+            }
+        });
+    }
+
+    @Override
+    public PipelineResponse<Long> scard(final String key) {
+        return this.queue(ClientType.SLAVE, key, new Function1<Pipeline, Response<Long>>() {
+            @Override
+            public Response<Long> apply(final Pipeline pipeline) {
+                return pipeline.scard(key);
+            }
+        });
+    }
+
+    @Override
+    public PipelineResponse<Long> zadd(final String key, final double score, final String member) {
+        return this.queue(ClientType.MASTER, key, new Function1<Pipeline, Response<Long>>() {
+            @Override
+            public Response<Long> apply(final Pipeline pipeline) {
+                return pipeline.zadd(key, score, member);
+            }
+        });
+    }
+
+    @Override
+    public PipelineResponse<Long> zrem(final String key, final String member) {
+        return this.queue(ClientType.MASTER, key, new Function1<Pipeline, Response<Long>>() {
+            @Override
+            public Response<Long> apply(final Pipeline pipeline) {
+                return pipeline.zrem(key, member);
+            }
+        });
+    }
+
+    @Override
+    public PipelineResponse<Double> zincrby(final String key, final double score, final String member) {
+        return this.queue(ClientType.MASTER, key, new Function1<Pipeline, Response<Double>>() {
+            @Override
+            public Response<Double> apply(final Pipeline pipeline) {
+                return pipeline.zincrby(key, score, member);
+            }
+        });
+    }
+
+    @Override
+    public PipelineResponse<Double> zscore(final String key, final String member) {
+        return this.queue(ClientType.SLAVE, key, new Function1<Pipeline, Response<Double>>() {
+            @Override
+            public Response<Double> apply(final Pipeline pipeline) {
+                return pipeline.zscore(key, member);
+            }
+        });
+    }
+
+    @Override
+    public PipelineResponse<Long> zcard(final String key) {
+        return this.queue(ClientType.SLAVE, key, new Function1<Pipeline, Response<Long>>() {
+            @Override
+            public Response<Long> apply(final Pipeline pipeline) {
+                return pipeline.zcard(key);
+            }
+        });
+    }
+
+    @Override
+    public PipelineResponse<Long> zrank(final String key, final String member) {
+        return this.queue(ClientType.SLAVE, key, new Function1<Pipeline, Response<Long>>() {
+            @Override
+            public Response<Long> apply(final Pipeline pipeline) {
+                return pipeline.zrank(key, member);
+            }
+        });
+    }
+
+    @Override
+    public PipelineResponse<Long> zrevrank(final String key, final String member) {
+        return this.queue(ClientType.SLAVE, key, new Function1<Pipeline, Response<Long>>() {
+            @Override
+            public Response<Long> apply(final Pipeline pipeline) {
+                return pipeline.zrevrank(key, member);
+            }
+        });
+    }
+
+    @Override
+    public PipelineResponse<Set<String>> zrange(final String key, final int start, final int end) {
+        return this.queue(ClientType.SLAVE, key, new Function1<Pipeline, Response<Set<String>>>() {
+            @Override
+            public Response<Set<String>> apply(final Pipeline pipeline) {
+                return pipeline.zrange(key, start, end);
+            }
+        });
+    }
+
+    @Override
+    public PipelineResponse<Set<String>> zrevrange(final String key, final int start, final int end) {
+        return this.queue(ClientType.SLAVE, key, new Function1<Pipeline, Response<Set<String>>>() {
+            @Override
+            public Response<Set<String>> apply(final Pipeline pipeline) {
+                return pipeline.zrevrange(key, start, end);
+            }
+        });
+    }
+
+    @Override
+    public PipelineResponse<Set<Tuple>> zrangeWithScores(final String key, final int start, final int end) {
+        return this.queue(ClientType.SLAVE, key, new Function1<Pipeline, Response<Set<Tuple>>>() {
+            @Override
+            public Response<Set<Tuple>> apply(final Pipeline pipeline) {
+                return pipeline.zrangeWithScores(key, start, end);
+            }
+        });
+    }
+
+    @Override
+    public PipelineResponse<Set<String>> zrangeByScore(final String key, final double min, final double max) {
+        return this.queue(ClientType.SLAVE, key, new Function1<Pipeline, Response<Set<String>>>() {
+            @Override
+            public Response<Set<String>> apply(final Pipeline pipeline) {
+                return pipeline.zrangeByScore(key, min, max);
+            }
+        });
+    }
+
+    @Override
+    public PipelineResponse<Long> zcount(final String key, final double min, final double max) {
+        return this.queue(ClientType.SLAVE, key, new Function1<Pipeline, Response<Long>>() {
+            @Override
+            public Response<Long> apply(final Pipeline pipeline) {
+                return pipeline.zcount(key, min, max);
+            }
+        });
+    }
+
+    @Override
+    public PipelineResponse<Long> zremrangeByScore(final String key, final double start, final double end) {
+        return this.queue(ClientType.MASTER, key, new Function1<Pipeline, Response<Long>>() {
+            @Override
+            public Response<Long> apply(final Pipeline pipeline) {
+                return pipeline.zremrangeByScore(key, start, end);
+            }
+        });
+    }
+
+    private static class QueuedCommand<T> {
+
+        private final Function1<Pipeline, Response<T>> command;
+        private final PipelineResponse<T> response = new PipelineResponse<T>();
+        private Response<T> jedisResponse;
+
+        QueuedCommand(Function1<Pipeline, Response<T>> command) {
+            this.command = command;
+        }
+
+        void send(Pipeline pipeline) {
+            this.jedisResponse = this.command.apply(pipeline);
+        }
+
+        void complete() {
+            try {
+                this.response.complete(this.jedisResponse.get());
+            } catch (RuntimeException e) {
+                this.response.fail(e);
+            }
+        }
+
+    }
+
+}
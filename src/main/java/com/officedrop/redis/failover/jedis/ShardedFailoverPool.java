@@ -0,0 +1,65 @@
+package com.officedrop.redis.failover.jedis;
+
+import java.util.Set;
+
+/**
+ * A pool that spreads keys over several failover clusters, each with its own node manager, ZooKeeper
+ * namespace, master and slaves, so writes are not capped by a single redis master. Keys are placed with a
+ * ketama compatible {@link KetamaHashRing}, optionally looking only at their hash tags, and every command
+ * goes to the master or slaves of the cluster that owns its key. Multi key commands and pipelines are split
+ * by shard and the parts run in parallel.
+ *
+ * Build it with {@link JedisPoolBuilder#withShard(String, JedisPoolBuilder)} and
+ * {@link JedisPoolBuilder#buildSharded()}.
+ */
+public class ShardedFailoverPool implements JedisPool {
+
+    private final JedisPool pool;
+    private final ShardedJedisFactory factory;
+
+    public ShardedFailoverPool(JedisPool pool, ShardedJedisFactory factory) {
+        this.pool = pool;
+        this.factory = factory;
+    }
+
+    /**
+     * The name of the shard that owns the key.
+     */
+    public String getShard(String key) {
+        return this.factory.getShards().getName(key);
+    }
+
+    public Set<String> getShardNames() {
+        return this.factory.getShards().getNodes().keySet();
+    }
+
+    public JedisPool getPool() {
+        return this.pool;
+    }
+
+    @Override
+    public void withJedis(JedisFunction action) {
+        this.pool.withJedis(action);
+    }
+
+    @Override
+    public <T> T withJedis(JedisResultFunction<T> action) {
+        return this.pool.withJedis(action);
+    }
+
+    @Override
+    public void withPipeline(PipelineFunction action) {
+        this.pool.withPipeline(action);
+    }
+
+    @Override
+    public String getOrCompute(String key, int ttlSeconds, ValueLoader loader) {
+        return GetOrCompute.DEFAULT.execute(this, key, ttlSeconds, loader);
+    }
+
+    @Override
+    public void close() {
+        this.pool.close();
+    }
+
+}
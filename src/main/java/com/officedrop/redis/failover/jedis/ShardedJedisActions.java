@@ -0,0 +1,765 @@
+package com.officedrop.redis.failover.jedis;
+
+import com.officedrop.redis.failover.ReadPreference;
+import com.officedrop.redis.failover.RetryableWrites;
+import com.officedrop.redis.failover.utils.Function;
+import redis.clients.jedis.BinaryClient;
+import redis.clients.jedis.SortingParams;
+import redis.clients.jedis.Tuple;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Sends each command to the shard that owns its key at a {@link KetamaHashRing}. Multi key commands are
+ * split by shard and the parts run in parallel, so they are not atomic when the keys live at different
+ * shards. Use hash tags to keep keys that have to be read or written together at the same shard.
+ */
+public class ShardedJedisActions implements JedisActions {
+
+    private final KetamaHashRing<JedisActions> shards;
+    private final ExecutorService executor;
+
+    public ShardedJedisActions(KetamaHashRing<JedisActions> shards, ExecutorService executor) {
+        this.shards = shards;
+        this.executor = executor;
+    }
+
+    public KetamaHashRing<JedisActions> getShards() {
+        return this.shards;
+    }
+
+    @Override
+    public Long del(final String... keys) {
+        Map<String, List<String>> groups = group(this.shards, keys, 1);
+
+        if (groups.size() <= 1) {
+            return this.owner(keys).del(keys);
+        }
+
+        List<Callable<Long>> calls = new ArrayList<Callable<Long>>(groups.size());
+
+        for (final Map.Entry<String, List<String>> group : groups.entrySet()) {
+            calls.add(new Callable<Long>() {
+                @Override
+                public Long call() {
+                    return shard(group.getKey()).del(toArray(group.getValue()));
+                }
+            });
+        }
+
+        long deleted = 0;
+
+        for (Long count : inParallel(this.executor, calls)) {
+            deleted += count;
+        }
+
+        return deleted;
+    }
+
+    /**
+     * Reads the keys from every shard involved in parallel, the values are returned in the same order as
+     * the keys.
+     */
+    @Override
+    public List<String> mget(final String... keys) {
+        Map<String, List<Integer>> groups = indexes(this.shards, keys);
+
+        if (groups.size() <= 1) {
+            return this.owner(keys).mget(keys);
+        }
+
+        List<Callable<List<String>>> calls = new ArrayList<Callable<List<String>>>(groups.size());
+        final List<List<Integer>> positions = new ArrayList<List<Integer>>(groups.size());
+
+        for (final Map.Entry<String, List<Integer>> group : groups.entrySet()) {
+            final String[] part = new String[group.getValue().size()];
+
+            for (int x = 0; x < part.length; x++) {
+                part[x] = keys[group.getValue().get(x)];
+            }
+
+            positions.add(group.getValue());
+            calls.add(new Callable<List<String>>() {
+                @Override
+                public List<String> call() {
+                    return shard(group.getKey()).mget(part);
+                }
+            });
+        }
+
+        List<List<String>> parts = inParallel(this.executor, calls);
+        String[] result = new String[keys.length];
+
+        for (int x = 0; x < parts.size(); x++) {
+            List<Integer> indexes = positions.get(x);
+            List<String> values = parts.get(x);
+
+            for (int y = 0; y < indexes.size(); y++) {
+                result[indexes.get(y)] = values.get(y);
+            }
+        }
+
+        return Arrays.asList(result);
+    }
+
+    @Override
+    public String mset(final String... keysvalues) {
+        Map<String, List<String>> groups = group(this.shards, keysvalues, 2);
+
+        if (groups.size() <= 1) {
+            return this.owner(keysvalues).mset(keysvalues);
+        }
+
+        List<Callable<String>> calls = new ArrayList<Callable<String>>(groups.size());
+
+        for (final Map.Entry<String, List<String>> group : groups.entrySet()) {
+            calls.add(new Callable<String>() {
+                @Override
+                public String call() {
+                    return shard(group.getKey()).mset(toArray(group.getValue()));
+                }
+            });
+        }
+
+        List<String> results = inParallel(this.executor, calls);
+
+        return results.get(results.size() - 1);
+    }
+
+    @Override
+    public PipelineActions pipeline() {
+        return new ShardedPipelineActions(this.shards, this.executor);
+    }
+
+    @Override
+    public String quit() {
+        for (JedisActions shard : this.shards.getNodes().values()) {
+            shard.quit();
+        }
+
+        return "OK";
+    }
+
+    @Override
+    public String ping() {
+        String result = null;
+
+        for (JedisActions shard : this.shards.getNodes().values()) {
+            result = shard.ping();
+        }
+
+        return result;
+    }
+
+    @Override
+    public String slaveof(final String host, final int port) {
+        throw new UnsupportedOperationException("slaveof has to be sent to a single shard");
+    }
+
+    @Override
+    public String slaveofNoOne() {
+        throw new UnsupportedOperationException("slaveof has to be sent to a single shard");
+    }
+
+    /**
+     * The info of every shard, each one after a "# Shard name" line.
+     */
+    @Override
+    public String info() {
+        StringBuilder result = new StringBuilder();
+
+        for (Map.Entry<String, JedisActions> shard : this.shards.getNodes().entrySet()) {
+            result.append("# Shard ").append(shard.getKey()).append("\r\n");
+            result.append(shard.getValue().info()).append("\r\n");
+        }
+
+        return result.toString();
+    }
+
+    /**
+     * The shard that owns the first key, commands without keys go to any shard so redis answers them.
+     */
+    private JedisActions owner(String[] arguments) {
+        if (arguments.length == 0) {
+            return this.shards.getNodes().values().iterator().next();
+        }
+
+        return this.shards.get(arguments[0]);
+    }
+
+    private JedisActions shard(String name) {
+        return this.shards.getNodes().get(name);
+    }
+
+    /**
+     * Groups the arguments by the shard of their key, the key being the first of every step arguments.
+     */
+    static Map<String, List<String>> group(KetamaHashRing<?> shards, String[] arguments, int step) {
+        Map<String, List<String>> groups = new LinkedHashMap<String, List<String>>();
+
+        for (int x = 0; x < arguments.length; x += step) {
+            String name = shards.getName(arguments[x]);
+            List<String> group = groups.get(name);
+
+            if (group == null) {
+                group = new ArrayList<String>();
+                groups.put(name, group);
+            }
+
+            for (int y = x; y < x + step && y < arguments.length; y++) {
+                group.add(arguments[y]);
+            }
+        }
+
+        return groups;
+    }
+
+    /**
+     * Groups the positions of the keys by the shard that owns them.
+     */
+    static Map<String, List<Integer>> indexes(KetamaHashRing<?> shards, String[] keys) {
+        Map<String, List<Integer>> groups = new LinkedHashMap<String, List<Integer>>();
+
+        for (int x = 0; x < keys.length; x++) {
+            String name = shards.getName(keys[x]);
+            List<Integer> indexes = groups.get(name);
+
+            if (indexes == null) {
+                indexes = new ArrayList<Integer>();
+                groups.put(name, indexes);
+            }
+
+            indexes.add(x);
+        }
+
+        return groups;
+    }
+
+    static String[] toArray(List<String> values) {
+        return values.toArray(new String[values.size()]);
+    }
+
+    /**
+     * Runs the first call at the current thread and the others at the executor, returning the results in
+     * the same order. The calls at the executor keep the read preference and retryable writes setting of
+     * the current thread. If any call fails this still waits for all of them to finish before throwing
+     * the first failure, so callers never clean up while a part is still running.
+     */
+    static <R> List<R> inParallel(ExecutorService executor, List<Callable<R>> calls) {
+        List<Future<R>> futures = new ArrayList<Future<R>>(calls.size() - 1);
+
+        for (Callable<R> call : calls.subList(1, calls.size())) {
+            futures.add(executor.submit(bind(call)));
+        }
+
+        List<R> results = new ArrayList<R>(calls.size());
+        RuntimeException failure = null;
+        boolean interrupted = false;
+
+        try {
+            results.add(calls.get(0).call());
+        } catch (Exception e) {
+            failure = toRuntime(e);
+        }
+
+        for (Future<R> future : futures) {
+            while (true) {
+                try {
+                    results.add(future.get());
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = toRuntime(e.getCause());
+                    }
+                    break;
+                }
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+
+        return results;
+    }
+
+    private static RuntimeException toRuntime(Throwable e) {
+        if (e instanceof RuntimeException) {
+            return (RuntimeException) e;
+        }
+        return new JedisConnectionException(e);
+    }
+
+    private static <R> Callable<R> bind(final Callable<R> call) {
+        final Function<R> bound = RetryableWrites.bind(ReadPreference.bind(new Function<R>() {
+            @Override
+            public R apply() {
+                try {
+                    return call.call();
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new JedisConnectionException(e);
+                }
+            }
+        }));
+
+        return new Callable<R>() {
+            @Override
+            public R call() {
+                return bound.apply();
+            }
+        };
+    }
+
+    @Override
+    public String set(final String key, final String value) {
+        return this.shards.get(key).set(key, value);
+    }
+
+    @Override
+    public String get(final String key) {
+        return this.shards.get(key).get(key);
+    }
+
+    @Override
+    public Boolean exists(final String key) {
+        return this.shards.get(key).exists(key);
+    }
+
+    @Override
+    public String type(final String key) {
+        return this.shards.get(key).type(key);
+    }
+
+    @Override
+    public Long expire(final String key, final int seconds) {
+        return this.shards.get(key).expire(key, seconds);
+    }
+
+    @Override
+    public Long expireAt(final String key, final long unixTime) {
+        return this.shards.get(key).expireAt(key, unixTime);
+    }
+
+    @Override
+    public Long ttl(final String key) {
+        return this.shards.get(key).ttl(key);
+    }
+
+    @Override
+    public Boolean setbit(final String key, final long offset, final boolean value) {
+        return this.shards.get(key).setbit(key, offset, value);
+    }
+
+    @Override
+    public Boolean getbit(final String key, final long offset) {
+        return this.shards.get(key).getbit(key, offset);
+    }
+
+    @Override
+    public Long setrange(final String key, final long offset, final String value) {
+        return this.shards.get(key).setrange(key, offset, value);
+    }
+
+    @Override
+    public String getrange(final String key, final long startOffset, final long endOffset) {
+        return this.shards.get(key).getrange(key, startOffset, endOffset);
+    }
+
+    @Override
+    public String getSet(final String key, final String value) {
+        return this.shards.get(key).getSet(key, value);
+    }
+
+    @Override
+    public Long setnx(final String key, final String value) {
+        return this.shards.get(key).setnx(key, value);
+    }
+
+    @Override
+    public String setex(final String key, final int seconds, final String value) {
+        return this.shards.get(key).setex(key, seconds, value);
+    }
+
+    @Override
+    public Long decrBy(final String key, final long integer) {
+        return this.shards.get(key).decrBy(key, integer);
+    }
+
+    @Override
+    public Long decr(final String key) {
+        return this.shards.get(key).decr(key);
+    }
+
+    @Override
+    public Long incrBy(final String key, final long integer) {
+        return this.shards.get(key).incrBy(key, integer);
+    }
+
+    @Override
+    public Long incr(final String key) {
+        return this.shards.get(key).incr(key);
+    }
+
+    @Override
+    public Long append(final String key, final String value) {
+        return this.shards.get(key).append(key, value);
+    }
+
+    @Override
+    public String substr(final String key, final int start, final int end) {
+        return this.shards.get(key).substr(key, start, end);
+    }
+
+    @Override
+    public Long hset(final String key, final String field, final String value) {
+        return this.shards.get(key).hset(key, field, value);
+    }
+
+    @Override
+    public String hget(final String key, final String field) {
+        return this.shards.get(key).hget(key, field);
+    }
+
+    @Override
+    public Long hsetnx(final String key, final String field, final String value) {
+        return this.shards.get(key).hsetnx(key, field, value);
+    }
+
+    @Override
+    public String hmset(final String key, final Map<String, String> hash) {
+        return this.shards.get(key).hmset(key, hash);
+    }
+
+    @Override
+    public List<String> hmget(final String key, final String... fields) {
+        return this.shards.get(key).hmget(key, fields);
+    }
+
+    @Override
+    public Long hincrBy(final String key, final String field, final long value) {
+        return this.shards.get(key).hincrBy(key, field, value);
+    }
+
+    @Override
+    public Boolean hexists(final String key, final String field) {
+        return this.shards.get(key).hexists(key, field);
+    }
+
+    @Override
+    public Long hdel(final String key, final String... field) {
+        return this.shards.get(key).hdel(key, field);
+    }
+
+    @Override
+    public Long hlen(final String key) {
+        return this.shards.get(key).hlen(key);
+    }
+
+    @Override
+    public Set<String> hkeys(final String key) {
+        return this.shards.get(key).hkeys(key);
+    }
+
+    @Override
+    public List<String> hvals(final String key) {
+        return this.shards.get(key).hvals(key);
+    }
+
+    @Override
+    public Map<String, String> hgetAll(final String key) {
+        return this.shards.get(key).hgetAll(key);
+    }
+
+    @Override
+    public Long rpush(final String key, final String... string) {
+        return this.shards.get(key).rpush(key, string);
+    }
+
+    @Override
+    public Long lpush(final String key, final String... string) {
+        return this.shards.get(key).lpush(key, string);
+    }
+
+    @Override
+    public Long llen(final String key) {
+        return this.shards.get(key).llen(key);
+    }
+
+    @Override
+    public List<String> lrange(final String key, final long start, final long end) {
+        return this.shards.get(key).lrange(key, start, end);
+    }
+
+    @Override
+    public String ltrim(final String key, final long start, final long end) {
+        return this.shards.get(key).ltrim(key, start, end);
+    }
+
+    @Override
+    public String lindex(final String key, final long index) {
+        return this.shards.get(key).lindex(key, index);
+    }
+
+    @Override
+    public String lset(final String key, final long index, final String value) {
+        return this.shards.get(key).lset(key, index, value);
+    }
+
+    @Override
+    public Long lrem(final String key, final long count, final String value) {
+        return this.shards.get(key).lrem(key, count, value);
+    }
+
+    @Override
+    public String lpop(final String key) {
+        return this.shards.get(key).lpop(key);
+    }
+
+    @Override
+    public String rpop(final String key) {
+        return this.shards.get(key).rpop(key);
+    }
+
+    @Override
+    public Long sadd(final String key, final String... member) {
+        return this.shards.get(key).sadd(key, member);
+    }
+
+    @Override
+    public Set<String> smembers(final String key) {
+        return this.shards.get(key).smembers(key);
+    }
+
+    @Override
+    public Long srem(final String key, final String... member) {
+        return this.shards.get(key).srem(key, member);
+    }
+
+    @Override
+    public String spop(final String key) {
+        return this.shards.get(key).spop(key);
+    }
+
+    @Override
+    public Long scard(final String key) {
+        return this.shards.get(key).scard(key);
+    }
+
+    @Override
+    public Boolean sismember(final String key, final String member) {
+        return this.shards.get(key).sismember(key, member);
+    }
+
+    @Override
+    public String srandmember(final String key) {
+        return this.shards.get(key).srandmember(key);
+    }
+
+    @Override
+    public Long zadd(final String key, final double score, final String member) {
+        return this.shards.get(key).zadd(key, score, member);
+    }
+
+    @Override
+    public Long zadd(final String key, final Map<Double, String> scoreMembers) {
+        return this.shards.get(key).zadd(key, scoreMembers);
+    }
+
+    @Override
+    public Set<String> zrange(final String key, final long start, final long end) {
+        return this.shards.get(key).zrange(key, start, end);
+    }
+
+    @Override
+    public Long zrem(final String key, final String... member) {
+        return this.shards.get(key).zrem(key, member);
+    }
+
+    @Override
+    public Double zincrby(final String key, final double score, final String member) {
+        return this.shards.get(key).zincrby(key, score, member);
+    }
+
+    @Override
+    public Long zrank(final String key, final String member) {
+        return this.shards.get(key).zrank(key, member);
+    }
+
+    @Override
+    public Long zrevrank(final String key, final String member) {
+        return this.shards.get(key).zrevrank(key, member);
+    }
+
+    @Override
+    public Set<String> zrevrange(final String key, final long start, final long end) {
+        return this.shards.get(key).zrevrange(key, start, end);
+    }
+
+    @Override
+    public Set<Tuple> zrangeWithScores(final String key, final long start, final long end) {
+        return this.shards.get(key).zrangeWithScores(key, start, end);
+    }
+
+    @Override
+    public Set<Tuple> zrevrangeWithScores(final String key, final long start, final long end) {
+        return this.shards.get(key).zrevrangeWithScores(key, start, end);
+    }
+
+    @Override
+    public Long zcard(final String key) {
+        return this.shards.get(key).zcard(key);
+    }
+
+    @Override
+    public Double zscore(final String key, final String member) {
+        return this.shards.get(key).zscore(key, member);
+    }
+
+    @Override
+    public List<String> sort(final String key) {
+        return this.shards.get(key).sort(key);
+    }
+
+    @Override
+    public List<String> sort(final String key, final SortingParams sortingParameters) {
+        return this.shards.get(key).sort(key, sortingParameters);
+    }
+
+    @Override
+    public Long zcount(final String key, final double min, final double max) {
+        return this.shards.get(key).zcount(key, min, max);
+    }
+
+    @Override
+    public Long zcount(final String key, final String min, final String max) {
+        return this.shards.get(key).zcount(key, min, max);
+    }
+
+    @Override
+    public Set<String> zrangeByScore(final String key, final double min, final double max) {
+        return this.shards.get(key).zrangeByScore(key, min, max);
+    }
+
+    @Override
+    public Set<String> zrangeByScore(final String key, final String min, final String max) {
+        return this.shards.get(key).zrangeByScore(key, min, max);
+    }
+
+    @Override
+    public Set<String> zrevrangeByScore(final String key, final double max, final double min) {
+        return this.shards.get(key).zrevrangeByScore(key, max, min);
+    }
+
+    @Override
+    public Set<String> zrangeByScore(final String key, final double min, final double max, final int offset, final int count) {
+        return this.shards.get(key).zrangeByScore(key, min, max, offset, count);
+    }
+
+    @Override
+    public Set<String> zrevrangeByScore(final String key, final String max, final String min) {
+        return this.shards.get(key).zrevrangeByScore(key, max, min);
+    }
+
+    @Override
+    public Set<String> zrangeByScore(final String key, final String min, final String max, final int offset, final int count) {
+        return this.shards.get(key).zrangeByScore(key, min, max, offset, count);
+    }
+
+    @Override
+    public Set<String> zrevrangeByScore(final String key, final double max, final double min, final int offset, final int count) {
+        return this.shards.get(key).zrevrangeByScore(key, max, min, offset, count);
+    }
+
+    @Override
+    public Set<Tuple> zrangeByScoreWithScores(final String key, final double min, final double max) {
+        return this.shards.get(key).zrangeByScoreWithScores(key, min, max);
+    }
+
+    @Override
+    public Set<Tuple> zrevrangeByScoreWithScores(final String key, final double max, final double min) {
+        return this.shards.get(key).zrevrangeByScoreWithScores(key, max, min);
+    }
+
+    @Override
+    public Set<Tuple> zrangeByScoreWithScores(final String key, final double min, final double max, final int offset, final int count) {
+        return this.shards.get(key).zrangeByScoreWithScores(key, min, max, offset, count);
+    }
+
+    @Override
+    public Set<String> zrevrangeByScore(final String key, final String max, final String min, final int offset, final int count) {
+        return this.shards.get(key).zrevrangeByScore(key, max, min, offset, count);
+    }
+
+    @Override
+    public Set<Tuple> zrangeByScoreWithScores(final String key, final String min, final String max) {
+        return this.shards.get(key).zrangeByScoreWithScores(key, min, max);
+    }
+
+    @Override
+    public Set<Tuple> zrevrangeByScoreWithScores(final String key, final String max, final String min) {
+        return this.shards.get(key).zrevrangeByScoreWithScores(key, max, min);
+    }
+
+    @Override
+    public Set<Tuple> zrangeByScoreWithScores(final String key, final String min, final String max, final int offset, final int count) {
+        return this.shards.get(key).zrangeByScoreWithScores(key, min, max, offset, count);
+    }
+
+    @Override
+    public Set<Tuple> zrevrangeByScoreWithScores(final String key, final double max, final double min, final int offset, final int count) {
+        return this.shards.get(key).zrevrangeByScoreWithScores(key, max, min, offset, count);
+    }
+
+    @Override
+    public Set<Tuple> zrevrangeByScoreWithScores(final String key, final String max, final String min, final int offset, final int count) {
+        return this.shards.get(key).zrevrangeByScoreWithScores(key, max, min, offset, count);
+    }
+
+    @Override
+    public Long zremrangeByRank(final String key, final long start, final long end) {
+        return this.shards.get(key).zremrangeByRank(key, start, end);
+    }
+
+    @Override
+    public Long zremrangeByScore(final String key, final double start, final double end) {
+        return this.shards.get(key).zremrangeByScore(key, start, end);
+    }
+
+    @Override
+    public Long zremrangeByScore(final String key, final String start, final String end) {
+        return this.shards.get(key).zremrangeByScore(key, start, end);
+    }
+
+    @Override
+    public Long linsert(final String key, final BinaryClient.LIST_POSITION where, final String pivot, final String value) {
+        return this.shards.get(key).linsert(key, where, pivot, value);
+    }
+
+    @Override
+    public Long lpushx(final String key, final String string) {
+        return this.shards.get(key).lpushx(key, string);
+    }
+
+    @Override
+    public Long rpushx(final String key, final String string) {
+        return this.shards.get(key).rpushx(key, string);
+    }
+}
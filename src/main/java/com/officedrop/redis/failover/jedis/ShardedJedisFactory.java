@@ -0,0 +1,51 @@
+package com.officedrop.redis.failover.jedis;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Creates {@link ShardedJedisActions} made of one client from every shard's factory, usually one
+ * {@link FailoverJedisFactory} per failover cluster. The shards are placed at a {@link KetamaHashRing} by
+ * name, so the names and not the order they were added decide where keys go.
+ */
+public class ShardedJedisFactory implements JedisFactory {
+
+    private final KetamaHashRing<JedisFactory> shards;
+    private final ExecutorService executor;
+
+    public ShardedJedisFactory(Map<String, JedisFactory> shards, boolean hashTags, ExecutorService executor) {
+        this.shards = new KetamaHashRing<JedisFactory>(shards, hashTags);
+        this.executor = executor;
+    }
+
+    public KetamaHashRing<JedisFactory> getShards() {
+        return this.shards;
+    }
+
+    @Override
+    public JedisActions create() {
+        Map<String, JedisActions> clients = new LinkedHashMap<String, JedisActions>();
+
+        try {
+            for (Map.Entry<String, JedisFactory> shard : this.shards.getNodes().entrySet()) {
+                clients.put(shard.getKey(), shard.getValue().create());
+            }
+        } catch (RuntimeException e) {
+            for (JedisActions client : clients.values()) {
+                client.quit();
+            }
+            throw e;
+        }
+
+        return new ShardedJedisActions(this.shards.withNodes(clients), this.executor);
+    }
+
+    /**
+     * Stops the threads used to run multi key commands and pipelines at many shards in parallel.
+     */
+    public void close() {
+        this.executor.shutdown();
+    }
+
+}
@@ -0,0 +1,472 @@
+package com.officedrop.redis.failover.jedis;
+
+import redis.clients.jedis.Tuple;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Queues each command at a pipeline for the shard that owns its key, one pipeline per shard involved.
+ * {@link #sync()} syncs them in parallel. Multi key commands are split by shard and their response is
+ * put together from the parts once all pipelines are synced.
+ */
+public class ShardedPipelineActions implements PipelineActions {
+
+    private final KetamaHashRing<JedisActions> shards;
+    private final ExecutorService executor;
+    private final Map<String, PipelineActions> pipelines = new LinkedHashMap<String, PipelineActions>();
+    private final List<Runnable> merges = new ArrayList<Runnable>();
+
+    public ShardedPipelineActions(KetamaHashRing<JedisActions> shards, ExecutorService executor) {
+        this.shards = shards;
+        this.executor = executor;
+    }
+
+    private PipelineActions pipeline(String key) {
+        return this.shardPipeline(this.shards.getName(key));
+    }
+
+    private PipelineActions shardPipeline(String name) {
+        PipelineActions pipeline = this.pipelines.get(name);
+
+        if (pipeline == null) {
+            pipeline = this.shards.getNodes().get(name).pipeline();
+            this.pipelines.put(name, pipeline);
+        }
+
+        return pipeline;
+    }
+
+    @Override
+    public void sync() {
+        List<Callable<Void>> calls = new ArrayList<Callable<Void>>(this.pipelines.size());
+
+        for (final PipelineActions pipeline : this.pipelines.values()) {
+            calls.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    pipeline.sync();
+                    return null;
+                }
+            });
+        }
+
+        try {
+            if (!calls.isEmpty()) {
+                ShardedJedisActions.inParallel(this.executor, calls);
+            }
+        } finally {
+            for (Runnable merge : this.merges) {
+                merge.run();
+            }
+
+            this.pipelines.clear();
+            this.merges.clear();
+        }
+    }
+
+    @Override
+    public PipelineResponse<Long> del(final String... keys) {
+        Map<String, List<String>> groups = ShardedJedisActions.group(this.shards, keys, 1);
+
+        if (groups.size() <= 1) {
+            return this.owner(keys).del(keys);
+        }
+
+        final List<PipelineResponse<Long>> parts = new ArrayList<PipelineResponse<Long>>(groups.size());
+
+        for (Map.Entry<String, List<String>> group : groups.entrySet()) {
+            parts.add(this.shardPipeline(group.getKey()).del(ShardedJedisActions.toArray(group.getValue())));
+        }
+
+        final PipelineResponse<Long> result = new PipelineResponse<Long>();
+
+        this.merges.add(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    long deleted = 0;
+
+                    for (PipelineResponse<Long> part : parts) {
+                        deleted += part.get();
+                    }
+
+                    result.complete(deleted);
+                } catch (RuntimeException e) {
+                    result.fail(e);
+                }
+            }
+        });
+
+        return result;
+    }
+
+    @Override
+    public PipelineResponse<List<String>> mget(final String... keys) {
+        Map<String, List<Integer>> groups = ShardedJedisActions.indexes(this.shards, keys);
+
+        if (groups.size() <= 1) {
+            return this.owner(keys).mget(keys);
+        }
+
+        final List<PipelineResponse<List<String>>> parts = new ArrayList<PipelineResponse<List<String>>>(groups.size());
+        final List<List<Integer>> positions = new ArrayList<List<Integer>>(groups.size());
+
+        for (Map.Entry<String, List<Integer>> group : groups.entrySet()) {
+            String[] part = new String[group.getValue().size()];
+
+            for (int x = 0; x < part.length; x++) {
+                part[x] = keys[group.getValue().get(x)];
+            }
+
+            positions.add(group.getValue());
+            parts.add(this.shardPipeline(group.getKey()).mget(part));
+        }
+
+        final PipelineResponse<List<String>> result = new PipelineResponse<List<String>>();
+
+        this.merges.add(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    String[] values = new String[keys.length];
+
+                    for (int x = 0; x < parts.size(); x++) {
+                        List<Integer> indexes = positions.get(x);
+                        List<String> part = parts.get(x).get();
+
+                        for (int y = 0; y < indexes.size(); y++) {
+                            values[indexes.get(y)] = part.get(y);
+                        }
+                    }
+
+                    result.complete(Arrays.asList(values));
+                } catch (RuntimeException e) {
+                    result.fail(e);
+                }
+            }
+        });
+
+        return result;
+    }
+
+    @Override
+    public PipelineResponse<String> mset(final String... keysvalues) {
+        Map<String, List<String>> groups = ShardedJedisActions.group(this.shards, keysvalues, 2);
+
+        if (groups.size() <= 1) {
+            return this.owner(keysvalues).mset(keysvalues);
+        }
+
+        final List<PipelineResponse<String>> parts = new ArrayList<PipelineResponse<String>>(groups.size());
+
+        for (Map.Entry<String, List<String>> group : groups.entrySet()) {
+            parts.add(this.shardPipeline(group.getKey()).mset(ShardedJedisActions.toArray(group.getValue())));
+        }
+
+        final PipelineResponse<String> result = new PipelineResponse<String>();
+
+        this.merges.add(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    String status = null;
+
+                    for (PipelineResponse<String> part : parts) {
+                        status = part.get();
+                    }
+
+                    result.complete(status);
+                } catch (RuntimeException e) {
+                    result.fail(e);
+                }
+            }
+        });
+
+        return result;
+    }
+
+    private PipelineActions owner(String[] arguments) {
+        if (arguments.length == 0) {
+            return this.shardPipeline(this.shards.getNodes().keySet().iterator().next());
+        }
+
+        return this.pipeline(arguments[0]);
+    }
+
+    @Override
+    public PipelineResponse<String> get(final String key) {
+        return this.pipeline(key).get(key);
+    }
+
+    @Override
+    public PipelineResponse<String> set(final String key, final String value) {
+        return this.pipeline(key).set(key, value);
+    }
+
+    @Override
+    public PipelineResponse<String> setex(final String key, final int seconds, final String value) {
+        return this.pipeline(key).setex(key, seconds, value);
+    }
+
+    @Override
+    public PipelineResponse<Long> setnx(final String key, final String value) {
+        return this.pipeline(key).setnx(key, value);
+    }
+
+    @Override
+    public PipelineResponse<String> getSet(final String key, final String value) {
+        return this.pipeline(key).getSet(key, value);
+    }
+
+    @Override
+    public PipelineResponse<Long> append(final String key, final String value) {
+        return this.pipeline(key).append(key, value);
+    }
+
+    @Override
+    public PipelineResponse<Long> incr(final String key) {
+        return this.pipeline(key).incr(key);
+    }
+
+    @Override
+    public PipelineResponse<Long> incrBy(final String key, final long integer) {
+        return this.pipeline(key).incrBy(key, integer);
+    }
+
+    @Override
+    public PipelineResponse<Long> decr(final String key) {
+        return this.pipeline(key).decr(key);
+    }
+
+    @Override
+    public PipelineResponse<Long> decrBy(final String key, final long integer) {
+        return this.pipeline(key).decrBy(key, integer);
+    }
+
+    @Override
+    public PipelineResponse<Boolean> exists(final String key) {
+        return this.pipeline(key).exists(key);
+    }
+
+    @Override
+    public PipelineResponse<Long> expire(final String key, final int seconds) {
+        return this.pipeline(key).expire(key, seconds);
+    }
+
+    @Override
+    public PipelineResponse<Long> expireAt(final String key, final long unixTime) {
+        return this.pipeline(key).expireAt(key, unixTime);
+    }
+
+    @Override
+    public PipelineResponse<Long> ttl(final String key) {
+        return this.pipeline(key).ttl(key);
+    }
+
+    @Override
+    public PipelineResponse<String> type(final String key) {
+        return this.pipeline(key).type(key);
+    }
+
+    @Override
+    public PipelineResponse<String> hget(final String key, final String field) {
+        return this.pipeline(key).hget(key, field);
+    }
+
+    @Override
+    public PipelineResponse<Long> hset(final String key, final String field, final String value) {
+        return this.pipeline(key).hset(key, field, value);
+    }
+
+    @Override
+    public PipelineResponse<Long> hsetnx(final String key, final String field, final String value) {
+        return this.pipeline(key).hsetnx(key, field, value);
+    }
+
+    @Override
+    public PipelineResponse<String> hmset(final String key, final Map<String, String> hash) {
+        return this.pipeline(key).hmset(key, hash);
+    }
+
+    @Override
+    public PipelineResponse<List<String>> hmget(final String key, final String... fields) {
+        return this.pipeline(key).hmget(key, fields);
+    }
+
+    @Override
+    public PipelineResponse<Map<String, String>> hgetAll(final String key) {
+        return this.pipeline(key).hgetAll(key);
+    }
+
+    @Override
+    public PipelineResponse<Long> hdel(final String key, final String field) {
+        return this.pipeline(key).hdel(key, field);
+    }
+
+    @Override
+    public PipelineResponse<Long> hincrBy(final String key, final String field, final long value) {
+        return this.pipeline(key).hincrBy(key, field, value);
+    }
+
+    @Override
+    public PipelineResponse<Boolean> hexists(final String key, final String field) {
+        return this.pipeline(key).hexists(key, field);
+    }
+
+    @Override
+    public PipelineResponse<Long> hlen(final String key) {
+        return this.pipeline(key).hlen(key);
+    }
+
+    @Override
+    public PipelineResponse<Set<String>> hkeys(final String key) {
+        return this.pipeline(key).hkeys(key);
+    }
+
+    @Override
+    public PipelineResponse<List<String>> hvals(final String key) {
+        return this.pipeline(key).hvals(key);
+    }
+
+    @Override
+    public PipelineResponse<Long> lpush(final String key, final String string) {
+        return this.pipeline(key).lpush(key, string);
+    }
+
+    @Override
+    public PipelineResponse<Long> rpush(final String key, final String string) {
+        return this.pipeline(key).rpush(key, string);
+    }
+
+    @Override
+    public PipelineResponse<String> lpop(final String key) {
+        return this.pipeline(key).lpop(key);
+    }
+
+    @Override
+    public PipelineResponse<String> rpop(final String key) {
+        return this.pipeline(key).rpop(key);
+    }
+
+    @Override
+    public PipelineResponse<Long> llen(final String key) {
+        return this.pipeline(key).llen(key);
+    }
+
+    @Override
+    public PipelineResponse<List<String>> lrange(final String key, final long start, final long end) {
+        return this.pipeline(key).lrange(key, start, end);
+    }
+
+    @Override
+    public PipelineResponse<String> lindex(final String key, final int index) {
+        return this.pipeline(key).lindex(key, index);
+    }
+
+    @Override
+    public PipelineResponse<String> ltrim(final String key, final long start, final long end) {
+        return this.pipeline(key).ltrim(key, start, end);
+    }
+
+    @Override
+    public PipelineResponse<Long> lrem(final String key, final long count, final String value) {
+        return this.pipeline(key).lrem(key, count, value);
+    }
+
+    @Override
+    public PipelineResponse<Long> sadd(final String key, final String member) {
+        return this.pipeline(key).sadd(key, member);
+    }
+
+    @Override
+    public PipelineResponse<Long> srem(final String key, final String member) {
+        return this.pipeline(key).srem(key, member);
+    }
+
+    @Override
+    public PipelineResponse<Set<String>> smembers(final String key) {
+        return this.pipeline(key).smembers(key);
+    }
+
+    @Override
+    public PipelineResponse<Boolean> sismember(final String key, final String member) {
+        return this.pipeline(key).sismember(key, member);
+    }
+
+    @Override
+    public PipelineResponse<Long> scard(final String key) {
+        return this.pipeline(key).scard(key);
+    }
+
+    @Override
+    public PipelineResponse<Long> zadd(final String key, final double score, final String member) {
+        return this.pipeline(key).zadd(key, score, member);
+    }
+
+    @Override
+    public PipelineResponse<Long> zrem(final String key, final String member) {
+        return this.pipeline(key).zrem(key, member);
+    }
+
+    @Override
+    public PipelineResponse<Double> zincrby(final String key, final double score, final String member) {
+        return this.pipeline(key).zincrby(key, score, member);
+    }
+
+    @Override
+    public PipelineResponse<Double> zscore(final String key, final String member) {
+        return this.pipeline(key).zscore(key, member);
+    }
+
+    @Override
+    public PipelineResponse<Long> zcard(final String key) {
+        return this.pipeline(key).zcard(key);
+    }
+
+    @Override
+    public PipelineResponse<Long> zrank(final String key, final String member) {
+        return this.pipeline(key).zrank(key, member);
+    }
+
+    @Override
+    public PipelineResponse<Long> zrevrank(final String key, final String member) {
+        return this.pipeline(key).zrevrank(key, member);
+    }
+
+    @Override
+    public PipelineResponse<Set<String>> zrange(final String key, final int start, final int end) {
+        return this.pipeline(key).zrange(key, start, end);
+    }
+
+    @Override
+    public PipelineResponse<Set<String>> zrevrange(final String key, final int start, final int end) {
+        return this.pipeline(key).zrevrange(key, start, end);
+    }
+
+    @Override
+    public PipelineResponse<Set<Tuple>> zrangeWithScores(final String key, final int start, final int end) {
+        return this.pipeline(key).zrangeWithScores(key, start, end);
+    }
+
+    @Override
+    public PipelineResponse<Set<String>> zrangeByScore(final String key, final double min, final double max) {
+        return this.pipeline(key).zrangeByScore(key, min, max);
+    }
+
+    @Override
+    public PipelineResponse<Long> zcount(final String key, final double min, final double max) {
+        return this.pipeline(key).zcount(key, min, max);
+    }
+
+    @Override
+    public PipelineResponse<Long> zremrangeByScore(final String key, final double start, final double end) {
+        return this.pipeline(key).zremrangeByScore(key, start, end);
+    }
+}
@@ -0,0 +1,10 @@
+package com.officedrop.redis.failover.jedis;
+
+/**
+ * Computes the value of a key that was not found at redis, see {@link JedisPool#getOrCompute(String, int, ValueLoader)}.
+ */
+public interface ValueLoader {
+
+    public String load(String key) throws Exception;
+
+}
@@ -0,0 +1,48 @@
+package com.officedrop.redis.failover.strategy;
+
+import com.officedrop.redis.failover.HostConfiguration;
+import com.officedrop.redis.failover.HostConnectionPool;
+import com.officedrop.redis.failover.NodeState;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Selects the replica with the fewest commands in flight. The scan starts at a random position so ties
+ * don't all go to the first replica on the list.
+ */
+public class LeastOutstandingReplicaSelector implements ReplicaSelector {
+
+    @Override
+    public HostConnectionPool select(List<HostConnectionPool> replicas, HostConnectionPool excluded) {
+        int size = replicas.size();
+
+        if (size == 0) {
+            return null;
+        }
+
+        int start = ReplicaSelectors.random.get().nextInt(size);
+        HostConnectionPool selected = null;
+        int selectedOutstanding = Integer.MAX_VALUE;
+
+        for (int x = 0; x < size; x++) {
+            HostConnectionPool replica = replicas.get((start + x) % size);
+
+            if (ReplicaSelectors.isUsable(replica, excluded)) {
+                int outstanding = replica.getActiveCount();
+
+                if (outstanding < selectedOutstanding) {
+                    selected = replica;
+                    selectedOutstanding = outstanding;
+                }
+            }
+        }
+
+        return selected;
+    }
+
+    @Override
+    public void replicasChanged(List<HostConnectionPool> replicas, Map<HostConfiguration, NodeState> states) {
+    }
+
+}
@@ -0,0 +1,106 @@
+package com.officedrop.redis.failover.strategy;
+
+import com.officedrop.redis.failover.HostConfiguration;
+import com.officedrop.redis.failover.HostConnectionPool;
+import com.officedrop.redis.failover.NodeState;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Picks the better of two randomly sampled replicas. The cost of a replica is its latency estimate
+ * multiplied by the number of commands in flight on it plus one, so a slow or paused replica quickly stops
+ * receiving reads. The estimate of a replica that receives no reads keeps going down, see
+ * {@link HostConnectionPool#getLatencyEstimate()}, so it's selected and measured again after a while
+ * instead of being starved by a few slow samples.
+ *
+ * Replicas that were not used yet have their latency seeded from the latencies measured by the node
+ * manager.
+ */
+public class PowerOfTwoChoicesReplicaSelector implements ReplicaSelector {
+
+    private static final int SAMPLE_ATTEMPTS = 4;
+
+    @Override
+    public HostConnectionPool select(List<HostConnectionPool> replicas, HostConnectionPool excluded) {
+        int size = replicas.size();
+
+        if (size == 0) {
+            return null;
+        }
+
+        if (size == 1) {
+            HostConnectionPool replica = replicas.get(0);
+            return ReplicaSelectors.isUsable(replica, excluded) ? replica : null;
+        }
+
+        Random generator = ReplicaSelectors.random.get();
+
+        for (int attempt = 0; attempt < SAMPLE_ATTEMPTS; attempt++) {
+            int first = generator.nextInt(size);
+            int second = generator.nextInt(size - 1);
+
+            if (second >= first) {
+                second++;
+            }
+
+            HostConnectionPool a = replicas.get(first);
+            HostConnectionPool b = replicas.get(second);
+
+            boolean aUsable = ReplicaSelectors.isUsable(a, excluded);
+            boolean bUsable = ReplicaSelectors.isUsable(b, excluded);
+
+            if (aUsable && bUsable) {
+                return cost(a) <= cost(b) ? a : b;
+            }
+
+            if (aUsable) {
+                return a;
+            }
+
+            if (bUsable) {
+                return b;
+            }
+        }
+
+        return cheapest(replicas, excluded);
+    }
+
+    /**
+     * Seeds the latency of replicas that were not used yet with the latencies measured by the node manager,
+     * which are in milliseconds.
+     */
+    @Override
+    public void replicasChanged(List<HostConnectionPool> replicas, Map<HostConfiguration, NodeState> states) {
+        if (states == null) {
+            return;
+        }
+
+        for (HostConnectionPool replica : replicas) {
+            NodeState state = states.get(replica.getHostConfiguration());
+
+            if (state != null && !state.isOffline()) {
+                replica.seedLatency(state.getLatency() * 1000d);
+            }
+        }
+    }
+
+    private static HostConnectionPool cheapest(List<HostConnectionPool> replicas, HostConnectionPool excluded) {
+        HostConnectionPool selected = null;
+
+        for (HostConnectionPool replica : replicas) {
+            if (ReplicaSelectors.isUsable(replica, excluded) && (selected == null || cost(replica) < cost(selected))) {
+                selected = replica;
+            }
+        }
+
+        return selected;
+    }
+
+    private static double cost(HostConnectionPool replica) {
+        double latency = replica.getLatencyEstimate();
+        return (latency < 0 ? 0 : latency) * (replica.getActiveCount() + 1);
+    }
+
+}
@@ -0,0 +1,28 @@
+package com.officedrop.redis.failover.strategy;
+
+import com.officedrop.redis.failover.HostConfiguration;
+import com.officedrop.redis.failover.HostConnectionPool;
+import com.officedrop.redis.failover.NodeState;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Selects a random replica, using a random generator per thread so callers never share state.
+ */
+public class RandomReplicaSelector implements ReplicaSelector {
+
+    @Override
+    public HostConnectionPool select(List<HostConnectionPool> replicas, HostConnectionPool excluded) {
+        if (replicas.isEmpty()) {
+            return null;
+        }
+
+        return ReplicaSelectors.firstUsable(replicas, ReplicaSelectors.random.get().nextInt(replicas.size()), excluded);
+    }
+
+    @Override
+    public void replicasChanged(List<HostConnectionPool> replicas, Map<HostConfiguration, NodeState> states) {
+    }
+
+}
@@ -0,0 +1,28 @@
+package com.officedrop.redis.failover.strategy;
+
+import com.officedrop.redis.failover.HostConfiguration;
+import com.officedrop.redis.failover.HostConnectionPool;
+import com.officedrop.redis.failover.NodeState;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decides which slave serves a read. Implementations are shared by many threads and are called on every
+ * read, so they must be thread safe and should not block.
+ */
+public interface ReplicaSelector {
+
+    /**
+     * Selects one of the replicas that is not suspect and is not the excluded one (the excluded replica
+     * may be null). Returns null if there is no usable replica, the read then goes to the master.
+     */
+    public HostConnectionPool select( List<HostConnectionPool> replicas, HostConnectionPool excluded );
+
+    /**
+     * Called whenever the set of replicas changes, with the node states collected by the node manager
+     * (may be null).
+     */
+    public void replicasChanged( List<HostConnectionPool> replicas, Map<HostConfiguration, NodeState> states );
+
+}
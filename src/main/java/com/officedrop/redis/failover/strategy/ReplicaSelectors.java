@@ -0,0 +1,43 @@
+package com.officedrop.redis.failover.strategy;
+
+import com.officedrop.redis.failover.HostConnectionPool;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Helpers shared by the {@link ReplicaSelector} implementations.
+ */
+final class ReplicaSelectors {
+
+    static final ThreadLocal<Random> random = new ThreadLocal<Random>() {
+        @Override
+        protected Random initialValue() {
+            return new Random();
+        }
+    };
+
+    private ReplicaSelectors() {
+    }
+
+    static boolean isUsable(HostConnectionPool replica, HostConnectionPool excluded) {
+        return replica != excluded && !replica.isSuspect();
+    }
+
+    /**
+     * Returns the first usable replica starting at the given position and wrapping around the list.
+     */
+    static HostConnectionPool firstUsable(List<HostConnectionPool> replicas, int start, HostConnectionPool excluded) {
+        int size = replicas.size();
+
+        for (int x = 0; x < size; x++) {
+            HostConnectionPool replica = replicas.get((start + x) % size);
+            if (isUsable(replica, excluded)) {
+                return replica;
+            }
+        }
+
+        return null;
+    }
+
+}
@@ -0,0 +1,34 @@
+package com.officedrop.redis.failover.strategy;
+
+import com.officedrop.redis.failover.HostConfiguration;
+import com.officedrop.redis.failover.HostConnectionPool;
+import com.officedrop.redis.failover.NodeState;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Every replica gets the same share of reads. The position is a single atomic counter so selecting a
+ * replica never takes a lock.
+ */
+public class RoundRobinReplicaSelector implements ReplicaSelector {
+
+    private final AtomicInteger counter = new AtomicInteger();
+
+    @Override
+    public HostConnectionPool select(List<HostConnectionPool> replicas, HostConnectionPool excluded) {
+        if (replicas.isEmpty()) {
+            return null;
+        }
+
+        int position = (this.counter.getAndIncrement() & Integer.MAX_VALUE) % replicas.size();
+
+        return ReplicaSelectors.firstUsable(replicas, position, excluded);
+    }
+
+    @Override
+    public void replicasChanged(List<HostConnectionPool> replicas, Map<HostConfiguration, NodeState> states) {
+    }
+
+}
@@ -0,0 +1,80 @@
+package com.officedrop.redis.failover.strategy;
+
+import com.officedrop.redis.failover.HostConfiguration;
+import com.officedrop.redis.failover.HostConnectionPool;
+import com.officedrop.redis.failover.NodeState;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Round robin where each replica receives reads proportionally to its weight. Replicas without a
+ * configured weight get the default weight. The position is a single atomic counter mapped over the
+ * cumulative weights of the current replicas, so no lock is taken.
+ */
+public class WeightedRoundRobinReplicaSelector implements ReplicaSelector {
+
+    public static final int DEFAULT_WEIGHT = 1;
+
+    private final Map<HostConfiguration, Integer> weights;
+    private final int defaultWeight;
+    private final AtomicLong counter = new AtomicLong();
+
+    public WeightedRoundRobinReplicaSelector(Map<HostConfiguration, Integer> weights) {
+        this(weights, DEFAULT_WEIGHT);
+    }
+
+    public WeightedRoundRobinReplicaSelector(Map<HostConfiguration, Integer> weights, int defaultWeight) {
+        if (defaultWeight < 1) {
+            throw new IllegalArgumentException("'defaultWeight' must be at least 1");
+        }
+
+        for (Map.Entry<HostConfiguration, Integer> entry : weights.entrySet()) {
+            if (entry.getValue() == null || entry.getValue() < 1) {
+                throw new IllegalArgumentException(String.format("Weight for %s must be at least 1", entry.getKey()));
+            }
+        }
+
+        this.weights = new HashMap<HostConfiguration, Integer>(weights);
+        this.defaultWeight = defaultWeight;
+    }
+
+    @Override
+    public HostConnectionPool select(List<HostConnectionPool> replicas, HostConnectionPool excluded) {
+        int size = replicas.size();
+
+        if (size == 0) {
+            return null;
+        }
+
+        long total = 0;
+
+        for (int x = 0; x < size; x++) {
+            total += this.weightOf(replicas.get(x));
+        }
+
+        long position = (this.counter.getAndIncrement() & Long.MAX_VALUE) % total;
+        int index = 0;
+
+        for (; index < size; index++) {
+            position -= this.weightOf(replicas.get(index));
+            if (position < 0) {
+                break;
+            }
+        }
+
+        return ReplicaSelectors.firstUsable(replicas, index, excluded);
+    }
+
+    @Override
+    public void replicasChanged(List<HostConnectionPool> replicas, Map<HostConfiguration, NodeState> states) {
+    }
+
+    private int weightOf(HostConnectionPool replica) {
+        Integer weight = this.weights.get(replica.getHostConfiguration());
+        return weight != null ? weight : this.defaultWeight;
+    }
+
+}
@@ -0,0 +1,149 @@
+package com.officedrop.redis.failover.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A lock-free bag of items kept in an array of slots that are claimed and freed with a CAS, so adding and
+ * taking items doesn't allocate anything. Used to hold idle connections: items are added to the lowest free
+ * slot and taken from the highest occupied one, so the item added last is usually the next one taken and
+ * the ones sitting in the lower slots are left alone long enough to be evicted.
+ *
+ * The array only grows, doubling when an item finds no free slot. Items are moved to the new array after it
+ * is published and may be missed by a concurrent {@link #poll()} while that happens.
+ */
+public class ConcurrentSlots<T> {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private volatile AtomicReferenceArray<T> slots = new AtomicReferenceArray<T>(INITIAL_CAPACITY);
+    private final AtomicInteger size = new AtomicInteger();
+
+    public void add(T item) {
+        this.size.incrementAndGet();
+        this.place(item);
+    }
+
+    private void place(T item) {
+        while (true) {
+            AtomicReferenceArray<T> current = this.slots;
+            int index = claim(current, item);
+
+            if (index < 0) {
+                this.grow(current);
+                continue;
+            }
+
+            // the item went to an array being replaced, take it back unless it was already moved or taken
+            if (this.slots == current || !current.compareAndSet(index, item, null)) {
+                return;
+            }
+        }
+    }
+
+    private static <T> int claim(AtomicReferenceArray<T> slots, T item) {
+        for (int x = 0; x < slots.length(); x++) {
+            if (slots.get(x) == null && slots.compareAndSet(x, null, item)) {
+                return x;
+            }
+        }
+
+        return -1;
+    }
+
+    private void grow(AtomicReferenceArray<T> full) {
+        AtomicReferenceArray<T> grown;
+
+        synchronized (this) {
+            if (this.slots != full) {
+                return;
+            }
+
+            grown = new AtomicReferenceArray<T>(full.length() * 2);
+            this.slots = grown;
+        }
+
+        for (int x = 0; x < full.length(); x++) {
+            T item = full.get(x);
+
+            if (item != null && full.compareAndSet(x, item, null)) {
+                this.place(item);
+            }
+        }
+    }
+
+    /**
+     * Takes the item in the highest occupied slot, or null if there is none.
+     */
+    public T poll() {
+        AtomicReferenceArray<T> current = this.slots;
+
+        for (int x = current.length() - 1; x >= 0; x--) {
+            T item = current.get(x);
+
+            if (item != null && current.compareAndSet(x, item, null)) {
+                this.size.decrementAndGet();
+                return item;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Takes the given item if it's still here. Returns false if someone else took it first.
+     */
+    public boolean remove(T item) {
+        AtomicReferenceArray<T> current = this.slots;
+
+        for (int x = 0; x < current.length(); x++) {
+            if (current.get(x) == item && current.compareAndSet(x, item, null)) {
+                this.size.decrementAndGet();
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Takes every item, the ones in the higher slots come first in the returned list.
+     */
+    public List<T> drain() {
+        List<T> items = new ArrayList<T>();
+        T item;
+
+        while ((item = this.poll()) != null) {
+            items.add(item);
+        }
+
+        return items;
+    }
+
+    /**
+     * How many slots there are right now, together with {@link #get(int)} it lets callers look at every item
+     * without taking them and without allocating.
+     */
+    public int capacity() {
+        return this.slots.length();
+    }
+
+    /**
+     * The item in the given slot, or null if it's free. Items being moved to a grown array can be missed.
+     */
+    public T get(int slot) {
+        AtomicReferenceArray<T> current = this.slots;
+        return slot < current.length() ? current.get(slot) : null;
+    }
+
+    public int size() {
+        return this.size.get();
+    }
+
+    public boolean isEmpty() {
+        return this.size.get() <= 0;
+    }
+
+}
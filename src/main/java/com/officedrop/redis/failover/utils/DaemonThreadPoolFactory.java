@@ -2,6 +2,7 @@ package com.officedrop.redis.failover.utils;
 
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
 
 /**
@@ -26,5 +27,13 @@ public class DaemonThreadPoolFactory implements ThreadFactory {
         return Executors.newCachedThreadPool( INSTANCE );
     }
 
+    public static final ExecutorService newFixedPool( int size ) {
+        return Executors.newFixedThreadPool( size, INSTANCE );
+    }
+
+    public static final ScheduledExecutorService newScheduledPool( int size ) {
+        return Executors.newScheduledThreadPool( size, INSTANCE );
+    }
+
 
 }
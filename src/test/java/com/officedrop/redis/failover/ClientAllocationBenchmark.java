@@ -0,0 +1,162 @@
+package com.officedrop.redis.failover;
+
+import com.officedrop.redis.failover.jedis.ClientFunction;
+import com.officedrop.redis.failover.jedis.JedisClient;
+import com.officedrop.redis.failover.jedis.JedisClientFactory;
+import com.officedrop.redis.failover.utils.Function;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Measures how many bytes the failover client allocates per command on top of the connection it calls. The
+ * connections are proxies whose own allocation is measured first and subtracted from the client's numbers.
+ * Fails if client.get or client.set allocate anything per call of their own.
+ * Not a unit test, it needs a HotSpot JVM (com.sun.management.ThreadMXBean) and is run with:
+ *
+ * java -cp target/classes:target/test-classes:... com.officedrop.redis.failover.ClientAllocationBenchmark [calls]
+ */
+public class ClientAllocationBenchmark {
+
+    public static void main(String[] args) {
+
+        final int calls = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+
+        final JedisClient connection = (JedisClient) Proxy.newProxyInstance(
+                JedisClient.class.getClassLoader(),
+                new Class[]{JedisClient.class},
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] arguments) {
+                        return method.getReturnType() == String.class ? "OK" : null;
+                    }
+                });
+
+        JedisClientFactory factory = new JedisClientFactory() {
+            @Override
+            public JedisClient create(HostConfiguration configuration) {
+                return connection;
+            }
+        };
+
+        final HostConfiguration master = new HostConfiguration("localhost", 6379);
+        final List<HostConfiguration> slaves = Arrays.asList(new HostConfiguration("localhost", 6380), new HostConfiguration("localhost", 6381));
+        final ClusterStatus status = new ClusterStatus(master, slaves, Collections.<HostConfiguration>emptyList());
+        final Map<HostConfiguration, NodeState> states = new HashMap<HostConfiguration, NodeState>();
+
+        ClusterChangeEventSource nodeManager = new ClusterChangeEventSource() {
+            @Override
+            public void addListeners(NodeManagerListener... listeners) {
+            }
+
+            @Override
+            public void removeListeners(NodeManagerListener... listeners) {
+            }
+
+            @Override
+            public ClusterStatus getLastClusterStatus() {
+                return status;
+            }
+
+            @Override
+            public Map<HostConfiguration, NodeState> getCurrentNodesState() {
+                return states;
+            }
+        };
+
+        final Client client = new Client(nodeManager, factory);
+
+        Map<String, Function<Object>> runs = new LinkedHashMap<String, Function<Object>>();
+
+        runs.put("connection.get (baseline)", new Function<Object>() {
+            @Override
+            public Object apply() {
+                return connection.get("some-key");
+            }
+        });
+
+        runs.put("connection.set (baseline)", new Function<Object>() {
+            @Override
+            public Object apply() {
+                return connection.set("some-key", "some-value");
+            }
+        });
+
+        runs.put("client.get", new Function<Object>() {
+            @Override
+            public Object apply() {
+                return client.get("some-key");
+            }
+        });
+
+        runs.put("client.set", new Function<Object>() {
+            @Override
+            public Object apply() {
+                return client.set("some-key", "some-value");
+            }
+        });
+
+        runs.put("client.doAction (allocates a function)", new Function<Object>() {
+            @Override
+            public Object apply() {
+                return client.doAction(ClientType.SLAVE, "some-key", new ClientFunction<String>() {
+                    @Override
+                    public String apply(JedisClient jedis) {
+                        return jedis.get("some-key");
+                    }
+                });
+            }
+        });
+
+        // warm up so the numbers are taken from compiled code
+        for (Function<Object> run : runs.values()) {
+            measure(run, calls);
+        }
+
+        Map<String, Double> results = new HashMap<String, Double>();
+
+        for (Map.Entry<String, Function<Object>> run : runs.entrySet()) {
+            double bytes = measure(run.getValue(), calls);
+            results.put(run.getKey(), bytes);
+            System.out.println(String.format("%-45s %8.2f bytes/call", run.getKey(), bytes));
+        }
+
+        client.quit();
+
+        check(results, "client.get", "connection.get (baseline)");
+        check(results, "client.set", "connection.set (baseline)");
+    }
+
+    /**
+     * Fails if the client allocates anything per call on top of what the connection itself allocated.
+     */
+    private static void check(Map<String, Double> results, String run, String baseline) {
+        double extra = results.get(run) - results.get(baseline);
+
+        if (extra >= 1) {
+            throw new IllegalStateException(String.format("%s allocates %.2f bytes/call, it should not allocate at all", run, extra));
+        }
+    }
+
+    private static double measure(Function<Object> run, int calls) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+
+        long before = threads.getThreadAllocatedBytes(thread);
+
+        for (int x = 0; x < calls; x++) {
+            run.apply();
+        }
+
+        return (threads.getThreadAllocatedBytes(thread) - before) / (double) calls;
+    }
+
+}
@@ -2,12 +2,29 @@ package com.officedrop.redis.failover;
 
 import com.officedrop.redis.failover.jedis.JedisClient;
 import com.officedrop.redis.failover.jedis.JedisClientFactory;
+import com.officedrop.redis.failover.strategy.ReplicaSelector;
+import com.officedrop.redis.failover.strategy.RoundRobinReplicaSelector;
+import com.officedrop.redis.failover.utils.Function;
 import junit.framework.Assert;
 import org.junit.Test;
+import org.mockito.Matchers;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisDataException;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.mockito.Mockito.*;
 
@@ -61,4 +78,657 @@ public class ClientTest {
 
     }
 
+    @Test
+    public void testFailedReadIsRetriedOnAnotherSlaveWithoutPinging() throws Exception {
+
+        ClusterChangeEventSource nodeManager = mock(ClusterChangeEventSource.class );
+
+        JedisClient masterClient = mock(JedisClient.class);
+        JedisClient slaveClient1 = mock(JedisClient.class);
+        JedisClient slaveClient2 = mock(JedisClient.class);
+
+        JedisClientFactory factory = mock(JedisClientFactory.class);
+
+        HostConfiguration master = new HostConfiguration("localhost", 6000);
+        List<HostConfiguration> slaves = Arrays.asList( new HostConfiguration("localhost", 6001), new HostConfiguration("localhost", 6002) );
+
+        ClusterStatus status = new ClusterStatus( master, slaves, Collections.EMPTY_LIST );
+
+        when(nodeManager.getLastClusterStatus()).thenReturn(status);
+
+        when( factory.create(master) ).thenReturn(masterClient);
+        when( factory.create(slaves.get(0)) ).thenReturn(slaveClient1);
+        when( factory.create(slaves.get(1)) ).thenReturn(slaveClient2);
+
+        when( slaveClient1.get("some-key") ).thenThrow(new JedisConnectionException("connection reset"));
+        when( slaveClient2.get("some-key") ).thenReturn("some-value");
+
+        Client client = new Client(nodeManager, factory);
+
+        for ( int x = 0; x < 3; x++ ) {
+            Assert.assertEquals( "some-value", client.get("some-key") );
+        }
+
+        verify(slaveClient1, times(1)).get("some-key");
+        verify(slaveClient2, times(3)).get("some-key");
+        verify(slaveClient2, never()).ping();
+        verify(masterClient, never()).ping();
+        verify(masterClient, never()).get("some-key");
+
+        client.quit();
+    }
+
+    @Test
+    public void testClientsShareConnectionsToTheSameHost() throws Exception {
+
+        ClusterChangeEventSource nodeManager = mock(ClusterChangeEventSource.class );
+
+        JedisClient masterClient = mock(JedisClient.class);
+        JedisClientFactory factory = mock(JedisClientFactory.class);
+
+        HostConfiguration master = new HostConfiguration("localhost", 6000);
+
+        when(nodeManager.getLastClusterStatus()).thenReturn(new ClusterStatus( master, Collections.EMPTY_LIST, Collections.EMPTY_LIST ));
+        when( factory.create(master) ).thenReturn(masterClient);
+
+        Client first = new Client(nodeManager, factory);
+        Client second = new Client(nodeManager, factory);
+
+        first.set("some-key", "some-value");
+        second.set("some-key", "other-value");
+        second.get("some-key");
+
+        verify(factory, times(1)).create(master);
+
+        first.quit();
+        first.quit();
+
+        verify(masterClient, never()).quit();
+
+        second.quit();
+
+        verify(masterClient).quit();
+    }
+
+    @Test
+    public void testClientsShareTheRoutingTable() throws Exception {
+
+        ClusterChangeEventSource nodeManager = mock(ClusterChangeEventSource.class );
+        JedisClientFactory factory = mock(JedisClientFactory.class);
+        ReplicaSelector selector = mock(ReplicaSelector.class);
+
+        HostConfiguration master = new HostConfiguration("localhost", 6000);
+        HostConfiguration slave = new HostConfiguration("localhost", 6001);
+
+        when(nodeManager.getLastClusterStatus()).thenReturn(new ClusterStatus( master, Collections.EMPTY_LIST, Collections.EMPTY_LIST ));
+
+        ClusterRouting routing = new ClusterRouting(nodeManager, new HostConnectionPools(factory), selector);
+        Client first = new Client(routing);
+        Client second = new Client(routing);
+
+        RoutingTable initial = routing.get();
+
+        ClusterStatus withSlave = new ClusterStatus( master, Arrays.asList(slave), Collections.EMPTY_LIST );
+        when(nodeManager.getLastClusterStatus()).thenReturn(withSlave);
+        first.slavesChanged(null, withSlave);
+
+        RoutingTable changed = routing.get();
+
+        second.slavesChanged(null, withSlave);
+
+        Assert.assertSame(changed, routing.get());
+        Assert.assertSame(initial.getMaster(), changed.getMaster());
+        Assert.assertEquals(initial.getMasterVersion(), changed.getMasterVersion());
+        Assert.assertEquals(1, changed.getSlaves().size());
+        verify(selector, times(2)).replicasChanged(Matchers.<List<HostConnectionPool>>any(), Matchers.<Map<HostConfiguration, NodeState>>any());
+
+        first.quit();
+        second.quit();
+    }
+
+    @Test
+    public void testSlavesBehindTheMasterAreNotRead() throws Exception {
+
+        ClusterChangeEventSource nodeManager = mock(ClusterChangeEventSource.class );
+
+        JedisClient masterClient = mock(JedisClient.class);
+        JedisClient slaveClient1 = mock(JedisClient.class);
+        JedisClient slaveClient2 = mock(JedisClient.class);
+
+        JedisClientFactory factory = mock(JedisClientFactory.class);
+
+        HostConfiguration master = new HostConfiguration("localhost", 6000);
+        List<HostConfiguration> slaves = Arrays.asList( new HostConfiguration("localhost", 6001), new HostConfiguration("localhost", 6002) );
+
+        Map<HostConfiguration, NodeState> states = new HashMap<HostConfiguration, NodeState>();
+        states.put(master, new NodeState(1));
+        states.put(slaves.get(0), new NodeState(1, NodeState.UNSYNCED_LAG));
+        states.put(slaves.get(1), new NodeState(1, 3000));
+
+        when(nodeManager.getLastClusterStatus()).thenReturn(new ClusterStatus( master, slaves, Collections.EMPTY_LIST ));
+        when(nodeManager.getCurrentNodesState()).thenReturn(states);
+
+        when( factory.create(master) ).thenReturn(masterClient);
+        when( factory.create(slaves.get(0)) ).thenReturn(slaveClient1);
+        when( factory.create(slaves.get(1)) ).thenReturn(slaveClient2);
+
+        final Client client = new Client(nodeManager, factory);
+
+        client.get("some-key");
+        client.get("some-key");
+
+        verify(slaveClient2, times(2)).get("some-key");
+
+        client.setMaxReplicationLag(1000);
+
+        client.get("some-key");
+
+        verify(masterClient).get("some-key");
+
+        ReadPreference.withMaxStaleness(5000, new Function<String>() {
+            @Override
+            public String apply() {
+                return client.get("other-key");
+            }
+        });
+
+        verify(slaveClient2).get("other-key");
+
+        client.setMaxReplicationLag(5000);
+
+        ReadPreference.fromMaster(new Function<String>() {
+            @Override
+            public String apply() {
+                return client.get("other-key");
+            }
+        });
+
+        verify(masterClient).get("other-key");
+        verify(slaveClient1, never()).get(anyString());
+
+        client.quit();
+    }
+
+    @Test
+    public void testReadYourWrites() throws Exception {
+
+        ClusterChangeEventSource nodeManager = mock(ClusterChangeEventSource.class );
+
+        JedisClient masterClient = mock(JedisClient.class);
+        JedisClient slaveClient = mock(JedisClient.class);
+
+        JedisClientFactory factory = mock(JedisClientFactory.class);
+
+        HostConfiguration master = new HostConfiguration("localhost", 6000);
+        HostConfiguration slave = new HostConfiguration("localhost", 6001);
+
+        when(nodeManager.getLastClusterStatus()).thenReturn(new ClusterStatus( master, Arrays.asList(slave), Collections.EMPTY_LIST ));
+        when( factory.create(master) ).thenReturn(masterClient);
+        when( factory.create(slave) ).thenReturn(slaveClient);
+
+        Client client = new Client(nodeManager, factory);
+        client.setRecentWrites(new RecentWrites(1, TimeUnit.MINUTES));
+
+        client.set("written-key", "some-value");
+        client.get("written-key");
+        client.hgetAll("written-key");
+        client.get("other-key");
+
+        verify(masterClient).get("written-key");
+        verify(masterClient).hgetAll("written-key");
+        verify(slaveClient, never()).get("written-key");
+        verify(slaveClient).get("other-key");
+
+        client.quit();
+    }
+
+    @Test
+    public void testRecentWritesDontJoinReadsStartedBeforeThem() throws Exception {
+
+        ClusterChangeEventSource nodeManager = mock(ClusterChangeEventSource.class );
+
+        JedisClient masterClient = mock(JedisClient.class);
+        JedisClient slaveClient = mock(JedisClient.class);
+        JedisClientFactory factory = mock(JedisClientFactory.class);
+
+        HostConfiguration master = new HostConfiguration("localhost", 6000);
+        HostConfiguration slave = new HostConfiguration("localhost", 6001);
+
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch finish = new CountDownLatch(1);
+
+        when(nodeManager.getLastClusterStatus()).thenReturn(new ClusterStatus( master, Arrays.asList(slave), Collections.EMPTY_LIST ));
+        when( factory.create(master) ).thenReturn(masterClient);
+        when( factory.create(slave) ).thenReturn(slaveClient);
+        when( masterClient.set("some-key", "new-value") ).thenReturn("OK");
+        when( masterClient.get("some-key") ).thenReturn("new-value");
+        when( slaveClient.get("some-key") ).thenAnswer(new Answer<String>() {
+            @Override
+            public String answer(InvocationOnMock invocation) throws Throwable {
+                started.countDown();
+                finish.await();
+                return "old-value";
+            }
+        });
+
+        final Client client = new Client(nodeManager, factory);
+        client.setRecentWrites(new RecentWrites(1, TimeUnit.MINUTES));
+        client.setSingleFlight(new SingleFlight());
+
+        final List<String> slowRead = Collections.synchronizedList(new ArrayList<String>());
+
+        Thread reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                slowRead.add(client.get("some-key"));
+            }
+        });
+        reader.start();
+        started.await();
+
+        client.set("some-key", "new-value");
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            Future<String> read = executor.submit(new Callable<String>() {
+                @Override
+                public String call() {
+                    return client.get("some-key");
+                }
+            });
+
+            Assert.assertEquals("new-value", read.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+            finish.countDown();
+            reader.join();
+        }
+
+        Assert.assertEquals(Arrays.asList("old-value"), slowRead);
+        verify(masterClient).get("some-key");
+
+        client.quit();
+    }
+
+    @Test
+    public void testWritesFailFastWithoutAMasterAndReadsGoToSlaves() throws Exception {
+
+        ClusterChangeEventSource nodeManager = mock(ClusterChangeEventSource.class );
+        JedisClientFactory factory = mock(JedisClientFactory.class);
+        JedisClient slaveClient = mock(JedisClient.class);
+
+        HostConfiguration master = new HostConfiguration("localhost", 6000);
+        HostConfiguration slave = new HostConfiguration("localhost", 6001);
+
+        when(nodeManager.getLastClusterStatus()).thenReturn(new ClusterStatus( master, Arrays.asList(slave), Collections.EMPTY_LIST ));
+        when( factory.create(slave) ).thenReturn(slaveClient);
+        when( slaveClient.get("some-key") ).thenReturn("some-value");
+
+        Client client = new Client(nodeManager, factory);
+
+        ClusterStatus noMaster = new ClusterStatus( null, Arrays.asList(slave), Arrays.asList(master) );
+        when(nodeManager.getLastClusterStatus()).thenReturn(noMaster);
+        client.masterChanged(null, noMaster);
+
+        try {
+            client.set("some-key", "other-value");
+            Assert.fail("writes should fail while there is no master");
+        } catch ( NoMasterException e ) {
+            // expected
+        }
+
+        Assert.assertEquals("some-value", client.get("some-key"));
+        verify(factory, never()).create(master);
+    }
+
+    @Test
+    public void testTopologyChangesReuseConnectionsAndDrainRemovedHosts() throws Exception {
+
+        ClusterChangeEventSource nodeManager = mock(ClusterChangeEventSource.class );
+        JedisClientFactory factory = mock(JedisClientFactory.class);
+        JedisClient masterClient = mock(JedisClient.class);
+        JedisClient slaveClient = mock(JedisClient.class);
+
+        HostConfiguration master = new HostConfiguration("localhost", 6000);
+        HostConfiguration slave = new HostConfiguration("localhost", 6001);
+
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch finish = new CountDownLatch(1);
+
+        when(nodeManager.getLastClusterStatus()).thenReturn(new ClusterStatus( master, Arrays.asList(slave), Collections.EMPTY_LIST ));
+        when( factory.create(master) ).thenReturn(masterClient);
+        when( factory.create(slave) ).thenReturn(slaveClient);
+        when( slaveClient.get("some-key") ).thenReturn("some-value");
+        when( slaveClient.set("some-key", "other-value") ).thenReturn("OK");
+        when( masterClient.set("some-key", "some-value") ).thenAnswer(new Answer<String>() {
+            @Override
+            public String answer(InvocationOnMock invocation) throws Throwable {
+                started.countDown();
+                finish.await();
+                return "OK";
+            }
+        });
+
+        final Client client = new Client(nodeManager, factory);
+
+        Assert.assertEquals("some-value", client.get("some-key"));
+
+        Thread write = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                client.set("some-key", "some-value");
+            }
+        });
+        write.start();
+        started.await();
+
+        ClusterStatus promoted = new ClusterStatus( slave, Collections.EMPTY_LIST, Arrays.asList(master) );
+        when(nodeManager.getLastClusterStatus()).thenReturn(promoted);
+        client.masterChanged(null, promoted);
+        client.slavesChanged(null, promoted);
+
+        verify(masterClient, never()).quit();
+
+        finish.countDown();
+        write.join();
+
+        verify(masterClient).quit();
+
+        Assert.assertEquals("OK", client.set("some-key", "other-value"));
+        verify(factory, times(1)).create(slave);
+        verify(slaveClient, never()).quit();
+
+        HostConnectionPools pools = HostConnectionPools.acquire(factory);
+
+        try {
+            Assert.assertEquals(1, pools.getPools().size());
+        } finally {
+            pools.release();
+        }
+    }
+
+    @Test
+    public void testHostsAreOnlyDrainedWhenNoRoutingUsesThem() throws Exception {
+
+        ClusterChangeEventSource first = mock(ClusterChangeEventSource.class );
+        ClusterChangeEventSource second = mock(ClusterChangeEventSource.class );
+        JedisClientFactory factory = mock(JedisClientFactory.class);
+        JedisClient slaveClient = mock(JedisClient.class);
+
+        HostConfiguration master = new HostConfiguration("localhost", 6000);
+        HostConfiguration slave = new HostConfiguration("localhost", 6001);
+
+        ClusterStatus initial = new ClusterStatus( master, Arrays.asList(slave), Collections.EMPTY_LIST );
+        ClusterStatus removed = new ClusterStatus( master, Collections.EMPTY_LIST, Arrays.asList(slave) );
+
+        when(first.getLastClusterStatus()).thenReturn(initial);
+        when(second.getLastClusterStatus()).thenReturn(initial);
+        when( factory.create(slave) ).thenReturn(slaveClient);
+        when( slaveClient.get("some-key") ).thenReturn("some-value");
+
+        HostConnectionPools pools = new HostConnectionPools(factory);
+        ClusterRouting firstRouting = new ClusterRouting(first, pools, new RoundRobinReplicaSelector());
+        ClusterRouting secondRouting = new ClusterRouting(second, pools, new RoundRobinReplicaSelector());
+
+        Assert.assertEquals("some-value", new Client(secondRouting).get("some-key"));
+
+        when(first.getLastClusterStatus()).thenReturn(removed);
+        firstRouting.update(false);
+
+        verify(slaveClient, never()).quit();
+        Assert.assertFalse(secondRouting.get().getSlaves().get(0).isClosed());
+
+        secondRouting.close();
+
+        verify(slaveClient).quit();
+        Assert.assertTrue(secondRouting.get().getSlaves().get(0).isClosed());
+    }
+
+    @Test
+    public void testCommandsAreRetriedAtTheNewMaster() throws Exception {
+
+        final ClusterChangeEventSource nodeManager = mock(ClusterChangeEventSource.class );
+
+        JedisClient oldMasterClient = mock(JedisClient.class);
+        JedisClient newMasterClient = mock(JedisClient.class);
+
+        JedisClientFactory factory = mock(JedisClientFactory.class);
+
+        HostConfiguration oldMaster = new HostConfiguration("localhost", 6000);
+        HostConfiguration newMaster = new HostConfiguration("localhost", 6001);
+
+        final ClusterStatus newStatus = new ClusterStatus( newMaster, Collections.EMPTY_LIST, Collections.EMPTY_LIST );
+
+        when(nodeManager.getLastClusterStatus()).thenReturn(new ClusterStatus( oldMaster, Collections.EMPTY_LIST, Collections.EMPTY_LIST ));
+        when( factory.create(oldMaster) ).thenReturn(oldMasterClient);
+        when( factory.create(newMaster) ).thenReturn(newMasterClient);
+
+        when( oldMasterClient.get("some-key") ).thenThrow(new JedisConnectionException("connection reset"));
+        when( oldMasterClient.set("some-key", "some-value") ).thenThrow(new JedisConnectionException("connection reset"));
+        when( newMasterClient.get("some-key") ).thenReturn("some-value");
+        when( newMasterClient.set("some-key", "some-value") ).thenReturn("OK");
+
+        final Client client = new Client(nodeManager, factory);
+        client.setFailoverRetryTimeout(5000);
+
+        try {
+            client.set("some-key", "some-value");
+            Assert.fail("writes should not be retried unless marked as retryable");
+        } catch ( JedisConnectionException e ) {
+            // expected
+        }
+
+        Thread failover = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(100);
+                } catch ( InterruptedException e ) {
+                    return;
+                }
+
+                when(nodeManager.getLastClusterStatus()).thenReturn(newStatus);
+                client.masterChanged(null, newStatus);
+            }
+        });
+        failover.start();
+
+        Assert.assertEquals("some-value", client.get("some-key"));
+
+        failover.join();
+
+        verify(oldMasterClient).get("some-key");
+        verify(newMasterClient).get("some-key");
+
+        Assert.assertEquals("OK", RetryableWrites.with(new Function<String>() {
+            @Override
+            public String apply() {
+                return client.set("some-key", "some-value");
+            }
+        }));
+
+        client.quit();
+    }
+
+    @Test
+    public void testRetriesGiveUpAfterTheTimeout() throws Exception {
+
+        ClusterChangeEventSource nodeManager = mock(ClusterChangeEventSource.class );
+
+        JedisClient masterClient = mock(JedisClient.class);
+        JedisClientFactory factory = mock(JedisClientFactory.class);
+
+        HostConfiguration master = new HostConfiguration("localhost", 6000);
+        ClusterStatus status = new ClusterStatus( master, Collections.EMPTY_LIST, Collections.EMPTY_LIST );
+
+        when(nodeManager.getLastClusterStatus()).thenReturn(status);
+        when( factory.create(master) ).thenReturn(masterClient);
+        when( masterClient.get("some-key") ).thenThrow(new JedisConnectionException("connection reset"));
+        when( masterClient.get("other-key") ).thenThrow(new JedisDataException("WRONGTYPE"));
+
+        Client client = new Client(nodeManager, factory);
+        client.setFailoverRetryTimeout(100);
+
+        long start = System.currentTimeMillis();
+
+        try {
+            client.get("some-key");
+            Assert.fail("should have given up");
+        } catch ( JedisConnectionException e ) {
+            Assert.assertTrue(System.currentTimeMillis() - start >= 100);
+        }
+
+        try {
+            client.get("other-key");
+            Assert.fail("should not retry data errors");
+        } catch ( JedisDataException e ) {
+            verify(masterClient).get("other-key");
+        }
+
+        Assert.assertTrue(Client.isFailoverError(new JedisDataException("READONLY You can't write against a read only slave.")));
+        Assert.assertFalse(Client.isFailoverError(new JedisDataException("ERR unknown command")));
+
+        client.quit();
+    }
+
+    @Test
+    public void testLargeMultiKeyCommandsAreChunked() throws Exception {
+
+        ClusterChangeEventSource nodeManager = mock(ClusterChangeEventSource.class );
+
+        JedisClient masterClient = mock(JedisClient.class);
+        JedisClient slaveClient1 = mock(JedisClient.class);
+        JedisClient slaveClient2 = mock(JedisClient.class);
+
+        JedisClientFactory factory = mock(JedisClientFactory.class);
+
+        HostConfiguration master = new HostConfiguration("localhost", 6000);
+        List<HostConfiguration> slaves = Arrays.asList( new HostConfiguration("localhost", 6001), new HostConfiguration("localhost", 6002) );
+
+        when(nodeManager.getLastClusterStatus()).thenReturn(new ClusterStatus( master, slaves, Collections.EMPTY_LIST ));
+        when( factory.create(master) ).thenReturn(masterClient);
+        when( factory.create(slaves.get(0)) ).thenReturn(slaveClient1);
+        when( factory.create(slaves.get(1)) ).thenReturn(slaveClient2);
+
+        Answer<List<String>> values = new Answer<List<String>>() {
+            @Override
+            public List<String> answer(InvocationOnMock invocation) {
+                List<String> result = new ArrayList<String>();
+                for ( Object key : invocation.getArguments() ) {
+                    result.add("value-" + key);
+                }
+                return result;
+            }
+        };
+
+        when( slaveClient1.mget(Matchers.<String>anyVararg()) ).thenAnswer(values);
+        when( slaveClient2.mget(Matchers.<String>anyVararg()) ).thenAnswer(values);
+        when( masterClient.del(Matchers.<String>anyVararg()) ).thenReturn(2L, 1L);
+        when( masterClient.mset(Matchers.<String>anyVararg()) ).thenReturn("OK");
+
+        Client client = new Client(nodeManager, factory);
+        client.setMultiKeyChunkSize(2);
+
+        Assert.assertEquals(
+                Arrays.asList("value-a", "value-b", "value-c", "value-d", "value-e"),
+                client.mget("a", "b", "c", "d", "e"));
+
+        verify(slaveClient1, atLeastOnce()).mget(Matchers.<String>anyVararg());
+        verify(slaveClient2, atLeastOnce()).mget(Matchers.<String>anyVararg());
+
+        Assert.assertEquals(Long.valueOf(3), client.del("a", "b", "c"));
+        verify(masterClient).del("a", "b");
+        verify(masterClient).del("c");
+
+        Assert.assertEquals("OK", client.mset("a", "1", "b", "2", "c", "3"));
+        verify(masterClient).mset("a", "1", "b", "2");
+        verify(masterClient).mset("c", "3");
+
+        client.quit();
+    }
+
+    @Test
+    public void testChunkedReadsKeepTheReadPreference() throws Exception {
+
+        ClusterChangeEventSource nodeManager = mock(ClusterChangeEventSource.class );
+
+        JedisClient masterClient = mock(JedisClient.class);
+        JedisClient slaveClient = mock(JedisClient.class);
+
+        JedisClientFactory factory = mock(JedisClientFactory.class);
+
+        HostConfiguration master = new HostConfiguration("localhost", 6000);
+        HostConfiguration slave = new HostConfiguration("localhost", 6001);
+
+        when(nodeManager.getLastClusterStatus()).thenReturn(new ClusterStatus( master, Arrays.asList(slave), Collections.EMPTY_LIST ));
+        when( factory.create(master) ).thenReturn(masterClient);
+        when( factory.create(slave) ).thenReturn(slaveClient);
+        when( masterClient.mget(Matchers.<String>anyVararg()) ).thenReturn(Arrays.asList("1", "2"), Arrays.asList("3", "4"), Arrays.asList("5"));
+
+        final Client client = new Client(nodeManager, factory);
+        client.setMultiKeyChunkSize(2);
+
+        List<String> result = ReadPreference.fromMaster(new Function<List<String>>() {
+            @Override
+            public List<String> apply() {
+                return client.mget("a", "b", "c", "d", "e");
+            }
+        });
+
+        Assert.assertEquals(5, result.size());
+        verify(masterClient, times(3)).mget(Matchers.<String>anyVararg());
+        verify(slaveClient, never()).mget(Matchers.<String>anyVararg());
+
+        client.quit();
+    }
+
+    @Test
+    public void testNearCache() throws Exception {
+
+        ClusterChangeEventSource nodeManager = mock(ClusterChangeEventSource.class );
+
+        JedisClient masterClient = mock(JedisClient.class);
+        JedisClient slaveClient = mock(JedisClient.class);
+
+        JedisClientFactory factory = mock(JedisClientFactory.class);
+
+        HostConfiguration master = new HostConfiguration("localhost", 6000);
+        HostConfiguration slave = new HostConfiguration("localhost", 6001);
+        ClusterStatus status = new ClusterStatus( master, Arrays.asList(slave), Collections.EMPTY_LIST );
+
+        when(nodeManager.getLastClusterStatus()).thenReturn(status);
+        when( factory.create(master) ).thenReturn(masterClient);
+        when( factory.create(slave) ).thenReturn(slaveClient);
+        when( slaveClient.get("some-key") ).thenReturn("some-value");
+        when( slaveClient.hget("some-hash", "field") ).thenReturn("field-value");
+
+        NearCache cache = new NearCache(100, 1, TimeUnit.MINUTES);
+        cache.setWriteSettleTime(0, TimeUnit.MILLISECONDS);
+
+        Client client = new Client(nodeManager, factory);
+        client.setNearCache(cache);
+
+        Assert.assertEquals("some-value", client.get("some-key"));
+        Assert.assertEquals("some-value", client.get("some-key"));
+        Assert.assertEquals("field-value", client.hget("some-hash", "field"));
+        Assert.assertEquals("field-value", client.hget("some-hash", "field"));
+
+        verify(slaveClient, times(1)).get("some-key");
+        verify(slaveClient, times(1)).hget("some-hash", "field");
+
+        client.set("some-key", "other-value");
+        client.get("some-key");
+
+        verify(slaveClient, times(2)).get("some-key");
+
+        client.masterChanged(null, status);
+        client.hget("some-hash", "field");
+
+        verify(slaveClient, times(2)).hget("some-hash", "field");
+        Assert.assertEquals(2, cache.getHitCount());
+
+        client.quit();
+    }
+
 }
@@ -0,0 +1,38 @@
+package com.officedrop.redis.failover;
+
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class ConnectThrottleTest {
+
+    @Test
+    public void testBurstIsAllowedAndThenLimited() throws Exception {
+
+        ConnectThrottle throttle = new ConnectThrottle(20, 3, 1, TimeUnit.SECONDS);
+
+        Assert.assertTrue(throttle.tryAcquire());
+        Assert.assertTrue(throttle.tryAcquire());
+        Assert.assertTrue(throttle.tryAcquire());
+        Assert.assertFalse(throttle.tryAcquire());
+
+        Thread.sleep(60);
+
+        Assert.assertTrue(throttle.tryAcquire());
+        Assert.assertFalse(throttle.tryAcquire());
+    }
+
+    @Test
+    public void testDelaysAreJitteredAroundTheInterval() {
+
+        ConnectThrottle throttle = new ConnectThrottle(10, 1, 1, TimeUnit.SECONDS);
+        long interval = TimeUnit.MILLISECONDS.toNanos(100);
+
+        for (int x = 0; x < 100; x++) {
+            long delay = throttle.nextDelay();
+            Assert.assertTrue(delay > 0 && delay <= 2 * interval + 1);
+        }
+    }
+
+}
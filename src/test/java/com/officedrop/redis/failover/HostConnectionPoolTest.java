@@ -0,0 +1,260 @@
+package com.officedrop.redis.failover;
+
+import com.officedrop.redis.failover.jedis.JedisClient;
+import com.officedrop.redis.failover.jedis.JedisClientFactory;
+import junit.framework.Assert;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.*;
+
+public class HostConnectionPoolTest {
+
+    private final HostConfiguration host = new HostConfiguration("localhost", 6000);
+
+    @Test
+    public void testConnectionsAreCreatedOnDemandAndReused() {
+
+        JedisClientFactory factory = mock(JedisClientFactory.class);
+        when(factory.create(host)).thenReturn(mock(JedisClient.class), mock(JedisClient.class));
+
+        HostConnectionPool pool = new HostConnectionPool(host, factory);
+
+        HostConnection first = pool.borrow();
+        HostConnection second = pool.borrow();
+
+        Assert.assertNotSame(first.getClient(), second.getClient());
+        Assert.assertEquals(2, pool.getActiveCount());
+
+        pool.release(first);
+        pool.release(second);
+
+        HostConnection third = pool.borrow();
+
+        Assert.assertSame(second.getClient(), third.getClient());
+        Assert.assertEquals(2, pool.getCreatedCount());
+        Assert.assertEquals(2, pool.getPeakActiveCount());
+        Assert.assertEquals(1, pool.getIdleCount());
+    }
+
+    @Test
+    public void testEvictIdleClosesOldConnections() throws Exception {
+
+        JedisClient client = mock(JedisClient.class);
+        JedisClientFactory factory = mock(JedisClientFactory.class);
+        when(factory.create(host)).thenReturn(client);
+
+        HostConnectionPool pool = new HostConnectionPool(host, factory);
+
+        pool.release(pool.borrow());
+
+        Assert.assertEquals(0, pool.evictIdle(60000));
+        Thread.sleep(5);
+        Assert.assertEquals(1, pool.evictIdle(1));
+        Assert.assertEquals(0, pool.getIdleCount());
+
+        verify(client).quit();
+    }
+
+    @Test
+    public void testEvictIdleKeepsTheMinIdleConnections() throws Exception {
+
+        JedisClient first = mock(JedisClient.class);
+        JedisClient second = mock(JedisClient.class);
+        JedisClient third = mock(JedisClient.class);
+        JedisClientFactory factory = mock(JedisClientFactory.class);
+        when(factory.create(host)).thenReturn(first, second, third);
+
+        HostConnectionPool pool = new HostConnectionPool(host, factory);
+        pool.setMinIdle(2);
+
+        HostConnection a = pool.borrow();
+        HostConnection b = pool.borrow();
+        pool.release(a);
+        pool.release(b);
+
+        Thread.sleep(5);
+        Assert.assertEquals(0, pool.evictIdle(1));
+        Assert.assertEquals(2, pool.getIdleCount());
+
+        pool.setMinIdle(3);
+        pool.evictIdle(1);
+
+        Assert.assertEquals(3, pool.getIdleCount());
+        Assert.assertEquals(3, pool.getCreatedCount());
+        verify(third).ping();
+
+        pool.setMinIdle(1);
+        Thread.sleep(5);
+
+        Assert.assertEquals(2, pool.evictIdle(1));
+        Assert.assertEquals(1, pool.getIdleCount());
+    }
+
+    @Test
+    public void testStaleIdleConnectionsArePingedAndReplacedOnBorrow() throws Exception {
+
+        JedisClient stale = mock(JedisClient.class);
+        JedisClient fresh = mock(JedisClient.class);
+        JedisClientFactory factory = mock(JedisClientFactory.class);
+        when(factory.create(host)).thenReturn(stale, fresh);
+        when(stale.ping()).thenThrow(new JedisConnectionException("connection reset"));
+
+        HostConnectionPool pool = new HostConnectionPool(host, factory);
+        pool.setValidationIdleTime(1);
+
+        pool.release(pool.borrow());
+        Thread.sleep(5);
+
+        Assert.assertSame(fresh, pool.borrow().getClient());
+        Assert.assertFalse(pool.isSuspect());
+        verify(stale).quit();
+    }
+
+    @Test
+    public void testEvictIdlePingsTheConnectionsItKeeps() throws Exception {
+
+        JedisClient healthy = mock(JedisClient.class);
+        JedisClient stale = mock(JedisClient.class);
+        JedisClientFactory factory = mock(JedisClientFactory.class);
+        when(factory.create(host)).thenReturn(healthy, stale);
+        when(stale.ping()).thenThrow(new JedisConnectionException("connection reset"));
+
+        HostConnectionPool pool = new HostConnectionPool(host, factory);
+        pool.setValidationIdleTime(1);
+
+        HostConnection first = pool.borrow();
+        HostConnection second = pool.borrow();
+        pool.release(first);
+        pool.release(second);
+        Thread.sleep(5);
+
+        Assert.assertEquals(1, pool.evictIdle(60000));
+        Assert.assertEquals(1, pool.getIdleCount());
+        verify(healthy).ping();
+        verify(stale).quit();
+        verify(healthy, never()).quit();
+    }
+
+    @Test
+    public void testSuspectHostDropsIdleConnectionsUntilChecked() {
+
+        JedisClient broken = mock(JedisClient.class);
+        JedisClient fresh = mock(JedisClient.class);
+        JedisClientFactory factory = mock(JedisClientFactory.class);
+        when(factory.create(host)).thenReturn(broken, fresh);
+
+        HostConnectionPool pool = new HostConnectionPool(host, factory);
+
+        pool.release(pool.borrow());
+
+        Assert.assertTrue(pool.markSuspect());
+        Assert.assertFalse(pool.markSuspect());
+        Assert.assertTrue(pool.isSuspect());
+        Assert.assertEquals(0, pool.getIdleCount());
+        verify(broken).quit();
+
+        Assert.assertTrue(pool.check());
+        Assert.assertFalse(pool.isSuspect());
+        Assert.assertSame(fresh, pool.borrow().getClient());
+        verify(fresh).ping();
+    }
+
+    @Test
+    public void testCheckDoesNotRefillAPoolClosedMeanwhile() {
+
+        final JedisClient fresh = mock(JedisClient.class);
+        JedisClientFactory factory = mock(JedisClientFactory.class);
+
+        final HostConnectionPool pool = new HostConnectionPool(host, factory);
+
+        when(factory.create(host)).thenAnswer(new Answer<JedisClient>() {
+            @Override
+            public JedisClient answer(InvocationOnMock invocation) {
+                pool.drain();
+                return fresh;
+            }
+        });
+
+        pool.markSuspect();
+
+        Assert.assertFalse(pool.check());
+        Assert.assertEquals(0, pool.getIdleCount());
+        verify(fresh).quit();
+    }
+
+    @Test
+    public void testThrottledCallersTakeReleasedConnections() throws Exception {
+
+        JedisClientFactory factory = mock(JedisClientFactory.class);
+        when(factory.create(host)).thenReturn(mock(JedisClient.class), mock(JedisClient.class));
+
+        final HostConnectionPool pool = new HostConnectionPool(host, factory);
+        ConnectThrottles throttles = new ConnectThrottles(1, 1, 5, TimeUnit.SECONDS);
+
+        final HostConnection first = pool.borrow(throttles);
+
+        Thread release = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    return;
+                }
+
+                pool.release(first);
+            }
+        });
+        release.start();
+
+        long start = System.currentTimeMillis();
+        HostConnection second = pool.borrow(throttles);
+        release.join();
+
+        Assert.assertSame(first.getClient(), second.getClient());
+        Assert.assertTrue(System.currentTimeMillis() - start < 2500);
+        Assert.assertEquals(1, pool.getCreatedCount());
+        Assert.assertEquals(1, pool.getThrottledCount());
+    }
+
+    @Test
+    public void testThrottledCallersConnectAfterMaxWait() {
+
+        JedisClientFactory factory = mock(JedisClientFactory.class);
+        when(factory.create(host)).thenReturn(mock(JedisClient.class), mock(JedisClient.class));
+
+        HostConnectionPool pool = new HostConnectionPool(host, factory);
+        ConnectThrottles throttles = new ConnectThrottles(0.1, 1, 50, TimeUnit.MILLISECONDS);
+
+        HostConnection first = pool.borrow(throttles);
+        HostConnection second = pool.borrow(throttles);
+
+        Assert.assertNotSame(first.getClient(), second.getClient());
+        Assert.assertEquals(2, pool.getCreatedCount());
+        Assert.assertEquals(1, pool.getThrottledCount());
+        Assert.assertTrue(pool.getConnectLatency() >= 0);
+    }
+
+    @Test
+    public void testThrottlesOnlyLimitTheCallersThatUseThem() {
+
+        JedisClientFactory factory = mock(JedisClientFactory.class);
+        when(factory.create(host)).thenReturn(mock(JedisClient.class), mock(JedisClient.class), mock(JedisClient.class));
+
+        HostConnectionPool pool = new HostConnectionPool(host, factory);
+        ConnectThrottles throttles = new ConnectThrottles(0.1, 1, 5, TimeUnit.SECONDS);
+
+        pool.borrow(throttles);
+        pool.borrow();
+        pool.borrow(new ConnectThrottles(0.1, 1, 5, TimeUnit.SECONDS));
+
+        Assert.assertEquals(3, pool.getCreatedCount());
+        Assert.assertEquals(0, pool.getThrottledCount());
+    }
+
+}
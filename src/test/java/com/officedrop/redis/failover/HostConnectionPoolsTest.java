@@ -0,0 +1,71 @@
+package com.officedrop.redis.failover;
+
+import com.officedrop.redis.failover.jedis.JedisClient;
+import com.officedrop.redis.failover.jedis.JedisClientFactory;
+import junit.framework.Assert;
+import org.junit.Test;
+
+import static org.mockito.Mockito.*;
+
+public class HostConnectionPoolsTest {
+
+    private final HostConfiguration host = new HostConfiguration("localhost", 6000);
+
+    @Test
+    public void testPoolsAreClosedWhenTheLastOwnerReleasesThem() {
+
+        JedisClientFactory factory = mock(JedisClientFactory.class);
+        JedisClient client = mock(JedisClient.class);
+        when(factory.create(host)).thenReturn(client);
+
+        HostConnectionPools first = HostConnectionPools.acquire(factory);
+        HostConnectionPools second = HostConnectionPools.acquire(factory);
+
+        Assert.assertSame(first, second);
+
+        HostConnectionPool pool = first.get(host);
+        pool.release(pool.borrow());
+
+        first.release();
+
+        verify(client, never()).quit();
+        Assert.assertFalse(pool.isClosed());
+
+        second.release();
+
+        verify(client).quit();
+        Assert.assertTrue(pool.isClosed());
+
+        HostConnectionPools next = HostConnectionPools.acquire(factory);
+
+        try {
+            Assert.assertNotSame(first, next);
+            Assert.assertTrue(next.getPools().isEmpty());
+        } finally {
+            next.release();
+        }
+    }
+
+    @Test
+    public void testTheIdleFloorsOfEveryOwnerAddUp() {
+
+        HostConnectionPools pools = new HostConnectionPools(mock(JedisClientFactory.class));
+        Object first = new Object();
+        Object second = new Object();
+
+        HostConnectionPool existing = pools.get(host);
+
+        pools.setIdleFloor(first, 2);
+        pools.setIdleFloor(second, 3);
+
+        Assert.assertEquals(5, existing.getMinIdle());
+        Assert.assertEquals(5, pools.get(new HostConfiguration("localhost", 6001)).getMinIdle());
+
+        pools.setIdleFloor(second, 0);
+
+        Assert.assertEquals(2, existing.getMinIdle());
+
+        pools.close();
+    }
+
+}
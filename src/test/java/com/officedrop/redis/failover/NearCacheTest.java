@@ -0,0 +1,89 @@
+package com.officedrop.redis.failover;
+
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class NearCacheTest {
+
+    @Test
+    public void testValuesAreCachedUntilTheyExpire() throws Exception {
+
+        NearCache cache = new NearCache(100, 100, TimeUnit.MILLISECONDS);
+
+        Assert.assertSame(NearCache.MISS, cache.get("some-key"));
+
+        cache.put("some-key", "some-value", cache.token("some-key"));
+        cache.put("missing-key", null, cache.token("missing-key"));
+
+        Assert.assertEquals("some-value", cache.get("some-key"));
+        Assert.assertNull(cache.get("missing-key"));
+        Assert.assertEquals(2, cache.getHitCount());
+        Assert.assertEquals(1, cache.getMissCount());
+
+        Thread.sleep(150);
+
+        Assert.assertSame(NearCache.MISS, cache.get("some-key"));
+    }
+
+    @Test
+    public void testPrefixTtl() throws Exception {
+
+        NearCache cache = new NearCache(100, 1, TimeUnit.MINUTES);
+        cache.setTtl("short:", 50, TimeUnit.MILLISECONDS);
+
+        cache.put("short:key", "value", cache.token("short:key"));
+        cache.put("long:key", "value", cache.token("long:key"));
+
+        Thread.sleep(100);
+
+        Assert.assertSame(NearCache.MISS, cache.get("short:key"));
+        Assert.assertEquals("value", cache.get("long:key"));
+    }
+
+    @Test
+    public void testInvalidatedKeysAreNotCachedWhileWritesSettle() throws Exception {
+
+        NearCache cache = new NearCache(100, 1, TimeUnit.MINUTES);
+        cache.setWriteSettleTime(50, TimeUnit.MILLISECONDS);
+
+        long token = cache.token("some-key");
+
+        cache.invalidate("some-key");
+        cache.put("some-key", "stale-value", token);
+
+        Assert.assertSame(NearCache.MISS, cache.get("some-key"));
+
+        cache.put("some-key", "stale-value", cache.token("some-key"));
+
+        Assert.assertSame(NearCache.MISS, cache.get("some-key"));
+
+        Thread.sleep(100);
+
+        cache.putField("some-key", "field", "value", cache.token("some-key"));
+
+        Assert.assertEquals("value", cache.getField("some-key", "field"));
+        Assert.assertSame(NearCache.MISS, cache.getField("some-key", "other-field"));
+        Assert.assertEquals(1, cache.getInvalidationCount());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedKeysAreEvicted() {
+
+        NearCache cache = new NearCache(16, 1, TimeUnit.MINUTES);
+
+        for ( int x = 0; x < 100; x++ ) {
+            String key = "key-" + x;
+            cache.put(key, "value", cache.token(key));
+        }
+
+        Assert.assertTrue(cache.size() <= 16);
+        Assert.assertEquals(100 - cache.size(), cache.getEvictionCount());
+
+        cache.clear();
+
+        Assert.assertEquals(0, cache.size());
+    }
+
+}
@@ -9,6 +9,7 @@ import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Map;
 import java.util.concurrent.Exchanger;
 import java.util.concurrent.TimeUnit;
 
@@ -132,4 +133,25 @@ public class NodeTest {
 
     }
 
+    @Test
+    public void testReplicationLag() {
+
+        Assert.assertEquals(NodeState.UNKNOWN_LAG, Node.replicationLag(info("role:master")));
+        Assert.assertEquals(3000, Node.replicationLag(info("role:slave", "master_link_status:up", "master_last_io_seconds_ago:3", "master_sync_in_progress:0", "loading:0")));
+        Assert.assertEquals(NodeState.UNSYNCED_LAG, Node.replicationLag(info("role:slave", "master_link_status:down", "master_last_io_seconds_ago:-1")));
+        Assert.assertEquals(NodeState.UNSYNCED_LAG, Node.replicationLag(info("role:slave", "master_link_status:up", "master_sync_in_progress:1")));
+        Assert.assertEquals(NodeState.UNSYNCED_LAG, Node.replicationLag(info("role:slave", "master_link_status:up", "loading:1")));
+
+    }
+
+    private static Map<String, String> info(String... lines) {
+        StringBuilder builder = new StringBuilder("# Replication\r\n");
+
+        for ( String line : lines ) {
+            builder.append(line).append("\r\n");
+        }
+
+        return new Node(null, null, 0, 0).parseInfo(builder.toString());
+    }
+
 }
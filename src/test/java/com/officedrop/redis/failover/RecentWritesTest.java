@@ -0,0 +1,56 @@
+package com.officedrop.redis.failover;
+
+import junit.framework.Assert;
+import org.junit.Test;
+import redis.clients.util.SafeEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+public class RecentWritesTest {
+
+    @Test
+    public void testWrittenKeysAreRecentDuringTheWindow() throws Exception {
+
+        RecentWrites writes = new RecentWrites(100, TimeUnit.MILLISECONDS);
+
+        Assert.assertFalse(writes.isRecent("some-key"));
+
+        writes.written("some-key");
+
+        Assert.assertTrue(writes.isRecent("some-key"));
+        Assert.assertTrue(writes.isRecent(SafeEncoder.encode("some-key")));
+        Assert.assertTrue(writes.isRecent("other-key", "some-key"));
+
+        Thread.sleep(150);
+
+        Assert.assertFalse(writes.isRecent("some-key"));
+    }
+
+    @Test
+    public void testStringAndBinaryKeysShareSlots() {
+
+        RecentWrites writes = new RecentWrites(1 << 16, 1, TimeUnit.MINUTES);
+
+        writes.written(SafeEncoder.encode("chave-ção"));
+
+        Assert.assertTrue(writes.isRecent("chave-ção"));
+    }
+
+    @Test
+    public void testSingleSlotTracksAnyWrite() {
+
+        RecentWrites writes = new RecentWrites(1, 1, TimeUnit.MINUTES);
+
+        writes.written("some-key");
+
+        Assert.assertEquals(1, writes.getSlots());
+        Assert.assertTrue(writes.isRecent("any-other-key"));
+    }
+
+    @Test
+    public void testSlotsAreRoundedToPowersOfTwo() {
+        Assert.assertEquals(1024, new RecentWrites(1000, 1, TimeUnit.SECONDS).getSlots());
+        Assert.assertEquals(1024, new RecentWrites(1024, 1, TimeUnit.SECONDS).getSlots());
+    }
+
+}
@@ -0,0 +1,32 @@
+package com.officedrop.redis.failover;
+
+import junit.framework.Assert;
+import org.junit.Test;
+
+public class RetryBudgetTest {
+
+    @Test
+    public void testBudgetIsExhaustedAndRefilled() throws Exception {
+
+        RetryBudget budget = new RetryBudget(2, 20);
+
+        Assert.assertTrue(budget.tryAcquire());
+        Assert.assertTrue(budget.tryAcquire());
+        Assert.assertFalse(budget.tryAcquire());
+
+        Thread.sleep(120);
+
+        Assert.assertTrue(budget.tryAcquire());
+        Assert.assertTrue(budget.getAvailableTokens() <= 2);
+    }
+
+    @Test
+    public void testBudgetWithoutRefill() {
+
+        RetryBudget budget = new RetryBudget(1, 0);
+
+        Assert.assertTrue(budget.tryAcquire());
+        Assert.assertFalse(budget.tryAcquire());
+    }
+
+}
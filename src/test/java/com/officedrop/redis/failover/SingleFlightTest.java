@@ -0,0 +1,97 @@
+package com.officedrop.redis.failover;
+
+import com.officedrop.redis.failover.utils.Function;
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SingleFlightTest {
+
+    @Test
+    public void testConcurrentCallsShareOneExecution() throws Exception {
+
+        final SingleFlight flight = new SingleFlight();
+        final AtomicInteger loads = new AtomicInteger();
+        final CountDownLatch release = new CountDownLatch(1);
+        final int callers = 10;
+
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        List<Future<String>> results = new ArrayList<Future<String>>();
+
+        for ( int x = 0; x < callers; x++ ) {
+            results.add(executor.submit(new Callable<String>() {
+                @Override
+                public String call() {
+                    return flight.execute("get", "some-key", null, new Function<String>() {
+                        @Override
+                        public String apply() {
+                            loads.incrementAndGet();
+                            try {
+                                release.await();
+                            } catch ( InterruptedException e ) {
+                                throw new IllegalStateException(e);
+                            }
+                            return "some-value";
+                        }
+                    });
+                }
+            }));
+        }
+
+        while ( flight.getCoalescedCount() < callers - 1 ) {
+            Thread.sleep(5);
+        }
+
+        release.countDown();
+
+        for ( Future<String> result : results ) {
+            Assert.assertEquals("some-value", result.get());
+        }
+
+        executor.shutdown();
+
+        Assert.assertEquals(1, loads.get());
+        Assert.assertEquals(1, flight.getExecutedCount());
+        Assert.assertEquals(0, flight.getInFlightCount());
+    }
+
+    @Test
+    public void testErrorsAreNotCachedAndDifferentCallsDontShare() {
+
+        SingleFlight flight = new SingleFlight();
+
+        try {
+            flight.execute("get", "some-key", null, new Function<String>() {
+                @Override
+                public String apply() {
+                    throw new IllegalStateException("failed");
+                }
+            });
+            Assert.fail("should have thrown");
+        } catch ( IllegalStateException e ) {
+            // expected
+        }
+
+        Assert.assertEquals("value", flight.execute("get", "some-key", null, constant("value")));
+        Assert.assertEquals("field", flight.execute("hget", "some-key", "field", constant("field")));
+        Assert.assertEquals(3, flight.getExecutedCount());
+    }
+
+    private static Function<String> constant(final String value) {
+        return new Function<String>() {
+            @Override
+            public String apply() {
+                return value;
+            }
+        };
+    }
+
+}
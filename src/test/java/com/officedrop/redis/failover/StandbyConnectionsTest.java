@@ -0,0 +1,77 @@
+package com.officedrop.redis.failover;
+
+import com.officedrop.redis.failover.jedis.JedisClient;
+import com.officedrop.redis.failover.jedis.JedisClientFactory;
+import junit.framework.Assert;
+import org.junit.Test;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.*;
+
+public class StandbyConnectionsTest {
+
+    private final HostConfiguration slave = new HostConfiguration("localhost", 6001);
+
+    @Test
+    public void testConnectionsAreKeptReadyAtTheLikelyNextMaster() {
+
+        NodeManager nodeManager = mock(NodeManager.class);
+        JedisClientFactory factory = mock(JedisClientFactory.class);
+        JedisClient first = mock(JedisClient.class);
+        JedisClient second = mock(JedisClient.class);
+        JedisClient third = mock(JedisClient.class);
+
+        when(nodeManager.getLikelyNextMaster()).thenReturn(slave);
+        when(factory.create(slave)).thenReturn(first, second, third);
+
+        HostConnectionPools pools = new HostConnectionPools(factory);
+        StandbyConnections standby = new StandbyConnections(nodeManager, pools, 2, 30, TimeUnit.SECONDS);
+
+        standby.refresh();
+
+        HostConnectionPool pool = pools.get(slave);
+
+        Assert.assertEquals(slave, standby.getCandidate());
+        Assert.assertEquals(2, pool.getIdleCount());
+        Assert.assertEquals(2, pool.getCreatedCount());
+        verify(first).ping();
+        verify(second).ping();
+
+        when(second.ping()).thenThrow(new JedisConnectionException("connection reset"));
+
+        standby.refresh();
+
+        Assert.assertEquals(2, pool.getIdleCount());
+        Assert.assertEquals(3, pool.getCreatedCount());
+        verify(second).quit();
+
+        pools.close();
+    }
+
+    @Test
+    public void testNothingIsOpenedWithoutACandidate() {
+
+        NodeManager nodeManager = mock(NodeManager.class);
+        JedisClientFactory factory = mock(JedisClientFactory.class);
+
+        HostConnectionPools pools = new HostConnectionPools(factory);
+        StandbyConnections standby = new StandbyConnections(nodeManager, pools, 2, 30, TimeUnit.SECONDS);
+
+        standby.refresh();
+
+        Assert.assertNull(standby.getCandidate());
+        Assert.assertTrue(pools.getPools().isEmpty());
+        verifyZeroInteractions(factory);
+
+        pools.close();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIntervalMustBeShorterThanTheIdleTimeout() {
+        new StandbyConnections(mock(NodeManager.class), mock(HostConnectionPools.class), 2,
+                HostConnectionPools.IDLE_TIMEOUT, TimeUnit.MILLISECONDS);
+    }
+
+}
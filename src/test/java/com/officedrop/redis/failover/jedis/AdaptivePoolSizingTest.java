@@ -0,0 +1,70 @@
+package com.officedrop.redis.failover.jedis;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.*;
+
+public class AdaptivePoolSizingTest {
+
+    @Test
+    public void testIdleLimitsFollowTheObservedConcurrency() {
+        AdaptivePoolSizing sizing = new AdaptivePoolSizing(0.9, 0, 1, TimeUnit.SECONDS);
+        ResizableJedisPool pool = mock(ResizableJedisPool.class);
+
+        for (int x = 1; x <= 100; x++) {
+            sizing.record(x <= 90 ? 10 : 25);
+        }
+
+        sizing.resize(pool);
+
+        verify(pool).setMinIdle(10);
+        verify(pool).setMaxIdle(25);
+    }
+
+    @Test
+    public void testTheFloorIsKept() {
+        AdaptivePoolSizing sizing = new AdaptivePoolSizing(0.5, 4, 1, TimeUnit.SECONDS);
+        ResizableJedisPool pool = mock(ResizableJedisPool.class);
+
+        sizing.record(1);
+        sizing.record(2);
+
+        sizing.resize(pool);
+
+        verify(pool).setMinIdle(4);
+        verify(pool).setMaxIdle(4);
+    }
+
+    @Test
+    public void testNothingChangesWithoutSamples() {
+        AdaptivePoolSizing sizing = new AdaptivePoolSizing(0.5, 4, 1, TimeUnit.SECONDS);
+        ResizableJedisPool pool = mock(ResizableJedisPool.class);
+
+        sizing.record(8);
+        sizing.resize(pool);
+        sizing.resize(pool);
+
+        verify(pool, times(1)).setMinIdle(8);
+        verify(pool, times(1)).setMaxIdle(8);
+        verifyNoMoreInteractions(pool);
+    }
+
+    @Test
+    public void testFailoverFactoriesKeepTheMinIdleConnectionsToEachHost() {
+        AdaptivePoolSizing sizing = new AdaptivePoolSizing(0.5, 4, 1, TimeUnit.SECONDS);
+        ResizableJedisPool pool = mock(ResizableJedisPool.class);
+        FailoverJedisFactory factory = mock(FailoverJedisFactory.class);
+
+        sizing.setFailoverFactories(Arrays.asList(factory));
+        sizing.record(6);
+        sizing.record(6);
+        sizing.resize(pool);
+
+        verify(pool).setMinIdle(6);
+        verify(factory).setIdleFloor(6);
+    }
+
+}
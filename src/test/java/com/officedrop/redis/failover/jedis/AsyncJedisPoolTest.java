@@ -0,0 +1,138 @@
+package com.officedrop.redis.failover.jedis;
+
+import junit.framework.Assert;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.mockito.Mockito.*;
+
+public class AsyncJedisPoolTest {
+
+    private AsyncJedisPool pool;
+
+    @Before
+    public void setUp() {
+        JedisPool jedisPool = new CommonsJedisPool(new JedisFactory() {
+            @Override
+            public JedisActions create() {
+                JedisActions jedis = mock(JedisActions.class);
+                when(jedis.get("some-key")).thenReturn("some-value");
+                when(jedis.get("broken-key")).thenThrow(new IllegalStateException("broken"));
+                return jedis;
+            }
+        });
+
+        this.pool = new AsyncJedisPool(jedisPool, 2, 1);
+    }
+
+    @After
+    public void tearDown() {
+        this.pool.close();
+    }
+
+    @Test
+    public void testResultsAreDeliveredToTheFutureAndCallbacks() throws Exception {
+
+        final AtomicReference<String> received = new AtomicReference<String>();
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        JedisFuture<String> future = this.pool.submit(new JedisResultFunction<String>() {
+            @Override
+            public String execute( JedisActions jedis ) {
+                return jedis.get("some-key");
+            }
+        }).addCallback(new FutureCallback<String>() {
+            @Override
+            public void onSuccess( String result ) {
+                received.set(result);
+                latch.countDown();
+            }
+
+            @Override
+            public void onFailure( Throwable error ) {
+                latch.countDown();
+            }
+        });
+
+        Assert.assertEquals("some-value", future.get(1, TimeUnit.SECONDS));
+        Assert.assertTrue(latch.await(1, TimeUnit.SECONDS));
+        Assert.assertEquals("some-value", received.get());
+    }
+
+    @Test
+    public void testFailuresAreDeliveredToCallbacksAddedAfterCompletion() throws Exception {
+
+        JedisFuture<String> future = this.pool.submit(new JedisResultFunction<String>() {
+            @Override
+            public String execute( JedisActions jedis ) {
+                return jedis.get("broken-key");
+            }
+        });
+
+        try {
+            future.get(1, TimeUnit.SECONDS);
+            Assert.fail("should have failed");
+        } catch ( ExecutionException e ) {
+            // expected
+        }
+
+        final AtomicReference<Throwable> received = new AtomicReference<Throwable>();
+
+        future.addCallback(new FutureCallback<String>() {
+            @Override
+            public void onSuccess( String result ) {
+            }
+
+            @Override
+            public void onFailure( Throwable error ) {
+                received.set(error);
+            }
+        });
+
+        Assert.assertNotNull(received.get());
+    }
+
+    @Test
+    public void testIndependentCommandsOverlapAndTheQueueIsBounded() throws Exception {
+
+        final CountDownLatch started = new CountDownLatch(2);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        JedisFunction blocking = new JedisFunction() {
+            @Override
+            public void execute( JedisActions jedis ) throws Exception {
+                started.countDown();
+                release.await(5, TimeUnit.SECONDS);
+            }
+        };
+
+        JedisFuture<Void> first = this.pool.submit(blocking);
+        JedisFuture<Void> second = this.pool.submit(blocking);
+
+        Assert.assertTrue("both commands should be running at the same time", started.await(1, TimeUnit.SECONDS));
+
+        JedisFuture<Void> queued = this.pool.submit(blocking);
+        JedisFuture<Void> rejected = this.pool.submit(blocking);
+
+        try {
+            rejected.get(1, TimeUnit.SECONDS);
+            Assert.fail("should have been rejected");
+        } catch ( ExecutionException e ) {
+            Assert.assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+
+        release.countDown();
+
+        first.get(1, TimeUnit.SECONDS);
+        second.get(1, TimeUnit.SECONDS);
+        queued.get(1, TimeUnit.SECONDS);
+    }
+
+}
@@ -0,0 +1,114 @@
+package com.officedrop.redis.failover.jedis;
+
+import com.officedrop.redis.failover.HostConfiguration;
+import junit.framework.Assert;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisDataException;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class BatchingJedisClientTest {
+
+    private FakeRedis server;
+    private BatchingJedisClientFactory factory;
+    private HostConfiguration configuration;
+
+    @Before
+    public void setUp() throws IOException {
+        this.server = new FakeRedis();
+        this.factory = new BatchingJedisClientFactory(50, 2, TimeUnit.MILLISECONDS);
+        this.configuration = new HostConfiguration("localhost", this.server.getPort());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        this.factory.close();
+        this.server.close();
+    }
+
+    @Test
+    public void testCommandsFromManyThreadsAreBatched() throws Exception {
+
+        final int threads = 16;
+        final int commands = 50;
+        final CountDownLatch done = new CountDownLatch(threads);
+        final List<Throwable> errors = new CopyOnWriteArrayList<Throwable>();
+
+        for (int x = 0; x < threads; x++) {
+            final JedisClient client = this.factory.create(this.configuration);
+            final String prefix = "thread-" + x;
+
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (int y = 0; y < commands; y++) {
+                            client.set(prefix + "-" + y, String.valueOf(y));
+                            Assert.assertEquals(String.valueOf(y), client.get(prefix + "-" + y));
+                        }
+                    } catch (Throwable e) {
+                        errors.add(e);
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }).start();
+        }
+
+        Assert.assertTrue(done.await(30, TimeUnit.SECONDS));
+        Assert.assertTrue(errors.toString(), errors.isEmpty());
+        Assert.assertEquals(1, this.server.connections.get());
+
+        CommandBatcher batcher = this.factory.getBatcher(this.configuration);
+
+        Assert.assertEquals(threads * commands * 2, batcher.getCommandCount());
+        Assert.assertEquals(0, batcher.getQueueDepth());
+        Assert.assertTrue(batcher.getLargestBatch() > 1);
+        Assert.assertTrue(batcher.getLargestBatch() <= 50);
+        Assert.assertTrue(batcher.getAverageBatchSize() > 1);
+    }
+
+    @Test
+    public void testErrorRepliesOnlyFailTheirOwnCommand() {
+
+        JedisClient client = this.factory.create(this.configuration);
+
+        client.set("some-key", "some-value");
+
+        try {
+            client.incr("some-key");
+            Assert.fail("should have failed");
+        } catch (JedisDataException e) {
+            Assert.assertEquals("ERR value is not an integer or out of range", e.getMessage());
+        }
+
+        Assert.assertEquals("some-value", client.get("some-key"));
+    }
+
+    @Test
+    public void testANewConnectionIsOpenedAfterAFailure() throws Exception {
+
+        JedisClient client = this.factory.create(this.configuration);
+
+        Assert.assertEquals("PONG", client.ping());
+
+        this.server.dropConnections();
+
+        try {
+            client.ping();
+        } catch (JedisConnectionException e) {
+            // the batch that sees the closed socket fails
+        }
+
+        Assert.assertEquals("PONG", client.ping());
+        Assert.assertEquals(2, this.server.connections.get());
+    }
+
+}
@@ -0,0 +1,106 @@
+package com.officedrop.redis.failover.jedis;
+
+import com.officedrop.redis.failover.NoMasterException;
+import junit.framework.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import redis.clients.jedis.JedisPoolConfig;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.mockito.Mockito.*;
+
+public class CommonsJedisPoolTest {
+
+    private final List<JedisActions> created = new CopyOnWriteArrayList<JedisActions>();
+    private CommonsJedisPool pool;
+
+    @Before
+    public void setUp() {
+        JedisPoolConfig config = new JedisPoolConfig();
+        config.setTestOnBorrow(true);
+        config.setTimeBetweenEvictionRunsMillis(-1);
+
+        this.pool = new CommonsJedisPool(new JedisFactory() {
+            @Override
+            public JedisActions create() {
+                JedisActions jedis = mock(JedisActions.class);
+                created.add(jedis);
+                return jedis;
+            }
+        }, config);
+    }
+
+    @Test
+    public void testObjectsUsedRecentlyAreNotPinged() {
+        this.pool.setValidationIdleTime(60000);
+
+        for (int x = 0; x < 10; x++) {
+            this.pool.withJedis(get());
+        }
+
+        Assert.assertEquals(1, this.created.size());
+        verify(this.created.get(0), never()).ping();
+    }
+
+    @Test
+    public void testObjectsIdleForLongerArePinged() throws Exception {
+        this.pool.setValidationIdleTime(1);
+
+        this.pool.withJedis(get());
+        Thread.sleep(5);
+        this.pool.withJedis(get());
+
+        verify(this.created.get(0)).ping();
+    }
+
+    @Test
+    public void testObjectsAreProbedAfterAFailure() {
+        this.pool.setValidationIdleTime(60000);
+
+        try {
+            this.pool.withJedis(new JedisFunction() {
+                @Override
+                public void execute(JedisActions jedis) {
+                    throw new IllegalStateException("failed");
+                }
+            });
+            Assert.fail("should have failed");
+        } catch (RuntimeException e) {
+            // expected
+        }
+
+        this.pool.withJedis(get());
+
+        verify(this.created.get(0)).ping();
+    }
+
+    @Test(expected = NoMasterException.class)
+    public void testRedisFailuresAreNotWrapped() {
+        this.pool.withJedis(new JedisFunction() {
+            @Override
+            public void execute(JedisActions jedis) {
+                throw new NoMasterException();
+            }
+        });
+    }
+
+    @Test
+    public void testWarmUpCreatesIdleObjects() {
+        this.pool.warmUp(5);
+
+        Assert.assertEquals(5, this.created.size());
+        Assert.assertEquals(5, this.pool.getIdleCount());
+    }
+
+    private static JedisFunction get() {
+        return new JedisFunction() {
+            @Override
+            public void execute(JedisActions jedis) {
+                jedis.get("some-key");
+            }
+        };
+    }
+
+}
@@ -0,0 +1,54 @@
+package com.officedrop.redis.failover.jedis;
+
+import com.officedrop.redis.failover.ClusterStatus;
+import com.officedrop.redis.failover.HostConfiguration;
+import com.officedrop.redis.failover.HostConnectionPool;
+import com.officedrop.redis.failover.NodeManager;
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.mockito.Mockito.*;
+
+public class FailoverJedisFactoryTest {
+
+    private final HostConfiguration master = new HostConfiguration("localhost", 6000);
+    private final HostConfiguration slave = new HostConfiguration("localhost", 6001);
+
+    @Test
+    public void testWarmUpOpensConnectionsToEveryHostAndCloseReleasesThem() {
+
+        NodeManager nodeManager = mock(NodeManager.class);
+        JedisClientFactory clientFactory = mock(JedisClientFactory.class);
+        JedisClient masterClient = mock(JedisClient.class);
+        JedisClient slaveClient = mock(JedisClient.class);
+
+        when(nodeManager.getLastClusterStatus()).thenReturn(new ClusterStatus(master, Arrays.asList(slave), Collections.EMPTY_LIST));
+        when(clientFactory.create(master)).thenReturn(masterClient, mock(JedisClient.class));
+        when(clientFactory.create(slave)).thenReturn(slaveClient, mock(JedisClient.class));
+
+        FailoverJedisFactory factory = new FailoverJedisFactory(nodeManager);
+        factory.setClientFactory(clientFactory);
+        factory.setIdleFloor(2);
+        factory.warmUp(2);
+
+        HostConnectionPool masterPool = factory.getRouting().get().getMaster();
+        HostConnectionPool slavePool = factory.getRouting().get().getSlaves().get(0);
+
+        Assert.assertEquals(2, masterPool.getIdleCount());
+        Assert.assertEquals(2, slavePool.getIdleCount());
+        Assert.assertEquals(2, masterPool.getMinIdle());
+        verify(masterClient).ping();
+        verify(slaveClient).ping();
+
+        factory.close();
+
+        Assert.assertTrue(masterPool.isClosed());
+        Assert.assertTrue(slavePool.isClosed());
+        verify(masterClient).quit();
+        verify(slaveClient).quit();
+    }
+
+}
@@ -0,0 +1,171 @@
+package com.officedrop.redis.failover.jedis;
+
+import redis.clients.util.SafeEncoder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Answers PING, SET, GET and INCR from memory, enough to check that replies reach the right caller.
+ */
+class FakeRedis implements Runnable {
+
+    private final ServerSocket socket = new ServerSocket(0);
+    private final Map<String, String> data = new ConcurrentHashMap<String, String>();
+    private final List<Socket> clients = new CopyOnWriteArrayList<Socket>();
+    final AtomicInteger connections = new AtomicInteger();
+
+    FakeRedis() throws IOException {
+        Thread thread = new Thread(this);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    int getPort() {
+        return this.socket.getLocalPort();
+    }
+
+    void dropConnections() throws IOException {
+        for (Socket client : this.clients) {
+            client.close();
+        }
+    }
+
+    void close() throws IOException {
+        this.socket.close();
+        this.dropConnections();
+    }
+
+    @Override
+    public void run() {
+        while (!this.socket.isClosed()) {
+            try {
+                final Socket client = this.socket.accept();
+                this.clients.add(client);
+                this.connections.incrementAndGet();
+
+                Thread thread = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        serve(client);
+                    }
+                });
+                thread.setDaemon(true);
+                thread.start();
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void serve(Socket client) {
+        try {
+            InputStream input = client.getInputStream();
+            OutputStream output = client.getOutputStream();
+
+            while (true) {
+                List<String> command = readCommand(input);
+
+                if (command == null) {
+                    return;
+                }
+
+                output.write(SafeEncoder.encode(this.execute(command)));
+
+                if (input.available() == 0) {
+                    output.flush();
+                }
+            }
+        } catch (IOException e) {
+            // client went away
+        } finally {
+            this.clients.remove(client);
+        }
+    }
+
+    private String execute(List<String> command) {
+        String name = command.get(0).toUpperCase();
+
+        if (name.equals("PING")) {
+            return "+PONG\r\n";
+        } else if (name.equals("SET")) {
+            this.data.put(command.get(1), command.get(2));
+            return "+OK\r\n";
+        } else if (name.equals("GET")) {
+            String value = this.data.get(command.get(1));
+            return value == null ? "$-1\r\n" : "$" + SafeEncoder.encode(value).length + "\r\n" + value + "\r\n";
+        } else if (name.equals("INCR")) {
+            String current = this.data.get(command.get(1));
+
+            try {
+                long value = current == null ? 1 : Long.parseLong(current) + 1;
+                this.data.put(command.get(1), String.valueOf(value));
+                return ":" + value + "\r\n";
+            } catch (NumberFormatException e) {
+                return "-ERR value is not an integer or out of range\r\n";
+            }
+        }
+
+        return "-ERR unknown command '" + name + "'\r\n";
+    }
+
+    private static List<String> readCommand(InputStream input) throws IOException {
+        String header = readLine(input);
+
+        if (header == null) {
+            return null;
+        }
+
+        int count = Integer.parseInt(header.substring(1));
+        List<String> parts = new ArrayList<String>(count);
+
+        for (int x = 0; x < count; x++) {
+            int length = Integer.parseInt(readLine(input).substring(1));
+            byte[] value = new byte[length];
+            int read = 0;
+
+            while (read < length) {
+                int current = input.read(value, read, length - read);
+
+                if (current < 0) {
+                    return null;
+                }
+
+                read += current;
+            }
+
+            readLine(input);
+            parts.add(SafeEncoder.encode(value));
+        }
+
+        return parts;
+    }
+
+    private static String readLine(InputStream input) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int current;
+
+        while ((current = input.read()) != '\r') {
+            if (current < 0) {
+                return null;
+            }
+
+            line.write(current);
+        }
+
+        input.read();
+
+        return SafeEncoder.encode(line.toByteArray());
+    }
+
+}
@@ -0,0 +1,190 @@
+package com.officedrop.redis.failover.jedis;
+
+import junit.framework.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Matchers;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.Mockito.*;
+
+public class GetOrComputeTest {
+
+    private final Map<String, String> data = new ConcurrentHashMap<String, String>();
+    private final AtomicInteger loads = new AtomicInteger();
+    private JedisPool pool;
+
+    private final ValueLoader loader = new ValueLoader() {
+        @Override
+        public String load(String key) {
+            loads.incrementAndGet();
+            return "computed-" + key;
+        }
+    };
+
+    @Before
+    public void setUp() {
+        final JedisActions jedis = mock(JedisActions.class);
+
+        when(jedis.get(anyString())).thenAnswer(new Answer<String>() {
+            @Override
+            public String answer(InvocationOnMock invocation) {
+                return data.get((String) invocation.getArguments()[0]);
+            }
+        });
+
+        when(jedis.mget(Matchers.<String>anyVararg())).thenAnswer(new Answer<List<String>>() {
+            @Override
+            public List<String> answer(InvocationOnMock invocation) {
+                List<String> values = new ArrayList<String>();
+                for (Object key : invocation.getArguments()) {
+                    values.add(data.get((String) key));
+                }
+                return values;
+            }
+        });
+
+        when(jedis.setnx(anyString(), anyString())).thenAnswer(new Answer<Long>() {
+            @Override
+            public Long answer(InvocationOnMock invocation) {
+                Object[] arguments = invocation.getArguments();
+                return ((ConcurrentHashMap<String, String>) data).putIfAbsent((String) arguments[0], (String) arguments[1]) == null ? 1L : 0L;
+            }
+        });
+
+        when(jedis.setex(anyString(), anyInt(), anyString())).thenAnswer(new Answer<String>() {
+            @Override
+            public String answer(InvocationOnMock invocation) {
+                Object[] arguments = invocation.getArguments();
+                data.put((String) arguments[0], (String) arguments[2]);
+                return "OK";
+            }
+        });
+
+        when(jedis.del(Matchers.<String>anyVararg())).thenAnswer(new Answer<Long>() {
+            @Override
+            public Long answer(InvocationOnMock invocation) {
+                long removed = 0;
+                for (Object key : invocation.getArguments()) {
+                    removed += data.remove((String) key) != null ? 1 : 0;
+                }
+                return removed;
+            }
+        });
+
+        when(jedis.ttl(anyString())).thenReturn(10L);
+
+        this.pool = new CommonsJedisPool(new JedisFactory() {
+            @Override
+            public JedisActions create() {
+                return jedis;
+            }
+        });
+    }
+
+    @Test
+    public void testMissingValueIsComputedOnceAndStored() {
+
+        Assert.assertEquals("computed-some-key", this.pool.getOrCompute("some-key", 60, this.loader));
+        Assert.assertEquals("computed-some-key", this.pool.getOrCompute("some-key", 60, this.loader));
+
+        Assert.assertEquals(1, this.loads.get());
+        Assert.assertEquals("computed-some-key", this.data.get("some-key"));
+        Assert.assertNotNull(this.data.get("some-key:xfetch"));
+        Assert.assertNull(this.data.get("some-key:lock"));
+    }
+
+    @Test
+    public void testCallersWaitForTheLockHolder() throws Exception {
+
+        this.data.put("some-key:lock", "someone-else");
+
+        Thread loader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                data.put("some-key", "loaded-elsewhere");
+            }
+        });
+        loader.start();
+
+        Assert.assertEquals("loaded-elsewhere", this.pool.getOrCompute("some-key", 60, this.loader));
+        Assert.assertEquals(0, this.loads.get());
+
+        loader.join();
+    }
+
+    @Test
+    public void testCallersDontLoadAgainWhenTheLoaderReturnsNull() throws Exception {
+
+        final GetOrCompute compute = new GetOrCompute(1.0, 10, 20);
+        final ValueLoader nothing = new ValueLoader() {
+            @Override
+            public String load(String key) throws Exception {
+                loads.incrementAndGet();
+                Thread.sleep(200);
+                return null;
+            }
+        };
+
+        List<Thread> callers = new ArrayList<Thread>();
+        final List<String> results = Collections.synchronizedList(new ArrayList<String>());
+
+        for (int x = 0; x < 5; x++) {
+            callers.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    results.add(compute.execute(pool, "missing-key", 60, nothing));
+                }
+            }));
+        }
+
+        long start = System.currentTimeMillis();
+
+        for (Thread caller : callers) {
+            caller.start();
+        }
+
+        for (Thread caller : callers) {
+            caller.join();
+        }
+
+        Assert.assertTrue(System.currentTimeMillis() - start < 5000);
+        Assert.assertEquals(1, this.loads.get());
+        Assert.assertEquals(Arrays.asList(null, null, null, null, null), results);
+        Assert.assertNull(this.data.get("missing-key:lock"));
+    }
+
+    @Test
+    public void testEarlyRefreshProbability() {
+
+        GetOrCompute compute = new GetOrCompute(1.0, 10, 50);
+        long now = 1000000;
+
+        Assert.assertFalse(compute.shouldRefresh(null, now, 0.5));
+        Assert.assertFalse(compute.shouldRefresh("garbage", now, 0.5));
+
+        // a 100ms loader and a value expiring in a minute is almost never refreshed
+        Assert.assertFalse(compute.shouldRefresh("100:" + (now + 60000), now, 0.5));
+
+        // the same loader a few ms before the expiration usually is
+        Assert.assertTrue(compute.shouldRefresh("100:" + (now + 10), now, 0.5));
+
+        // and an expired value always is
+        Assert.assertTrue(compute.shouldRefresh("100:" + (now - 1), now, 0.99));
+    }
+
+}
@@ -0,0 +1,120 @@
+package com.officedrop.redis.failover.jedis;
+
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class KetamaHashRingTest {
+
+    private static Map<String, String> nodes(String... names) {
+        Map<String, String> nodes = new LinkedHashMap<String, String>();
+
+        for (String name : names) {
+            nodes.put(name, name);
+        }
+
+        return nodes;
+    }
+
+    /**
+     * The expected nodes are the ones spymemcached's KetamaNodeLocator picks with KETAMA_HASH for servers
+     * with the same host:port names, which is also what libketama does for servers of the same weight.
+     */
+    @Test
+    public void testKeysGoWhereOtherKetamaClientsPutThem() {
+
+        KetamaHashRing<String> ring = new KetamaHashRing<String>(nodes("10.0.1.1:11211", "10.0.1.2:11211", "10.0.1.3:11211"), false);
+
+        Assert.assertEquals("10.0.1.2:11211", ring.get("foo"));
+        Assert.assertEquals("10.0.1.1:11211", ring.get("bar"));
+        Assert.assertEquals("10.0.1.2:11211", ring.get("baz"));
+        Assert.assertEquals("10.0.1.1:11211", ring.get("user:1"));
+        Assert.assertEquals("10.0.1.3:11211", ring.get("user:2"));
+        Assert.assertEquals("10.0.1.2:11211", ring.get("session:abc"));
+        Assert.assertEquals("10.0.1.3:11211", ring.get("a"));
+        Assert.assertEquals("10.0.1.3:11211", ring.get("b"));
+        Assert.assertEquals("10.0.1.1:11211", ring.get("c"));
+        Assert.assertEquals("10.0.1.3:11211", ring.get("key-0"));
+        Assert.assertEquals("10.0.1.3:11211", ring.get("key-1"));
+        Assert.assertEquals("10.0.1.3:11211", ring.get("key-2"));
+    }
+
+    @Test
+    public void testKeysAreSpreadOverAllNodes() {
+
+        KetamaHashRing<String> ring = new KetamaHashRing<String>(nodes("a", "b", "c"), false);
+        Map<String, Integer> counts = new HashMap<String, Integer>();
+
+        for (int x = 0; x < 3000; x++) {
+            String node = ring.get("key-" + x);
+            counts.put(node, counts.containsKey(node) ? counts.get(node) + 1 : 1);
+        }
+
+        Assert.assertEquals(3, counts.size());
+
+        for (int count : counts.values()) {
+            Assert.assertTrue(count > 500);
+        }
+    }
+
+    @Test
+    public void testPlacementDoesNotDependOnTheOrderOfTheNodes() {
+
+        KetamaHashRing<String> first = new KetamaHashRing<String>(nodes("a", "b", "c"), false);
+        KetamaHashRing<String> second = new KetamaHashRing<String>(nodes("c", "a", "b"), false);
+
+        for (int x = 0; x < 1000; x++) {
+            Assert.assertEquals(first.get("key-" + x), second.get("key-" + x));
+        }
+    }
+
+    @Test
+    public void testRemovingANodeOnlyMovesItsKeys() {
+
+        KetamaHashRing<String> full = new KetamaHashRing<String>(nodes("a", "b", "c"), false);
+        KetamaHashRing<String> reduced = new KetamaHashRing<String>(nodes("a", "b"), false);
+
+        for (int x = 0; x < 1000; x++) {
+            String before = full.get("key-" + x);
+
+            if (!before.equals("c")) {
+                Assert.assertEquals(before, reduced.get("key-" + x));
+            }
+        }
+    }
+
+    @Test
+    public void testHashTagsKeepRelatedKeysTogether() {
+
+        KetamaHashRing<String> ring = new KetamaHashRing<String>(nodes("a", "b", "c", "d"), true);
+
+        for (int x = 0; x < 100; x++) {
+            Assert.assertEquals(ring.get("{user:" + x + "}:followers"), ring.get("{user:" + x + "}:following"));
+            Assert.assertEquals(ring.get("user:" + x), ring.get("{user:" + x + "}"));
+        }
+
+        Assert.assertEquals("user:1", KetamaHashRing.hashTag("{user:1}:followers"));
+        Assert.assertEquals("{}:followers", KetamaHashRing.hashTag("{}:followers"));
+        Assert.assertEquals("{user:1", KetamaHashRing.hashTag("{user:1"));
+    }
+
+    @Test
+    public void testWithNodesKeepsThePlacement() {
+
+        KetamaHashRing<String> ring = new KetamaHashRing<String>(nodes("a", "b"), false);
+        Map<String, Integer> numbers = new HashMap<String, Integer>();
+        numbers.put("a", 1);
+        numbers.put("b", 2);
+
+        KetamaHashRing<Integer> other = ring.withNodes(numbers);
+
+        for (int x = 0; x < 100; x++) {
+            Assert.assertEquals(ring.get("key-" + x), other.getName("key-" + x));
+            Assert.assertEquals(numbers.get(ring.get("key-" + x)), other.get("key-" + x));
+        }
+    }
+
+}
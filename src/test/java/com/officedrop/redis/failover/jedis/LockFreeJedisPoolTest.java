@@ -0,0 +1,317 @@
+package com.officedrop.redis.failover.jedis;
+
+import com.officedrop.redis.failover.NoMasterException;
+import junit.framework.Assert;
+import org.apache.commons.pool.impl.GenericObjectPool;
+import org.junit.Before;
+import org.junit.Test;
+import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.Mockito.*;
+
+public class LockFreeJedisPoolTest {
+
+    private final List<JedisActions> created = new CopyOnWriteArrayList<JedisActions>();
+    private JedisFactory factory;
+    private JedisPoolConfig config;
+
+    @Before
+    public void setUp() {
+        this.factory = new JedisFactory() {
+            @Override
+            public JedisActions create() {
+                JedisActions jedis = mock(JedisActions.class);
+                created.add(jedis);
+                return jedis;
+            }
+        };
+
+        this.config = new JedisPoolConfig();
+        this.config.setTimeBetweenEvictionRunsMillis(-1);
+    }
+
+    @Test
+    public void testObjectsAreReused() {
+        LockFreeJedisPool pool = new LockFreeJedisPool(this.factory, this.config);
+
+        for (int x = 0; x < 10; x++) {
+            pool.withJedis(ping());
+        }
+
+        Assert.assertEquals(1, this.created.size());
+        Assert.assertEquals(1, pool.getIdleCount());
+        Assert.assertEquals(0, pool.getActiveCount());
+    }
+
+    @Test
+    public void testBorrowingWaitsUpToMaxWait() throws Exception {
+        this.config.setMaxActive(1);
+        this.config.setMaxWait(100);
+        this.config.setWhenExhaustedAction(GenericObjectPool.WHEN_EXHAUSTED_BLOCK);
+
+        final LockFreeJedisPool pool = new LockFreeJedisPool(this.factory, this.config);
+        final CountDownLatch borrowed = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        Thread holder = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                pool.withJedis(new JedisFunction() {
+                    @Override
+                    public void execute(JedisActions jedis) throws Exception {
+                        borrowed.countDown();
+                        release.await(5, TimeUnit.SECONDS);
+                    }
+                });
+            }
+        });
+        holder.start();
+
+        Assert.assertTrue(borrowed.await(1, TimeUnit.SECONDS));
+
+        long start = System.currentTimeMillis();
+
+        try {
+            pool.withJedis(ping());
+            Assert.fail("should have timed out");
+        } catch (RuntimeException e) {
+            Assert.assertTrue(e.getCause() instanceof NoSuchElementException);
+        }
+
+        Assert.assertTrue(System.currentTimeMillis() - start >= 90);
+
+        release.countDown();
+        holder.join();
+
+        pool.withJedis(ping());
+        Assert.assertEquals(1, this.created.size());
+    }
+
+    @Test
+    public void testFailsImmediatelyWhenExhaustedIfConfigured() throws Exception {
+        this.config.setMaxActive(1);
+        this.config.setWhenExhaustedAction(GenericObjectPool.WHEN_EXHAUSTED_FAIL);
+
+        final LockFreeJedisPool pool = new LockFreeJedisPool(this.factory, this.config);
+
+        pool.withJedis(new JedisFunction() {
+            @Override
+            public void execute(JedisActions jedis) throws Exception {
+                try {
+                    pool.withJedis(ping());
+                    Assert.fail("should have failed");
+                } catch (RuntimeException e) {
+                    Assert.assertTrue(e.getCause() instanceof NoSuchElementException);
+                }
+            }
+        });
+    }
+
+    @Test(expected = NoMasterException.class)
+    public void testRedisFailuresAreNotWrapped() {
+        LockFreeJedisPool pool = new LockFreeJedisPool(this.factory, this.config);
+
+        pool.withJedis(new JedisFunction() {
+            @Override
+            public void execute(JedisActions jedis) {
+                throw new NoMasterException();
+            }
+        });
+    }
+
+    @Test
+    public void testObjectsOverMaxIdleAreClosed() {
+        this.config.setMaxIdle(0);
+
+        LockFreeJedisPool pool = new LockFreeJedisPool(this.factory, this.config);
+        pool.withJedis(ping());
+
+        Assert.assertEquals(0, pool.getIdleCount());
+        verify(this.created.get(0)).quit();
+    }
+
+    @Test
+    public void testRecentlyUsedObjectsAreNotPingedOnBorrow() {
+        this.config.setTestOnBorrow(true);
+
+        LockFreeJedisPool pool = new LockFreeJedisPool(this.factory, this.config);
+        pool.setValidationIdleTime(60000);
+
+        for (int x = 0; x < 10; x++) {
+            pool.withJedis(new JedisFunction() {
+                @Override
+                public void execute(JedisActions jedis) {
+                    jedis.get("some-key");
+                }
+            });
+        }
+
+        verify(this.created.get(0), never()).ping();
+    }
+
+    @Test
+    public void testInvalidObjectsAreReplacedOnBorrow() {
+        this.config.setTestOnBorrow(true);
+
+        LockFreeJedisPool pool = new LockFreeJedisPool(this.factory, this.config);
+        pool.setValidationIdleTime(0);
+        pool.withJedis(ping());
+
+        when(this.created.get(0).ping()).thenThrow(new JedisConnectionException("broken"));
+
+        pool.withJedis(ping());
+
+        Assert.assertEquals(2, this.created.size());
+        verify(this.created.get(0)).quit();
+    }
+
+    @Test
+    public void testEvictionClosesIdleObjectsAndKeepsMinIdle() throws Exception {
+        this.config.setMinEvictableIdleTimeMillis(1);
+        this.config.setTestWhileIdle(false);
+
+        LockFreeJedisPool pool = new LockFreeJedisPool(this.factory, this.config);
+        pool.withJedis(ping());
+
+        Thread.sleep(10);
+        pool.evict();
+
+        Assert.assertEquals(0, pool.getIdleCount());
+        verify(this.created.get(0)).quit();
+
+        this.config.setMinIdle(2);
+        pool = new LockFreeJedisPool(this.factory, this.config);
+        pool.evict();
+
+        Assert.assertEquals(2, pool.getIdleCount());
+    }
+
+    @Test
+    public void testConcurrentBorrowersNeverExceedMaxActive() throws Exception {
+        this.config.setMaxActive(4);
+        this.config.setMaxIdle(4);
+        this.config.setMaxWait(5000);
+        this.config.setWhenExhaustedAction(GenericObjectPool.WHEN_EXHAUSTED_BLOCK);
+
+        final LockFreeJedisPool pool = new LockFreeJedisPool(this.factory, this.config);
+        final AtomicInteger inUse = new AtomicInteger();
+        final AtomicInteger peak = new AtomicInteger();
+        final List<Throwable> errors = new CopyOnWriteArrayList<Throwable>();
+        final CountDownLatch done = new CountDownLatch(8);
+
+        for (int x = 0; x < 8; x++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (int y = 0; y < 1000; y++) {
+                            pool.withJedis(new JedisFunction() {
+                                @Override
+                                public void execute(JedisActions jedis) {
+                                    int current = inUse.incrementAndGet();
+
+                                    if (current > peak.get()) {
+                                        peak.set(current);
+                                    }
+
+                                    inUse.decrementAndGet();
+                                }
+                            });
+                        }
+                    } catch (Throwable e) {
+                        errors.add(e);
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }).start();
+        }
+
+        Assert.assertTrue(done.await(30, TimeUnit.SECONDS));
+        Assert.assertTrue(errors.toString(), errors.isEmpty());
+        Assert.assertTrue(peak.get() <= 4);
+        Assert.assertTrue(this.created.size() <= 4);
+        Assert.assertEquals(0, pool.getActiveCount());
+    }
+
+    @Test
+    public void testConcurrentReturnsNeverExceedMaxIdle() throws Exception {
+        this.config.setMaxIdle(2);
+
+        final LockFreeJedisPool pool = new LockFreeJedisPool(this.factory, this.config);
+        final List<Throwable> errors = new CopyOnWriteArrayList<Throwable>();
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(8);
+
+        for (int x = 0; x < 8; x++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+
+                        for (int y = 0; y < 500; y++) {
+                            pool.withJedis(ping());
+                        }
+                    } catch (Throwable e) {
+                        errors.add(e);
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }).start();
+        }
+
+        start.countDown();
+
+        Assert.assertTrue(done.await(30, TimeUnit.SECONDS));
+        Assert.assertTrue(errors.toString(), errors.isEmpty());
+        Assert.assertTrue(pool.getIdleCount() <= 2);
+        Assert.assertEquals(0, pool.getActiveCount());
+    }
+
+    @Test
+    public void testDestroyedObjectsAreNotReturnedToTheThreadThatUsedThemLast() throws Exception {
+        this.config.setMinEvictableIdleTimeMillis(1);
+        this.config.setTestWhileIdle(false);
+
+        LockFreeJedisPool pool = new LockFreeJedisPool(this.factory, this.config);
+        pool.withJedis(ping());
+
+        Thread.sleep(10);
+        pool.evict();
+        pool.withJedis(ping());
+
+        Assert.assertEquals(2, this.created.size());
+        verify(this.created.get(0)).quit();
+        verify(this.created.get(0), times(1)).ping();
+        Assert.assertEquals(1, pool.getIdleCount());
+    }
+
+    @Test
+    public void testWarmUpCreatesIdleObjects() {
+        LockFreeJedisPool pool = new LockFreeJedisPool(this.factory, this.config);
+        pool.warmUp(5);
+
+        Assert.assertEquals(5, this.created.size());
+        Assert.assertEquals(5, pool.getIdleCount());
+    }
+
+    private static JedisFunction ping() {
+        return new JedisFunction() {
+            @Override
+            public void execute(JedisActions jedis) {
+                jedis.ping();
+            }
+        };
+    }
+
+}
@@ -0,0 +1,151 @@
+package com.officedrop.redis.failover.jedis;
+
+import com.officedrop.redis.failover.HostConfiguration;
+import junit.framework.Assert;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisDataException;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class MultiplexedJedisClientTest {
+
+    private FakeRedis server;
+    private MultiplexedJedisClientFactory factory;
+    private HostConfiguration configuration;
+
+    @Before
+    public void setUp() throws IOException {
+        this.server = new FakeRedis();
+        this.factory = new MultiplexedJedisClientFactory();
+        this.configuration = new HostConfiguration("localhost", this.server.getPort());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        this.factory.close();
+        this.server.close();
+    }
+
+    @Test
+    public void testManyThreadsShareASingleConnection() throws Exception {
+
+        final int threads = 16;
+        final int commands = 200;
+        final CountDownLatch done = new CountDownLatch(threads);
+        final List<Throwable> errors = new CopyOnWriteArrayList<Throwable>();
+
+        for (int x = 0; x < threads; x++) {
+            final JedisClient client = this.factory.create(this.configuration);
+            final String prefix = "thread-" + x;
+
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (int y = 0; y < commands; y++) {
+                            client.set(prefix + "-" + y, String.valueOf(y));
+                            Assert.assertEquals(String.valueOf(y), client.get(prefix + "-" + y));
+                        }
+                    } catch (Throwable e) {
+                        errors.add(e);
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }).start();
+        }
+
+        Assert.assertTrue(done.await(30, TimeUnit.SECONDS));
+        Assert.assertTrue(errors.toString(), errors.isEmpty());
+        Assert.assertEquals(1, this.server.connections.get());
+
+        MultiplexedConnection connection = this.factory.getConnection(this.configuration);
+        Assert.assertEquals(threads * commands * 2, connection.getCommandCount());
+        Assert.assertTrue(connection.getWriteCount() <= connection.getCommandCount());
+    }
+
+    @Test
+    public void testErrorsGoToTheCallerThatSentTheCommand() {
+
+        JedisClient client = this.factory.create(this.configuration);
+
+        client.set("some-key", "some-value");
+
+        try {
+            client.incr("some-key");
+            Assert.fail("should have failed");
+        } catch (JedisDataException e) {
+            Assert.assertEquals("ERR value is not an integer or out of range", e.getMessage());
+        }
+
+        Assert.assertEquals("some-value", client.get("some-key"));
+        Assert.assertEquals(Long.valueOf(1), client.incr("counter"));
+    }
+
+    @Test
+    public void testPipelines() {
+
+        JedisClient client = this.factory.create(this.configuration);
+
+        Pipeline pipeline = ((MultiplexedJedisClient) client).pipelined();
+        pipeline.set("first", "1");
+        pipeline.incr("first");
+        pipeline.get("first");
+
+        List<Object> results = pipeline.syncAndReturnAll();
+
+        Assert.assertEquals("OK", results.get(0));
+        Assert.assertEquals(Long.valueOf(2), results.get(1));
+        Assert.assertEquals("2", results.get(2));
+    }
+
+    @Test
+    public void testReconnectsAfterTheServerClosesTheConnection() throws Exception {
+
+        JedisClient client = this.factory.create(this.configuration);
+
+        Assert.assertEquals("PONG", client.ping());
+
+        this.server.dropConnections();
+
+        try {
+            client.ping();
+        } catch (JedisConnectionException e) {
+            // the close may or may not have been seen before the command was sent
+        }
+
+        Assert.assertEquals("PONG", client.ping());
+        Assert.assertEquals(2, this.server.connections.get());
+    }
+
+    @Test
+    public void testTheConnectionIsClosedWhenTheLastClientQuits() throws Exception {
+
+        JedisClient first = this.factory.create(this.configuration);
+        JedisClient second = this.factory.create(this.configuration);
+
+        first.ping();
+        MultiplexedConnection connection = this.factory.getConnection(this.configuration);
+
+        first.quit();
+        Assert.assertTrue(connection.isConnected());
+
+        second.quit();
+        Assert.assertNull(this.factory.getConnection(this.configuration));
+
+        for (int x = 0; x < 100 && connection.isConnected(); x++) {
+            Thread.sleep(10);
+        }
+
+        Assert.assertFalse(connection.isConnected());
+    }
+
+}
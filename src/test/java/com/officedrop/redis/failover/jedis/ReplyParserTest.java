@@ -0,0 +1,54 @@
+package com.officedrop.redis.failover.jedis;
+
+import junit.framework.Assert;
+import org.junit.Test;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.util.SafeEncoder;
+
+import java.util.List;
+
+public class ReplyParserTest {
+
+    @Test
+    public void testRepliesSplitAcrossReads() {
+        ReplyParser parser = new ReplyParser(4);
+
+        parser.append(SafeEncoder.encode("+OK\r\n:4"));
+        Assert.assertEquals("OK", SafeEncoder.encode((byte[]) parser.next()));
+        Assert.assertSame(ReplyParser.INCOMPLETE, parser.next());
+
+        parser.append(SafeEncoder.encode("2\r\n$5\r\nhel"));
+        Assert.assertEquals(Long.valueOf(42), parser.next());
+        Assert.assertSame(ReplyParser.INCOMPLETE, parser.next());
+
+        parser.append(SafeEncoder.encode("lo\r\n$-1\r\n-ERR wrong\r\n"));
+        Assert.assertEquals("hello", SafeEncoder.encode((byte[]) parser.next()));
+        Assert.assertNull(parser.next());
+
+        Object error = parser.next();
+        Assert.assertTrue(error instanceof JedisDataException);
+        Assert.assertEquals("ERR wrong", ((JedisDataException) error).getMessage());
+
+        Assert.assertSame(ReplyParser.INCOMPLETE, parser.next());
+    }
+
+    @Test
+    public void testMultiBulkReplies() {
+        ReplyParser parser = new ReplyParser(8);
+
+        parser.append(SafeEncoder.encode("*3\r\n$1\r\na\r\n$-1\r\n"));
+        Assert.assertSame(ReplyParser.INCOMPLETE, parser.next());
+
+        parser.append(SafeEncoder.encode(":-7\r\n*-1\r\n"));
+
+        List<?> items = (List<?>) parser.next();
+        Assert.assertEquals(3, items.size());
+        Assert.assertEquals("a", SafeEncoder.encode((byte[]) items.get(0)));
+        Assert.assertNull(items.get(1));
+        Assert.assertEquals(Long.valueOf(-7), items.get(2));
+
+        Assert.assertNull(parser.next());
+        Assert.assertSame(ReplyParser.INCOMPLETE, parser.next());
+    }
+
+}
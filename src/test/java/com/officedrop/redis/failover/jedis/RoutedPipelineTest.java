@@ -0,0 +1,103 @@
+package com.officedrop.redis.failover.jedis;
+
+import com.officedrop.redis.failover.ClientType;
+import com.officedrop.redis.failover.utils.Function;
+import junit.framework.Assert;
+import org.junit.Test;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+
+import static org.mockito.Mockito.*;
+
+public class RoutedPipelineTest {
+
+    @Test
+    public void testWritesGoToMasterAndReadsGoToSlave() {
+
+        GenericJedisClient master = mock(GenericJedisClient.class);
+        GenericJedisClient slave = mock(GenericJedisClient.class);
+
+        Pipeline masterPipeline = mock(Pipeline.class);
+        Pipeline slavePipeline = mock(Pipeline.class);
+
+        Response<String> setResponse = mock(Response.class);
+        Response<String> getResponse = mock(Response.class);
+
+        when(master.pipelined()).thenReturn(masterPipeline);
+        when(slave.pipelined()).thenReturn(slavePipeline);
+        when(masterPipeline.set("some-key", "some-value")).thenReturn(setResponse);
+        when(slavePipeline.get("other-key")).thenReturn(getResponse);
+        when(setResponse.get()).thenReturn("OK");
+        when(getResponse.get()).thenReturn("other-value");
+
+        RoutedPipeline pipeline = new RoutedPipeline(router(master, slave), valid(true));
+
+        PipelineResponse<String> set = pipeline.set("some-key", "some-value");
+        PipelineResponse<String> get = pipeline.get("other-key");
+
+        Assert.assertFalse(set.isDone());
+
+        pipeline.sync();
+
+        verify(masterPipeline).set("some-key", "some-value");
+        verify(masterPipeline).sync();
+        verify(slavePipeline).get("other-key");
+        verify(slavePipeline).sync();
+
+        Assert.assertEquals("OK", set.get());
+        Assert.assertEquals("other-value", get.get());
+    }
+
+    @Test
+    public void testFailsAllResponsesIfTopologyChanged() {
+
+        GenericJedisClient master = mock(GenericJedisClient.class);
+        GenericJedisClient slave = mock(GenericJedisClient.class);
+
+        RoutedPipeline pipeline = new RoutedPipeline(router(master, slave), valid(false));
+
+        PipelineResponse<String> set = pipeline.set("some-key", "some-value");
+        PipelineResponse<String> get = pipeline.get("other-key");
+
+        try {
+            pipeline.sync();
+            Assert.fail("sync should have failed");
+        } catch (PipelineException e) {
+            Assert.assertTrue(set.isFailed());
+            Assert.assertTrue(get.isFailed());
+        }
+
+        verify(master, never()).pipelined();
+        verify(slave, never()).pipelined();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testResponseIsNotAvailableBeforeSync() {
+        RoutedPipeline pipeline = new RoutedPipeline(mock(JedisClient.class));
+        pipeline.get("some-key").get();
+    }
+
+    private static ClientRouter router(final JedisClient master, final JedisClient slave) {
+        return new ClientRouter() {
+            @Override
+            public <R> R doAction(final ClientType type, final ClientFunction<R> function) {
+                return function.apply(type == ClientType.MASTER ? master : slave);
+            }
+
+            @Override
+            public <R> R doAction(final ClientType type, final String[] keys, final ClientFunction<R> function) {
+                return this.doAction(type, function);
+            }
+        };
+    }
+
+    private static Function<Boolean> valid(final boolean valid) {
+        return new Function<Boolean>() {
+            @Override
+            public Boolean apply() {
+                return valid;
+            }
+        };
+    }
+
+}
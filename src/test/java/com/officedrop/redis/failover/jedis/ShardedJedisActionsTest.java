@@ -0,0 +1,161 @@
+package com.officedrop.redis.failover.jedis;
+
+import com.officedrop.redis.failover.utils.DaemonThreadPoolFactory;
+import junit.framework.Assert;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.mockito.Mockito.*;
+
+public class ShardedJedisActionsTest {
+
+    private final ExecutorService executor = DaemonThreadPoolFactory.newCachedPool();
+    private final JedisActions first = mock(JedisActions.class);
+    private final JedisActions second = mock(JedisActions.class);
+    private final ShardedJedisActions actions;
+    private final String firstKey;
+    private final String secondKey;
+    private final String otherSecondKey;
+
+    public ShardedJedisActionsTest() {
+        Map<String, JedisActions> shards = new LinkedHashMap<String, JedisActions>();
+        shards.put("first", this.first);
+        shards.put("second", this.second);
+
+        this.actions = new ShardedJedisActions(new KetamaHashRing<JedisActions>(shards, false), this.executor);
+
+        this.firstKey = this.keyAt("first", 0);
+        this.secondKey = this.keyAt("second", 0);
+        this.otherSecondKey = this.keyAt("second", 1);
+    }
+
+    private String keyAt(String shard, int skip) {
+        for (int x = 0; ; x++) {
+            String key = "key-" + x;
+
+            if (this.actions.getShards().getName(key).equals(shard) && skip-- == 0) {
+                return key;
+            }
+        }
+    }
+
+    private static <T> PipelineResponse<T> response(T value) {
+        PipelineResponse<T> response = new PipelineResponse<T>();
+        response.complete(value);
+        return response;
+    }
+
+    @Test
+    public void testCommandsGoToTheShardOwningTheKey() {
+
+        when(this.first.get(this.firstKey)).thenReturn("first-value");
+        when(this.second.get(this.secondKey)).thenReturn("second-value");
+
+        Assert.assertEquals("first-value", this.actions.get(this.firstKey));
+        Assert.assertEquals("second-value", this.actions.get(this.secondKey));
+
+        verify(this.first, never()).get(this.secondKey);
+        verify(this.second, never()).get(this.firstKey);
+    }
+
+    @Test
+    public void testMultiKeyCommandsAreSplitByShard() {
+
+        when(this.first.mget(this.firstKey)).thenReturn(Arrays.asList("1"));
+        when(this.second.mget(this.secondKey, this.otherSecondKey)).thenReturn(Arrays.asList("2", "3"));
+        when(this.first.del(this.firstKey)).thenReturn(1L);
+        when(this.second.del(this.secondKey, this.otherSecondKey)).thenReturn(2L);
+
+        Assert.assertEquals(
+                Arrays.asList("2", "1", "3"),
+                this.actions.mget(this.secondKey, this.firstKey, this.otherSecondKey));
+        Assert.assertEquals(3L, (long) this.actions.del(this.firstKey, this.secondKey, this.otherSecondKey));
+
+        this.actions.mset(this.firstKey, "a", this.secondKey, "b");
+
+        verify(this.first).mset(this.firstKey, "a");
+        verify(this.second).mset(this.secondKey, "b");
+    }
+
+    @Test
+    public void testKeysAtASingleShardAreSentAsTheyAre() {
+
+        when(this.second.mget(this.otherSecondKey, this.secondKey)).thenReturn(Arrays.asList("3", "2"));
+
+        Assert.assertEquals(Arrays.asList("3", "2"), this.actions.mget(this.otherSecondKey, this.secondKey));
+        verifyZeroInteractions(this.first);
+    }
+
+    @Test
+    public void testPipelinesAreSplitByShardAndMerged() {
+
+        PipelineActions firstPipeline = mock(PipelineActions.class);
+        PipelineActions secondPipeline = mock(PipelineActions.class);
+
+        when(this.first.pipeline()).thenReturn(firstPipeline);
+        when(this.second.pipeline()).thenReturn(secondPipeline);
+        when(firstPipeline.get(this.firstKey)).thenReturn(response("first-value"));
+        when(firstPipeline.mget(this.firstKey)).thenReturn(response(Arrays.asList("1")));
+        when(secondPipeline.mget(this.secondKey)).thenReturn(response(Arrays.asList("2")));
+
+        PipelineActions pipeline = this.actions.pipeline();
+
+        PipelineResponse<String> value = pipeline.get(this.firstKey);
+        PipelineResponse<List<String>> values = pipeline.mget(this.secondKey, this.firstKey);
+
+        Assert.assertFalse(values.isDone());
+
+        pipeline.sync();
+
+        verify(firstPipeline).sync();
+        verify(secondPipeline).sync();
+
+        Assert.assertEquals("first-value", value.get());
+        Assert.assertEquals(Arrays.asList("2", "1"), values.get());
+    }
+
+    @Test
+    public void testFailedSyncWaitsForTheOtherShards() {
+
+        PipelineActions firstPipeline = mock(PipelineActions.class);
+        PipelineActions secondPipeline = mock(PipelineActions.class);
+        final AtomicBoolean secondSynced = new AtomicBoolean();
+
+        when(this.first.pipeline()).thenReturn(firstPipeline);
+        when(this.second.pipeline()).thenReturn(secondPipeline);
+        when(firstPipeline.get(this.firstKey)).thenReturn(new PipelineResponse<String>());
+        when(secondPipeline.get(this.secondKey)).thenReturn(new PipelineResponse<String>());
+        doThrow(new JedisConnectionException("first shard is down")).when(firstPipeline).sync();
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                Thread.sleep(200);
+                secondSynced.set(true);
+                return null;
+            }
+        }).when(secondPipeline).sync();
+
+        PipelineActions pipeline = this.actions.pipeline();
+        pipeline.get(this.firstKey);
+        pipeline.get(this.secondKey);
+
+        try {
+            pipeline.sync();
+            Assert.fail("should have thrown the first shard's failure");
+        } catch (JedisConnectionException e) {
+            Assert.assertEquals("first shard is down", e.getMessage());
+        }
+
+        Assert.assertTrue(secondSynced.get());
+    }
+
+}
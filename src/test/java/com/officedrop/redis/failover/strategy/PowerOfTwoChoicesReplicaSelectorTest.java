@@ -0,0 +1,116 @@
+package com.officedrop.redis.failover.strategy;
+
+import com.officedrop.redis.failover.HostConfiguration;
+import com.officedrop.redis.failover.HostConnectionPool;
+import com.officedrop.redis.failover.NodeState;
+import com.officedrop.redis.failover.jedis.JedisClientFactory;
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.officedrop.redis.failover.utils.JsonBinderTest.*;
+import static org.mockito.Mockito.mock;
+
+public class PowerOfTwoChoicesReplicaSelectorTest {
+
+    private final JedisClientFactory factory = mock(JedisClientFactory.class);
+    private final PowerOfTwoChoicesReplicaSelector selector = new PowerOfTwoChoicesReplicaSelector();
+
+    @Test
+    public void testSlowSlaveReceivesLessReads() {
+
+        HostConnectionPool fast = new HostConnectionPool(configuration7000, factory);
+        HostConnectionPool slow = new HostConnectionPool(configuration7001, factory);
+        HostConnectionPool other = new HostConnectionPool(configuration7002, factory);
+
+        fast.recordLatency(200);
+        other.recordLatency(250);
+        slow.recordLatency(50000);
+
+        List<HostConnectionPool> slaves = Arrays.asList(fast, slow, other);
+
+        int slowCount = 0;
+
+        for (int x = 0; x < 1000; x++) {
+            if (this.selector.select(slaves, null) == slow) {
+                slowCount++;
+            }
+        }
+
+        Assert.assertEquals(0, slowCount);
+    }
+
+    @Test
+    public void testOneSlowSampleDoesNotStarveAReplica() throws Exception {
+
+        HostConnectionPool fast = new HostConnectionPool(configuration7000, factory);
+        HostConnectionPool slow = new HostConnectionPool(configuration7001, factory);
+
+        fast.setLatencyHalfLife(10, TimeUnit.MILLISECONDS);
+        slow.setLatencyHalfLife(10, TimeUnit.MILLISECONDS);
+
+        fast.recordLatency(200);
+        slow.recordLatency(50000);
+
+        List<HostConnectionPool> slaves = Arrays.asList(fast, slow);
+
+        Assert.assertSame(fast, this.selector.select(slaves, null));
+
+        long deadline = System.currentTimeMillis() + 5000;
+        HostConnectionPool selected;
+
+        // the slow replica recovered, only the one getting reads keeps being measured
+        do {
+            selected = this.selector.select(slaves, null);
+            selected.recordLatency(200);
+            Thread.sleep(1);
+        } while (selected != slow && System.currentTimeMillis() < deadline);
+
+        Assert.assertSame(slow, selected);
+        Assert.assertTrue(slow.getLatency() < 50000);
+    }
+
+    @Test
+    public void testSuspectAndExcludedSlavesAreSkipped() {
+
+        HostConnectionPool first = new HostConnectionPool(configuration7000, factory);
+        HostConnectionPool second = new HostConnectionPool(configuration7001, factory);
+        HostConnectionPool third = new HostConnectionPool(configuration7002, factory);
+
+        second.markSuspect();
+
+        List<HostConnectionPool> slaves = Arrays.asList(first, second, third);
+
+        for (int x = 0; x < 100; x++) {
+            Assert.assertSame(third, this.selector.select(slaves, first));
+        }
+
+        third.markSuspect();
+
+        Assert.assertNull(this.selector.select(slaves, first));
+    }
+
+    @Test
+    public void testSeedsLatencyFromNodeStates() {
+
+        HostConnectionPool measured = new HostConnectionPool(configuration7000, factory);
+        HostConnectionPool unmeasured = new HostConnectionPool(configuration7001, factory);
+
+        measured.recordLatency(100);
+
+        Map<HostConfiguration, NodeState> states = new HashMap<HostConfiguration, NodeState>();
+        states.put(configuration7000, new NodeState(5));
+        states.put(configuration7001, new NodeState(3));
+
+        this.selector.replicasChanged(Arrays.asList(measured, unmeasured), states);
+
+        Assert.assertEquals(100d, measured.getLatency());
+        Assert.assertEquals(3000d, unmeasured.getLatency());
+    }
+
+}
@@ -0,0 +1,102 @@
+package com.officedrop.redis.failover.strategy;
+
+import com.officedrop.redis.failover.HostConfiguration;
+import com.officedrop.redis.failover.HostConnectionPool;
+import com.officedrop.redis.failover.jedis.GenericJedisClientFactory;
+import com.officedrop.redis.failover.utils.CircularList;
+import com.officedrop.redis.failover.utils.Function;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares the throughput of the lock based CircularList with the lock-free replica selectors when many
+ * threads select slaves at the same time. It's not a unit test, run it with:
+ *
+ * java -cp target/classes:target/test-classes:... com.officedrop.redis.failover.strategy.ReplicaSelectorBenchmark [threads] [seconds]
+ */
+public class ReplicaSelectorBenchmark {
+
+    public static void main(String[] args) throws Exception {
+
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        long millis = (args.length > 1 ? Long.parseLong(args[1]) : 5) * 1000;
+
+        List<HostConnectionPool> pools = new ArrayList<HostConnectionPool>();
+
+        for (int x = 0; x < 4; x++) {
+            pools.add(new HostConnectionPool(new HostConfiguration("localhost", 7000 + x), GenericJedisClientFactory.INSTANCE));
+        }
+
+        final List<HostConnectionPool> replicas = Collections.unmodifiableList(pools);
+        final CircularList<HostConnectionPool> circularList = new CircularList<HostConnectionPool>(pools);
+
+        run("CircularList", threads, millis, new Function<Object>() {
+            @Override
+            public Object apply() {
+                return circularList.next();
+            }
+        });
+
+        ReplicaSelector[] selectors = {
+                new RoundRobinReplicaSelector(),
+                new WeightedRoundRobinReplicaSelector(new HashMap<HostConfiguration, Integer>()),
+                new RandomReplicaSelector(),
+                new LeastOutstandingReplicaSelector(),
+                new PowerOfTwoChoicesReplicaSelector()
+        };
+
+        for (final ReplicaSelector selector : selectors) {
+            run(selector.getClass().getSimpleName(), threads, millis, new Function<Object>() {
+                @Override
+                public Object apply() {
+                    return selector.select(replicas, null);
+                }
+            });
+        }
+    }
+
+    private static void run(String name, int threads, final long millis, final Function<Object> selection) throws Exception {
+        final AtomicLong operations = new AtomicLong();
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threads);
+
+        for (int x = 0; x < threads; x++) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        long count = 0;
+                        long end = System.currentTimeMillis() + millis;
+
+                        while (System.currentTimeMillis() < end) {
+                            for (int y = 0; y < 1000; y++) {
+                                selection.apply();
+                            }
+                            count += 1000;
+                        }
+
+                        operations.addAndGet(count);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            });
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        start.countDown();
+        done.await();
+
+        System.out.println(String.format("%-40s %,15d ops/s", name, operations.get() * 1000 / millis));
+    }
+
+}
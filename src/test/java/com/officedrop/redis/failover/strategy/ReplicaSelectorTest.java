@@ -0,0 +1,113 @@
+package com.officedrop.redis.failover.strategy;
+
+import com.officedrop.redis.failover.HostConfiguration;
+import com.officedrop.redis.failover.HostConnectionPool;
+import com.officedrop.redis.failover.jedis.JedisClient;
+import com.officedrop.redis.failover.jedis.JedisClientFactory;
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.util.*;
+
+import static com.officedrop.redis.failover.utils.JsonBinderTest.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ReplicaSelectorTest {
+
+    private final JedisClientFactory factory = mock(JedisClientFactory.class);
+
+    private final HostConnectionPool first = new HostConnectionPool(configuration7000, factory);
+    private final HostConnectionPool second = new HostConnectionPool(configuration7001, factory);
+    private final HostConnectionPool third = new HostConnectionPool(configuration7002, factory);
+    private final List<HostConnectionPool> replicas = Arrays.asList(first, second, third);
+
+    @Test
+    public void testRoundRobin() {
+
+        ReplicaSelector selector = new RoundRobinReplicaSelector();
+
+        Assert.assertSame(first, selector.select(replicas, null));
+        Assert.assertSame(second, selector.select(replicas, null));
+        Assert.assertSame(third, selector.select(replicas, null));
+        Assert.assertSame(first, selector.select(replicas, null));
+
+        second.markSuspect();
+
+        Assert.assertSame(third, selector.select(replicas, null));
+        Assert.assertSame(third, selector.select(replicas, null));
+        Assert.assertSame(first, selector.select(replicas, third));
+    }
+
+    @Test
+    public void testWeightedRoundRobin() {
+
+        Map<HostConfiguration, Integer> weights = new HashMap<HostConfiguration, Integer>();
+        weights.put(configuration7000, 3);
+
+        ReplicaSelector selector = new WeightedRoundRobinReplicaSelector(weights);
+
+        Map<HostConnectionPool, Integer> counts = count(selector, 500);
+
+        Assert.assertEquals(300, counts.get(first).intValue());
+        Assert.assertEquals(100, counts.get(second).intValue());
+        Assert.assertEquals(100, counts.get(third).intValue());
+    }
+
+    @Test
+    public void testRandomNeverSelectsUnusableReplicas() {
+
+        ReplicaSelector selector = new RandomReplicaSelector();
+
+        third.markSuspect();
+
+        Map<HostConnectionPool, Integer> counts = count(selector, 200);
+
+        Assert.assertFalse(counts.containsKey(third));
+        Assert.assertEquals(200, counts.get(first) + counts.get(second));
+    }
+
+    @Test
+    public void testLeastOutstanding() {
+
+        when(factory.create(configuration7000)).thenReturn(mock(JedisClient.class));
+        when(factory.create(configuration7002)).thenReturn(mock(JedisClient.class));
+
+        first.borrow();
+        first.borrow();
+        third.borrow();
+
+        ReplicaSelector selector = new LeastOutstandingReplicaSelector();
+
+        for (int x = 0; x < 50; x++) {
+            Assert.assertSame(second, selector.select(replicas, null));
+        }
+
+        Assert.assertSame(third, selector.select(replicas, second));
+    }
+
+    @Test
+    public void testEmptyReplicas() {
+
+        List<HostConnectionPool> empty = Collections.emptyList();
+
+        Assert.assertNull(new RoundRobinReplicaSelector().select(empty, null));
+        Assert.assertNull(new RandomReplicaSelector().select(empty, null));
+        Assert.assertNull(new LeastOutstandingReplicaSelector().select(empty, null));
+        Assert.assertNull(new WeightedRoundRobinReplicaSelector(new HashMap<HostConfiguration, Integer>()).select(empty, null));
+        Assert.assertNull(new PowerOfTwoChoicesReplicaSelector().select(empty, null));
+    }
+
+    private Map<HostConnectionPool, Integer> count(ReplicaSelector selector, int times) {
+        Map<HostConnectionPool, Integer> counts = new HashMap<HostConnectionPool, Integer>();
+
+        for (int x = 0; x < times; x++) {
+            HostConnectionPool selected = selector.select(replicas, null);
+            Integer current = counts.get(selected);
+            counts.put(selected, current == null ? 1 : current + 1);
+        }
+
+        return counts;
+    }
+
+}
@@ -0,0 +1,96 @@
+package com.officedrop.redis.failover.utils;
+
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class ConcurrentSlotsTest {
+
+    @Test
+    public void testTheLastItemAddedIsTakenFirst() {
+
+        ConcurrentSlots<String> slots = new ConcurrentSlots<String>();
+
+        slots.add("first");
+        slots.add("second");
+
+        Assert.assertEquals(2, slots.size());
+        Assert.assertEquals("second", slots.poll());
+        Assert.assertEquals("first", slots.poll());
+        Assert.assertNull(slots.poll());
+        Assert.assertTrue(slots.isEmpty());
+    }
+
+    @Test
+    public void testGrowsPastTheInitialCapacity() {
+
+        ConcurrentSlots<Integer> slots = new ConcurrentSlots<Integer>();
+
+        for (int x = 0; x < 100; x++) {
+            slots.add(x);
+        }
+
+        Assert.assertTrue(slots.remove(50));
+        Assert.assertFalse(slots.remove(50));
+
+        List<Integer> items = slots.drain();
+
+        Assert.assertEquals(99, items.size());
+        Assert.assertEquals(0, slots.size());
+        Assert.assertFalse(items.contains(50));
+    }
+
+    @Test
+    public void testItemsAreNeitherLostNorDuplicatedUnderContention() throws Exception {
+
+        final ConcurrentSlots<Integer> slots = new ConcurrentSlots<Integer>();
+        final int threads = 8;
+        final int items = 1000;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<Future<?>>();
+
+        try {
+            for (int t = 0; t < threads; t++) {
+                final int offset = t * items;
+
+                futures.add(executor.submit(new Callable<Object>() {
+                    @Override
+                    public Object call() {
+                        for (int x = 0; x < items; x++) {
+                            slots.add(offset + x);
+                            Integer taken = slots.poll();
+
+                            if (taken != null) {
+                                slots.add(taken);
+                            }
+                        }
+                        return null;
+                    }
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        List<Integer> drained = slots.drain();
+        Set<Integer> unique = new HashSet<Integer>(drained);
+
+        Assert.assertEquals(threads * items, drained.size());
+        Assert.assertEquals(threads * items, unique.size());
+    }
+
+}